@@ -0,0 +1,66 @@
+package com.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.constant.Types.SideEnum;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Measures the master book's aggregation exports by Strategy, Portfolio and
+ * User for a venue loaded with a synthetic flow.
+ *
+ * @author Zane Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+
+	@Param({ "Strategy", "Portfolio", "User" })
+	public String dimension;
+
+	@Param({ "B", "S" })
+	public SideEnum side;
+
+	@Param({ "100" })
+	public int instrumentCount;
+
+	@Param({ "100" })
+	public int priceSpread;
+
+	@Param({ "200000" })
+	public int messageCount;
+
+	private TradingVenue venue;
+
+	@Setup
+	public void setUp() {
+		List<String> flow = new OrderFlow(instrumentCount, priceSpread, 0.2, 0.1, 42)
+				                .generate(messageCount);
+
+		venue = new TradingVenue();
+		venue.handleOrderMessages(flow);
+	}
+
+	@Benchmark
+	public String aggregateOrders() {
+		return venue.getMasterBook().aggregateOrders(dimension, side);
+	}
+}
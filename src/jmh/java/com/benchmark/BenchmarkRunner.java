@@ -0,0 +1,32 @@
+package com.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that every result is reported
+ * along with its allocation rate (gc.alloc.rate.norm is the number of bytes
+ * allocated per operation).
+ *
+ * Any standard JMH command line options, e.g. a benchmark name pattern or
+ * "-p depth=100", are passed through.
+ *
+ * @author Zane Ali
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args)
+			throws RunnerException, CommandLineOptionException {
+
+		new Runner(new OptionsBuilder()
+				       .parent(new CommandLineOptions(args))
+				       .addProfiler(GCProfiler.class)
+				       .build())
+		    .run();
+	}
+}
@@ -0,0 +1,148 @@
+package com.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+import com.orderBook.Order;
+import com.orderBook.OrderBook;
+import com.orderBook.TickSize;
+import com.tradingVenue.MasterBook;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Measures OrderBook.processOrder for new, cancelled, amended and crossing
+ * orders against books of several depths.
+ *
+ * Every benchmark leaves the book as it found it, so the depth stays constant
+ * for the whole run: a new order is cancelled again, an amend moves an order
+ * between two prices, and a fill is followed by a new order which replaces
+ * the volume taken off the book.
+ *
+ * @author Zane Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+	private static final TickSize TICK_SIZE = TradingVenue.DEFAULT_TICK_SIZE;
+	private static final String BBG_CODE = OrderFlow.bbgCode(0);
+	private static final long MID_PRICE_TICKS = 1_000_000;
+	private static final int VOLUME = 100;
+
+	/**
+	 * The number of price levels on each side.
+	 */
+	@Param({ "10", "100", "1000" })
+	public int depth;
+
+	@Param({ "4" })
+	public int ordersPerLevel;
+
+	private OrderBook book;
+	private MasterBook masterBook;
+
+	private Order[] newOrders;
+	private Order[] cancels;
+	private Order[] amends;
+	private Order aggressor;
+	private Order[] replenishments;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		book = new OrderBook(TICK_SIZE);
+		masterBook = new MasterBook();
+
+		for (int level = 0; level < depth; level++) {
+			for (int i = 0; i < ordersPerLevel; i++) {
+				book.processOrder(order("B" + level + "-" + i, SideEnum.B,
+						                bidPrice(level), ActionEnum.NEW), masterBook);
+				book.processOrder(order("S" + level + "-" + i, SideEnum.S,
+						                askPrice(level), ActionEnum.NEW), masterBook);
+			}
+		}
+
+		// One new order and matching cancel per level, to touch every depth.
+		newOrders = new Order[depth];
+		cancels = new Order[depth];
+		for (int level = 0; level < depth; level++) {
+			newOrders[level] = order("N" + level, SideEnum.B, bidPrice(level),
+					                 ActionEnum.NEW);
+			cancels[level] = order("N" + level, SideEnum.B, bidPrice(level),
+					               ActionEnum.CANCEL);
+		}
+
+		// An order amended back and forth between the best and worst bids.
+		amends = new Order[] {
+				order("A", SideEnum.B, bidPrice(0), ActionEnum.AMEND),
+				order("A", SideEnum.B, bidPrice(depth - 1), ActionEnum.AMEND) };
+		book.processOrder(order("A", SideEnum.B, bidPrice(depth - 1), ActionEnum.NEW),
+				          masterBook);
+
+		// A sell which fills the first order of the best bid, and the orders
+		// which take its place at the back of the queue in turn.
+		aggressor = order("X", SideEnum.S, bidPrice(0), ActionEnum.NEW);
+		replenishments = new Order[ordersPerLevel];
+		for (int i = 0; i < ordersPerLevel; i++)
+			replenishments[i] = order("R" + i, SideEnum.B, bidPrice(0), ActionEnum.NEW);
+	}
+
+	@Benchmark
+	public OrderBook newThenCancel() {
+		int level = next++ % depth;
+		book.processOrder(newOrders[level], masterBook);
+		book.processOrder(cancels[level], masterBook);
+		return book;
+	}
+
+	@Benchmark
+	public OrderBook amend() {
+		Order amend = amends[next++ & 1];
+		amend.setVolume(VOLUME);
+		book.processOrder(amend, masterBook);
+		return book;
+	}
+
+	@Benchmark
+	public OrderBook fillThenReplenish() {
+		aggressor.setVolume(VOLUME);
+		book.processOrder(aggressor, masterBook);
+
+		Order replenishment = replenishments[next++ % ordersPerLevel];
+		replenishment.setVolume(VOLUME);
+		book.processOrder(replenishment, masterBook);
+		return book;
+	}
+
+	private static long bidPrice(int level) {
+		return MID_PRICE_TICKS - 1 - level;
+	}
+
+	private static long askPrice(int level) {
+		return MID_PRICE_TICKS + 1 + level;
+	}
+
+	private static Order order(String tradeId, SideEnum side, long priceTicks,
+			                   ActionEnum action) {
+		return new Order(tradeId, BBG_CODE, "USD", side, priceTicks, TICK_SIZE,
+				         VOLUME, "Port1", action, "Acc1", "Strat1", "User1", 0);
+	}
+}
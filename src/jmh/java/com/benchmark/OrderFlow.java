@@ -0,0 +1,136 @@
+package com.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A synthetic stream of order messages in the CSV layout accepted by the
+ * trading venue, used to drive the benchmarks.
+ *
+ * New orders are spread uniformly over the instruments and placed at random
+ * within a band of ticks around a fixed mid price, so that roughly half of
+ * them cross. A share of the messages cancel or amend an order which was
+ * created earlier in the stream. The stream only depends on its parameters
+ * and seed, so every run sees the same flow.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderFlow {
+
+	private static final String[] PORTFOLIOS = { "Port1", "Port2", "Port3", "Port4" };
+	private static final String[] ACCOUNTS = { "Acc1", "Acc2", "Acc3" };
+	private static final String[] STRATEGIES = { "Strat1", "Strat2", "Strat3", "Strat4", "Strat5" };
+	private static final String[] USERS = { "User1", "User2", "User3", "User4", "User5", "User6" };
+
+	private static final long MID_PRICE_TICKS = 1_000_000;
+
+	private final int instrumentCount;
+	private final int priceSpread;
+	private final double cancelRatio;
+	private final double amendRatio;
+	private final long seed;
+
+	/**
+	 * @param instrumentCount The number of distinct BBGCodes.
+	 * @param priceSpread The width in ticks of the band of limit prices on
+	 * each side of the mid price.
+	 * @param cancelRatio The share of messages which cancel an earlier order.
+	 * @param amendRatio The share of messages which amend an earlier order.
+	 * @param seed
+	 */
+	public OrderFlow(int instrumentCount, int priceSpread, double cancelRatio,
+			         double amendRatio, long seed) {
+		this.instrumentCount = instrumentCount;
+		this.priceSpread = priceSpread;
+		this.cancelRatio = cancelRatio;
+		this.amendRatio = amendRatio;
+		this.seed = seed;
+	}
+
+	/**
+	 * @param instrument
+	 * @return The BBGCode of an instrument of the flow.
+	 */
+	public static String bbgCode(int instrument) {
+		return "BENCH" + instrument + " US EQUITY";
+	}
+
+	/**
+	 * Generates the messages of the flow, without a header line.
+	 *
+	 * @param count The number of messages.
+	 * @return The messages.
+	 */
+	public List<String> generate(int count) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<String> messages = new ArrayList<String>(count);
+		List<String> created = new ArrayList<String>();
+
+		StringBuilder builder = new StringBuilder(160);
+
+		for (int i = 0; i < count; i++) {
+			double draw = random.nextDouble();
+			String action;
+			String tradeId;
+
+			if (!created.isEmpty() && draw < cancelRatio) {
+				action = "CANCEL";
+				tradeId = created.get(random.nextInt(created.size()));
+			} else if (!created.isEmpty() && draw < cancelRatio + amendRatio) {
+				action = "AMEND";
+				tradeId = created.get(random.nextInt(created.size()));
+			} else {
+				action = "NEW";
+				tradeId = "T" + i;
+				created.add(tradeId);
+			}
+
+			// Amends and cancels must stay on the order's instrument and side,
+			// which are derived from its TradeID.
+			int key = tradeId.hashCode() & Integer.MAX_VALUE;
+			int instrument = key % instrumentCount;
+			boolean buy = (key / instrumentCount & 1) == 0;
+
+			long offset = random.nextInt(priceSpread + 1);
+			// Bids sit around and below the mid, asks around and above it.
+			long priceTicks = buy ? MID_PRICE_TICKS - offset + priceSpread / 2
+					              : MID_PRICE_TICKS + offset - priceSpread / 2;
+
+			builder.setLength(0);
+			builder.append(tradeId).append(',')
+			       .append(bbgCode(instrument)).append(",USD,")
+			       .append(buy ? 'B' : 'S').append(',')
+			       .append(priceTicks / 10_000).append('.');
+			appendPadded(builder, priceTicks % 10_000, 4);
+			builder.append(',')
+			       .append(1 + random.nextInt(1_000)).append(',')
+			       .append(PORTFOLIOS[random.nextInt(PORTFOLIOS.length)]).append(',')
+			       .append(action).append(',')
+			       .append(ACCOUNTS[random.nextInt(ACCOUNTS.length)]).append(',')
+			       .append(STRATEGIES[random.nextInt(STRATEGIES.length)]).append(',')
+			       .append(USERS[random.nextInt(USERS.length)]).append(',')
+			       .append("2023-01-02T09:");
+			appendPadded(builder, i / 1_000_000 % 60, 2);
+			builder.append(':');
+			appendPadded(builder, i / 10_000 % 60, 2);
+			builder.append('.');
+			appendPadded(builder, i % 10_000 * 100, 6);
+			builder.append(",20230104");
+
+			messages.add(builder.toString());
+		}
+
+		return messages;
+	}
+
+	private static void appendPadded(StringBuilder builder, long value, int width) {
+		String digits = Long.toString(value);
+
+		for (int i = digits.length(); i < width; i++)
+			builder.append('0');
+
+		builder.append(digits);
+	}
+}
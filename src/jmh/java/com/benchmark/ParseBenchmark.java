@@ -0,0 +1,86 @@
+package com.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tradingVenue.OrderMessage;
+import com.tradingVenue.OrderMessageParser;
+
+/**
+ * Measures the parsing of a single order message, from the raw bytes of a
+ * file and from a String, into a reused OrderMessage.
+ *
+ * @author Zane Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	private static final int MESSAGES = 4096;
+
+	@Param({ "100" })
+	public int instrumentCount;
+
+	private byte[][] lines;
+	private String[] strings;
+	private int next;
+
+	private OrderMessageParser parser;
+	private OrderMessage message;
+
+	@Setup
+	public void setUp() {
+		List<String> flow = new OrderFlow(instrumentCount, 100, 0.2, 0.1, 42)
+				                .generate(MESSAGES);
+
+		strings = flow.toArray(new String[0]);
+		lines = new byte[MESSAGES][];
+		for (int i = 0; i < MESSAGES; i++)
+			lines[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+
+		parser = new OrderMessageParser();
+		message = new OrderMessage();
+	}
+
+	@Benchmark
+	public OrderMessage parseBytes() {
+		byte[] line = lines[next++ & (MESSAGES - 1)];
+		parser.parse(line, 0, line.length, message);
+		return message;
+	}
+
+	@Benchmark
+	public OrderMessage parseString() {
+		parser.parse(strings[next++ & (MESSAGES - 1)], message);
+		return message;
+	}
+
+	/**
+	 * Parses the bytes and creates the TradeID String, as the venue does
+	 * for every order.
+	 */
+	@Benchmark
+	public String parseBytesWithTradeId() {
+		byte[] line = lines[next++ & (MESSAGES - 1)];
+		parser.parse(line, 0, line.length, message);
+		return message.getTradeID();
+	}
+}
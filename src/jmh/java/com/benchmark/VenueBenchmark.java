@@ -0,0 +1,108 @@
+package com.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.constant.Types.SideEnum;
+import com.tradingVenue.OrderMessage;
+import com.tradingVenue.OrderMessageParser;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Measures a whole venue driven by a synthetic flow: the cost per message of
+ * submitting the flow, from text and from pre-parsed messages, and the
+ * aggregation export by BBGCode once the flow has been processed.
+ *
+ * @author Zane Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VenueBenchmark {
+
+	private static final int MESSAGES = 100_000;
+
+	@Param({ "10", "1000" })
+	public int instrumentCount;
+
+	@Param({ "20", "500" })
+	public int priceSpread;
+
+	@Param({ "0.1", "0.4" })
+	public double cancelRatio;
+
+	private String[] messages;
+	private OrderMessage[] parsed;
+
+	// A venue which has processed the whole flow, for the export.
+	private TradingVenue loaded;
+	// A fresh venue for each pass over the flow.
+	private TradingVenue venue;
+
+	@Setup
+	public void setUp() {
+		List<String> flow = new OrderFlow(instrumentCount, priceSpread, cancelRatio,
+				                          0.1, 42).generate(MESSAGES);
+
+		messages = flow.toArray(new String[0]);
+		parsed = new OrderMessage[MESSAGES];
+
+		OrderMessageParser parser = new OrderMessageParser();
+		for (int i = 0; i < MESSAGES; i++) {
+			byte[] line = messages[i].getBytes(StandardCharsets.UTF_8);
+			parsed[i] = new OrderMessage();
+			parser.parse(line, 0, line.length, parsed[i]);
+		}
+
+		loaded = new TradingVenue();
+		loaded.handleOrderMessages(flow);
+	}
+
+	@Setup(Level.Invocation)
+	public void newVenue() {
+		venue = new TradingVenue();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES)
+	public TradingVenue submitText() {
+		for (String message : messages)
+			venue.submitToOrderBook(message);
+
+		return venue;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES)
+	public TradingVenue submitParsed() {
+		for (OrderMessage message : parsed)
+			venue.submitToOrderBook(message);
+
+		return venue;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public String aggregateByBbgCode() {
+		return loaded.aggregateByBbgCode(SideEnum.B);
+	}
+}
@@ -0,0 +1,399 @@
+package com.aggregation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import com.constant.Types.FieldEnum;
+import com.orderBook.BookSide;
+import com.orderBook.Order;
+import com.orderBook.OrderBook;
+import com.util.SymbolTable;
+
+/**
+ * Aggregates the resting volume of a venue's order books by any combination
+ * of BBGCode, side, currency, portfolio, account, strategy, user and price.
+ *
+ * Combinations which are queried often are registered as rollups, which are
+ * kept up to date incrementally: the master book passes on every order which
+ * rests and every fill, cancel and amend which takes volume off the book, and
+ * each rollup adds the change to one cell, keyed by the order's fields as
+ * symbol ids, without allocating. A query for a registered combination only
+ * copies the rollup's cells, and a query for a combination which a rollup
+ * covers (e.g. User alone, from User x Strategy x BBGCode) sums its cells.
+ * Any other combination is answered by scanning the resting orders, with
+ * each side of each book scanned as a separate task.
+ *
+ * The cube belongs to its venue's thread: rollups must be registered, and
+ * queries made, on the thread which submits to the venue (see
+ * ShardedTradingVenue.query for a sharded venue). During a scan the calling
+ * thread waits for the tasks, so the books do not change under them.
+ *
+ * @author Zane Ali
+ *
+ */
+public class AggregationCube {
+
+	// The key of a missing property, e.g. an order without an account.
+	static final long NO_SYMBOL = -1;
+
+	// Below this many resting orders a scan is not worth handing off.
+	private static final int PARALLEL_SCAN_THRESHOLD = 16 * 1024;
+
+	private static final FieldEnum[] FIELDS = FieldEnum.values();
+
+	private final Map<String, OrderBook> orderBooks;
+	private final SymbolTable symbols = new SymbolTable();
+
+	private Rollup[] rollups = new Rollup[0];
+	// The fields any rollup groups by, one bit per field.
+	private int fieldMask;
+	// The key of the order being added, per field.
+	private final long[] values = new long[FIELDS.length];
+
+	/**
+	 * @param orderBooks The venue's order books by BBGCode, which are scanned
+	 * for queries and to fill new rollups.
+	 */
+	public AggregationCube(Map<String, OrderBook> orderBooks) {
+		this.orderBooks = orderBooks;
+	}
+
+	/**
+	 * Starts keeping a rollup for a combination of fields, filled from the
+	 * orders already resting. Registering a combination twice has no effect.
+	 *
+	 * @param groupBy
+	 */
+	public void register(GroupBy groupBy) {
+		if (find(groupBy) != null)
+			return;
+
+		Rollup rollup = new Rollup(groupBy);
+		fill(rollup);
+
+		rollups = Arrays.copyOf(rollups, rollups.length + 1);
+		rollups[rollups.length - 1] = rollup;
+		fieldMask |= groupBy.getMask();
+	}
+
+	/**
+	 * Stops keeping the rollup for a combination of fields.
+	 *
+	 * @param groupBy
+	 * @return Whether the combination was registered.
+	 */
+	public boolean unregister(GroupBy groupBy) {
+		List<Rollup> kept = new ArrayList<Rollup>();
+		int mask = 0;
+
+		for (Rollup rollup : rollups) {
+			if (!rollup.groupBy.equals(groupBy)) {
+				kept.add(rollup);
+				mask |= rollup.groupBy.getMask();
+			}
+		}
+
+		boolean removed = kept.size() < rollups.length;
+		rollups = kept.toArray(new Rollup[0]);
+		fieldMask = mask;
+		return removed;
+	}
+
+	public List<GroupBy> getRegistered() {
+		List<GroupBy> registered = new ArrayList<GroupBy>();
+		for (Rollup rollup : rollups)
+			registered.add(rollup.groupBy);
+
+		return registered;
+	}
+
+	/**
+	 * Recomputes every rollup from the resting orders, e.g. once the books
+	 * have been restored from a snapshot.
+	 */
+	public void rebuild() {
+		for (Rollup rollup : rollups) {
+			rollup.table = new GroupTable(rollup.groupBy.size());
+			fill(rollup);
+		}
+	}
+
+	/**
+	 * Adds volume of an order to every rollup. Called by the master book for
+	 * an order which has come to rest and, with a negative volume, for volume
+	 * which has left the book.
+	 *
+	 * @param order
+	 * @param volume
+	 */
+	public void addVolume(Order order, long volume) {
+		if (rollups.length == 0)
+			return;
+
+		loadValues(order, fieldMask, symbols, values);
+
+		for (Rollup rollup : rollups)
+			rollup.add(values, volume);
+	}
+
+	/**
+	 * Aggregates the resting volume by a combination of fields, scanning on
+	 * the common fork-join pool if no rollup covers it.
+	 *
+	 * @param groupBy
+	 * @return The volume per group.
+	 */
+	public CubeResult query(GroupBy groupBy) {
+		return query(groupBy, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Aggregates the resting volume by a combination of fields, from its own
+	 * rollup, or else the smallest rollup which covers it, or else a scan.
+	 *
+	 * @param groupBy
+	 * @param executor The executor which runs the tasks of a scan.
+	 * @return The volume per group.
+	 */
+	public CubeResult query(GroupBy groupBy, Executor executor) {
+		Rollup exact = find(groupBy);
+		if (exact != null)
+			return CubeResult.of(groupBy, exact.table, symbols);
+
+		Rollup covering = null;
+		for (Rollup rollup : rollups) {
+			if (rollup.groupBy.covers(groupBy)
+				&& (covering == null || rollup.table.capacity() < covering.table.capacity()))
+				covering = rollup;
+		}
+
+		if (covering != null)
+			return CubeResult.of(groupBy, rollUp(covering, groupBy), symbols);
+
+		return scan(groupBy, executor);
+	}
+
+	/**
+	 * Aggregates the resting volume by a combination of fields by scanning
+	 * every resting order, ignoring the rollups.
+	 *
+	 * @param groupBy
+	 * @param executor The executor which runs one task per side of each book.
+	 * @return The volume per group.
+	 */
+	public CubeResult scan(GroupBy groupBy, Executor executor) {
+		List<BookSide> sides = new ArrayList<BookSide>();
+		int orderCount = 0;
+
+		for (OrderBook orderBook : orderBooks.values()) {
+			for (BookSide side : new BookSide[] {orderBook.getBids(), orderBook.getAsks()}) {
+				if (!side.isEmpty()) {
+					sides.add(side);
+					orderCount += side.getOrderCount();
+				}
+			}
+		}
+
+		if (orderCount < PARALLEL_SCAN_THRESHOLD || sides.size() < 2) {
+			Partial partial = new Partial(groupBy);
+			for (BookSide side : sides)
+				partial.scan(side);
+
+			return CubeResult.of(groupBy, partial.table, partial.symbols);
+		}
+
+		List<CompletableFuture<Partial>> tasks = new ArrayList<CompletableFuture<Partial>>();
+		for (BookSide side : sides) {
+			tasks.add(CompletableFuture.supplyAsync(() -> {
+				Partial partial = new Partial(groupBy);
+				partial.scan(side);
+				return partial;
+			}, executor));
+		}
+
+		// Each task interned its own symbols, so their keys are translated
+		// into one table as they are merged.
+		Partial merged = new Partial(groupBy);
+		long[] key = new long[groupBy.size()];
+
+		for (CompletableFuture<Partial> task : tasks)
+			merged.merge(task.join(), key);
+
+		return CubeResult.of(groupBy, merged.table, merged.symbols);
+	}
+
+	private Rollup find(GroupBy groupBy) {
+		for (Rollup rollup : rollups) {
+			if (rollup.groupBy.equals(groupBy))
+				return rollup;
+		}
+
+		return null;
+	}
+
+	private void fill(Rollup rollup) {
+		long[] orderValues = new long[FIELDS.length];
+
+		for (OrderBook orderBook : orderBooks.values()) {
+			for (Order order : orderBook.getBids())
+				rollup.add(loadValues(order, rollup.groupBy.getMask(), symbols,
+						              orderValues), order.getVolume());
+			for (Order order : orderBook.getAsks())
+				rollup.add(loadValues(order, rollup.groupBy.getMask(), symbols,
+						              orderValues), order.getVolume());
+		}
+	}
+
+	/**
+	 * Sums the cells of a rollup into the cells of a combination it covers.
+	 */
+	private static GroupTable rollUp(Rollup rollup, GroupBy groupBy) {
+		int width = groupBy.size();
+		int[] columns = new int[width];
+		for (int i = 0; i < width; i++)
+			columns[i] = rollup.groupBy.indexOf(groupBy.getField(i));
+
+		GroupTable source = rollup.table;
+		GroupTable target = new GroupTable(width);
+		long[] key = new long[width];
+
+		for (int slot = 0; slot < source.capacity(); slot++) {
+			if (!source.isUsed(slot) || source.getVolume(slot) == 0)
+				continue;
+
+			for (int i = 0; i < width; i++)
+				key[i] = source.getKey(slot, columns[i]);
+
+			target.add(key, source.getVolume(slot));
+		}
+
+		return target;
+	}
+
+	/**
+	 * Fills in the key of each of the given fields of an order.
+	 *
+	 * @return The values, indexed by field ordinal.
+	 */
+	private static long[] loadValues(Order order, int mask, SymbolTable symbols,
+			                         long[] values) {
+		for (FieldEnum field : FIELDS) {
+			if ((mask & (1 << field.ordinal())) == 0)
+				continue;
+
+			long value;
+			switch (field) {
+			    case BBGCODE:
+			    	value = symbolId(symbols, order.getBbgCode());
+			    	break;
+			    case SIDE:
+			    	value = order.getSide().ordinal();
+			    	break;
+			    case CURRENCY:
+			    	value = symbolId(symbols, order.getCurrency());
+			    	break;
+			    case PORTFOLIO:
+			    	value = symbolId(symbols, order.getPortfolio());
+			    	break;
+			    case ACCOUNT:
+			    	value = symbolId(symbols, order.getAccount());
+			    	break;
+			    case STRATEGY:
+			    	value = symbolId(symbols, order.getStrategy());
+			    	break;
+			    case USER:
+			    	value = symbolId(symbols, order.getUser());
+			    	break;
+			    default:
+			    	value = order.getTickSize().toCanonical(order.getPriceTicks());
+			}
+
+			values[field.ordinal()] = value;
+		}
+
+		return values;
+	}
+
+	private static long symbolId(SymbolTable symbols, String symbol) {
+		return symbol == null ? NO_SYMBOL : symbols.intern(symbol);
+	}
+
+	/**
+	 * The cells of one registered combination of fields.
+	 */
+	private static class Rollup {
+
+		private final GroupBy groupBy;
+		private final int[] fields;
+		private final long[] key;
+		private GroupTable table;
+
+		Rollup(GroupBy groupBy) {
+			this.groupBy = groupBy;
+			this.fields = new int[groupBy.size()];
+			this.key = new long[groupBy.size()];
+			this.table = new GroupTable(groupBy.size());
+
+			for (int i = 0; i < fields.length; i++)
+				fields[i] = groupBy.getField(i).ordinal();
+		}
+
+		void add(long[] values, long volume) {
+			for (int i = 0; i < fields.length; i++)
+				key[i] = values[fields[i]];
+
+			table.add(key, volume);
+		}
+	}
+
+	/**
+	 * The cells of one scan task, keyed by the task's own symbol ids.
+	 */
+	private static class Partial {
+
+		private final GroupBy groupBy;
+		private final SymbolTable symbols = new SymbolTable();
+		private final GroupTable table;
+		private final Rollup cells;
+
+		Partial(GroupBy groupBy) {
+			this.groupBy = groupBy;
+			this.cells = new Rollup(groupBy);
+			this.table = cells.table;
+		}
+
+		void scan(BookSide side) {
+			long[] values = new long[FIELDS.length];
+
+			for (Order order : side)
+				cells.add(loadValues(order, groupBy.getMask(), symbols, values),
+						  order.getVolume());
+		}
+
+		void merge(Partial other, long[] key) {
+			GroupTable source = other.table;
+
+			for (int slot = 0; slot < source.capacity(); slot++) {
+				if (!source.isUsed(slot))
+					continue;
+
+				for (int column = 0; column < key.length; column++) {
+					long value = source.getKey(slot, column);
+
+					if (!CubeResult.isNumeric(groupBy.getField(column))
+						&& value != NO_SYMBOL)
+						value = symbols.intern(other.symbols.symbol((int) value));
+
+					key[column] = value;
+				}
+
+				table.add(key, source.getVolume(slot));
+			}
+		}
+	}
+}
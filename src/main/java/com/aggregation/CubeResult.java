@@ -0,0 +1,252 @@
+package com.aggregation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.constant.Types.FieldEnum;
+import com.constant.Types.SideEnum;
+import com.orderBook.TickSize;
+import com.util.SymbolTable;
+
+/**
+ * The resting volume per group of one aggregation, e.g. per User, Strategy
+ * and BBGCode, sorted by the group's fields in column order. Groups with no
+ * volume are left out.
+ *
+ * A result is a copy, so it can be read on any thread while the venue it came
+ * from carries on.
+ *
+ * @author Zane Ali
+ *
+ */
+public class CubeResult {
+
+	private static final SideEnum[] SIDES = SideEnum.values();
+
+	private final GroupBy groupBy;
+	private final int rowCount;
+
+	// Per row and column: the symbol of a symbol field, or the side ordinal
+	// or canonical price of a numeric field.
+	private final String[] symbols;
+	private final long[] numbers;
+	private final long[] volumes;
+
+	private CubeResult(GroupBy groupBy, int rowCount, String[] symbols,
+			           long[] numbers, long[] volumes) {
+		this.groupBy = groupBy;
+		this.rowCount = rowCount;
+		this.symbols = symbols;
+		this.numbers = numbers;
+		this.volumes = volumes;
+	}
+
+	/**
+	 * Copies the non-zero cells of a table out into a sorted result. This must
+	 * be called on the thread which owns the table and symbol table.
+	 */
+	static CubeResult of(GroupBy groupBy, GroupTable table, SymbolTable symbolTable) {
+		int width = groupBy.size();
+
+		int count = 0;
+		for (int slot = 0; slot < table.capacity(); slot++) {
+			if (table.isUsed(slot) && table.getVolume(slot) != 0)
+				count++;
+		}
+
+		String[] symbols = new String[count * width];
+		long[] numbers = new long[count * width];
+		long[] volumes = new long[count];
+
+		int row = 0;
+		for (int slot = 0; slot < table.capacity(); slot++) {
+			if (!table.isUsed(slot) || table.getVolume(slot) == 0)
+				continue;
+
+			for (int column = 0; column < width; column++) {
+				long key = table.getKey(slot, column);
+
+				if (isNumeric(groupBy.getField(column)))
+					numbers[row * width + column] = key;
+				else if (key != AggregationCube.NO_SYMBOL)
+					symbols[row * width + column] = symbolTable.symbol((int) key);
+			}
+
+			volumes[row++] = table.getVolume(slot);
+		}
+
+		return new CubeResult(groupBy, count, symbols, numbers, volumes).sorted();
+	}
+
+	/**
+	 * Combines results of the same group-by, e.g. from the shards of a venue,
+	 * adding the volumes of groups which appear in more than one.
+	 *
+	 * @param groupBy
+	 * @param parts
+	 * @return The combined result.
+	 */
+	public static CubeResult combine(GroupBy groupBy, List<CubeResult> parts) {
+		int width = groupBy.size();
+		SymbolTable symbolTable = new SymbolTable();
+		GroupTable table = new GroupTable(width);
+		long[] key = new long[width];
+
+		for (CubeResult part : parts) {
+			if (!part.groupBy.equals(groupBy))
+				throw new IllegalArgumentException("Cannot combine " + part.groupBy
+						                           + " into " + groupBy);
+
+			for (int row = 0; row < part.rowCount; row++) {
+				for (int column = 0; column < width; column++) {
+					int index = row * width + column;
+					String symbol = part.symbols[index];
+
+					if (isNumeric(groupBy.getField(column)))
+						key[column] = part.numbers[index];
+					else
+						key[column] = symbol == null ? AggregationCube.NO_SYMBOL
+								                     : symbolTable.intern(symbol);
+				}
+
+				table.add(key, part.volumes[row]);
+			}
+		}
+
+		return of(groupBy, table, symbolTable);
+	}
+
+	public GroupBy getGroupBy() {
+		return groupBy;
+	}
+
+	/**
+	 * @return The number of groups.
+	 */
+	public int size() {
+		return rowCount;
+	}
+
+	/**
+	 * @param row
+	 * @param column
+	 * @return The value of a group's field as it appears in files, e.g. a
+	 * User, B or S for the side, or a price. A missing property is empty.
+	 */
+	public String getValue(int row, int column) {
+		int index = row * groupBy.size() + column;
+
+		switch (groupBy.getField(column)) {
+		    case SIDE:
+		    	return SIDES[(int) numbers[index]].name();
+		    case PRICE:
+		    	return TickSize.appendCanonical(new StringBuilder(24), numbers[index])
+		    			       .toString();
+		    default:
+		    	return symbols[index] == null ? "" : symbols[index];
+		}
+	}
+
+	public long getVolume(int row) {
+		return volumes[row];
+	}
+
+	/**
+	 * @param values The value of every field of a group, in column order, as
+	 * returned by getValue.
+	 * @return The volume of the group, or zero if it has none.
+	 */
+	public long getVolume(String... values) {
+		if (values.length != groupBy.size())
+			throw new IllegalArgumentException("Expected " + groupBy.size() + " values");
+
+		for (int row = 0; row < rowCount; row++) {
+			int column = 0;
+			while (column < values.length && values[column].equals(getValue(row, column)))
+				column++;
+
+			if (column == values.length)
+				return volumes[row];
+		}
+
+		return 0;
+	}
+
+	public long getTotalVolume() {
+		long total = 0;
+		for (int row = 0; row < rowCount; row++)
+			total += volumes[row];
+
+		return total;
+	}
+
+	/**
+	 * @return The aggregation in a String CSV format, with a header line,
+	 * in the order "field,...,AggregatedVolume".
+	 */
+	public String toCsv() {
+		StringBuilder builder = new StringBuilder(64 + rowCount * 48);
+
+		builder.append(groupBy).append(",AggregatedVolume\n");
+
+		for (int row = 0; row < rowCount; row++) {
+			for (int column = 0; column < groupBy.size(); column++)
+				builder.append(getValue(row, column)).append(',');
+
+			builder.append(volumes[row]).append('\n');
+		}
+
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toCsv();
+	}
+
+	private CubeResult sorted() {
+		int width = groupBy.size();
+		Integer[] order = new Integer[rowCount];
+		for (int row = 0; row < rowCount; row++)
+			order[row] = row;
+
+		Arrays.sort(order, (a, b) -> {
+			for (int column = 0; column < width; column++) {
+				int compared = compare(a * width + column, b * width + column,
+						               groupBy.getField(column));
+				if (compared != 0)
+					return compared;
+			}
+
+			return 0;
+		});
+
+		String[] sortedSymbols = new String[symbols.length];
+		long[] sortedNumbers = new long[numbers.length];
+		long[] sortedVolumes = new long[rowCount];
+
+		for (int row = 0; row < rowCount; row++) {
+			System.arraycopy(symbols, order[row] * width, sortedSymbols, row * width, width);
+			System.arraycopy(numbers, order[row] * width, sortedNumbers, row * width, width);
+			sortedVolumes[row] = volumes[order[row]];
+		}
+
+		return new CubeResult(groupBy, rowCount, sortedSymbols, sortedNumbers,
+				              sortedVolumes);
+	}
+
+	private int compare(int a, int b, FieldEnum field) {
+		if (isNumeric(field))
+			return Long.compare(numbers[a], numbers[b]);
+
+		// A missing property sorts first.
+		if (symbols[a] == null || symbols[b] == null)
+			return symbols[a] == null ? (symbols[b] == null ? 0 : -1) : 1;
+
+		return symbols[a].compareTo(symbols[b]);
+	}
+
+	static boolean isNumeric(FieldEnum field) {
+		return field == FieldEnum.SIDE || field == FieldEnum.PRICE;
+	}
+}
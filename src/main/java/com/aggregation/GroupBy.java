@@ -0,0 +1,130 @@
+package com.aggregation;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.constant.Types.FieldEnum;
+
+/**
+ * An ordered combination of the order properties to group resting volume by,
+ * e.g. User, Strategy and BBGCode. The order of the fields is the order of
+ * the columns in an aggregation, but two group-bys with the same fields in a
+ * different order cover each other (see covers).
+ *
+ * @author Zane Ali
+ *
+ */
+public final class GroupBy {
+
+	private final FieldEnum[] fields;
+	// One bit per field, by ordinal.
+	private final int mask;
+
+	private GroupBy(FieldEnum[] fields) {
+		if (fields.length == 0)
+			throw new IllegalArgumentException("A group-by needs at least one field");
+
+		int mask = 0;
+		for (FieldEnum field : fields) {
+			int bit = 1 << field.ordinal();
+
+			if ((mask & bit) != 0)
+				throw new IllegalArgumentException("The field " + field
+						                           + " appears more than once");
+			mask |= bit;
+		}
+
+		this.fields = fields;
+		this.mask = mask;
+	}
+
+	public static GroupBy of(FieldEnum... fields) {
+		return new GroupBy(fields.clone());
+	}
+
+	/**
+	 * @param fields A comma-separated list of field names in any case, e.g.
+	 * "User,Strategy,BBGCode".
+	 * @return The group-by.
+	 * @throws IllegalArgumentException if a name is not a field.
+	 */
+	public static GroupBy parse(String fields) {
+		String[] names = fields.split(",");
+		FieldEnum[] parsed = new FieldEnum[names.length];
+
+		for (int i = 0; i < names.length; i++)
+			parsed[i] = FieldEnum.valueOf(names[i].trim().toUpperCase(Locale.ROOT));
+
+		return new GroupBy(parsed);
+	}
+
+	public int size() {
+		return fields.length;
+	}
+
+	public FieldEnum getField(int column) {
+		return fields[column];
+	}
+
+	/**
+	 * @param field
+	 * @return The column of a field, or -1 if it is not grouped by.
+	 */
+	public int indexOf(FieldEnum field) {
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i] == field)
+				return i;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @param other
+	 * @return Whether every field of the other group-by is also a field of
+	 * this one, i.e. whether this aggregation can be rolled up into the other.
+	 */
+	public boolean covers(GroupBy other) {
+		return (mask & other.mask) == other.mask;
+	}
+
+	int getMask() {
+		return mask;
+	}
+
+	/**
+	 * @param field
+	 * @return The name of a field as it appears in files, e.g. BBGCode or
+	 * Strategy.
+	 */
+	public static String displayName(FieldEnum field) {
+		if (field == FieldEnum.BBGCODE)
+			return "BBGCode";
+
+		String name = field.name();
+		return name.charAt(0) + name.substring(1).toLowerCase(Locale.ROOT);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof GroupBy && Arrays.equals(fields, ((GroupBy) o).fields);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(fields);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0)
+				builder.append(',');
+			builder.append(displayName(fields[i]));
+		}
+
+		return builder.toString();
+	}
+}
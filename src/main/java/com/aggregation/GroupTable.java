@@ -0,0 +1,125 @@
+package com.aggregation;
+
+/**
+ * An open-addressing hash table from a fixed number of long key columns (one
+ * per field of a group-by) to a volume, used for the cells of an aggregation.
+ *
+ * The keys are stored flat, a row of columns per slot, so adding to an
+ * existing cell never allocates. Cells are never removed, since a group which
+ * has had orders on the book is likely to have them again; a cell whose
+ * volume returns to zero is simply skipped when the table is read.
+ *
+ * A group table is not thread-safe.
+ *
+ * @author Zane Ali
+ *
+ */
+final class GroupTable {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final int width;
+
+	private long[] keys;
+	private long[] volumes;
+	private boolean[] used;
+	private int mask;
+	private int size;
+
+	GroupTable(int width) {
+		this.width = width;
+		allocate(INITIAL_CAPACITY);
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return The number of slots, used or not, to iterate over.
+	 */
+	int capacity() {
+		return volumes.length;
+	}
+
+	boolean isUsed(int slot) {
+		return used[slot];
+	}
+
+	long getKey(int slot, int column) {
+		return keys[slot * width + column];
+	}
+
+	long getVolume(int slot) {
+		return volumes[slot];
+	}
+
+	/**
+	 * Adds volume to the cell of a key, creating the cell if needed.
+	 *
+	 * @param key The key columns, of which the first width are used.
+	 * @param volume
+	 */
+	void add(long[] key, long volume) {
+		int slot = hash(key) & mask;
+
+		while (used[slot]) {
+			if (matches(slot, key)) {
+				volumes[slot] += volume;
+				return;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		System.arraycopy(key, 0, keys, slot * width, width);
+		volumes[slot] = volume;
+		used[slot] = true;
+
+		if (++size * 2 > volumes.length)
+			resize();
+	}
+
+	private boolean matches(int slot, long[] key) {
+		int base = slot * width;
+
+		for (int i = 0; i < width; i++) {
+			if (keys[base + i] != key[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	private int hash(long[] key) {
+		long hash = 0;
+		for (int i = 0; i < width; i++)
+			hash = (hash + key[i]) * 0x9E3779B97F4A7C15L;
+
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		long[] oldVolumes = volumes;
+		boolean[] oldUsed = used;
+		long[] key = new long[width];
+
+		allocate(oldVolumes.length * 2);
+		size = 0;
+
+		for (int slot = 0; slot < oldVolumes.length; slot++) {
+			if (oldUsed[slot]) {
+				System.arraycopy(oldKeys, slot * width, key, 0, width);
+				add(key, oldVolumes[slot]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity * width];
+		volumes = new long[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+	}
+}
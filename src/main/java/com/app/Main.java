@@ -1,16 +1,16 @@
 package com.app;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
-import com.constant.Types.SideEnum;
+import com.export.AggregationExport;
+import com.tradingVenue.MalformedOrderMessageException;
 import com.tradingVenue.TradingVenue;
-import com.util.OrderFileReader;
+import com.util.OrderFileLoader;
 
 /**
 * The main class used to interface with the trading venue via a simple 
@@ -88,6 +88,8 @@ public class Main {
                     try {
                     	venue.submitToOrderBook(message);
                     	System.out.println("\nThe message was processed by the venue.");
+                    } catch (MalformedOrderMessageException e) {
+                    	System.out.println("\nThe message was not accepted. " + e.getMessage() + ".");
                     } catch (Exception e) {
                     	System.out.println("\nThe message was not accepted. Please check the formatting of your message.");
                     }
@@ -143,25 +145,24 @@ public class Main {
 	 **/
     public static void loadSampleData (TradingVenue venue) {
     	
-    	OrderFileReader reader;
-    	List<String> orderMessages = null;
         String readPath = "src/main/data/resources/sample_trades.csv";
         
         try {
-			reader = new OrderFileReader(readPath);
-			orderMessages = reader.loadOrderMessagesToList(true);
-		} catch (FileNotFoundException e) {
+        	OrderFileLoader loader = new OrderFileLoader(Paths.get(readPath));
+        	loader.load(true, venue::submitToOrderBook);
+		} catch (IOException e) {
 			e.printStackTrace();
 			return;		
 		}
-    	
-		venue.handleOrderMessages(orderMessages);
     }
     
     
 	/**
 	 * A helper method which writes bid and ask aggregation data into 
 	 * CSV files per an input property.
+	 * 
+	 * The aggregations are captured from the venue first, and the bid and 
+	 * ask files are then streamed to disk in parallel.
 	 *  	 
 	 * @param venue The trading venue from which orders are extracted.
 	 * @param aggregateBy The parameter to be used to aggregate the data.
@@ -170,36 +171,15 @@ public class Main {
     		                                    String aggregateBy) 
     {
     	
-        String bidAggregations = "";
-        String askAggregations = "";
-    	   	
         String writePath = "src/main/data/output/";      
 
+        AggregationExport export = AggregationExport.capture(venue);
         
-        if(aggregateBy == "BBGCode") {
-        	bidAggregations = venue.aggregateByBbgCode(SideEnum.B);
-        	askAggregations = venue.aggregateByBbgCode(SideEnum.S);
-        } else {
-        	bidAggregations = venue.getMasterBook().
-        			             aggregateOrders(aggregateBy, SideEnum.B); 
-            askAggregations = venue.getMasterBook().
-            		              aggregateOrders(aggregateBy, SideEnum.S);                	
-        }
-        
-        
-    	try {
-			Files.write(Paths.get(writePath + "BidAggregationsPer" + aggregateBy
-                                 + ".csv"), bidAggregations.getBytes());
-		} catch (IOException e) {
-			e.printStackTrace();
-			return;
-		}
-    	        
     	try {
-			Files.write(Paths.get(writePath + "AskAggregationsPer" + aggregateBy 
-					              + ".csv"), askAggregations.getBytes());
-		} catch (IOException e) {
-			e.printStackTrace();
+    		export.write(aggregateBy, Paths.get(writePath),
+    				     ForkJoinPool.commonPool()).join();
+    	} catch (CompletionException e) {
+			e.getCause().printStackTrace();
 			return;
 		}
     }
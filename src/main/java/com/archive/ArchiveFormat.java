@@ -0,0 +1,74 @@
+package com.archive;
+
+/**
+ * The layout of the columnar archives written by OrderArchive and FillArchive
+ * and read by ArchiveReader.
+ *
+ * An archive is a column file (name.col) and a symbol dictionary (name.dict).
+ * The column file starts with a header of a magic number, a version and the
+ * number of columns, followed by blocks of up to BLOCK_ROWS rows, each with
+ * every column stored separately:
+ *
+ *  int rowCount, then per column: byte encoding, long min, long max and
+ *  int length, followed by the encoded columns in order
+ *
+ * Each column of a block is encoded in whichever of the encodings is smallest
+ * for it: PLAIN (a zigzag varint per value), DELTA (the first value and then
+ * the zigzag varint difference from the previous value, for times and
+ * prices) or RLE (pairs of a zigzag varint value and a varint run length, for
+ * instruments, users and sides). The min and max of every column let a scan
+ * skip a whole block which is outside the range it asks for.
+ *
+ * The first four columns of every archive are the same, so that one reader
+ * can roll up either: the time in nanoseconds since the epoch, the BBGCode
+ * symbol id, the price in ticks and the volume.
+ *
+ * The dictionary is a list of symbols in id order, each a short length and
+ * UTF-8 bytes. The symbols a block uses are appended to it before the block,
+ * so a block never refers to an id the dictionary does not hold.
+ *
+ * @author Zane Ali
+ *
+ */
+final class ArchiveFormat {
+
+	static final int MAGIC = 0x5442434C;
+	static final int VERSION = 1;
+	static final int HEADER_LENGTH = 4 + 4 + 4;
+
+	static final int BLOCK_ROWS = 8 * 1024;
+
+	// The bytes of a block's header before its columns' entries, and of each
+	// column's entry.
+	static final int BLOCK_HEADER_LENGTH = 4;
+	static final int COLUMN_ENTRY_LENGTH = 1 + 8 + 8 + 4;
+
+	static final byte PLAIN = 0;
+	static final byte DELTA = 1;
+	static final byte RLE = 2;
+
+	static final int TIME = 0;
+	static final int BBG_CODE = 1;
+	static final int PRICE = 2;
+	static final int VOLUME = 3;
+
+	// The remaining columns of an order archive.
+	static final int ORDER_USER = 4;
+	static final int ORDER_SIDE = 5;
+	static final int ORDER_ACTION = 6;
+	static final int ORDER_COLUMNS = 7;
+
+	// The remaining columns of a fill archive.
+	static final int FILL_AGGRESSOR_USER = 4;
+	static final int FILL_AGGRESSOR_SIDE = 5;
+	static final int FILL_PASSIVE_USER = 6;
+	static final int FILL_COLUMNS = 7;
+
+	static final int NO_SYMBOL = -1;
+
+	static final String COLUMN_SUFFIX = ".col";
+	static final String DICTIONARY_SUFFIX = ".dict";
+
+	private ArchiveFormat() {
+	}
+}
@@ -0,0 +1,451 @@
+package com.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reads an archive written by an OrderArchive or a FillArchive, and rolls up
+ * its volume and prices per BBGCode over a range of time.
+ *
+ * Opening an archive memory-maps its column file, in segments of whole blocks
+ * so that files larger than a single mapping can be read, and reads the
+ * header of every block into primitive arrays. A rollup then checks each
+ * block's min and max time and BBGCode against the query and skips the blocks
+ * which cannot match without touching their columns. The remaining blocks are
+ * shared out between tasks, each of which decodes only the four columns it
+ * needs into arrays of its own and sums them per BBGCode, and the tasks'
+ * sums are added together at the end.
+ *
+ * The reader sees the blocks which were complete when it was opened. It can
+ * be used from several threads at once.
+ *
+ * @author Zane Ali
+ *
+ */
+public class ArchiveReader implements AutoCloseable {
+
+	// The most bytes of the file one mapping covers.
+	private static final long MAX_SEGMENT_LENGTH = 1L << 30;
+
+	// How many tasks a rollup is split into per thread of its executor's
+	// pool, so that uneven blocks even out.
+	private static final int TASKS_PER_THREAD = 4;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final int columnCount;
+
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private final List<String> symbols = new ArrayList<String>();
+	private final Map<String, Integer> symbolIds = new HashMap<String, Integer>();
+
+	private int blockCount;
+	private long rowCount;
+	private long validLength;
+	private long dictionaryLength;
+
+	// Per block.
+	private int[] blockSegments = new int[64];
+	private int[] blockRows = new int[64];
+	// Per block and column, at block * columnCount + column.
+	private int[] columnOffsets = new int[64];
+	private int[] columnLengths = new int[64];
+	private byte[] columnEncodings = new byte[64];
+	private long[] columnMins = new long[64];
+	private long[] columnMaxes = new long[64];
+
+	/**
+	 * Opens the order archive in a directory (see OrderArchive).
+	 *
+	 * @param directory
+	 * @return The reader.
+	 * @throws IOException if the archive cannot be read.
+	 */
+	public static ArchiveReader openOrders(Path directory) throws IOException {
+		return new ArchiveReader(directory.resolve(OrderArchive.NAME
+				                                   + ArchiveFormat.COLUMN_SUFFIX));
+	}
+
+	/**
+	 * Opens the fill archive in a directory (see FillArchive).
+	 *
+	 * @param directory
+	 * @return The reader.
+	 * @throws IOException if the archive cannot be read.
+	 */
+	public static ArchiveReader openFills(Path directory) throws IOException {
+		return new ArchiveReader(directory.resolve(FillArchive.NAME
+				                                   + ArchiveFormat.COLUMN_SUFFIX));
+	}
+
+	/**
+	 * @param path The column file, next to which the dictionary is found.
+	 * @throws IOException if the archive cannot be read or is not an archive.
+	 */
+	public ArchiveReader(Path path) throws IOException {
+		this.path = path;
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(ArchiveFormat.HEADER_LENGTH);
+			readFully(header, 0);
+
+			if (header.remaining() < ArchiveFormat.HEADER_LENGTH
+				|| header.getInt() != ArchiveFormat.MAGIC)
+				throw new IOException(path + " is not an archive");
+
+			int version = header.getInt();
+			if (version != ArchiveFormat.VERSION)
+				throw new IOException(path + " has unsupported archive version "
+						              + version);
+
+			columnCount = header.getInt();
+			if (columnCount <= ArchiveFormat.VOLUME)
+				throw new IOException(path + " has too few columns");
+
+			readBlocks();
+			readDictionary(dictionaryPath(path));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	static Path dictionaryPath(Path columnFile) {
+		String name = columnFile.getFileName().toString();
+		if (name.endsWith(ArchiveFormat.COLUMN_SUFFIX))
+			name = name.substring(0, name.length() - ArchiveFormat.COLUMN_SUFFIX.length());
+
+		return columnFile.resolveSibling(name + ArchiveFormat.DICTIONARY_SUFFIX);
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return The symbols of the dictionary in id order.
+	 */
+	public List<String> getSymbols() {
+		return Collections.unmodifiableList(symbols);
+	}
+
+	/**
+	 * @return The length of the column file up to the end of its last
+	 * complete block.
+	 */
+	long getValidLength() {
+		return validLength;
+	}
+
+	/**
+	 * @return The length of the dictionary up to the end of its last
+	 * complete symbol.
+	 */
+	long getDictionaryLength() {
+		return dictionaryLength;
+	}
+
+	/**
+	 * Rolls up the whole archive on the common fork-join pool.
+	 *
+	 * @return The volume and prices per BBGCode.
+	 */
+	public ArchiveRollup rollup() {
+		return rollup(Long.MIN_VALUE, Long.MAX_VALUE, Collections.<String>emptyList(),
+				      ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Rolls up a range of time on the common fork-join pool.
+	 *
+	 * @param fromNanos The earliest time to include, in nanoseconds since the
+	 * epoch.
+	 * @param toNanos The time to stop before.
+	 * @param bbgCodes The instruments to include, or none for all of them.
+	 * @return The volume and prices per BBGCode.
+	 */
+	public ArchiveRollup rollup(long fromNanos, long toNanos, String... bbgCodes) {
+		return rollup(fromNanos, toNanos, Arrays.asList(bbgCodes),
+				      ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Rolls up the rows within a range of time, and of some instruments or
+	 * all of them.
+	 *
+	 * @param fromNanos The earliest time to include, in nanoseconds since the
+	 * epoch.
+	 * @param toNanos The time to stop before.
+	 * @param bbgCodes The instruments to include, or an empty collection for
+	 * all of them.
+	 * @param executor The executor which runs the tasks of the rollup.
+	 * @return The volume and prices per BBGCode.
+	 */
+	public ArchiveRollup rollup(long fromNanos, long toNanos, Collection<String> bbgCodes,
+			                    Executor executor) {
+		boolean[] wanted = null;
+		long minId = Long.MIN_VALUE;
+		long maxId = Long.MAX_VALUE;
+
+		if (!bbgCodes.isEmpty()) {
+			wanted = new boolean[symbols.size()];
+			minId = Long.MAX_VALUE;
+			maxId = Long.MIN_VALUE;
+
+			for (String bbgCode : bbgCodes) {
+				Integer id = symbolIds.get(bbgCode);
+				if (id != null) {
+					wanted[id] = true;
+					minId = Math.min(minId, id);
+					maxId = Math.max(maxId, id);
+				}
+			}
+		}
+
+		int[] blocks = new int[blockCount];
+		int candidates = 0;
+
+		for (int block = 0; block < blockCount; block++) {
+			if (max(block, ArchiveFormat.TIME) >= fromNanos
+				&& min(block, ArchiveFormat.TIME) < toNanos
+				&& max(block, ArchiveFormat.BBG_CODE) >= minId
+				&& min(block, ArchiveFormat.BBG_CODE) <= maxId)
+				blocks[candidates++] = block;
+		}
+
+		int threads = executor instanceof ForkJoinPool
+				      ? ((ForkJoinPool) executor).getParallelism() : 1;
+		int taskCount = Math.max(1, Math.min(candidates, threads * TASKS_PER_THREAD));
+
+		List<CompletableFuture<ArchiveRollup>> tasks =
+				new ArrayList<CompletableFuture<ArchiveRollup>>();
+		boolean[] filter = wanted;
+
+		for (int task = 0; task < taskCount; task++) {
+			int from = (int) ((long) candidates * task / taskCount);
+			int to = (int) ((long) candidates * (task + 1) / taskCount);
+
+			tasks.add(CompletableFuture.supplyAsync(() ->
+					scan(blocks, from, to, fromNanos, toNanos, filter), executor));
+		}
+
+		ArchiveRollup result = new ArchiveRollup(symbols, symbolIds);
+		for (CompletableFuture<ArchiveRollup> task : tasks)
+			result.add(task.join());
+
+		result.addSkippedBlocks(blockCount - candidates);
+		return result;
+	}
+
+	/**
+	 * Rolls up a run of candidate blocks on the calling thread.
+	 */
+	private ArchiveRollup scan(int[] blocks, int from, int to, long fromNanos,
+			                   long toNanos, boolean[] wanted) {
+		ArchiveRollup rollup = new ArchiveRollup(symbols, symbolIds);
+		ColumnCodec codec = new ColumnCodec();
+
+		long[] times = new long[ArchiveFormat.BLOCK_ROWS];
+		long[] bbgCodes = new long[ArchiveFormat.BLOCK_ROWS];
+		long[] prices = new long[ArchiveFormat.BLOCK_ROWS];
+		long[] volumes = new long[ArchiveFormat.BLOCK_ROWS];
+
+		for (int i = from; i < to; i++) {
+			int block = blocks[i];
+			int rows = blockRows[block];
+
+			// A block wholly inside the range needs no check of its times.
+			boolean allTimes = min(block, ArchiveFormat.TIME) >= fromNanos
+					           && max(block, ArchiveFormat.TIME) < toNanos;
+
+			if (!allTimes)
+				decode(codec, block, ArchiveFormat.TIME, times);
+			decode(codec, block, ArchiveFormat.BBG_CODE, bbgCodes);
+			decode(codec, block, ArchiveFormat.PRICE, prices);
+			decode(codec, block, ArchiveFormat.VOLUME, volumes);
+
+			for (int row = 0; row < rows; row++) {
+				int bbgCode = (int) bbgCodes[row];
+
+				if ((allTimes || (times[row] >= fromNanos && times[row] < toNanos))
+					&& (wanted == null || wanted[bbgCode]))
+					rollup.addRow(bbgCode, prices[row], volumes[row]);
+			}
+
+			rollup.addScannedBlock();
+		}
+
+		return rollup;
+	}
+
+	private void decode(ColumnCodec codec, int block, int column, long[] out) {
+		int index = block * columnCount + column;
+
+		codec.decode(segments.get(blockSegments[block]), columnOffsets[index],
+				     columnLengths[index], columnEncodings[index], out, blockRows[block]);
+	}
+
+	private long min(int block, int column) {
+		return columnMins[block * columnCount + column];
+	}
+
+	private long max(int block, int column) {
+		return columnMaxes[block * columnCount + column];
+	}
+
+	/**
+	 * Walks the block headers from the start of the file, mapping a new
+	 * segment whenever the next block would not fit in the current one, and
+	 * stops at the first block which is not complete.
+	 */
+	private void readBlocks() throws IOException {
+		long size = channel.size();
+		long position = ArchiveFormat.HEADER_LENGTH;
+		int headerLength = ArchiveFormat.BLOCK_HEADER_LENGTH
+				           + columnCount * ArchiveFormat.COLUMN_ENTRY_LENGTH;
+
+		ByteBuffer header = ByteBuffer.allocate(headerLength);
+		long segmentStart = position;
+		long segmentEnd = position;
+
+		while (position + headerLength <= size) {
+			header.clear();
+			readFully(header, position);
+
+			int rows = header.getInt();
+			if (rows <= 0 || rows > ArchiveFormat.BLOCK_ROWS)
+				break;
+
+			ensureBlocks(blockCount + 1);
+			int base = blockCount * columnCount;
+			long length = headerLength;
+
+			for (int column = 0; column < columnCount; column++) {
+				columnEncodings[base + column] = header.get();
+				columnMins[base + column] = header.getLong();
+				columnMaxes[base + column] = header.getLong();
+				columnLengths[base + column] = header.getInt();
+				length += columnLengths[base + column];
+			}
+
+			if (position + length > size)
+				break;
+
+			if (position + length - segmentStart > MAX_SEGMENT_LENGTH) {
+				mapSegment(segmentStart, segmentEnd);
+				segmentStart = position;
+			}
+
+			long offset = position + headerLength - segmentStart;
+			for (int column = 0; column < columnCount; column++) {
+				columnOffsets[base + column] = (int) offset;
+				offset += columnLengths[base + column];
+			}
+
+			blockSegments[blockCount] = segments.size();
+			blockRows[blockCount] = rows;
+			blockCount++;
+			rowCount += rows;
+
+			position += length;
+			segmentEnd = position;
+		}
+
+		if (segmentEnd > segmentStart)
+			mapSegment(segmentStart, segmentEnd);
+
+		validLength = position;
+	}
+
+	/**
+	 * Reads from a position until the buffer is full or the file ends, and
+	 * flips the buffer.
+	 */
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				break;
+		}
+
+		buffer.flip();
+	}
+
+	private void mapSegment(long start, long end) throws IOException {
+		segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+	}
+
+	private void readDictionary(Path dictionary) throws IOException {
+		if (!Files.exists(dictionary))
+			return;
+
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(dictionary));
+
+		while (bytes.remaining() >= 2) {
+			int length = bytes.getShort(bytes.position()) & 0xFFFF;
+			if (bytes.remaining() < 2 + length)
+				break;
+
+			bytes.position(bytes.position() + 2);
+			String symbol = new String(bytes.array(), bytes.position(), length,
+					                   StandardCharsets.UTF_8);
+			bytes.position(bytes.position() + length);
+
+			symbolIds.put(symbol, symbols.size());
+			symbols.add(symbol);
+		}
+
+		dictionaryLength = bytes.position();
+	}
+
+	private void ensureBlocks(int blocks) {
+		if (blocks > blockRows.length) {
+			int capacity = blockRows.length * 2;
+			blockSegments = Arrays.copyOf(blockSegments, capacity);
+			blockRows = Arrays.copyOf(blockRows, capacity);
+		}
+
+		int columns = blocks * columnCount;
+		if (columns > columnOffsets.length) {
+			int capacity = Math.max(columns, columnOffsets.length * 2);
+			columnOffsets = Arrays.copyOf(columnOffsets, capacity);
+			columnLengths = Arrays.copyOf(columnLengths, capacity);
+			columnEncodings = Arrays.copyOf(columnEncodings, capacity);
+			columnMins = Arrays.copyOf(columnMins, capacity);
+			columnMaxes = Arrays.copyOf(columnMaxes, capacity);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,204 @@
+package com.archive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.orderBook.TickSize;
+
+/**
+ * The rows, volume, volume-weighted average price and price range per BBGCode
+ * of an archive over a range of time, with prices in ticks.
+ *
+ * The sums are kept in arrays indexed by the BBGCode's symbol id, so adding a
+ * row is a handful of array updates.
+ *
+ * @author Zane Ali
+ *
+ */
+public class ArchiveRollup {
+
+	private final List<String> symbols;
+	private final Map<String, Integer> symbolIds;
+
+	private long[] rows;
+	private long[] volumes;
+	// The sum of price in ticks times volume.
+	private long[] notionals;
+	private long[] lows;
+	private long[] highs;
+
+	private long blocksScanned;
+	private long blocksSkipped;
+
+	ArchiveRollup(List<String> symbols, Map<String, Integer> symbolIds) {
+		int size = symbols.size();
+
+		this.symbols = symbols;
+		this.symbolIds = symbolIds;
+		rows = new long[size];
+		volumes = new long[size];
+		notionals = new long[size];
+		lows = new long[size];
+		highs = new long[size];
+
+		Arrays.fill(lows, Long.MAX_VALUE);
+		Arrays.fill(highs, Long.MIN_VALUE);
+	}
+
+	void addRow(int bbgCode, long priceTicks, long volume) {
+		rows[bbgCode]++;
+		volumes[bbgCode] += volume;
+		notionals[bbgCode] += priceTicks * volume;
+		lows[bbgCode] = Math.min(lows[bbgCode], priceTicks);
+		highs[bbgCode] = Math.max(highs[bbgCode], priceTicks);
+	}
+
+	void add(ArchiveRollup other) {
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] += other.rows[i];
+			volumes[i] += other.volumes[i];
+			notionals[i] += other.notionals[i];
+			lows[i] = Math.min(lows[i], other.lows[i]);
+			highs[i] = Math.max(highs[i], other.highs[i]);
+		}
+
+		blocksScanned += other.blocksScanned;
+		blocksSkipped += other.blocksSkipped;
+	}
+
+	void addScannedBlock() {
+		blocksScanned++;
+	}
+
+	void addSkippedBlocks(long count) {
+		blocksSkipped += count;
+	}
+
+	/**
+	 * @return The BBGCodes with at least one row, sorted.
+	 */
+	public List<String> getBbgCodes() {
+		List<String> bbgCodes = new ArrayList<String>();
+
+		for (int i = 0; i < rows.length; i++) {
+			if (rows[i] > 0)
+				bbgCodes.add(symbols.get(i));
+		}
+
+		bbgCodes.sort(null);
+		return bbgCodes;
+	}
+
+	public long getRows(String bbgCode) {
+		int id = id(bbgCode);
+		return id < 0 ? 0 : rows[id];
+	}
+
+	public long getVolume(String bbgCode) {
+		int id = id(bbgCode);
+		return id < 0 ? 0 : volumes[id];
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The sum of price in ticks times volume.
+	 */
+	public long getNotionalTicks(String bbgCode) {
+		int id = id(bbgCode);
+		return id < 0 ? 0 : notionals[id];
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The volume-weighted average price in ticks, or NaN if there is
+	 * no volume.
+	 */
+	public double getVwapTicks(String bbgCode) {
+		int id = id(bbgCode);
+		return id < 0 || volumes[id] == 0 ? Double.NaN
+				                          : (double) notionals[id] / volumes[id];
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The lowest price in ticks, or Long.MAX_VALUE if there are no rows.
+	 */
+	public long getLowTicks(String bbgCode) {
+		int id = id(bbgCode);
+		return id < 0 ? Long.MAX_VALUE : lows[id];
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The highest price in ticks, or Long.MIN_VALUE if there are no
+	 * rows.
+	 */
+	public long getHighTicks(String bbgCode) {
+		int id = id(bbgCode);
+		return id < 0 ? Long.MIN_VALUE : highs[id];
+	}
+
+	public long getTotalRows() {
+		long total = 0;
+		for (long count : rows)
+			total += count;
+
+		return total;
+	}
+
+	public long getTotalVolume() {
+		long total = 0;
+		for (long volume : volumes)
+			total += volume;
+
+		return total;
+	}
+
+	/**
+	 * @return The number of blocks whose columns were decoded.
+	 */
+	public long getBlocksScanned() {
+		return blocksScanned;
+	}
+
+	/**
+	 * @return The number of blocks skipped by their min/max index.
+	 */
+	public long getBlocksSkipped() {
+		return blocksSkipped;
+	}
+
+	private int id(String bbgCode) {
+		Integer id = symbolIds.get(bbgCode);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @param tickSizes The tick size of each instrument, e.g. a venue's
+	 * getTickSize.
+	 * @return The rollup in a String CSV format, sorted by BBGCode, in the
+	 * order "BBGCode,Rows,Volume,VWAP,Low,High".
+	 */
+	public String toCsv(Function<String, TickSize> tickSizes) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("BBGCode,Rows,Volume,VWAP,Low,High\n");
+
+		for (String bbgCode : getBbgCodes()) {
+			int id = id(bbgCode);
+			TickSize tickSize = tickSizes.apply(bbgCode);
+
+			builder.append(bbgCode).append(',')
+			       .append(rows[id]).append(',')
+			       .append(volumes[id]).append(',')
+			       .append(volumes[id] == 0 ? Double.NaN
+			    		   : tickSize.toPrice(1) * notionals[id] / volumes[id]).append(',');
+			tickSize.appendPrice(builder, lows[id]).append(',');
+			tickSize.appendPrice(builder, highs[id]).append('\n');
+		}
+
+		return builder.toString();
+	}
+}
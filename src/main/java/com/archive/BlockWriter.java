@@ -0,0 +1,314 @@
+package com.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.util.SymbolTable;
+
+/**
+ * Appends rows to the column file and dictionary of one archive (see
+ * ArchiveFormat), on a single thread.
+ *
+ * Rows are set a column at a time into arrays of one block's worth of rows.
+ * When the block is full, the symbols it introduced are appended to the
+ * dictionary, and then each column is encoded in its smallest encoding and
+ * the block is appended to the column file with one write. Reopening an
+ * archive continues its symbol ids, and drops a block or symbol left partly
+ * written by a crash.
+ *
+ * A block which fails to be written fails the writer, as part of it may
+ * already be in the file. The writer keeps the failure and drops its rows
+ * and every row after them. Reopening the archive cuts off the part of the
+ * block which was written.
+ *
+ * @author Zane Ali
+ *
+ */
+final class BlockWriter implements AutoCloseable {
+
+	private final Path path;
+	private final int columnCount;
+
+	private final FileChannel columns;
+	private final FileChannel dictionary;
+
+	private final SymbolTable symbols = new SymbolTable();
+	// The number of symbols which have been appended to the dictionary.
+	private int writtenSymbols;
+
+	private final long[][] rows;
+	private int rowCount;
+
+	private final ByteBuffer block;
+	private long blockCount;
+	private long writtenRows;
+	private boolean closed;
+
+	private volatile Exception failure;
+	private volatile long droppedRows;
+
+	/**
+	 * @param directory The directory of the archive, which is created if it
+	 * does not exist.
+	 * @param name The name of the archive's files.
+	 * @param columnCount
+	 * @throws IOException if the archive cannot be opened or is not an archive
+	 * with this many columns.
+	 */
+	BlockWriter(Path directory, String name, int columnCount) throws IOException {
+		Files.createDirectories(directory);
+
+		this.path = directory.resolve(name + ArchiveFormat.COLUMN_SUFFIX);
+		this.columnCount = columnCount;
+
+		rows = new long[columnCount][ArchiveFormat.BLOCK_ROWS];
+		block = ByteBuffer.allocateDirect(ArchiveFormat.BLOCK_HEADER_LENGTH
+				                          + columnCount * (ArchiveFormat.COLUMN_ENTRY_LENGTH
+				                        		           + ArchiveFormat.BLOCK_ROWS
+				                        		           * ColumnCodec.MAX_ROW_LENGTH));
+
+		columns = FileChannel.open(path, StandardOpenOption.CREATE,
+				                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+		FileChannel dictionaryChannel = null;
+
+		try {
+			dictionaryChannel = FileChannel.open(ArchiveReader.dictionaryPath(path),
+					                             StandardOpenOption.CREATE,
+					                             StandardOpenOption.READ,
+					                             StandardOpenOption.WRITE);
+			dictionary = dictionaryChannel;
+			recover();
+		} catch (IOException | RuntimeException e) {
+			columns.close();
+			if (dictionaryChannel != null)
+				dictionaryChannel.close();
+			throw e;
+		}
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return The number of rows written to the file, not counting the rows
+	 * of the block being filled.
+	 */
+	long getWrittenRows() {
+		return writtenRows;
+	}
+
+	/**
+	 * @return The failure to write a block, or null if every block so far has
+	 * been written.
+	 */
+	Exception getFailure() {
+		return failure;
+	}
+
+	/**
+	 * @return The number of rows dropped because the writer has failed.
+	 */
+	long getDroppedRows() {
+		return droppedRows;
+	}
+
+	/**
+	 * @return The id of a symbol, or NO_SYMBOL for a missing field.
+	 */
+	int symbolId(String symbol) {
+		return symbol == null ? ArchiveFormat.NO_SYMBOL : symbols.intern(symbol);
+	}
+
+	void set(int column, long value) {
+		rows[column][rowCount] = value;
+	}
+
+	/**
+	 * Completes the row whose columns have been set, writing the block if it
+	 * is full. Once the writer has failed the row is dropped instead.
+	 */
+	void endRow() {
+		if (failure != null) {
+			droppedRows++;
+			return;
+		}
+
+		if (++rowCount == ArchiveFormat.BLOCK_ROWS) {
+			try {
+				flush();
+			} catch (IOException | RuntimeException e) {
+				// flush has failed the writer, unless it was closed.
+				if (failure == null)
+					fail(e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the rows of the block being filled as a block of their own.
+	 *
+	 * @throws IOException if the block cannot be written, or the writer has
+	 * already failed.
+	 */
+	void flush() throws IOException {
+		if (closed)
+			throw new IllegalStateException("The archive has been closed");
+		if (failure != null)
+			throw new IOException("An earlier block of " + path + " failed to be written",
+					              failure);
+		if (rowCount == 0)
+			return;
+
+		try {
+			writeBlock();
+		} catch (IOException | RuntimeException e) {
+			fail(e);
+			throw e;
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		writeSymbols();
+
+		block.clear();
+		block.putInt(rowCount);
+
+		int entries = block.position();
+		block.position(entries + columnCount * ArchiveFormat.COLUMN_ENTRY_LENGTH);
+
+		for (int column = 0; column < columnCount; column++) {
+			long[] values = rows[column];
+			long min = Long.MAX_VALUE;
+			long max = Long.MIN_VALUE;
+
+			for (int row = 0; row < rowCount; row++) {
+				min = Math.min(min, values[row]);
+				max = Math.max(max, values[row]);
+			}
+
+			byte encoding = ColumnCodec.choose(values, rowCount);
+			int start = block.position();
+			ColumnCodec.encode(values, rowCount, encoding, block);
+
+			block.put(entries, encoding)
+			     .putLong(entries + 1, min)
+			     .putLong(entries + 9, max)
+			     .putInt(entries + 17, block.position() - start);
+			entries += ArchiveFormat.COLUMN_ENTRY_LENGTH;
+		}
+
+		block.flip();
+		while (block.hasRemaining())
+			columns.write(block);
+
+		blockCount++;
+		writtenRows += rowCount;
+		rowCount = 0;
+	}
+
+	/**
+	 * Writes any rows of the block being filled and closes the files.
+	 *
+	 * @throws IOException if the last block cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+
+		try {
+			flush();
+		} finally {
+			closed = true;
+			columns.close();
+			dictionary.close();
+		}
+	}
+
+	/**
+	 * Keeps the failure and drops the rows of the block being filled.
+	 */
+	private void fail(Exception e) {
+		failure = e;
+		droppedRows += rowCount;
+		rowCount = 0;
+	}
+
+	/**
+	 * Appends the symbols which have been interned since the last block.
+	 */
+	private void writeSymbols() throws IOException {
+		if (writtenSymbols == symbols.size())
+			return;
+
+		int length = 0;
+		byte[][] encoded = new byte[symbols.size() - writtenSymbols][];
+
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = symbols.symbol(writtenSymbols + i).getBytes(StandardCharsets.UTF_8);
+
+			if (encoded[i].length > 0xFFFF)
+				throw new IllegalArgumentException("The symbol "
+						                           + symbols.symbol(writtenSymbols + i)
+						                           + " is too long to archive");
+			length += 2 + encoded[i].length;
+		}
+
+		ByteBuffer bytes = ByteBuffer.allocate(length);
+		for (byte[] symbol : encoded)
+			bytes.putShort((short) symbol.length).put(symbol);
+
+		bytes.flip();
+		while (bytes.hasRemaining())
+			dictionary.write(bytes);
+
+		writtenSymbols = symbols.size();
+	}
+
+	/**
+	 * Reads an existing archive to continue its symbol ids, and cuts off a
+	 * block or symbol left partly written at the end of either file. Writes
+	 * the header of a new archive.
+	 */
+	private void recover() throws IOException {
+		if (columns.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(ArchiveFormat.HEADER_LENGTH);
+			header.putInt(ArchiveFormat.MAGIC)
+			      .putInt(ArchiveFormat.VERSION)
+			      .putInt(columnCount)
+			      .flip();
+
+			while (header.hasRemaining())
+				columns.write(header);
+
+			dictionary.truncate(0);
+			return;
+		}
+
+		try (ArchiveReader reader = new ArchiveReader(path)) {
+			if (reader.getColumnCount() != columnCount)
+				throw new IOException(path + " has " + reader.getColumnCount()
+						              + " columns rather than " + columnCount);
+
+			List<String> existing = reader.getSymbols();
+			for (String symbol : existing)
+				symbols.intern(symbol);
+
+			writtenSymbols = existing.size();
+			blockCount = reader.getBlockCount();
+			writtenRows = reader.getRowCount();
+
+			columns.truncate(reader.getValidLength());
+			columns.position(reader.getValidLength());
+			dictionary.truncate(reader.getDictionaryLength());
+			dictionary.position(reader.getDictionaryLength());
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes one column of a block (see ArchiveFormat) as zigzag
+ * varints, either plainly, as deltas from the previous value or as runs.
+ *
+ * Decoding first copies the column's bytes out of the file into an array,
+ * and then decodes them in a tight loop over the array. A codec is reused for
+ * every column a thread decodes, so it is not thread-safe.
+ *
+ * @author Zane Ali
+ *
+ */
+final class ColumnCodec {
+
+	// The most bytes one row of a column can take, a run of one in RLE.
+	static final int MAX_ROW_LENGTH = 10 + 5;
+
+	private byte[] bytes = new byte[64 * 1024];
+	private int position;
+
+	/**
+	 * @return The smallest encoding of the values.
+	 */
+	static byte choose(long[] values, int count) {
+		long plain = 0;
+		long delta = 0;
+		long rle = 0;
+
+		long previous = 0;
+		int run = 0;
+
+		for (int i = 0; i < count; i++) {
+			long value = values[i];
+			plain += varLongLength(zigzag(value));
+			delta += varLongLength(zigzag(value - previous));
+
+			if (i > 0 && value == previous) {
+				run++;
+			} else {
+				if (i > 0)
+					rle += varLongLength(zigzag(previous)) + varLongLength(run);
+				run = 1;
+			}
+
+			previous = value;
+		}
+
+		if (count > 0)
+			rle += varLongLength(zigzag(previous)) + varLongLength(run);
+
+		if (rle < plain && rle < delta)
+			return ArchiveFormat.RLE;
+
+		return delta < plain ? ArchiveFormat.DELTA : ArchiveFormat.PLAIN;
+	}
+
+	/**
+	 * Writes the values into a buffer, which must have room for
+	 * MAX_ROW_LENGTH bytes per value.
+	 */
+	static void encode(long[] values, int count, byte encoding, ByteBuffer out) {
+		switch (encoding) {
+		    case ArchiveFormat.PLAIN:
+		    	for (int i = 0; i < count; i++)
+		    		putVarLong(out, zigzag(values[i]));
+		    	break;
+		    case ArchiveFormat.DELTA:
+		    	long previous = 0;
+		    	for (int i = 0; i < count; i++) {
+		    		putVarLong(out, zigzag(values[i] - previous));
+		    		previous = values[i];
+		    	}
+		    	break;
+		    default:
+		    	int start = 0;
+		    	for (int i = 1; i <= count; i++) {
+		    		if (i == count || values[i] != values[start]) {
+		    			putVarLong(out, zigzag(values[start]));
+		    			putVarLong(out, i - start);
+		    			start = i;
+		    		}
+		    	}
+		}
+	}
+
+	/**
+	 * Decodes a column of a block.
+	 *
+	 * @param in The file.
+	 * @param offset The index of the column's first byte.
+	 * @param length The length of the encoded column.
+	 * @param encoding
+	 * @param out The array to decode into.
+	 * @param count The number of rows.
+	 */
+	void decode(ByteBuffer in, int offset, int length, byte encoding, long[] out,
+			    int count) {
+		if (bytes.length < length)
+			bytes = new byte[Math.max(length, bytes.length * 2)];
+
+		in.get(offset, bytes, 0, length);
+		position = 0;
+
+		switch (encoding) {
+		    case ArchiveFormat.PLAIN:
+		    	for (int i = 0; i < count; i++)
+		    		out[i] = unzigzag(getVarLong());
+		    	break;
+		    case ArchiveFormat.DELTA:
+		    	long value = 0;
+		    	for (int i = 0; i < count; i++) {
+		    		value += unzigzag(getVarLong());
+		    		out[i] = value;
+		    	}
+		    	break;
+		    case ArchiveFormat.RLE:
+		    	int i = 0;
+		    	while (i < count) {
+		    		long runValue = unzigzag(getVarLong());
+		    		int end = i + (int) getVarLong();
+
+		    		if (end > count)
+		    			throw new IllegalArgumentException("A run overflows its block");
+
+		    		while (i < end)
+		    			out[i++] = runValue;
+		    	}
+		    	break;
+		    default:
+		    	throw new IllegalArgumentException("Unknown column encoding " + encoding);
+		}
+	}
+
+	private long getVarLong() {
+		long result = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+			b = bytes[position++];
+			result |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+
+		return result;
+	}
+
+	private static void putVarLong(ByteBuffer out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		out.put((byte) value);
+	}
+
+	private static int varLongLength(long value) {
+		return (64 - Long.numberOfLeadingZeros(value | 1) + 6) / 7;
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,88 @@
+package com.archive;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.execution.ExecutionEvent;
+import com.execution.ExecutionListener;
+
+/**
+ * An append-only columnar archive of a venue's fills, written as a listener
+ * of its ExecutionRing, for analysis after the fact with an ArchiveReader.
+ *
+ * Each fill is archived with its time, BBGCode, price in ticks, quantity, the
+ * aggressor's User and side, and the passive User. The listener runs on the
+ * ring's thread, so archiving never holds up matching, and a block is written
+ * whenever one fills up.
+ *
+ * The archive is closed once the ring has been closed, which writes the last
+ * partial block. A block which cannot be written fails the archive, which
+ * keeps the failure (see getFailure) and drops the fills from then on, and
+ * close throws it.
+ *
+ * @author Zane Ali
+ *
+ */
+public class FillArchive implements ExecutionListener, AutoCloseable {
+
+	public static final String NAME = "fills";
+
+	private final BlockWriter writer;
+	private volatile long droppedCount;
+
+	/**
+	 * @param directory The directory of the archive, which is created if it
+	 * does not exist and appended to if it does.
+	 * @throws IOException if the archive cannot be opened.
+	 */
+	public FillArchive(Path directory) throws IOException {
+		writer = new BlockWriter(directory, NAME, ArchiveFormat.FILL_COLUMNS);
+	}
+
+	@Override
+	public void onExecution(ExecutionEvent event, boolean endOfBatch) {
+		writer.set(ArchiveFormat.TIME, event.getTradeTimeNanos());
+		writer.set(ArchiveFormat.BBG_CODE, writer.symbolId(event.getBbgCode()));
+		writer.set(ArchiveFormat.PRICE, event.getPriceTicks());
+		writer.set(ArchiveFormat.VOLUME, event.getQuantity());
+		writer.set(ArchiveFormat.FILL_AGGRESSOR_USER,
+				   writer.symbolId(event.getAggressorUser()));
+		writer.set(ArchiveFormat.FILL_AGGRESSOR_SIDE, event.getAggressorSide().ordinal());
+		writer.set(ArchiveFormat.FILL_PASSIVE_USER, writer.symbolId(event.getPassiveUser()));
+		writer.endRow();
+	}
+
+	/**
+	 * Counts the fills which the ring dropped, and so are missing from the
+	 * archive.
+	 */
+	@Override
+	public void onDropped(long count) {
+		droppedCount += count;
+	}
+
+	/**
+	 * @return The number of fills missing from the archive, dropped either by
+	 * the ring or because the archive has failed.
+	 */
+	public long getDroppedCount() {
+		return droppedCount + writer.getDroppedRows();
+	}
+
+	/**
+	 * @return The failure to write a block, or null if the archive has not
+	 * failed.
+	 */
+	public Exception getFailure() {
+		return writer.getFailure();
+	}
+
+	public Path getPath() {
+		return writer.getPath();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
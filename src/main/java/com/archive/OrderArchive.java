@@ -0,0 +1,101 @@
+package com.archive;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.orderBook.Order;
+
+/**
+ * An append-only columnar archive of the orders processed by a venue, for
+ * analysis after the fact with an ArchiveReader rather than by replaying
+ * files of messages.
+ *
+ * Each order is archived as it reaches its book, before it is matched, with
+ * its TradeTimeUTC, BBGCode, price in ticks, volume, User, side and action.
+ * Appending only sets the columns of a row in arrays, except for the append
+ * which fills a block, which encodes and writes it (see ArchiveFormat).
+ *
+ * Appending never throws, so an order which has been journaled is never
+ * rejected by its archive. A block which cannot be written fails the archive
+ * instead, which keeps the failure (see getFailure) and drops the orders
+ * appended from then on, and flush and close throw it.
+ *
+ * An archive must be appended to from one thread at a time, e.g. the thread
+ * which submits to its venue (see TradingVenue.setOrderArchive).
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderArchive implements AutoCloseable {
+
+	public static final String NAME = "orders";
+
+	private final BlockWriter writer;
+
+	/**
+	 * @param directory The directory of the archive, which is created if it
+	 * does not exist and appended to if it does.
+	 * @throws IOException if the archive cannot be opened.
+	 */
+	public OrderArchive(Path directory) throws IOException {
+		writer = new BlockWriter(directory, NAME, ArchiveFormat.ORDER_COLUMNS);
+	}
+
+	/**
+	 * Appends an order.
+	 *
+	 * @param order An order which has been accepted by the venue.
+	 */
+	public void append(Order order) {
+		writer.set(ArchiveFormat.TIME, order.getTradeTimeNanos());
+		writer.set(ArchiveFormat.BBG_CODE, writer.symbolId(order.getBbgCode()));
+		writer.set(ArchiveFormat.PRICE, order.getPriceTicks());
+		writer.set(ArchiveFormat.VOLUME, order.getVolume());
+		writer.set(ArchiveFormat.ORDER_USER, writer.symbolId(order.getUser()));
+		writer.set(ArchiveFormat.ORDER_SIDE, order.getSide().ordinal());
+		writer.set(ArchiveFormat.ORDER_ACTION, order.getAction().ordinal());
+		writer.endRow();
+	}
+
+	/**
+	 * Writes the orders appended so far, so that a reader opened from now on
+	 * sees them. This ends the current block early.
+	 *
+	 * @throws IOException if the block cannot be written, or the archive has
+	 * failed.
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * @return The number of orders written to the file.
+	 */
+	public long getWrittenCount() {
+		return writer.getWrittenRows();
+	}
+
+	/**
+	 * @return The failure to write a block, or null if the archive has not
+	 * failed.
+	 */
+	public Exception getFailure() {
+		return writer.getFailure();
+	}
+
+	/**
+	 * @return The number of orders dropped because the archive has failed.
+	 */
+	public long getDroppedCount() {
+		return writer.getDroppedRows();
+	}
+
+	public Path getPath() {
+		return writer.getPath();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
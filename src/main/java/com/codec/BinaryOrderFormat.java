@@ -0,0 +1,60 @@
+package com.codec;
+
+/**
+ * The layout of the fixed-width binary encoding of an order message, written
+ * by OrderEncoder and read by OrderDecoder.
+ *
+ * Every message is a block of BLOCK_LENGTH bytes, big-endian, with each field
+ * at a fixed offset so that any field can be read without decoding the ones
+ * before it:
+ *
+ *  0  long priceTicks       8  long tradeTimeNanos    16 int volume
+ *  20 int bbgCode id        24 int currency id        28 int portfolio id
+ *  32 int account id        36 int strategy id        40 int user id
+ *  44 int valueDate id      48 byte side              49 byte action
+ *  50 byte TradeID length   52 TradeID, up to MAX_TRADE_ID_LENGTH bytes
+ *
+ * Prices are a whole number of ticks of the instrument's tick size, the trade
+ * time is in nanoseconds since the epoch, and symbols are ids from a symbol
+ * table which the encoding and decoding sides share (NO_SYMBOL for a missing
+ * field, such as the ValueDate). The side and action are the ordinals of
+ * SideEnum and ActionEnum.
+ *
+ * A file of encoded messages (see CsvOrderConverter) starts with a header of
+ * a magic number, a version, the number of messages and the offset of the
+ * symbol dictionary, followed by the blocks and then the dictionary: an int
+ * count and, for each symbol in id order, a short length and its UTF-8 bytes.
+ *
+ * @author Zane Ali
+ *
+ */
+public final class BinaryOrderFormat {
+
+	public static final int BLOCK_LENGTH = 88;
+	public static final int MAX_TRADE_ID_LENGTH = BLOCK_LENGTH - 52;
+
+	public static final int NO_SYMBOL = -1;
+
+	static final int PRICE_TICKS = 0;
+	static final int TRADE_TIME = 8;
+	static final int VOLUME = 16;
+	static final int BBG_CODE = 20;
+	static final int CURRENCY = 24;
+	static final int PORTFOLIO = 28;
+	static final int ACCOUNT = 32;
+	static final int STRATEGY = 36;
+	static final int USER = 40;
+	static final int VALUE_DATE = 44;
+	static final int SIDE = 48;
+	static final int ACTION = 49;
+	static final int TRADE_ID_LENGTH = 50;
+	static final int TRADE_ID = 52;
+
+	static final int FILE_MAGIC = 0x54424F42;
+	static final int FILE_VERSION = 1;
+	// Magic, version, message count and dictionary offset.
+	static final int FILE_HEADER_LENGTH = 4 + 4 + 8 + 8;
+
+	private BinaryOrderFormat() {
+	}
+}
@@ -0,0 +1,358 @@
+package com.codec;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+import com.orderBook.TickSize;
+import com.simulation.OrderFlowGenerator;
+import com.tradingVenue.MalformedOrderMessageException;
+import com.tradingVenue.OrderMessage;
+import com.tradingVenue.OrderMessageParser;
+import com.tradingVenue.TradingVenue;
+import com.util.OrderFileLoader;
+import com.util.SymbolTable;
+
+/**
+ * Converts order messages between the comma-separated format and the binary
+ * encoding (see BinaryOrderFormat), one message at a time or a whole file at
+ * a time.
+ *
+ * A binary file holds its own symbol dictionary after the messages, so it can
+ * be converted back without anything but the tick sizes it was encoded with.
+ *
+ * @author Zane Ali
+ *
+ */
+public class CsvOrderConverter {
+
+	private static final int FILE_BUFFER_SIZE = 1024 * 1024;
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+	private static final long SECONDS_PER_DAY = 86_400L;
+
+	private final OrderCodec codec;
+	private final OrderMessageParser parser;
+	private final OrderMessage message = new OrderMessage();
+	private final OrderDecoder decoder = new OrderDecoder();
+	private final byte[] tradeId = new byte[BinaryOrderFormat.MAX_TRADE_ID_LENGTH];
+
+	public CsvOrderConverter() {
+		this(new OrderCodec());
+	}
+
+	/**
+	 * @param codec The codec whose symbol table and tick sizes the messages
+	 * are encoded with.
+	 */
+	public CsvOrderConverter(OrderCodec codec) {
+		this.codec = codec;
+		this.parser = new OrderMessageParser(codec.getSymbolTable());
+	}
+
+	public OrderCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Encodes a comma-separated order message into a block.
+	 *
+	 * @param orderMessage
+	 * @param buffer
+	 * @param offset The index of the block's first byte.
+	 * @throws MalformedOrderMessageException if the message cannot be parsed.
+	 */
+	public void toBinary(CharSequence orderMessage, ByteBuffer buffer, int offset) {
+		if (!parser.parse(orderMessage, message))
+			throw new MalformedOrderMessageException(message);
+
+		codec.encode(message, buffer, offset);
+	}
+
+	/**
+	 * Appends a block as a comma-separated order message, without a line
+	 * ending, in the format:
+	 *
+	 *  TradeID,BBGCode,Currency,Side,Price,Volume,Portfolio,Action,Account,
+	 *  Strategy,User,TradeTimeUTC,ValueDate
+	 *
+	 * @param buffer
+	 * @param offset The index of the block's first byte.
+	 * @param builder
+	 * @return The builder.
+	 */
+	public StringBuilder toCsv(ByteBuffer buffer, int offset, StringBuilder builder) {
+		decoder.wrap(buffer, offset);
+
+		String bbgCode = codec.symbol(decoder.bbgCode());
+		TickSize tickSize = codec.getTickSize(bbgCode);
+
+		appendTradeId(builder).append(',');
+		builder.append(bbgCode).append(',');
+		appendSymbol(builder, decoder.currency()).append(',');
+		builder.append(decoder.side().name()).append(',');
+		tickSize.appendPrice(builder, decoder.priceTicks()).append(',');
+		builder.append(decoder.volume()).append(',');
+		appendSymbol(builder, decoder.portfolio()).append(',');
+		builder.append(decoder.action().name()).append(',');
+		appendSymbol(builder, decoder.account()).append(',');
+		appendSymbol(builder, decoder.strategy()).append(',');
+		appendSymbol(builder, decoder.user()).append(',');
+		appendTimestamp(builder, decoder.tradeTimeNanos());
+
+		if (decoder.valueDate() != BinaryOrderFormat.NO_SYMBOL)
+			appendSymbol(builder.append(','), decoder.valueDate());
+
+		return builder;
+	}
+
+	/**
+	 * Converts a file of comma-separated order messages with a header line
+	 * into a binary file. Malformed lines are reported and skipped.
+	 *
+	 * @param csv
+	 * @param binary The file to create or overwrite.
+	 * @return The number of messages converted.
+	 * @throws IOException if a file cannot be read or written.
+	 */
+	public long convertToBinary(Path csv, Path binary) throws IOException {
+		try (FileChannel channel = FileChannel.open(binary, StandardOpenOption.CREATE,
+				                                    StandardOpenOption.WRITE,
+				                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(FILE_BUFFER_SIZE);
+			channel.position(BinaryOrderFormat.FILE_HEADER_LENGTH);
+
+			// The loader's parsers have their own symbol tables, so each
+			// message's symbols are interned into the codec's as it is encoded.
+			long count = new OrderFileLoader(csv).load(true, parsed -> {
+				try {
+					if (buffer.remaining() < BinaryOrderFormat.BLOCK_LENGTH)
+						drain(channel, buffer);
+
+					codec.encode(parsed, buffer, buffer.position());
+					buffer.position(buffer.position() + BinaryOrderFormat.BLOCK_LENGTH);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+
+			drain(channel, buffer);
+			long dictionaryOffset = channel.position();
+
+			writeDictionary(channel, buffer, codec.getSymbolTable());
+
+			buffer.putInt(BinaryOrderFormat.FILE_MAGIC)
+			      .putInt(BinaryOrderFormat.FILE_VERSION)
+			      .putLong(count)
+			      .putLong(dictionaryOffset)
+			      .flip();
+			channel.write(buffer, 0);
+
+			return count;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Converts a binary file back into comma-separated order messages, with a
+	 * header line. The file is memory-mapped and decoded in place.
+	 *
+	 * @param binary
+	 * @param csv The file to create or overwrite.
+	 * @param tickSizes The tick sizes the file was encoded with.
+	 * @return The number of messages converted.
+	 * @throws IOException if a file cannot be read or written, or the binary
+	 * file is not in the expected format.
+	 */
+	public static long convertToCsv(Path binary, Path csv,
+			                        Function<String, TickSize> tickSizes)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(binary, StandardOpenOption.READ);
+			 BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+
+			MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					                            channel.size());
+
+			if (file.limit() < BinaryOrderFormat.FILE_HEADER_LENGTH
+				|| file.getInt(0) != BinaryOrderFormat.FILE_MAGIC)
+				throw new IOException(binary + " is not a binary order file");
+
+			if (file.getInt(4) != BinaryOrderFormat.FILE_VERSION)
+				throw new IOException("Unsupported binary order file version "
+						              + file.getInt(4));
+
+			long count = file.getLong(8);
+			int dictionaryOffset = (int) file.getLong(16);
+
+			CsvOrderConverter converter = new CsvOrderConverter(
+					new OrderCodec(readDictionary(file, dictionaryOffset), tickSizes));
+			StringBuilder builder = new StringBuilder(256);
+
+			writer.write(OrderFlowGenerator.HEADER);
+			writer.newLine();
+
+			for (int i = 0; i < count; i++) {
+				builder.setLength(0);
+				converter.toCsv(file, BinaryOrderFormat.FILE_HEADER_LENGTH
+						              + i * BinaryOrderFormat.BLOCK_LENGTH, builder);
+				writer.append(builder);
+				writer.newLine();
+			}
+
+			return count;
+		}
+	}
+
+	/**
+	 * Converts a file between the formats, with every instrument at the
+	 * venue's default tick size.
+	 *
+	 * Usage: CsvOrderConverter to-binary|to-csv input output
+	 *
+	 * @param args
+	 * @throws IOException if a file cannot be read or written.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3 || !(args[0].equals("to-binary") || args[0].equals("to-csv"))) {
+			System.err.println("Usage: CsvOrderConverter to-binary|to-csv input output");
+			return;
+		}
+
+		Path input = Paths.get(args[1]);
+		Path output = Paths.get(args[2]);
+
+		long count = args[0].equals("to-binary")
+				     ? new CsvOrderConverter().convertToBinary(input, output)
+				     : convertToCsv(input, output, bbgCode -> TradingVenue.DEFAULT_TICK_SIZE);
+
+		System.out.println("Converted " + count + " messages into " + output);
+	}
+
+	private StringBuilder appendTradeId(StringBuilder builder) {
+		int length = decoder.getTradeId(tradeId, 0);
+
+		for (int i = 0; i < length; i++) {
+			if (tradeId[i] < 0) {
+				// Not ASCII, so decode the TradeID as a whole.
+				builder.setLength(builder.length() - i);
+				return builder.append(new String(tradeId, 0, length, StandardCharsets.UTF_8));
+			}
+
+			builder.append((char) tradeId[i]);
+		}
+
+		return builder;
+	}
+
+	private StringBuilder appendSymbol(StringBuilder builder, int id) {
+		String symbol = codec.symbol(id);
+		return symbol == null ? builder : builder.append(symbol);
+	}
+
+	/**
+	 * Appends a time in nanoseconds since the epoch as
+	 * yyyy-MM-ddTHH:mm:ss.SSSSSS, with nine fractional digits instead of six
+	 * if the time is not a whole number of microseconds.
+	 *
+	 * @param builder
+	 * @param nanos
+	 * @return The builder.
+	 */
+	public static StringBuilder appendTimestamp(StringBuilder builder, long nanos) {
+		long seconds = Math.floorDiv(nanos, NANOS_PER_SECOND);
+		long fraction = Math.floorMod(nanos, NANOS_PER_SECOND);
+		long days = Math.floorDiv(seconds, SECONDS_PER_DAY);
+		long secondOfDay = Math.floorMod(seconds, SECONDS_PER_DAY);
+
+		// Converts days since 1970-01-01 into a proleptic Gregorian date.
+		long z = days + 719468;
+		long era = (z >= 0 ? z : z - 146096) / 146097;
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+				          - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		appendPadded(builder, year, 4).append('-');
+		appendPadded(builder, month, 2).append('-');
+		appendPadded(builder, day, 2).append('T');
+		appendPadded(builder, secondOfDay / 3600, 2).append(':');
+		appendPadded(builder, secondOfDay / 60 % 60, 2).append(':');
+		appendPadded(builder, secondOfDay % 60, 2).append('.');
+
+		return fraction % 1000 == 0 ? appendPadded(builder, fraction / 1000, 6)
+				                    : appendPadded(builder, fraction, 9);
+	}
+
+	private static StringBuilder appendPadded(StringBuilder builder, long value, int width) {
+		long limit = 10;
+		for (int i = 1; i < width; i++, limit *= 10) {
+			if (value < limit)
+				builder.append('0');
+		}
+
+		return builder.append(value);
+	}
+
+	private static void writeDictionary(FileChannel channel, ByteBuffer buffer,
+			                            SymbolTable symbols) throws IOException {
+		buffer.putInt(symbols.size());
+
+		for (int id = 0; id < symbols.size(); id++) {
+			byte[] symbol = symbols.symbol(id).getBytes(StandardCharsets.UTF_8);
+
+			if (buffer.remaining() < 2 + symbol.length)
+				drain(channel, buffer);
+
+			buffer.putShort((short) symbol.length).put(symbol);
+		}
+
+		drain(channel, buffer);
+	}
+
+	/**
+	 * Rebuilds a symbol table from a dictionary, interning the symbols in id
+	 * order so that they are given the same ids.
+	 */
+	private static SymbolTable readDictionary(ByteBuffer file, int offset) {
+		SymbolTable symbols = new SymbolTable();
+		int count = file.getInt(offset);
+		int position = offset + 4;
+		byte[] symbol = new byte[256];
+
+		for (int id = 0; id < count; id++) {
+			int length = file.getShort(position) & 0xFFFF;
+
+			if (length > symbol.length)
+				symbol = new byte[length];
+
+			file.get(position + 2, symbol, 0, length);
+			symbols.intern(symbol, 0, length);
+			position += 2 + length;
+		}
+
+		return symbols;
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+}
@@ -0,0 +1,145 @@
+package com.codec;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+import com.orderBook.TickSize;
+import com.tradingVenue.OrderMessage;
+import com.tradingVenue.TradingVenue;
+import com.util.SymbolTable;
+
+/**
+ * Converts order messages between OrderMessage holders and the binary
+ * encoding (see BinaryOrderFormat), using a symbol table for the dictionary
+ * ids and the instruments' tick sizes for the prices.
+ *
+ * Both ends of a stream must agree on the symbol ids and tick sizes, e.g. by
+ * sharing them up front or, for files, by storing the dictionary alongside
+ * the messages. A price which is not a whole number of ticks cannot be
+ * encoded exactly, so it is rounded to the nearest tick, although the venue
+ * would reject it (see TickSize.isOnTick).
+ *
+ * Encoding a message whose symbols have all been seen before, and decoding
+ * any message, allocates nothing. A codec is not thread-safe.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderCodec {
+
+	private final SymbolTable symbols;
+	private final Function<String, TickSize> tickSizes;
+
+	private final OrderEncoder encoder = new OrderEncoder();
+	private final OrderDecoder decoder = new OrderDecoder();
+
+	// Holds a TradeID between the decoder and the message.
+	private final byte[] tradeId = new byte[BinaryOrderFormat.MAX_TRADE_ID_LENGTH];
+
+	/**
+	 * Creates a codec with its own symbol table, for instruments which all
+	 * have the venue's default tick size.
+	 */
+	public OrderCodec() {
+		this(new SymbolTable(), bbgCode -> TradingVenue.DEFAULT_TICK_SIZE);
+	}
+
+	/**
+	 * @param symbols The dictionary of symbol ids.
+	 * @param tickSizes The tick size of each instrument, e.g. a venue's
+	 * getTickSize.
+	 */
+	public OrderCodec(SymbolTable symbols, Function<String, TickSize> tickSizes) {
+		this.symbols = symbols;
+		this.tickSizes = tickSizes;
+	}
+
+	public SymbolTable getSymbolTable() {
+		return symbols;
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The tick size which the instrument's prices are encoded in.
+	 */
+	public TickSize getTickSize(String bbgCode) {
+		return tickSizes.apply(bbgCode);
+	}
+
+	/**
+	 * Encodes a message into a block, giving any symbol which has not been
+	 * seen before the next id.
+	 *
+	 * @param message
+	 * @param buffer
+	 * @param offset The index of the block's first byte.
+	 */
+	public void encode(OrderMessage message, ByteBuffer buffer, int offset) {
+		TickSize tickSize = getTickSize(message.getBbgCode());
+
+		encoder.wrap(buffer, offset)
+		       .priceTicks(tickSize.toTicks(message.getUnscaledPrice(),
+		    		                        message.getPriceDecimals()))
+		       .tradeTimeNanos(message.getTradeTimeNanos())
+		       .volume(message.getVolume())
+		       .bbgCode(symbols.intern(message.getBbgCode()))
+		       .currency(symbolId(message.getCurrency()))
+		       .portfolio(symbolId(message.getPortfolio()))
+		       .account(symbolId(message.getAccount()))
+		       .strategy(symbolId(message.getStrategy()))
+		       .user(symbolId(message.getUser()))
+		       .valueDate(symbolId(message.getValueDate()))
+		       .side(message.getSide())
+		       .action(message.getAction())
+		       .tradeId(message.getTradeIdBytes(), 0, message.getTradeIdLength());
+	}
+
+	/**
+	 * Decodes a block into a message holder, with the price as the exact
+	 * decimal of its ticks.
+	 *
+	 * @param buffer
+	 * @param offset The index of the block's first byte.
+	 * @param into The holder to overwrite.
+	 * @throws IllegalArgumentException if the block holds an unknown symbol id
+	 * or an invalid code.
+	 */
+	public void decode(ByteBuffer buffer, int offset, OrderMessage into) {
+		decoder.wrap(buffer, offset);
+
+		String bbgCode = symbols.symbol(decoder.bbgCode());
+		TickSize tickSize = getTickSize(bbgCode);
+
+		into.set(bbgCode,
+				 symbol(decoder.currency()),
+				 decoder.side(),
+				 decoder.priceTicks() * tickSize.getUnits(),
+				 tickSize.getScale(),
+				 decoder.volume(),
+				 symbol(decoder.portfolio()),
+				 decoder.action(),
+				 symbol(decoder.account()),
+				 symbol(decoder.strategy()),
+				 symbol(decoder.user()),
+				 decoder.tradeTimeNanos(),
+				 symbol(decoder.valueDate()));
+
+		into.setTradeId(tradeId, 0, decoder.getTradeId(tradeId, 0));
+	}
+
+	/**
+	 * @param symbol
+	 * @return The id of a symbol, or NO_SYMBOL if the field is missing.
+	 */
+	int symbolId(String symbol) {
+		return symbol == null ? BinaryOrderFormat.NO_SYMBOL : symbols.intern(symbol);
+	}
+
+	/**
+	 * @param id
+	 * @return The symbol with an id, or null for NO_SYMBOL.
+	 */
+	String symbol(int id) {
+		return id == BinaryOrderFormat.NO_SYMBOL ? null : symbols.symbol(id);
+	}
+}
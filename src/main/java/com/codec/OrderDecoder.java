@@ -0,0 +1,125 @@
+package com.codec;
+
+import java.nio.ByteBuffer;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+
+/**
+ * A flyweight which reads the fields of a binary order message (see
+ * BinaryOrderFormat) straight out of a block of a ByteBuffer, heap, direct or
+ * memory-mapped.
+ *
+ * Each getter reads its field at its fixed offset, so a reader which only
+ * needs a few fields (e.g. the BBGCode to route a message) does not pay to
+ * decode the rest, and nothing is copied until it is asked for.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderDecoder {
+
+	private static final SideEnum[] SIDES = SideEnum.values();
+	private static final ActionEnum[] ACTIONS = ActionEnum.values();
+
+	private ByteBuffer buffer;
+	private int offset;
+
+	/**
+	 * Points the decoder at a block.
+	 *
+	 * @param buffer
+	 * @param offset The index of the block's first byte.
+	 * @return This decoder.
+	 */
+	public OrderDecoder wrap(ByteBuffer buffer, int offset) {
+		if (offset < 0 || offset + BinaryOrderFormat.BLOCK_LENGTH > buffer.limit())
+			throw new IndexOutOfBoundsException("No block at " + offset);
+
+		this.buffer = buffer;
+		this.offset = offset;
+		return this;
+	}
+
+	public long priceTicks() {
+		return buffer.getLong(offset + BinaryOrderFormat.PRICE_TICKS);
+	}
+
+	public long tradeTimeNanos() {
+		return buffer.getLong(offset + BinaryOrderFormat.TRADE_TIME);
+	}
+
+	public int volume() {
+		return buffer.getInt(offset + BinaryOrderFormat.VOLUME);
+	}
+
+	public int bbgCode() {
+		return buffer.getInt(offset + BinaryOrderFormat.BBG_CODE);
+	}
+
+	public int currency() {
+		return buffer.getInt(offset + BinaryOrderFormat.CURRENCY);
+	}
+
+	public int portfolio() {
+		return buffer.getInt(offset + BinaryOrderFormat.PORTFOLIO);
+	}
+
+	public int account() {
+		return buffer.getInt(offset + BinaryOrderFormat.ACCOUNT);
+	}
+
+	public int strategy() {
+		return buffer.getInt(offset + BinaryOrderFormat.STRATEGY);
+	}
+
+	public int user() {
+		return buffer.getInt(offset + BinaryOrderFormat.USER);
+	}
+
+	/**
+	 * @return The id of the ValueDate, or NO_SYMBOL if it is missing.
+	 */
+	public int valueDate() {
+		return buffer.getInt(offset + BinaryOrderFormat.VALUE_DATE);
+	}
+
+	public SideEnum side() {
+		int code = buffer.get(offset + BinaryOrderFormat.SIDE);
+
+		if (code < 0 || code >= SIDES.length)
+			throw new IllegalArgumentException("Invalid side code " + code);
+
+		return SIDES[code];
+	}
+
+	public ActionEnum action() {
+		int code = buffer.get(offset + BinaryOrderFormat.ACTION);
+
+		if (code < 0 || code >= ACTIONS.length)
+			throw new IllegalArgumentException("Invalid action code " + code);
+
+		return ACTIONS[code];
+	}
+
+	public int tradeIdLength() {
+		return buffer.get(offset + BinaryOrderFormat.TRADE_ID_LENGTH) & 0xFF;
+	}
+
+	/**
+	 * Copies the UTF-8 bytes of the TradeID out of the block.
+	 *
+	 * @param target
+	 * @param targetOffset
+	 * @return The number of bytes copied.
+	 */
+	public int getTradeId(byte[] target, int targetOffset) {
+		int length = tradeIdLength();
+
+		if (length > BinaryOrderFormat.MAX_TRADE_ID_LENGTH)
+			throw new IllegalArgumentException("Invalid TradeID length " + length);
+
+		buffer.get(offset + BinaryOrderFormat.TRADE_ID, target, targetOffset, length);
+		return length;
+	}
+}
@@ -0,0 +1,122 @@
+package com.codec;
+
+import java.nio.ByteBuffer;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+
+/**
+ * A flyweight which writes the fields of a binary order message (see
+ * BinaryOrderFormat) straight into a block of a ByteBuffer, heap or direct.
+ *
+ * The encoder is wrapped over a block and then each field is set in place,
+ * at its fixed offset, without changing the buffer's position or copying the
+ * message anywhere else. The same encoder can be rewrapped for every message.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderEncoder {
+
+	private ByteBuffer buffer;
+	private int offset;
+
+	/**
+	 * Points the encoder at a block.
+	 *
+	 * @param buffer
+	 * @param offset The index of the block's first byte.
+	 * @return This encoder.
+	 */
+	public OrderEncoder wrap(ByteBuffer buffer, int offset) {
+		if (offset < 0 || offset + BinaryOrderFormat.BLOCK_LENGTH > buffer.capacity())
+			throw new IndexOutOfBoundsException("No room for a block at " + offset);
+
+		this.buffer = buffer;
+		this.offset = offset;
+		return this;
+	}
+
+	public OrderEncoder priceTicks(long priceTicks) {
+		buffer.putLong(offset + BinaryOrderFormat.PRICE_TICKS, priceTicks);
+		return this;
+	}
+
+	public OrderEncoder tradeTimeNanos(long tradeTimeNanos) {
+		buffer.putLong(offset + BinaryOrderFormat.TRADE_TIME, tradeTimeNanos);
+		return this;
+	}
+
+	public OrderEncoder volume(int volume) {
+		buffer.putInt(offset + BinaryOrderFormat.VOLUME, volume);
+		return this;
+	}
+
+	public OrderEncoder bbgCode(int symbolId) {
+		buffer.putInt(offset + BinaryOrderFormat.BBG_CODE, symbolId);
+		return this;
+	}
+
+	public OrderEncoder currency(int symbolId) {
+		buffer.putInt(offset + BinaryOrderFormat.CURRENCY, symbolId);
+		return this;
+	}
+
+	public OrderEncoder portfolio(int symbolId) {
+		buffer.putInt(offset + BinaryOrderFormat.PORTFOLIO, symbolId);
+		return this;
+	}
+
+	public OrderEncoder account(int symbolId) {
+		buffer.putInt(offset + BinaryOrderFormat.ACCOUNT, symbolId);
+		return this;
+	}
+
+	public OrderEncoder strategy(int symbolId) {
+		buffer.putInt(offset + BinaryOrderFormat.STRATEGY, symbolId);
+		return this;
+	}
+
+	public OrderEncoder user(int symbolId) {
+		buffer.putInt(offset + BinaryOrderFormat.USER, symbolId);
+		return this;
+	}
+
+	/**
+	 * @param symbolId The id of the ValueDate, or NO_SYMBOL if it is missing.
+	 * @return This encoder.
+	 */
+	public OrderEncoder valueDate(int symbolId) {
+		buffer.putInt(offset + BinaryOrderFormat.VALUE_DATE, symbolId);
+		return this;
+	}
+
+	public OrderEncoder side(SideEnum side) {
+		buffer.put(offset + BinaryOrderFormat.SIDE, (byte) side.ordinal());
+		return this;
+	}
+
+	public OrderEncoder action(ActionEnum action) {
+		buffer.put(offset + BinaryOrderFormat.ACTION, (byte) action.ordinal());
+		return this;
+	}
+
+	/**
+	 * Copies the UTF-8 bytes of a TradeID into the block.
+	 *
+	 * @param tradeId
+	 * @param tradeIdOffset
+	 * @param length
+	 * @return This encoder.
+	 */
+	public OrderEncoder tradeId(byte[] tradeId, int tradeIdOffset, int length) {
+		if (length > BinaryOrderFormat.MAX_TRADE_ID_LENGTH)
+			throw new IllegalArgumentException("The TradeID is longer than "
+					                           + BinaryOrderFormat.MAX_TRADE_ID_LENGTH
+					                           + " bytes");
+
+		buffer.put(offset + BinaryOrderFormat.TRADE_ID_LENGTH, (byte) length);
+		buffer.put(offset + BinaryOrderFormat.TRADE_ID, tradeId, tradeIdOffset, length);
+		return this;
+	}
+}
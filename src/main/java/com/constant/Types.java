@@ -27,4 +27,29 @@ public class Types {
 		AMEND,
 		CANCEL
 	}
+	/**
+	 * 
+	 * An enumerator type which represents the order properties, besides the
+	 * BBGCode, by which the master book aggregates volume.
+	 */
+	public enum DimensionEnum {
+		STRATEGY,
+		PORTFOLIO,
+		USER
+	}
+	/**
+	 * 
+	 * An enumerator type which represents the order properties by which the
+	 * aggregation cube can group resting volume, in any combination.
+	 */
+	public enum FieldEnum {
+		BBGCODE,
+		SIDE,
+		CURRENCY,
+		PORTFOLIO,
+		ACCOUNT,
+		STRATEGY,
+		USER,
+		PRICE
+	}
 }
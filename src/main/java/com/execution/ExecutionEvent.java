@@ -0,0 +1,209 @@
+package com.execution;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.constant.Types.SideEnum;
+import com.orderBook.Order;
+import com.orderBook.TickSize;
+
+/**
+ * A single execution between an incoming (aggressor) order and a resting
+ * (passive) order.
+ *
+ * Events are preallocated slots of an ExecutionRing which are overwritten for
+ * each execution, so they hold copies of the order fields rather than the
+ * orders themselves, whose volumes keep changing as matching goes on and
+ * which are reused once they leave the book. The TradeIDs are copied as bytes,
+ * so that publishing does not allocate, and only become Strings when a
+ * listener asks for them.
+ *
+ * @author Zane Ali
+ *
+ */
+public class ExecutionEvent {
+
+	private long sequence;
+	private long droppedBefore;
+
+	private String bbgCode;
+	private TickSize tickSize;
+	private long priceTicks;
+	private int quantity;
+	private long tradeTimeNanos;
+
+	private SideEnum aggressorSide;
+	private byte[] aggressorTradeIdBytes = new byte[16];
+	private int aggressorTradeIdLength;
+	private String aggressorTradeId;
+	private String aggressorAccount;
+	private String aggressorPortfolio;
+	private String aggressorStrategy;
+	private String aggressorUser;
+	private int aggressorRemaining;
+
+	private byte[] passiveTradeIdBytes = new byte[16];
+	private int passiveTradeIdLength;
+	private String passiveTradeId;
+	private String passiveAccount;
+	private String passivePortfolio;
+	private String passiveStrategy;
+	private String passiveUser;
+	private int passiveRemaining;
+
+	/**
+	 * @return The position of the event in the ring, which increases by one
+	 * with every execution which is not dropped.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return The number of executions dropped before this one was published.
+	 */
+	public long getDroppedBefore() {
+		return droppedBefore;
+	}
+
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	public TickSize getTickSize() {
+		return tickSize;
+	}
+
+	/**
+	 * @return The execution price, i.e. the passive order's limit price, in
+	 * ticks.
+	 */
+	public long getPriceTicks() {
+		return priceTicks;
+	}
+
+	public double getPrice() {
+		return tickSize.toPrice(priceTicks);
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * @return The TradeTimeUTC of the aggressor order as nanoseconds since the
+	 * epoch.
+	 */
+	public long getTradeTimeNanos() {
+		return tradeTimeNanos;
+	}
+
+	public SideEnum getAggressorSide() {
+		return aggressorSide;
+	}
+
+	public String getAggressorTradeId() {
+		if (aggressorTradeId == null)
+			aggressorTradeId = new String(aggressorTradeIdBytes, 0,
+					                      aggressorTradeIdLength,
+					                      StandardCharsets.UTF_8);
+
+		return aggressorTradeId;
+	}
+
+	public String getAggressorAccount() {
+		return aggressorAccount;
+	}
+
+	public String getAggressorPortfolio() {
+		return aggressorPortfolio;
+	}
+
+	public String getAggressorStrategy() {
+		return aggressorStrategy;
+	}
+
+	public String getAggressorUser() {
+		return aggressorUser;
+	}
+
+	/**
+	 * @return The volume of the aggressor order left after this execution.
+	 */
+	public int getAggressorRemaining() {
+		return aggressorRemaining;
+	}
+
+	public String getPassiveTradeId() {
+		if (passiveTradeId == null)
+			passiveTradeId = new String(passiveTradeIdBytes, 0,
+					                    passiveTradeIdLength,
+					                    StandardCharsets.UTF_8);
+
+		return passiveTradeId;
+	}
+
+	public String getPassiveAccount() {
+		return passiveAccount;
+	}
+
+	public String getPassivePortfolio() {
+		return passivePortfolio;
+	}
+
+	public String getPassiveStrategy() {
+		return passiveStrategy;
+	}
+
+	public String getPassiveUser() {
+		return passiveUser;
+	}
+
+	/**
+	 * @return The volume of the passive order left after this execution.
+	 */
+	public int getPassiveRemaining() {
+		return passiveRemaining;
+	}
+
+	void set(long sequence, long droppedBefore, Order aggressor, Order passive,
+			 int quantity) {
+		this.sequence = sequence;
+		this.droppedBefore = droppedBefore;
+
+		bbgCode = passive.getBbgCode();
+		tickSize = passive.getTickSize();
+		priceTicks = passive.getPriceTicks();
+		this.quantity = quantity;
+		tradeTimeNanos = aggressor.getTradeTimeNanos();
+
+		aggressorSide = aggressor.getSide();
+		aggressorTradeIdBytes = copyTradeId(aggressor, aggressorTradeIdBytes);
+		aggressorTradeIdLength = aggressor.getTradeIdLength();
+		aggressorTradeId = null;
+		aggressorAccount = aggressor.getAccount();
+		aggressorPortfolio = aggressor.getPortfolio();
+		aggressorStrategy = aggressor.getStrategy();
+		aggressorUser = aggressor.getUser();
+		aggressorRemaining = aggressor.getVolume();
+
+		passiveTradeIdBytes = copyTradeId(passive, passiveTradeIdBytes);
+		passiveTradeIdLength = passive.getTradeIdLength();
+		passiveTradeId = null;
+		passiveAccount = passive.getAccount();
+		passivePortfolio = passive.getPortfolio();
+		passiveStrategy = passive.getStrategy();
+		passiveUser = passive.getUser();
+		passiveRemaining = passive.getVolume();
+	}
+
+	private static byte[] copyTradeId(Order order, byte[] buffer) {
+		int length = order.getTradeIdLength();
+
+		if (length > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+
+		System.arraycopy(order.getTradeIdBytes(), 0, buffer, 0, length);
+		return buffer;
+	}
+}
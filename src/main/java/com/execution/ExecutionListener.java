@@ -0,0 +1,30 @@
+package com.execution;
+
+/**
+ * A consumer of the execution events published to an ExecutionRing. Each
+ * listener runs on its own thread and receives every event in sequence.
+ *
+ * @author Zane Ali
+ *
+ */
+public interface ExecutionListener {
+
+	/**
+	 * Receives one execution. The event is only valid until this returns, as
+	 * its slot is then reused for later executions.
+	 *
+	 * @param event
+	 * @param endOfBatch Whether this is the last event currently available, e.g.
+	 * to flush any output buffered for the batch.
+	 */
+	void onExecution(ExecutionEvent event, boolean endOfBatch);
+
+	/**
+	 * Called before the next event when executions have been dropped because
+	 * the ring was full.
+	 *
+	 * @param count The number of executions dropped since the last call.
+	 */
+	default void onDropped(long count) {
+	}
+}
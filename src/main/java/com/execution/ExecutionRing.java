@@ -0,0 +1,279 @@
+package com.execution;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.orderBook.Order;
+
+/**
+ * A bounded ring of preallocated execution events which carries the fills of
+ * one or more matching threads to a set of listeners, each running on its own
+ * thread.
+ *
+ * Publishing claims the next slot with a single compare-and-set and copies
+ * the fill into it, so it never allocates. Publishing never waits either: if
+ * the slowest listener is a whole ring behind, the execution is dropped and
+ * counted, and every listener is told how many were dropped before its next
+ * event. Listeners receive the events in sequence, in batches of everything
+ * published since their previous batch.
+ *
+ * A listener which throws is not called again, as its state may no longer
+ * agree with the events it has seen. The ring records the first failure of
+ * each listener (see getFailure) and carries on feeding the others.
+ *
+ * @author Zane Ali
+ *
+ */
+public class ExecutionRing implements AutoCloseable {
+
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+	private static final int SPINS_BEFORE_PARKING = 1_000;
+	private static final long MAX_PARK_NANOS = 1_000_000L;
+
+	private final ExecutionEvent[] events;
+	// The sequence last published into each slot, or -1.
+	private final AtomicLongArray published;
+	private final int mask;
+
+	// The next sequence to be claimed.
+	private final AtomicLong cursor = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final Subscriber[] subscribers;
+	// The lowest next sequence of the subscribers when it was last looked at.
+	private volatile long gatingSequence;
+
+	private volatile boolean running = true;
+
+	public ExecutionRing(ExecutionListener... listeners) {
+		this(DEFAULT_CAPACITY, listeners);
+	}
+
+	/**
+	 * Creates the ring and starts a thread for each listener.
+	 *
+	 * @param capacity The number of events the ring can hold, which must be a
+	 * power of two.
+	 * @param listeners
+	 */
+	public ExecutionRing(int capacity, ExecutionListener... listeners) {
+		if (Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("The capacity must be a power of two");
+
+		events = new ExecutionEvent[capacity];
+		published = new AtomicLongArray(capacity);
+
+		for (int i = 0; i < capacity; i++) {
+			events[i] = new ExecutionEvent();
+			published.set(i, -1);
+		}
+
+		mask = capacity - 1;
+
+		subscribers = new Subscriber[listeners.length];
+		for (int i = 0; i < listeners.length; i++)
+			subscribers[i] = new Subscriber(listeners[i], "execution-listener-" + i);
+
+		for (Subscriber subscriber : subscribers)
+			subscriber.thread.start();
+	}
+
+	/**
+	 * Publishes an execution, or drops it if the ring is full.
+	 *
+	 * @param aggressor The incoming order, with its volume after the fill.
+	 * @param passive The resting order, with its volume after the fill.
+	 * @param quantity The volume traded.
+	 * @return False if the execution was dropped.
+	 */
+	public boolean publish(Order aggressor, Order passive, int quantity) {
+		long sequence = claim();
+
+		if (sequence < 0) {
+			dropped.incrementAndGet();
+			return false;
+		}
+
+		int index = (int) sequence & mask;
+		events[index].set(sequence, dropped.get(), aggressor, passive, quantity);
+		published.lazySet(index, sequence);
+
+		for (Subscriber subscriber : subscribers) {
+			if (subscriber.waiting)
+				LockSupport.unpark(subscriber.thread);
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param listener The position of the listener in the constructor's
+	 * arguments.
+	 * @return The exception which stopped the listener, or null if it is
+	 * still receiving events.
+	 */
+	public Throwable getFailure(int listener) {
+		return subscribers[listener].failure;
+	}
+
+	/**
+	 * @return The number of executions dropped so far because the ring was
+	 * full.
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return The number of executions published so far.
+	 */
+	public long getPublished() {
+		return cursor.get();
+	}
+
+	/**
+	 * Stops the listener threads once they have received every execution
+	 * published so far.
+	 */
+	@Override
+	public void close() {
+		running = false;
+
+		for (Subscriber subscriber : subscribers) {
+			LockSupport.unpark(subscriber.thread);
+
+			try {
+				subscriber.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private long claim() {
+		int capacity = events.length;
+
+		while (true) {
+			long current = cursor.get();
+
+			if (current - gatingSequence >= capacity) {
+				long lowest = lowestSubscriberSequence(current);
+				gatingSequence = lowest;
+
+				if (current - lowest >= capacity)
+					return -1;
+			}
+
+			if (cursor.compareAndSet(current, current + 1))
+				return current;
+		}
+	}
+
+	private long lowestSubscriberSequence(long limit) {
+		long lowest = limit;
+
+		for (Subscriber subscriber : subscribers)
+			lowest = Math.min(lowest, subscriber.next);
+
+		return lowest;
+	}
+
+	/**
+	 * One listener and the thread which feeds it.
+	 */
+	private class Subscriber {
+
+		private final ExecutionListener listener;
+		private final Thread thread;
+
+		// The next sequence the listener will receive, read by publishers.
+		private volatile long next;
+		private volatile boolean waiting;
+
+		private long droppedSeen;
+		// The first exception thrown by the listener, set only by the thread.
+		private volatile Throwable failure;
+
+		Subscriber(ExecutionListener listener, String name) {
+			this.listener = listener;
+
+			thread = new Thread(this::run, name);
+			thread.setDaemon(true);
+		}
+
+		private void run() {
+			long sequence = next;
+			int spins = 0;
+
+			while (true) {
+				long available = highestPublished(sequence);
+
+				if (available < sequence) {
+					if (!running && cursor.get() == sequence)
+						break;
+
+					if (spins++ < SPINS_BEFORE_PARKING) {
+						Thread.onSpinWait();
+					} else {
+						waiting = true;
+						if (highestPublished(sequence) < sequence && running)
+							LockSupport.parkNanos(this, MAX_PARK_NANOS);
+						waiting = false;
+					}
+
+					continue;
+				}
+
+				spins = 0;
+
+				for (; sequence <= available; sequence++)
+					deliver(events[(int) sequence & mask], sequence == available);
+
+				next = sequence;
+			}
+
+			if (failure == null) {
+				try {
+					reportDropped(dropped.get());
+				} catch (RuntimeException | Error e) {
+					failure = e;
+				}
+			}
+		}
+
+		private long highestPublished(long from) {
+			long sequence = from;
+
+			while (published.get((int) sequence & mask) == sequence)
+				sequence++;
+
+			return sequence - 1;
+		}
+
+		/**
+		 * Passes an event to the listener unless it has failed, keeping its
+		 * first failure.
+		 */
+		private void deliver(ExecutionEvent event, boolean endOfBatch) {
+			if (failure != null)
+				return;
+
+			try {
+				reportDropped(event.getDroppedBefore());
+				listener.onExecution(event, endOfBatch);
+			} catch (RuntimeException | Error e) {
+				failure = e;
+			}
+		}
+
+		private void reportDropped(long droppedBefore) {
+			if (droppedBefore > droppedSeen) {
+				listener.onDropped(droppedBefore - droppedSeen);
+				droppedSeen = droppedBefore;
+			}
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package com.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import com.constant.Types.DimensionEnum;
+import com.constant.Types.SideEnum;
+import com.orderBook.OrderBook;
+import com.orderBook.TickSize;
+import com.tradingVenue.ShardedTradingVenue;
+import com.tradingVenue.TradingVenue;
+import com.util.LongLongHashMap;
+
+/**
+ * The volume aggregations of a venue at one point in time, which can be
+ * written to CSV files while the venue carries on.
+ *
+ * Capturing copies the aggregation maps of every order book and the master
+ * book's totals, which are already primitive arrays, so it holds up the venue
+ * for no longer than the copies take and every file written from the capture
+ * agrees with the others. The files are then streamed through a CsvWriter
+ * each, in parallel, and are named and laid out as the aggregation exports of
+ * the interactive tool:
+ *
+ *  BidAggregationsPerBBGCode.csv: BBGCode, Price, AggregatedVolume
+ *  AskAggregationsPerUser.csv:    User,Price,AggregatedVolume
+ *
+ * Rows are sorted by the BBGCode or property value and then by price.
+ *
+ * @author Zane Ali
+ *
+ */
+public class AggregationExport {
+
+	public static final String BBG_CODE = "BBGCode";
+
+	private static final SideEnum[] SIDES = SideEnum.values();
+	private static final DimensionEnum[] DIMENSIONS = DimensionEnum.values();
+
+	private final Map<String, BookAggregation> books;
+	private final Map<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>> totals;
+
+	private AggregationExport(Map<String, BookAggregation> books,
+			                  Map<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>> totals) {
+		this.books = books;
+		this.totals = totals;
+	}
+
+	/**
+	 * Captures the aggregations of a venue. This must be called on the thread
+	 * which submits to the venue.
+	 *
+	 * @param venue
+	 * @return The capture.
+	 */
+	public static AggregationExport capture(TradingVenue venue) {
+		Map<String, BookAggregation> books = new HashMap<String, BookAggregation>();
+		Map<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>> totals = newTotals();
+
+		addBooks(venue, books);
+		addTotals(venue, totals);
+
+		return new AggregationExport(books, totals);
+	}
+
+	/**
+	 * Captures the aggregations of every shard of a venue, each on its own
+	 * thread, at the same point in the stream of submitted messages.
+	 *
+	 * @param venue
+	 * @return The combined capture.
+	 */
+	public static AggregationExport capture(ShardedTradingVenue venue) {
+		List<AggregationExport> parts = venue.callOnAllShards(AggregationExport::capture);
+
+		Map<String, BookAggregation> books = new HashMap<String, BookAggregation>();
+		Map<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>> totals = newTotals();
+
+		for (AggregationExport part : parts) {
+			// Each instrument belongs to one shard, so the books never clash.
+			books.putAll(part.books);
+
+			for (SideEnum side : SIDES) {
+				for (DimensionEnum dimension : DIMENSIONS) {
+					Map<String, LongLongHashMap> target = totals.get(side).get(dimension);
+
+					part.totals.get(side).get(dimension).forEach((property, prices) -> {
+						LongLongHashMap existing = target.putIfAbsent(property, prices);
+						if (existing != null)
+							prices.forEach(existing::addTo);
+					});
+				}
+			}
+		}
+
+		return new AggregationExport(books, totals);
+	}
+
+	/**
+	 * @param aggregateBy BBGCode, or the name of a dimension, e.g. User.
+	 * @param side
+	 * @return The name of the file for an aggregation and side, e.g.
+	 * BidAggregationsPerUser.csv.
+	 */
+	public static String fileName(String aggregateBy, SideEnum side) {
+		return (side == SideEnum.B ? "Bid" : "Ask") + "AggregationsPer"
+			   + aggregateBy + ".csv";
+	}
+
+	/**
+	 * @param dimension
+	 * @return The name of a dimension as it appears in files, e.g. User.
+	 */
+	public static String displayName(DimensionEnum dimension) {
+		String name = dimension.name();
+		return name.charAt(0) + name.substring(1).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Writes both sides of every aggregation, i.e. eight files, in parallel
+	 * on the common fork-join pool.
+	 *
+	 * @param directory
+	 * @return A future which completes when every file has been written, or
+	 * exceptionally with an UncheckedIOException if one cannot be.
+	 */
+	public CompletableFuture<Void> writeAll(Path directory) {
+		return writeAll(directory, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Writes both sides of every aggregation, i.e. eight files, in parallel.
+	 *
+	 * @param directory
+	 * @param executor The executor which runs one task per file.
+	 * @return A future which completes when every file has been written, or
+	 * exceptionally with an UncheckedIOException if one cannot be.
+	 */
+	public CompletableFuture<Void> writeAll(Path directory, Executor executor) {
+		List<CompletableFuture<Void>> files = new ArrayList<CompletableFuture<Void>>();
+
+		files.add(write(BBG_CODE, directory, executor));
+		for (DimensionEnum dimension : DIMENSIONS)
+			files.add(write(displayName(dimension), directory, executor));
+
+		return CompletableFuture.allOf(files.toArray(new CompletableFuture<?>[0]));
+	}
+
+	/**
+	 * Writes the bid and ask files of one aggregation in parallel.
+	 *
+	 * @param aggregateBy BBGCode, User, Portfolio or Strategy.
+	 * @param directory
+	 * @param executor The executor which runs one task per file.
+	 * @return A future which completes when both files have been written, or
+	 * exceptionally with an UncheckedIOException if one cannot be.
+	 */
+	public CompletableFuture<Void> write(String aggregateBy, Path directory,
+			                             Executor executor) {
+		CompletableFuture<?>[] files = new CompletableFuture<?>[SIDES.length];
+
+		for (SideEnum side : SIDES) {
+			Path path = directory.resolve(fileName(aggregateBy, side));
+
+			files[side.ordinal()] = CompletableFuture.runAsync(() -> {
+				try {
+					write(aggregateBy, side, path);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, executor);
+		}
+
+		return CompletableFuture.allOf(files);
+	}
+
+	/**
+	 * Writes one side of one aggregation on the calling thread.
+	 *
+	 * @param aggregateBy BBGCode, User, Portfolio or Strategy.
+	 * @param side
+	 * @param path
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void write(String aggregateBy, SideEnum side, Path path) throws IOException {
+		try (CsvWriter writer = new CsvWriter(path)) {
+			if (aggregateBy.equalsIgnoreCase(BBG_CODE))
+				writeByBbgCode(side, writer);
+			else
+				writeByDimension(aggregateBy, side, writer);
+		}
+	}
+
+	private void writeByBbgCode(SideEnum side, CsvWriter writer) throws IOException {
+		writer.put("BBGCode, Price, AggregatedVolume").newLine();
+
+		for (String bbgCode : sortedKeys(books)) {
+			BookAggregation book = books.get(bbgCode);
+			LongLongHashMap prices = side == SideEnum.B ? book.bids : book.asks;
+
+			for (long priceTicks : prices.sortedKeys()) {
+				writer.put(bbgCode).put(',')
+				      .putPrice(book.tickSize, priceTicks).put(',')
+				      .put(prices.get(priceTicks)).newLine();
+			}
+		}
+	}
+
+	private void writeByDimension(String aggregateBy, SideEnum side, CsvWriter writer)
+			throws IOException {
+		DimensionEnum dimension = DimensionEnum.valueOf(
+				aggregateBy.toUpperCase(Locale.ROOT));
+		Map<String, LongLongHashMap> byProperty = totals.get(side).get(dimension);
+
+		writer.put(aggregateBy).put(",Price,AggregatedVolume").newLine();
+
+		for (String property : sortedKeys(byProperty)) {
+			LongLongHashMap prices = byProperty.get(property);
+
+			for (long price : prices.sortedKeys()) {
+				writer.put(property).put(',')
+				      .putCanonical(price).put(',')
+				      .put(prices.get(price)).newLine();
+			}
+		}
+	}
+
+	private static String[] sortedKeys(Map<String, ?> map) {
+		String[] keys = map.keySet().toArray(new String[0]);
+		Arrays.sort(keys);
+		return keys;
+	}
+
+	private static void addBooks(TradingVenue venue, Map<String, BookAggregation> books) {
+		venue.getOrderBooks().forEach((bbgCode, orderBook) ->
+				books.put(bbgCode, new BookAggregation(orderBook)));
+	}
+
+	private static void addTotals(TradingVenue venue,
+			                      Map<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>> totals) {
+		for (SideEnum side : SIDES) {
+			for (DimensionEnum dimension : DIMENSIONS)
+				totals.get(side).put(dimension,
+						             venue.getMasterBook().copyTotals(side, dimension));
+		}
+	}
+
+	private static Map<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>> newTotals() {
+		Map<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>> totals =
+				new EnumMap<SideEnum, Map<DimensionEnum, Map<String, LongLongHashMap>>>(SideEnum.class);
+
+		for (SideEnum side : SIDES) {
+			Map<DimensionEnum, Map<String, LongLongHashMap>> byDimension =
+					new EnumMap<DimensionEnum, Map<String, LongLongHashMap>>(DimensionEnum.class);
+
+			for (DimensionEnum dimension : DIMENSIONS)
+				byDimension.put(dimension, new HashMap<String, LongLongHashMap>());
+
+			totals.put(side, byDimension);
+		}
+
+		return totals;
+	}
+
+	/**
+	 * A copy of the volume per price of both sides of one order book.
+	 */
+	private static class BookAggregation {
+
+		private final TickSize tickSize;
+		private final LongLongHashMap bids;
+		private final LongLongHashMap asks;
+
+		BookAggregation(OrderBook orderBook) {
+			tickSize = orderBook.getTickSize();
+			bids = new LongLongHashMap(orderBook.getBidsAggregation());
+			asks = new LongLongHashMap(orderBook.getAsksAggregation());
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package com.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.orderBook.TickSize;
+
+/**
+ * A buffered writer of CSV rows straight to a file channel.
+ *
+ * Numbers and prices are formatted digit by digit into the buffer, and ASCII
+ * text is copied into it a character at a time, so writing a row allocates
+ * nothing and the file is never held in memory as a whole. The buffer is
+ * written out whenever it fills.
+ *
+ * A writer is not thread-safe; each file being written should have its own.
+ *
+ * @author Zane Ali
+ *
+ */
+public class CsvWriter implements AutoCloseable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+
+	// Scratch space for the digits of a number, written in reverse.
+	private final byte[] digits = new byte[20];
+
+	public CsvWriter(Path path) throws IOException {
+		this(path, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates the file, or truncates it if it exists.
+	 *
+	 * @param path
+	 * @param bufferSize
+	 * @throws IOException if the file cannot be opened.
+	 */
+	public CsvWriter(Path path, int bufferSize) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				                   StandardOpenOption.WRITE,
+				                   StandardOpenOption.TRUNCATE_EXISTING);
+		buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Writes text, which is copied without allocating if it is ASCII and
+	 * encoded as UTF-8 otherwise.
+	 *
+	 * @param text
+	 * @return This writer.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public CsvWriter put(String text) throws IOException {
+		int length = text.length();
+
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) >= 0x80)
+				return put(text.getBytes(StandardCharsets.UTF_8));
+		}
+
+		ensure(length);
+		for (int i = 0; i < length; i++) {
+			if (!buffer.hasRemaining())
+				drain();
+
+			buffer.put((byte) text.charAt(i));
+		}
+
+		return this;
+	}
+
+	/**
+	 * @param c An ASCII character.
+	 * @return This writer.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public CsvWriter put(char c) throws IOException {
+		ensure(1);
+		buffer.put((byte) c);
+		return this;
+	}
+
+	/**
+	 * @param value
+	 * @return This writer.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public CsvWriter put(long value) throws IOException {
+		ensure(20);
+
+		if (value < 0) {
+			buffer.put((byte) '-');
+
+			if (value == Long.MIN_VALUE) {
+				// Its magnitude does not fit in a long, so print the last digit
+				// separately.
+				putDigits(-(value / 10));
+				buffer.put((byte) ('0' - value % 10));
+				return this;
+			}
+
+			value = -value;
+		}
+
+		putDigits(value);
+		return this;
+	}
+
+	/**
+	 * Writes a price in ticks as an exact decimal with the tick size's number
+	 * of decimal places, as TickSize.appendPrice does.
+	 *
+	 * @param tickSize
+	 * @param ticks
+	 * @return This writer.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public CsvWriter putPrice(TickSize tickSize, long ticks) throws IOException {
+		return putDecimal(ticks * tickSize.getUnits(), tickSize.getScale());
+	}
+
+	/**
+	 * Writes a canonical price as a decimal without trailing zeros, as
+	 * TickSize.appendCanonical does.
+	 *
+	 * @param canonicalPrice A price in units of 10^-CANONICAL_SCALE.
+	 * @return This writer.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public CsvWriter putCanonical(long canonicalPrice) throws IOException {
+		long value = canonicalPrice;
+		int decimals = TickSize.CANONICAL_SCALE;
+
+		while (decimals > 0 && value % 10 == 0) {
+			value /= 10;
+			decimals--;
+		}
+
+		return putDecimal(value, decimals);
+	}
+
+	/**
+	 * @param unscaled The digits of the number without its decimal point.
+	 * @param decimals The number of digits after the decimal point.
+	 * @return This writer.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public CsvWriter putDecimal(long unscaled, int decimals) throws IOException {
+		ensure(22);
+
+		if (unscaled < 0) {
+			buffer.put((byte) '-');
+			unscaled = -unscaled;
+		}
+
+		putDigits(unscaled / POWERS_OF_TEN[decimals]);
+
+		if (decimals > 0) {
+			buffer.put((byte) '.');
+			long fraction = unscaled % POWERS_OF_TEN[decimals];
+
+			for (int i = decimals - 1; i >= 0; i--)
+				buffer.put((byte) ('0' + (fraction / POWERS_OF_TEN[i]) % 10));
+		}
+
+		return this;
+	}
+
+	/**
+	 * Ends the current row.
+	 *
+	 * @return This writer.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public CsvWriter newLine() throws IOException {
+		return put('\n');
+	}
+
+	/**
+	 * Writes out whatever is buffered.
+	 *
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void flush() throws IOException {
+		drain();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private CsvWriter put(byte[] bytes) throws IOException {
+		for (int offset = 0; offset < bytes.length; ) {
+			if (!buffer.hasRemaining())
+				drain();
+
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+
+		return this;
+	}
+
+	private void putDigits(long value) {
+		int count = 0;
+
+		do {
+			digits[count++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+
+		while (count > 0)
+			buffer.put(digits[--count]);
+	}
+
+	/**
+	 * Makes room for a number of bytes, or as many as the buffer can take.
+	 */
+	private void ensure(int length) throws IOException {
+		if (buffer.remaining() < length)
+			drain();
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+}
@@ -0,0 +1,20 @@
+package com.gateway;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a client of an OrderGateway breaks the framing of its messages
+ * (see GatewayFormat), e.g. with a frame length out of range. The stream can
+ * no longer be read, so the gateway disconnects the client.
+ *
+ * @author Zane Ali
+ *
+ */
+public class FramingException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public FramingException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,164 @@
+package com.gateway;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A blocking client of an OrderGateway, e.g. for tests and load generation.
+ *
+ * Messages are buffered and sent when the buffer fills or is flushed, so a
+ * caller can pipeline many messages before reading their acknowledgements.
+ * Since the gateway stops reading from a client which is not reading its
+ * acknowledgements, a caller should not send much more than a socket buffer's
+ * worth of messages before reading the acknowledgements of earlier ones.
+ *
+ * Each call to readAck reads the next acknowledgement into this client, from
+ * where its fields can be read until the next call. A client is not
+ * thread-safe, although one thread may send while another reads.
+ *
+ * @author Zane Ali
+ *
+ */
+public class GatewayClient implements AutoCloseable {
+
+	private final SocketChannel channel;
+	private final ByteBuffer out;
+	private final ByteBuffer in;
+
+	private boolean accepted;
+	private int fillCount;
+	private long filledVolume;
+	private int restingVolume;
+	private String rejectReason;
+
+	public GatewayClient(InetSocketAddress address) throws IOException {
+		this(address, OrderGateway.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Connects to a gateway.
+	 *
+	 * @param address
+	 * @param bufferSize The size of the send and receive buffers.
+	 * @throws IOException if the gateway cannot be reached.
+	 */
+	public GatewayClient(InetSocketAddress address, int bufferSize) throws IOException {
+		channel = SocketChannel.open(address);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+		out = ByteBuffer.allocate(bufferSize);
+		in = ByteBuffer.allocate(bufferSize);
+		in.flip();
+	}
+
+	/**
+	 * Buffers a comma-separated order message, sending the buffer first if it
+	 * is full.
+	 *
+	 * @param orderMessage
+	 * @throws IOException if the connection fails.
+	 */
+	public void send(String orderMessage) throws IOException {
+		byte[] bytes = orderMessage.getBytes(StandardCharsets.UTF_8);
+
+		if (bytes.length == 0 || bytes.length > GatewayFormat.MAX_MESSAGE_LENGTH)
+			throw new IllegalArgumentException("The message must be between 1 and "
+					                           + GatewayFormat.MAX_MESSAGE_LENGTH
+					                           + " bytes");
+
+		if (out.remaining() < GatewayFormat.LENGTH_BYTES + bytes.length)
+			flush();
+
+		out.putInt(bytes.length).put(bytes);
+	}
+
+	/**
+	 * Sends whatever is buffered.
+	 *
+	 * @throws IOException if the connection fails.
+	 */
+	public void flush() throws IOException {
+		out.flip();
+
+		while (out.hasRemaining())
+			channel.write(out);
+
+		out.clear();
+	}
+
+	/**
+	 * Waits for the acknowledgement of the next message, in the order they
+	 * were sent.
+	 *
+	 * @throws IOException if the connection fails or is closed.
+	 */
+	public void readAck() throws IOException {
+		fill(GatewayFormat.LENGTH_BYTES);
+		int length = in.getInt();
+
+		fill(length);
+		accepted = in.get() == GatewayFormat.ACCEPTED;
+		fillCount = in.getInt();
+		filledVolume = in.getLong();
+		restingVolume = in.getInt();
+
+		int reasonLength = length - GatewayFormat.ACK_FIXED_LENGTH;
+		if (reasonLength > 0) {
+			rejectReason = new String(in.array(), in.arrayOffset() + in.position(),
+					                  reasonLength, StandardCharsets.UTF_8);
+			in.position(in.position() + reasonLength);
+		} else {
+			rejectReason = null;
+		}
+	}
+
+	public boolean isAccepted() {
+		return accepted;
+	}
+
+	public int getFillCount() {
+		return fillCount;
+	}
+
+	public long getFilledVolume() {
+		return filledVolume;
+	}
+
+	public int getRestingVolume() {
+		return restingVolume;
+	}
+
+	/**
+	 * @return Why the last message was rejected, or null if it was accepted.
+	 */
+	public String getRejectReason() {
+		return rejectReason;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Reads until the receive buffer holds at least a number of bytes.
+	 */
+	private void fill(int length) throws IOException {
+		if (in.remaining() >= length)
+			return;
+
+		in.compact();
+
+		while (in.position() < length) {
+			if (channel.read(in) < 0)
+				throw new EOFException("The gateway closed the connection");
+		}
+
+		in.flip();
+	}
+}
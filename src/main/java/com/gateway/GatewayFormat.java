@@ -0,0 +1,39 @@
+package com.gateway;
+
+/**
+ * The wire format of the order gateway.
+ *
+ * Every frame, in either direction, is an int length (of the rest of the
+ * frame) followed by its payload, big-endian. A client sends one order message
+ * per frame, as the UTF-8 bytes of the comma-separated message without a line
+ * ending. The gateway replies with one acknowledgement per message, in the
+ * order the messages were sent:
+ *
+ *  ACK: byte status, int fillCount, long filledVolume, int restingVolume,
+ *       followed, for a rejected message, by the UTF-8 bytes of the reason
+ *
+ * @author Zane Ali
+ *
+ */
+final class GatewayFormat {
+
+	static final byte ACCEPTED = 0;
+	static final byte REJECTED = 1;
+
+	static final int LENGTH_BYTES = 4;
+
+	// The longest order message a client may send.
+	static final int MAX_MESSAGE_LENGTH = 1024;
+
+	// The bytes of an acknowledgement after its length, excluding the reason.
+	static final int ACK_FIXED_LENGTH = 1 + 4 + 8 + 4;
+
+	// Longer reasons are cut short.
+	static final int MAX_REASON_LENGTH = 128;
+
+	static final int MAX_ACK_FRAME_LENGTH = LENGTH_BYTES + ACK_FIXED_LENGTH
+			                                + MAX_REASON_LENGTH;
+
+	private GatewayFormat() {
+	}
+}
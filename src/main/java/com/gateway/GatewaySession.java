@@ -0,0 +1,72 @@
+package com.gateway;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One client connection of an OrderGateway, with its own read and write
+ * buffers. It is only ever touched by the gateway's thread.
+ *
+ * The read buffer is left in write mode between reads, holding whatever part
+ * of the next frame has arrived so far. The write buffer holds the
+ * acknowledgements which the socket has not yet taken.
+ *
+ * @author Zane Ali
+ *
+ */
+final class GatewaySession {
+
+	final SocketChannel channel;
+	final SelectionKey key;
+
+	final ByteBuffer in;
+	final ByteBuffer out;
+
+	long messageCount;
+
+	GatewaySession(SocketChannel channel, SelectionKey key, int bufferSize) {
+		this.channel = channel;
+		this.key = key;
+
+		in = ByteBuffer.allocate(bufferSize);
+		out = ByteBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Reads whatever the socket has, up to the space left in the read buffer.
+	 *
+	 * @return The number of bytes read, or -1 if the client has closed the
+	 * connection.
+	 * @throws IOException
+	 */
+	int read() throws IOException {
+		return channel.read(in);
+	}
+
+	/**
+	 * Writes as much of the pending acknowledgements as the socket will take.
+	 *
+	 * @throws IOException
+	 */
+	void flush() throws IOException {
+		out.flip();
+		channel.write(out);
+		out.compact();
+	}
+
+	boolean hasPendingWrites() {
+		return out.position() > 0;
+	}
+
+	void close() {
+		key.cancel();
+
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// The connection is being dropped anyway.
+		}
+	}
+}
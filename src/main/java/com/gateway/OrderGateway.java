@@ -0,0 +1,328 @@
+package com.gateway;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import com.tradingVenue.BatchResult;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * A TCP order-entry gateway in front of a venue, with every connection served
+ * by one non-blocking selector thread (see GatewayFormat for the framing).
+ *
+ * Each time a connection is readable, the gateway reads as many bytes as the
+ * socket has in one call, and submits every complete message in them to the
+ * venue as one batch, parsed straight from the read buffer. The
+ * acknowledgements of the batch are written back in one call, and whatever
+ * the socket cannot take is kept until it is writable again. While a client
+ * is not reading its acknowledgements, the gateway stops reading its
+ * messages, so a slow client only holds up itself.
+ *
+ * The venue is owned by the gateway's thread once the gateway has started,
+ * so it must not be used from any other thread until the gateway is closed.
+ *
+ * A client which breaks the framing, or whose connection fails, is
+ * disconnected on its own. A failure of the venue itself, e.g. a journal which
+ * can no longer be written, leaves the venue in an unknown state, so the
+ * gateway stops: it disconnects every client and records the failure (see
+ * getFailure), which close then throws.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderGateway implements AutoCloseable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final int MAX_BATCH_SIZE = 1024;
+
+	private final TradingVenue venue;
+	private final ServerSocketChannel server;
+	private final Selector selector;
+	private final int bufferSize;
+
+	// Reused for every batch, since only the gateway's thread submits.
+	private final int[] offsets = new int[MAX_BATCH_SIZE];
+	private final int[] lengths = new int[MAX_BATCH_SIZE];
+	private final BatchResult result = new BatchResult(MAX_BATCH_SIZE);
+
+	private final Thread thread;
+
+	private volatile boolean running;
+	private volatile Throwable failure;
+	private volatile int sessionCount;
+	private volatile long messageCount;
+	private volatile long batchCount;
+
+	/**
+	 * Binds the gateway to an address, e.g. new InetSocketAddress(0) for any
+	 * free port.
+	 *
+	 * @param venue
+	 * @param address
+	 * @throws IOException if the address cannot be bound.
+	 */
+	public OrderGateway(TradingVenue venue, InetSocketAddress address) throws IOException {
+		this(venue, address, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param venue
+	 * @param address
+	 * @param bufferSize The size of each connection's read and write buffers.
+	 * @throws IOException if the address cannot be bound.
+	 */
+	public OrderGateway(TradingVenue venue, InetSocketAddress address, int bufferSize)
+			throws IOException {
+		if (bufferSize < GatewayFormat.LENGTH_BYTES + GatewayFormat.MAX_MESSAGE_LENGTH
+			|| bufferSize < GatewayFormat.MAX_ACK_FRAME_LENGTH)
+			throw new IllegalArgumentException("The buffer must hold a whole frame");
+
+		this.venue = venue;
+		this.bufferSize = bufferSize;
+
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(address);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+
+		thread = new Thread(this::run, "order-gateway");
+		thread.setDaemon(true);
+	}
+
+	/**
+	 * Starts accepting connections on the gateway's own thread.
+	 */
+	public void start() {
+		running = true;
+		thread.start();
+	}
+
+	/**
+	 * @return The port the gateway is listening on.
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	public int getSessionCount() {
+		return sessionCount;
+	}
+
+	/**
+	 * @return The number of messages received so far.
+	 */
+	public long getMessageCount() {
+		return messageCount;
+	}
+
+	/**
+	 * @return The number of batches submitted to the venue so far, which with
+	 * the message count gives the average batch size.
+	 */
+	public long getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * @return The failure which stopped the gateway, or null if there is none.
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Closes every connection and stops the gateway's thread.
+	 *
+	 * @throws IOException if the gateway had stopped because of a failure,
+	 * which is its cause.
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		selector.wakeup();
+
+		try {
+			if (thread.isAlive())
+				thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (SelectionKey key : selector.keys()) {
+			if (key.attachment() instanceof GatewaySession)
+				((GatewaySession) key.attachment()).close();
+		}
+
+		selector.close();
+		server.close();
+
+		if (failure != null)
+			throw new IOException("The order gateway has stopped", failure);
+	}
+
+	private void run() {
+		try {
+			while (running) {
+				selector.select();
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+
+					if (!key.isValid())
+						continue;
+
+					if (key.isAcceptable())
+						accept();
+					else
+						service((GatewaySession) key.attachment());
+				}
+			}
+		} catch (ClosedSelectorException e) {
+			// Closed while selecting.
+		} catch (IOException | RuntimeException | Error e) {
+			// The selector or the venue has failed, rather than one connection.
+			failure = e;
+			running = false;
+			dropAll();
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+
+		while ((channel = server.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			key.attach(new GatewaySession(channel, key, bufferSize));
+			sessionCount++;
+		}
+	}
+
+	/**
+	 * Reads from and writes to a connection which is ready, and submits
+	 * whatever complete messages it has. A connection which fails or breaks
+	 * the framing is dropped.
+	 *
+	 * @throws RuntimeException if the venue fails, which stops the gateway.
+	 */
+	private void service(GatewaySession session) {
+		SelectionKey key = session.key;
+
+		try {
+			if (key.isReadable() && session.read() < 0) {
+				drop(session);
+				return;
+			}
+
+			if (key.isWritable())
+				session.flush();
+
+			// Submit for as long as there are messages and room for their
+			// acknowledgements.
+			while (!session.hasPendingWrites() && submit(session) > 0)
+				session.flush();
+
+			key.interestOps(session.hasPendingWrites() ? SelectionKey.OP_WRITE
+					                                   : SelectionKey.OP_READ);
+		} catch (IOException e) {
+			drop(session);
+		}
+	}
+
+	/**
+	 * Submits the complete messages in a connection's read buffer as one
+	 * batch, for as many as there is room to acknowledge.
+	 *
+	 * @return The number of messages submitted.
+	 * @throws FramingException if the client has broken the framing.
+	 */
+	private int submit(GatewaySession session) throws FramingException {
+		ByteBuffer in = session.in;
+		ByteBuffer out = session.out;
+
+		int maxCount = Math.min(MAX_BATCH_SIZE,
+				                out.remaining() / GatewayFormat.MAX_ACK_FRAME_LENGTH);
+		int count = 0;
+
+		in.flip();
+
+		while (count < maxCount && in.remaining() >= GatewayFormat.LENGTH_BYTES) {
+			int length = in.getInt(in.position());
+
+			if (length <= 0 || length > GatewayFormat.MAX_MESSAGE_LENGTH)
+				throw new FramingException("Invalid frame length " + length);
+
+			if (in.remaining() < GatewayFormat.LENGTH_BYTES + length)
+				break;
+
+			offsets[count] = in.arrayOffset() + in.position() + GatewayFormat.LENGTH_BYTES;
+			lengths[count] = length;
+			count++;
+
+			in.position(in.position() + GatewayFormat.LENGTH_BYTES + length);
+		}
+
+		if (count > 0) {
+			venue.submitBatch(in.array(), offsets, lengths, count, result);
+
+			for (int i = 0; i < count; i++)
+				acknowledge(out, i);
+
+			session.messageCount += count;
+			messageCount += count;
+			batchCount++;
+		}
+
+		in.compact();
+		return count;
+	}
+
+	private void acknowledge(ByteBuffer out, int index) {
+		if (result.isAccepted(index)) {
+			out.putInt(GatewayFormat.ACK_FIXED_LENGTH)
+			   .put(GatewayFormat.ACCEPTED)
+			   .putInt(result.getFillCount(index))
+			   .putLong(result.getFilledVolume(index))
+			   .putInt(result.getRestingVolume(index));
+			return;
+		}
+
+		byte[] reason = result.getRejectReason(index).getBytes(StandardCharsets.UTF_8);
+		int reasonLength = Math.min(reason.length, GatewayFormat.MAX_REASON_LENGTH);
+
+		out.putInt(GatewayFormat.ACK_FIXED_LENGTH + reasonLength)
+		   .put(GatewayFormat.REJECTED)
+		   .putInt(0)
+		   .putLong(0)
+		   .putInt(0)
+		   .put(reason, 0, reasonLength);
+	}
+
+	private void drop(GatewaySession session) {
+		session.close();
+		sessionCount--;
+	}
+
+	private void dropAll() {
+		for (SelectionKey key : selector.keys()) {
+			if (key.isValid() && key.attachment() instanceof GatewaySession)
+				drop((GatewaySession) key.attachment());
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.journal;
+
+/**
+ * The layout of the binary journal written by JournalWriter.
+ *
+ * A journal starts with a header of a magic number and a version, followed by
+ * records. Each record is an int length (of its type and payload), an int
+ * CRC32C of its type and payload, a type byte and a payload, all big-endian:
+ *
+ *  SYMBOL: int id, short length, UTF-8 bytes
+ *  ORDER:  long sequence, byte action, byte side, long unscaledPrice,
+ *          byte priceDecimals, int volume, long tradeTimeNanos, and int symbol
+ *          ids for the BBGCode, Currency, Portfolio, Account, Strategy, User
+ *          and ValueDate, followed by short length and UTF-8 bytes of the
+ *          TradeID
+ *
+ * A SYMBOL record defines an id before the first ORDER record which uses it,
+ * and a symbol id of -1 stands for a missing field.
+ *
+ * A record which is cut short, fails its checksum or has an unknown type is
+ * where a crash tore the end of the journal, and nothing from it onwards is
+ * read.
+ *
+ * @author Zane Ali
+ *
+ */
+final class JournalFormat {
+
+	static final int MAGIC = 0x54424A4C;
+	static final int VERSION = 2;
+	static final int HEADER_LENGTH = 8;
+
+	// The length and checksum in front of each record's type and payload.
+	static final int RECORD_HEADER_LENGTH = 4 + 4;
+
+	static final byte SYMBOL = 1;
+	static final byte ORDER = 2;
+
+	static final int NO_SYMBOL = -1;
+
+	// The bytes of an ORDER record after its checksum, excluding the TradeID.
+	static final int ORDER_FIXED_LENGTH = 1 + 8 + 1 + 1 + 8 + 1 + 4 + 8 + 7 * 4 + 2;
+
+	// The bytes of a SYMBOL record after its checksum, excluding the symbol.
+	static final int SYMBOL_FIXED_LENGTH = 1 + 4 + 2;
+
+	private JournalFormat() {
+	}
+}
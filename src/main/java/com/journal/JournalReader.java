@@ -0,0 +1,234 @@
+package com.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+import com.tradingVenue.OrderMessage;
+
+/**
+ * Replays the order messages of a journal written by JournalWriter.
+ *
+ * The journal is read sequentially in large blocks and each record is decoded
+ * from its fixed-width fields into a reused OrderMessage, with symbols
+ * resolved from the journal's own dictionary. Replaying therefore skips the
+ * text parsing of the original CSV entirely.
+ *
+ * A record which was only partly written, e.g. because of a crash, ends the
+ * replay; everything before it is replayed. Such a record is recognised by
+ * being cut short, failing its CRC32C or having an unknown type (see
+ * JournalFormat).
+ *
+ * @author Zane Ali
+ *
+ */
+public class JournalReader {
+
+	private static final int BLOCK_SIZE = 8 * 1024 * 1024;
+	private static final ActionEnum[] ACTIONS = ActionEnum.values();
+	private static final SideEnum[] SIDES = SideEnum.values();
+
+	private final Path path;
+	private final CRC32C checksum = new CRC32C();
+
+	private final List<String> symbols = new ArrayList<String>();
+	private long lastSequence = -1;
+	private long validLength;
+
+	public JournalReader(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Passes every order message in the journal, in sequence, to the
+	 * consumer. The OrderMessage passed to the consumer is reused once the
+	 * consumer returns.
+	 *
+	 * @param consumer The receiver of the messages, e.g. a venue's
+	 * submitToOrderBook.
+	 * @return The number of messages replayed.
+	 * @throws IOException if the journal cannot be read or is not a journal.
+	 */
+	public long replay(Consumer<OrderMessage> consumer) throws IOException {
+		return replay(0, consumer);
+	}
+
+	/**
+	 * Passes the order messages in the journal from a sequence number onwards
+	 * to the consumer, e.g. those which arrived after a snapshot was taken.
+	 *
+	 * @param fromSequence The sequence number of the first message to replay.
+	 * @param consumer The receiver of the messages.
+	 * @return The number of messages replayed.
+	 * @throws IOException if the journal cannot be read or is not a journal.
+	 */
+	public long replay(long fromSequence, Consumer<OrderMessage> consumer)
+			throws IOException {
+		symbols.clear();
+		lastSequence = -1;
+		validLength = 0;
+
+		OrderMessage message = new OrderMessage();
+		long replayed = 0;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+			// The buffer holds the unread bytes between its position and limit.
+			ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+			buffer.limit(0);
+
+			if (!fill(channel, buffer, JournalFormat.HEADER_LENGTH))
+				return 0;
+
+			if (buffer.getInt() != JournalFormat.MAGIC)
+				throw new IOException(path + " is not a journal");
+
+			int version = buffer.getInt();
+			if (version != JournalFormat.VERSION)
+				throw new IOException(path + " has unsupported journal version "
+			                          + version);
+
+			validLength = JournalFormat.HEADER_LENGTH;
+
+			while (fill(channel, buffer, JournalFormat.RECORD_HEADER_LENGTH)) {
+				int length = buffer.getInt(buffer.position());
+
+				if (length <= 0 || length > BLOCK_SIZE - JournalFormat.RECORD_HEADER_LENGTH)
+					break;
+
+				if (!fill(channel, buffer, JournalFormat.RECORD_HEADER_LENGTH + length))
+					break;
+
+				buffer.getInt();
+				int crc = buffer.getInt();
+				int end = buffer.position() + length;
+
+				checksum.reset();
+				checksum.update(buffer.array(), buffer.arrayOffset() + buffer.position(),
+						        length);
+				if ((int) checksum.getValue() != crc)
+					break;
+
+				byte type = buffer.get();
+
+				if (type == JournalFormat.SYMBOL) {
+					readSymbol(buffer);
+				} else if (type == JournalFormat.ORDER) {
+					long sequence = buffer.getLong(buffer.position());
+
+					if (sequence < fromSequence) {
+						lastSequence = sequence;
+					} else {
+						readOrder(buffer, message);
+						consumer.accept(message);
+						replayed++;
+					}
+				} else {
+					break;
+				}
+
+				buffer.position(end);
+				validLength += JournalFormat.RECORD_HEADER_LENGTH + length;
+			}
+		}
+
+		return replayed;
+	}
+
+	/**
+	 * @return The sequence number of the last message in the journal, or -1 if
+	 * there was none.
+	 */
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * @return The number of bytes at the start of the journal which hold
+	 * complete records.
+	 */
+	public long getValidLength() {
+		return validLength;
+	}
+
+	/**
+	 * @return The symbols defined by the journal, indexed by their ids.
+	 */
+	public List<String> getSymbols() {
+		return symbols;
+	}
+
+	private void readSymbol(ByteBuffer buffer) throws IOException {
+		int id = buffer.getInt();
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+
+		if (id != symbols.size())
+			throw new IOException("Journal symbol " + id + " is out of order in "
+		                          + path);
+
+		symbols.add(new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	private void readOrder(ByteBuffer buffer, OrderMessage message) {
+		lastSequence = buffer.getLong();
+
+		ActionEnum action = ACTIONS[buffer.get()];
+		SideEnum side = SIDES[buffer.get()];
+		long unscaledPrice = buffer.getLong();
+		int priceDecimals = buffer.get();
+		int volume = buffer.getInt();
+		long tradeTimeNanos = buffer.getLong();
+		String bbgCode = symbol(buffer.getInt());
+		String currency = symbol(buffer.getInt());
+		String portfolio = symbol(buffer.getInt());
+		String account = symbol(buffer.getInt());
+		String strategy = symbol(buffer.getInt());
+		String user = symbol(buffer.getInt());
+		String valueDate = symbol(buffer.getInt());
+
+		message.set(bbgCode, currency, side, unscaledPrice, priceDecimals, volume,
+				    portfolio, action, account, strategy, user, tradeTimeNanos,
+				    valueDate);
+
+		int tradeIdLength = buffer.getShort() & 0xFFFF;
+		message.setTradeId(buffer.array(), buffer.arrayOffset() + buffer.position(),
+				           tradeIdLength);
+		buffer.position(buffer.position() + tradeIdLength);
+	}
+
+	private String symbol(int id) {
+		return id == JournalFormat.NO_SYMBOL ? null : symbols.get(id);
+	}
+
+	/**
+	 * Makes sure at least the given number of bytes are available in the
+	 * buffer, reading more of the file if needed.
+	 *
+	 * @return False if the file ends first.
+	 */
+	private static boolean fill(FileChannel channel, ByteBuffer buffer, int needed)
+			throws IOException {
+		if (buffer.remaining() >= needed)
+			return true;
+
+		buffer.compact();
+
+		while (buffer.position() < needed) {
+			if (channel.read(buffer) < 0)
+				break;
+		}
+
+		buffer.flip();
+		return buffer.remaining() >= needed;
+	}
+}
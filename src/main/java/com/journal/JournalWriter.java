@@ -0,0 +1,398 @@
+package com.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import com.tradingVenue.OrderMessage;
+
+/**
+ * An append-only binary journal of the order messages accepted by a venue,
+ * from which the venue's order books and master book can be rebuilt with a
+ * JournalReader.
+ *
+ * Each message is given the next sequence number and encoded into an in-memory
+ * buffer on the calling thread, which is all an append costs the venue. A
+ * background thread swaps the buffer for a spare one at least once per flush
+ * interval and writes the whole batch with a single FileChannel write, forced
+ * to disk if the journal is synchronous, so many messages share each write
+ * (group commit). An append only waits when both buffers are full.
+ *
+ * Every record carries a CRC32C of its contents. Reopening an existing journal
+ * continues its sequence numbers and symbol ids, and truncates the journal at
+ * the first record which is cut short or fails its checksum, i.e. where a
+ * crash left it partly written, so that new records follow the last good
+ * one.
+ *
+ * @author Zane Ali
+ *
+ */
+public class JournalWriter implements AutoCloseable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final boolean sync;
+	private final long flushIntervalMillis;
+
+	private final Map<String, Integer> symbolIds = new HashMap<String, Integer>();
+	private final CRC32C checksum = new CRC32C();
+
+	// Appended to by the venue while the flusher writes the other buffer.
+	private ByteBuffer active;
+	private ByteBuffer spare;
+
+	private long nextSequence;
+	// The sequence number of the last message written (and forced) to the file.
+	private long writtenSequence;
+	private boolean closed;
+	private IOException failure;
+
+	private final Thread flusher;
+
+	/**
+	 * Opens a synchronous journal with the default buffer size and flush
+	 * interval.
+	 *
+	 * @param path
+	 * @throws IOException if the journal cannot be opened.
+	 */
+	public JournalWriter(Path path) throws IOException {
+		this(path, true, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * @param path The journal file, which is created if it does not exist and
+	 * appended to if it does.
+	 * @param sync Whether every batch is forced to disk before it counts as
+	 * written.
+	 * @param bufferSize The size of each of the two batch buffers.
+	 * @param flushIntervalMillis The longest time an appended message waits
+	 * before its batch is written.
+	 * @throws IOException if the journal cannot be opened.
+	 */
+	public JournalWriter(Path path, boolean sync, int bufferSize,
+			             long flushIntervalMillis) throws IOException {
+		if (bufferSize < JournalFormat.RECORD_HEADER_LENGTH
+				         + JournalFormat.ORDER_FIXED_LENGTH + 0xFFFF
+				|| flushIntervalMillis < 1)
+			throw new IllegalArgumentException("The buffer size must hold the "
+					                           + "largest record and the flush "
+					                           + "interval must be positive");
+
+		this.path = path;
+		this.sync = sync;
+		this.flushIntervalMillis = flushIntervalMillis;
+
+		active = ByteBuffer.allocateDirect(bufferSize);
+		spare = ByteBuffer.allocateDirect(bufferSize);
+
+		channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			recover();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		flusher = new Thread(this::runFlusher, "journal-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Appends an order message to the journal.
+	 *
+	 * @param message A message which has been accepted by the venue.
+	 * @return The sequence number given to the message.
+	 * @throws UncheckedIOException if an earlier batch could not be written.
+	 */
+	public synchronized long append(OrderMessage message) {
+		int bbgCode = symbolId(message.getBbgCode());
+		int currency = symbolId(message.getCurrency());
+		int portfolio = symbolId(message.getPortfolio());
+		int account = symbolId(message.getAccount());
+		int strategy = symbolId(message.getStrategy());
+		int user = symbolId(message.getUser());
+		int valueDate = symbolId(message.getValueDate());
+
+		int tradeIdLength = message.getTradeIdLength();
+		if (tradeIdLength > 0xFFFF)
+			throw new IllegalArgumentException("The TradeID is too long to journal");
+
+		int length = JournalFormat.ORDER_FIXED_LENGTH + tradeIdLength;
+		reserve(JournalFormat.RECORD_HEADER_LENGTH + length);
+
+		long sequence = nextSequence++;
+		int start = active.position();
+
+		active.putInt(length)
+		      .putInt(0)
+		      .put(JournalFormat.ORDER)
+		      .putLong(sequence)
+		      .put((byte) message.getAction().ordinal())
+		      .put((byte) message.getSide().ordinal())
+		      .putLong(message.getUnscaledPrice())
+		      .put((byte) message.getPriceDecimals())
+		      .putInt(message.getVolume())
+		      .putLong(message.getTradeTimeNanos())
+		      .putInt(bbgCode)
+		      .putInt(currency)
+		      .putInt(portfolio)
+		      .putInt(account)
+		      .putInt(strategy)
+		      .putInt(user)
+		      .putInt(valueDate)
+		      .putShort((short) tradeIdLength)
+		      .put(message.getTradeIdBytes(), 0, tradeIdLength);
+
+		writeChecksum(start);
+
+		// Wake the flusher early rather than let appends wait for space.
+		if (active.position() > active.capacity() / 2)
+			notifyAll();
+
+		return sequence;
+	}
+
+	/**
+	 * Waits until every message appended so far has been written, and forced
+	 * to disk if the journal is synchronous.
+	 *
+	 * @throws IOException if a batch could not be written.
+	 */
+	public synchronized void flush() throws IOException {
+		long last = nextSequence - 1;
+		notifyAll();
+
+		while (writtenSequence < last && failure == null) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while flushing " + path, e);
+			}
+		}
+
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * @return The sequence number which the next message will be given.
+	 */
+	public synchronized long getNextSequence() {
+		return nextSequence;
+	}
+
+	/**
+	 * @return The sequence number of the last message written to the file, or
+	 * -1 if there is none.
+	 */
+	public synchronized long getWrittenSequence() {
+		return writtenSequence;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Writes every message appended so far and closes the file.
+	 *
+	 * @throws IOException if the last batch could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed)
+				return;
+
+			closed = true;
+			notifyAll();
+		}
+
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		channel.close();
+
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Reads an existing journal to continue its sequence numbers and symbol
+	 * ids, and truncates it after its last good record, cutting off whatever
+	 * a crash left partly written. Writes the header of a new journal.
+	 */
+	private void recover() throws IOException {
+		if (channel.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(JournalFormat.HEADER_LENGTH);
+			header.putInt(JournalFormat.MAGIC).putInt(JournalFormat.VERSION).flip();
+
+			while (header.hasRemaining())
+				channel.write(header);
+
+			nextSequence = 0;
+			writtenSequence = -1;
+			return;
+		}
+
+		JournalReader reader = new JournalReader(path);
+		reader.replay(message -> {});
+
+		List<String> symbols = reader.getSymbols();
+		for (int i = 0; i < symbols.size(); i++)
+			symbolIds.put(symbols.get(i), i);
+
+		nextSequence = reader.getLastSequence() + 1;
+		writtenSequence = reader.getLastSequence();
+
+		channel.truncate(reader.getValidLength());
+		channel.position(reader.getValidLength());
+	}
+
+	/**
+	 * @return The id of a symbol, defining it in the journal on first use.
+	 */
+	private int symbolId(String symbol) {
+		if (symbol == null)
+			return JournalFormat.NO_SYMBOL;
+
+		Integer id = symbolIds.get(symbol);
+		if (id != null)
+			return id;
+
+		byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF)
+			throw new IllegalArgumentException("The symbol " + symbol
+					                           + " is too long to journal");
+
+		reserve(JournalFormat.RECORD_HEADER_LENGTH + JournalFormat.SYMBOL_FIXED_LENGTH
+				+ bytes.length);
+
+		int newId = symbolIds.size();
+		int start = active.position();
+
+		active.putInt(JournalFormat.SYMBOL_FIXED_LENGTH + bytes.length)
+		      .putInt(0)
+		      .put(JournalFormat.SYMBOL)
+		      .putInt(newId)
+		      .putShort((short) bytes.length)
+		      .put(bytes);
+
+		writeChecksum(start);
+
+		symbolIds.put(symbol, newId);
+		return newId;
+	}
+
+	/**
+	 * Fills in the checksum of the record just written to the active buffer
+	 * from a position, over its type and payload.
+	 */
+	private void writeChecksum(int start) {
+		int end = active.position();
+
+		active.position(start + JournalFormat.RECORD_HEADER_LENGTH);
+		active.limit(end);
+
+		checksum.reset();
+		checksum.update(active);
+
+		active.limit(active.capacity());
+		active.putInt(start + 4, (int) checksum.getValue());
+	}
+
+	/**
+	 * Waits until the active buffer has room for a record.
+	 */
+	private void reserve(int length) {
+		if (failure != null)
+			throw new UncheckedIOException("Failed to write " + path, failure);
+		if (closed)
+			throw new IllegalStateException("The journal has been closed");
+
+		while (active.remaining() < length) {
+			notifyAll();
+
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while appending to "
+						                        + path, e);
+			}
+
+			if (failure != null)
+				throw new UncheckedIOException("Failed to write " + path, failure);
+		}
+	}
+
+	private void runFlusher() {
+		while (true) {
+			ByteBuffer batch;
+			long batchSequence;
+
+			synchronized (this) {
+				if (active.position() == 0 && !closed) {
+					try {
+						wait(flushIntervalMillis);
+					} catch (InterruptedException e) {
+						closed = true;
+					}
+				}
+
+				if (active.position() == 0) {
+					if (closed)
+						return;
+
+					continue;
+				}
+
+				batch = active;
+				active = spare;
+				spare = batch;
+				batchSequence = nextSequence - 1;
+			}
+
+			try {
+				batch.flip();
+				while (batch.hasRemaining())
+					channel.write(batch);
+
+				if (sync)
+					channel.force(false);
+			} catch (IOException e) {
+				synchronized (this) {
+					failure = e;
+					notifyAll();
+				}
+				return;
+			} finally {
+				batch.clear();
+			}
+
+			synchronized (this) {
+				writtenSequence = batchSequence;
+				notifyAll();
+			}
+		}
+	}
+}
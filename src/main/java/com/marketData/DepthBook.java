@@ -0,0 +1,192 @@
+package com.marketData;
+
+import java.lang.invoke.VarHandle;
+
+import com.constant.Types.SideEnum;
+import com.orderBook.BookSide;
+import com.orderBook.OrderBook;
+import com.orderBook.TickSize;
+
+/**
+ * The top price levels of both sides of one instrument's order book, i.e. its
+ * L2 depth: the price, aggregated volume and order count of each of the best
+ * levels per side.
+ *
+ * The order book updates the depth after every message on its matching
+ * thread. The levels are compared with the published ones first, so messages
+ * which do not change the top of the book (e.g. an order resting deeper than
+ * the depth) publish nothing. An update costs O(depth), however many orders
+ * rest on the book.
+ *
+ * The levels are published through a sequence lock: the writer makes the
+ * version odd while it writes and even again afterwards, and a reader copies
+ * the levels and retries if the version has changed in between. Readers never
+ * block the matching thread, and a reader which polls less often than the
+ * book changes simply sees the latest levels, so intermediate updates are
+ * conflated rather than queued.
+ *
+ * @author Zane Ali
+ *
+ */
+public class DepthBook {
+
+	public static final int DEFAULT_DEPTH = 10;
+
+	private static final int SIDES = SideEnum.values().length;
+
+	private final String bbgCode;
+	private final int depth;
+
+	// Written by the matching thread between the two version increments.
+	private TickSize tickSize;
+	private final int[] levelCounts = new int[SIDES];
+	private final long[][] priceTicks;
+	private final long[][] volumes;
+	private final int[][] orderCounts;
+
+	// Odd while an update is being written.
+	private volatile long version;
+
+	DepthBook(String bbgCode, int depth) {
+		if (depth < 1)
+			throw new IllegalArgumentException("The depth must be at least 1");
+
+		this.bbgCode = bbgCode;
+		this.depth = depth;
+
+		priceTicks = new long[SIDES][depth];
+		volumes = new long[SIDES][depth];
+		orderCounts = new int[SIDES][depth];
+	}
+
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	/**
+	 * @return The maximum number of levels held per side.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return A number which changes whenever the levels do, so that a reader
+	 * can cheaply check whether there is anything new to read.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Publishes the top levels of an order book if they have changed. This
+	 * must only be called on the book's matching thread.
+	 *
+	 * @param orderBook
+	 */
+	public void update(OrderBook orderBook) {
+		BookSide bids = orderBook.getBids();
+		BookSide asks = orderBook.getAsks();
+
+		if (tickSize == orderBook.getTickSize() && isCurrent(bids) && isCurrent(asks))
+			return;
+
+		long current = version;
+		version = current + 1;
+		// Keep the level writes below from being seen before the odd version.
+		VarHandle.storeStoreFence();
+
+		tickSize = orderBook.getTickSize();
+		write(bids);
+		write(asks);
+
+		version = current + 2;
+	}
+
+	/**
+	 * @return A new snapshot big enough for this book's depth.
+	 */
+	public DepthSnapshot newSnapshot() {
+		return new DepthSnapshot(depth);
+	}
+
+	/**
+	 * Copies the latest levels into a snapshot, retrying for as long as an
+	 * update is being written. This never blocks the matching thread.
+	 *
+	 * @param snapshot A snapshot from newSnapshot, which may be reused.
+	 * @return The snapshot.
+	 */
+	public DepthSnapshot read(DepthSnapshot snapshot) {
+		int count = Math.min(depth, snapshot.getCapacity());
+
+		while (true) {
+			long before = version;
+
+			if ((before & 1) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+
+			TickSize currentTickSize = tickSize;
+			for (int side = 0; side < SIDES; side++) {
+				snapshot.levelCounts[side] = Math.min(levelCounts[side], count);
+				System.arraycopy(priceTicks[side], 0, snapshot.priceTicks[side], 0, count);
+				System.arraycopy(volumes[side], 0, snapshot.volumes[side], 0, count);
+				System.arraycopy(orderCounts[side], 0, snapshot.orderCounts[side], 0, count);
+			}
+
+			// Keep the copies above from being read after the version below.
+			VarHandle.loadLoadFence();
+
+			if (version == before) {
+				snapshot.set(bbgCode, currentTickSize, before);
+				return snapshot;
+			}
+		}
+	}
+
+	/**
+	 * Copies the latest levels into a snapshot unless it already holds them.
+	 *
+	 * @param snapshot A snapshot from newSnapshot, which may be reused.
+	 * @return Whether the snapshot was updated.
+	 */
+	public boolean readIfChanged(DepthSnapshot snapshot) {
+		if (snapshot.getVersion() == version && bbgCode.equals(snapshot.getBbgCode()))
+			return false;
+
+		read(snapshot);
+		return true;
+	}
+
+	private boolean isCurrent(BookSide bookSide) {
+		int side = bookSide.getSide().ordinal();
+		int count = Math.min(depth, bookSide.getLevelCount());
+
+		if (count != levelCounts[side])
+			return false;
+
+		for (int i = 0; i < count; i++) {
+			if (priceTicks[side][i] != bookSide.getLevelPriceTicks(i)
+				|| volumes[side][i] != bookSide.getLevelVolume(i)
+				|| orderCounts[side][i] != bookSide.getLevelOrderCount(i))
+				return false;
+		}
+
+		return true;
+	}
+
+	private void write(BookSide bookSide) {
+		int side = bookSide.getSide().ordinal();
+		int count = Math.min(depth, bookSide.getLevelCount());
+
+		for (int i = 0; i < count; i++) {
+			priceTicks[side][i] = bookSide.getLevelPriceTicks(i);
+			volumes[side][i] = bookSide.getLevelVolume(i);
+			orderCounts[side][i] = bookSide.getLevelOrderCount(i);
+		}
+
+		levelCounts[side] = count;
+	}
+}
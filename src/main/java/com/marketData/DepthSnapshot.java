@@ -0,0 +1,135 @@
+package com.marketData;
+
+import com.constant.Types.SideEnum;
+import com.orderBook.TickSize;
+
+/**
+ * A reader's copy of an instrument's depth (see DepthBook), which can be
+ * reused from one read to the next so that polling allocates nothing.
+ *
+ * Levels are numbered from the top of each side, where 0 is the best bid or
+ * the best ask.
+ *
+ * @author Zane Ali
+ *
+ */
+public class DepthSnapshot {
+
+	private String bbgCode;
+	private TickSize tickSize;
+	private long version = -1;
+
+	final int[] levelCounts;
+	final long[][] priceTicks;
+	final long[][] volumes;
+	final int[][] orderCounts;
+
+	/**
+	 * @param capacity The maximum number of levels per side to copy.
+	 */
+	public DepthSnapshot(int capacity) {
+		int sides = SideEnum.values().length;
+
+		levelCounts = new int[sides];
+		priceTicks = new long[sides][capacity];
+		volumes = new long[sides][capacity];
+		orderCounts = new int[sides][capacity];
+	}
+
+	void set(String bbgCode, TickSize tickSize, long version) {
+		this.bbgCode = bbgCode;
+		this.tickSize = tickSize;
+		this.version = version;
+	}
+
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	/**
+	 * @return The instrument's tick size, or null if its book has not yet
+	 * published any levels.
+	 */
+	public TickSize getTickSize() {
+		return tickSize;
+	}
+
+	/**
+	 * @return The version of the depth book which was copied, or -1 if nothing
+	 * has been copied yet.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public int getCapacity() {
+		return priceTicks[0].length;
+	}
+
+	/**
+	 * @param side
+	 * @return The number of levels copied for the side.
+	 */
+	public int getLevelCount(SideEnum side) {
+		return levelCounts[side.ordinal()];
+	}
+
+	/**
+	 * @param side
+	 * @param level
+	 * @return The price of the level in ticks.
+	 */
+	public long getPriceTicks(SideEnum side, int level) {
+		return priceTicks[side.ordinal()][checkLevel(side, level)];
+	}
+
+	/**
+	 * @param side
+	 * @param level
+	 * @return The price of the level as an exact decimal string.
+	 */
+	public String formatPrice(SideEnum side, int level) {
+		return tickSize.format(getPriceTicks(side, level));
+	}
+
+	/**
+	 * @param side
+	 * @param level
+	 * @return The aggregated volume of the level.
+	 */
+	public long getVolume(SideEnum side, int level) {
+		return volumes[side.ordinal()][checkLevel(side, level)];
+	}
+
+	/**
+	 * @param side
+	 * @param level
+	 * @return The number of orders at the level.
+	 */
+	public int getOrderCount(SideEnum side, int level) {
+		return orderCounts[side.ordinal()][checkLevel(side, level)];
+	}
+
+	private int checkLevel(SideEnum side, int level) {
+		if (level < 0 || level >= levelCounts[side.ordinal()])
+			throw new IndexOutOfBoundsException("Level " + level + " of "
+					                            + levelCounts[side.ordinal()]);
+		return level;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(bbgCode).append(" v").append(version);
+
+		for (SideEnum side : SideEnum.values()) {
+			builder.append(side == SideEnum.B ? " bids" : " asks");
+
+			for (int level = 0; level < getLevelCount(side); level++)
+				builder.append(' ').append(formatPrice(side, level))
+				       .append('x').append(getVolume(side, level))
+				       .append('(').append(getOrderCount(side, level)).append(')');
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,128 @@
+package com.marketData;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The L2 market data of a venue, with one DepthBook per BBGCode holding the
+ * top levels of its order book, and one TradeStats per BBGCode holding its
+ * fills in time buckets.
+ *
+ * Set on a venue, every order book keeps its depth book up to date as it
+ * matches, and any number of threads can read the depth of any instrument at
+ * any time, at a cost proportional to the depth rather than the number of
+ * orders on the book:
+ *
+ *  DepthSnapshot depth = marketData.getDepth("VOD LN EQUITY");
+ *  long bestBid = depth.getPriceTicks(SideEnum.B, 0);
+ *
+ * A reader which polls should keep its own snapshot and use
+ * DepthBook.readIfChanged, which allocates nothing and skips the copy when
+ * the book has not changed.
+ *
+ * The volume, VWAP, trade count and range of any recent window are read the
+ * same way, into a reused WindowStats:
+ *
+ *  marketData.getTradeStats("VOD LN EQUITY").readRolling(60_000_000_000L, stats);
+ *
+ * @author Zane Ali
+ *
+ */
+public class MarketData {
+
+	private final int depth;
+	private final long bucketNanos;
+	private final int bucketCount;
+
+	private final ConcurrentMap<String, DepthBook> books =
+			new ConcurrentHashMap<String, DepthBook>();
+	private final ConcurrentMap<String, TradeStats> tradeStats =
+			new ConcurrentHashMap<String, TradeStats>();
+
+	public MarketData() {
+		this(DepthBook.DEFAULT_DEPTH);
+	}
+
+	/**
+	 * @param depth The number of levels to keep per side of each book.
+	 */
+	public MarketData(int depth) {
+		this(depth, TradeStats.DEFAULT_BUCKET_NANOS, TradeStats.DEFAULT_BUCKET_COUNT);
+	}
+
+	/**
+	 * @param depth The number of levels to keep per side of each book.
+	 * @param bucketNanos The length of each time bucket of fills.
+	 * @param bucketCount The number of buckets kept per instrument, which
+	 * bounds how far back a window can reach.
+	 */
+	public MarketData(int depth, long bucketNanos, int bucketCount) {
+		if (depth < 1)
+			throw new IllegalArgumentException("The depth must be at least 1");
+		if (bucketNanos < 1)
+			throw new IllegalArgumentException("The bucket length must be at least 1ns");
+		if (bucketCount < 1)
+			throw new IllegalArgumentException("There must be at least one bucket");
+
+		this.depth = depth;
+		this.bucketNanos = bucketNanos;
+		this.bucketCount = bucketCount;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The depth book of an instrument, which is created on first use.
+	 */
+	public DepthBook forInstrument(String bbgCode) {
+		return books.computeIfAbsent(bbgCode, code -> new DepthBook(code, depth));
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The depth book of an instrument, or null if it has no order book.
+	 */
+	public DepthBook getDepthBook(String bbgCode) {
+		return books.get(bbgCode);
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return A new snapshot of an instrument's depth, or null if it has no
+	 * order book.
+	 */
+	public DepthSnapshot getDepth(String bbgCode) {
+		DepthBook book = books.get(bbgCode);
+		return book == null ? null : book.read(book.newSnapshot());
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The trade stats of an instrument, which are created on first use.
+	 */
+	public TradeStats tradeStatsFor(String bbgCode) {
+		return tradeStats.computeIfAbsent(bbgCode,
+				                          code -> new TradeStats(code, bucketNanos, bucketCount));
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The trade stats of an instrument, or null if it has no order
+	 * book.
+	 */
+	public TradeStats getTradeStats(String bbgCode) {
+		return tradeStats.get(bbgCode);
+	}
+
+	/**
+	 * @return The BBGCodes which have depth books.
+	 */
+	public Set<String> getInstruments() {
+		return Collections.unmodifiableSet(books.keySet());
+	}
+}
@@ -0,0 +1,259 @@
+package com.marketData;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * The fills of one instrument in time buckets, from which the volume,
+ * volume-weighted average price, trade count and price range of any window
+ * over the recent past can be read at any time.
+ *
+ * The buckets are a ring of a fixed number of fixed-length buckets, allocated
+ * once, so the ring always holds the bucketCount buckets up to the one of the
+ * latest fill. Each bucket holds its own volume, notional (price in ticks
+ * times volume), trade count, high and low, and a window is read in one pass
+ * over its buckets.
+ *
+ * The order book records its fills on its matching thread. Recording a fill
+ * only updates its own bucket, and a fill which starts a new bucket resets the
+ * buckets passed since the last one. A fill which arrives out of time order
+ * is added to its own bucket as long as that is still in the ring, at the
+ * same cost as any other, and is otherwise dropped and counted.
+ *
+ * The buckets are published through a sequence lock as in DepthBook, so any
+ * number of threads can read windows without blocking the matching thread.
+ *
+ * @author Zane Ali
+ *
+ */
+public class TradeStats {
+
+	public static final long DEFAULT_BUCKET_NANOS = 1_000_000_000L;
+	public static final int DEFAULT_BUCKET_COUNT = 3600;
+
+	private final String bbgCode;
+	private final long bucketNanos;
+	private final int bucketCount;
+
+	// Written by the matching thread between the two version increments.
+	private final long[] volumes;
+	private final long[] notionals;
+	private final long[] counts;
+	private final long[] highs;
+	private final long[] lows;
+
+	// The bucket of the latest fill.
+	private long latestBucket = Long.MIN_VALUE;
+	private long droppedCount;
+
+	// Odd while a fill is being written.
+	private volatile long version;
+
+	TradeStats(String bbgCode, long bucketNanos, int bucketCount) {
+		if (bucketNanos < 1)
+			throw new IllegalArgumentException("The bucket length must be at least 1ns");
+		if (bucketCount < 1)
+			throw new IllegalArgumentException("There must be at least one bucket");
+
+		this.bbgCode = bbgCode;
+		this.bucketNanos = bucketNanos;
+		this.bucketCount = bucketCount;
+
+		volumes = new long[bucketCount];
+		notionals = new long[bucketCount];
+		counts = new long[bucketCount];
+		highs = new long[bucketCount];
+		lows = new long[bucketCount];
+
+		for (int i = 0; i < bucketCount; i++)
+			clear(i);
+	}
+
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	public long getBucketNanos() {
+		return bucketNanos;
+	}
+
+	public int getBucketCount() {
+		return bucketCount;
+	}
+
+	/**
+	 * @return A number which changes with every fill, so that a reader can
+	 * cheaply check whether there is anything new to read.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Records a fill. This must only be called on the book's matching thread.
+	 *
+	 * @param priceTicks
+	 * @param volume
+	 * @param timeNanos The time of the fill in nanoseconds since the epoch.
+	 */
+	public void onFill(long priceTicks, int volume, long timeNanos) {
+		long bucket = Math.floorDiv(timeNanos, bucketNanos);
+
+		if (latestBucket != Long.MIN_VALUE && bucket <= latestBucket - bucketCount) {
+			droppedCount++;
+			return;
+		}
+
+		long current = version;
+		version = current + 1;
+		// Keep the bucket writes below from being seen before the odd version.
+		VarHandle.storeStoreFence();
+
+		if (latestBucket == Long.MIN_VALUE || bucket > latestBucket)
+			advance(bucket);
+
+		int slot = slot(bucket);
+		volumes[slot] += volume;
+		notionals[slot] += priceTicks * volume;
+		counts[slot]++;
+		highs[slot] = Math.max(highs[slot], priceTicks);
+		lows[slot] = Math.min(lows[slot], priceTicks);
+
+		version = current + 2;
+	}
+
+	/**
+	 * Copies the fills of a window of time into stats. The window covers
+	 * every bucket which overlaps the range, as far back as the ring goes.
+	 * This never blocks the matching thread.
+	 *
+	 * @param fromNanos The start of the window, inclusive.
+	 * @param toNanos The end of the window, exclusive.
+	 * @param stats The stats to copy into, which may be reused.
+	 * @return The stats.
+	 */
+	public WindowStats read(long fromNanos, long toNanos, WindowStats stats) {
+		if (toNanos <= fromNanos)
+			throw new IllegalArgumentException("The window must end after it starts");
+
+		long first = Math.floorDiv(fromNanos, bucketNanos);
+		long last = Math.floorDiv(toNanos - 1, bucketNanos);
+
+		while (true) {
+			long before = version;
+
+			if ((before & 1) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+
+			long latest = latestBucket;
+			long from = Math.max(first, latest - bucketCount + 1);
+			long to = Math.min(last, latest);
+
+			long volume = 0;
+			long notional = 0;
+			long count = 0;
+			long high = Long.MIN_VALUE;
+			long low = Long.MAX_VALUE;
+
+			if (latest != Long.MIN_VALUE && from <= to) {
+				int slot = slot(from);
+				for (long bucket = from; bucket <= to; bucket++) {
+					volume += volumes[slot];
+					notional += notionals[slot];
+					count += counts[slot];
+					high = Math.max(high, highs[slot]);
+					low = Math.min(low, lows[slot]);
+
+					if (++slot == bucketCount)
+						slot = 0;
+				}
+			} else {
+				from = first;
+				to = first - 1;
+			}
+
+			// Keep the reads above from being read after the version below.
+			VarHandle.loadLoadFence();
+
+			if (version == before) {
+				stats.set(bbgCode, from * bucketNanos, (to + 1) * bucketNanos, volume,
+						  notional, count, high, low);
+				return stats;
+			}
+		}
+	}
+
+	/**
+	 * Copies the fills of the window which ends with the bucket of the latest
+	 * fill, e.g. the last minute of trading.
+	 *
+	 * @param windowNanos The length of the window.
+	 * @param stats The stats to copy into, which may be reused.
+	 * @return The stats.
+	 */
+	public WindowStats readRolling(long windowNanos, WindowStats stats) {
+		long latest = latestBucket;
+		long end = latest == Long.MIN_VALUE ? 0 : (latest + 1) * bucketNanos;
+
+		return read(end - windowNanos, end, stats);
+	}
+
+	/**
+	 * Copies the fills of the window of a fixed length, aligned to the epoch,
+	 * which holds a time, e.g. the current minute or hour.
+	 *
+	 * @param windowNanos The length of the window.
+	 * @param timeNanos A time in the window, in nanoseconds since the epoch.
+	 * @param stats The stats to copy into, which may be reused.
+	 * @return The stats.
+	 */
+	public WindowStats readTumbling(long windowNanos, long timeNanos, WindowStats stats) {
+		long start = Math.floorDiv(timeNanos, windowNanos) * windowNanos;
+
+		return read(start, start + windowNanos, stats);
+	}
+
+	/**
+	 * @return The end of the bucket of the latest fill in nanoseconds since
+	 * the epoch, or Long.MIN_VALUE if there have been no fills.
+	 */
+	public long getLatestNanos() {
+		long latest = latestBucket;
+		return latest == Long.MIN_VALUE ? Long.MIN_VALUE : (latest + 1) * bucketNanos;
+	}
+
+	/**
+	 * @return The number of fills dropped because their bucket had already
+	 * left the ring.
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Moves the ring on to a newer bucket, clearing the buckets in between.
+	 */
+	private void advance(long bucket) {
+		long start = latestBucket == Long.MIN_VALUE
+				     ? bucket
+				     : Math.max(latestBucket + 1, bucket - bucketCount + 1);
+
+		for (long next = start; next <= bucket; next++)
+			clear(slot(next));
+
+		latestBucket = bucket;
+	}
+
+	private void clear(int slot) {
+		volumes[slot] = 0;
+		notionals[slot] = 0;
+		counts[slot] = 0;
+		highs[slot] = Long.MIN_VALUE;
+		lows[slot] = Long.MAX_VALUE;
+	}
+
+	private int slot(long bucket) {
+		return (int) Math.floorMod(bucket, (long) bucketCount);
+	}
+}
@@ -0,0 +1,101 @@
+package com.marketData;
+
+/**
+ * The fills of one instrument over a window of time, copied out of its
+ * TradeStats, with prices in ticks. A reader which polls should keep one and
+ * reuse it, so that reading allocates nothing.
+ *
+ * @author Zane Ali
+ *
+ */
+public class WindowStats {
+
+	private String bbgCode;
+	private long fromNanos;
+	private long toNanos;
+
+	private long volume;
+	// The sum of price in ticks times volume.
+	private long notionalTicks;
+	private long tradeCount;
+	private long highTicks = Long.MIN_VALUE;
+	private long lowTicks = Long.MAX_VALUE;
+
+	void set(String bbgCode, long fromNanos, long toNanos, long volume,
+			 long notionalTicks, long tradeCount, long highTicks, long lowTicks) {
+		this.bbgCode = bbgCode;
+		this.fromNanos = fromNanos;
+		this.toNanos = toNanos;
+		this.volume = volume;
+		this.notionalTicks = notionalTicks;
+		this.tradeCount = tradeCount;
+		this.highTicks = highTicks;
+		this.lowTicks = lowTicks;
+	}
+
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	/**
+	 * @return The start of the buckets the window covered, in nanoseconds
+	 * since the epoch, inclusive.
+	 */
+	public long getFromNanos() {
+		return fromNanos;
+	}
+
+	/**
+	 * @return The end of the buckets the window covered, in nanoseconds since
+	 * the epoch, exclusive. This is the same as the start if none were.
+	 */
+	public long getToNanos() {
+		return toNanos;
+	}
+
+	public long getVolume() {
+		return volume;
+	}
+
+	/**
+	 * @return The sum of price in ticks times volume.
+	 */
+	public long getNotionalTicks() {
+		return notionalTicks;
+	}
+
+	public long getTradeCount() {
+		return tradeCount;
+	}
+
+	/**
+	 * @return The volume-weighted average price in ticks, or NaN if there is
+	 * no volume.
+	 */
+	public double getVwapTicks() {
+		return volume == 0 ? Double.NaN : (double) notionalTicks / volume;
+	}
+
+	/**
+	 * @return The highest price in ticks, or Long.MIN_VALUE if there were no
+	 * fills.
+	 */
+	public long getHighTicks() {
+		return highTicks;
+	}
+
+	/**
+	 * @return The lowest price in ticks, or Long.MAX_VALUE if there were no
+	 * fills.
+	 */
+	public long getLowTicks() {
+		return lowTicks;
+	}
+
+	@Override
+	public String toString() {
+		return bbgCode + " [" + fromNanos + ", " + toNanos + ") volume=" + volume
+			   + " trades=" + tradeCount + " vwapTicks=" + getVwapTicks()
+			   + " highTicks=" + highTicks + " lowTicks=" + lowTicks;
+	}
+}
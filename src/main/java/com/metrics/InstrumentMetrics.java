@@ -0,0 +1,184 @@
+package com.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.constant.Types.ActionEnum;
+import com.orderBook.OrderBook;
+import com.orderBook.BookSide;
+import com.orderBook.TickSize;
+
+/**
+ * The statistics of one instrument's order book: messages by action, fills,
+ * the depth and best prices of each side, and the time taken to process each
+ * message.
+ *
+ * The order book records into these after every message on its matching
+ * thread. Counters are LongAdders and the book's state is published through
+ * volatile fields, so a JMX client can read them at any time without locking
+ * the book.
+ *
+ * @author Zane Ali
+ *
+ */
+public class InstrumentMetrics implements InstrumentMetricsMBean {
+
+	private static final long NO_PRICE = Long.MIN_VALUE;
+
+	private final String bbgCode;
+	private final VenueMetrics venue;
+
+	private final LongAdder[] messages = new LongAdder[ActionEnum.values().length];
+	private final LatencyRecorder matchLatency = new LatencyRecorder();
+
+	// The book's state as of the last message, read by JMX clients.
+	private volatile TickSize tickSize;
+	private volatile long fillCount;
+	private volatile long filledVolume;
+	private volatile int bidLevels;
+	private volatile int askLevels;
+	private volatile int bidOrders;
+	private volatile int askOrders;
+	private volatile long bestBidTicks = NO_PRICE;
+	private volatile long bestAskTicks = NO_PRICE;
+
+	InstrumentMetrics(String bbgCode, VenueMetrics venue) {
+		this.bbgCode = bbgCode;
+		this.venue = venue;
+
+		for (int i = 0; i < messages.length; i++)
+			messages[i] = new LongAdder();
+	}
+
+	/**
+	 * @return Whether the venue's metrics are enabled, i.e. whether the book
+	 * should time its messages and record them.
+	 */
+	public boolean isEnabled() {
+		return venue.isEnabled();
+	}
+
+	/**
+	 * Records a message which the order book has just processed.
+	 *
+	 * @param action
+	 * @param nanos The time taken to process the message.
+	 * @param book The book, which is read on the calling thread.
+	 */
+	public void recordMessage(ActionEnum action, long nanos, OrderBook book) {
+		messages[action.ordinal()].increment();
+		matchLatency.record(nanos);
+
+		tickSize = book.getTickSize();
+		fillCount = book.getFillCount();
+		filledVolume = book.getFilledVolume();
+
+		bidLevels = book.getBids().getLevelCount();
+		askLevels = book.getAsks().getLevelCount();
+		bidOrders = book.getBids().getOrderCount();
+		askOrders = book.getAsks().getOrderCount();
+
+		bestBidTicks = bestPrice(book.getBids());
+		bestAskTicks = bestPrice(book.getAsks());
+	}
+
+	@Override
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	public long getMessageCount(ActionEnum action) {
+		return messages[action.ordinal()].sum();
+	}
+
+	@Override
+	public long getNewCount() {
+		return getMessageCount(ActionEnum.NEW);
+	}
+
+	@Override
+	public long getAmendCount() {
+		return getMessageCount(ActionEnum.AMEND);
+	}
+
+	@Override
+	public long getCancelCount() {
+		return getMessageCount(ActionEnum.CANCEL);
+	}
+
+	@Override
+	public long getFillCount() {
+		return fillCount;
+	}
+
+	@Override
+	public long getFilledVolume() {
+		return filledVolume;
+	}
+
+	@Override
+	public int getBidLevels() {
+		return bidLevels;
+	}
+
+	@Override
+	public int getAskLevels() {
+		return askLevels;
+	}
+
+	@Override
+	public int getBidOrders() {
+		return bidOrders;
+	}
+
+	@Override
+	public int getAskOrders() {
+		return askOrders;
+	}
+
+	@Override
+	public double getBestBid() {
+		return toPrice(bestBidTicks);
+	}
+
+	@Override
+	public double getBestAsk() {
+		return toPrice(bestAskTicks);
+	}
+
+	public LatencyRecorder getMatchLatency() {
+		return matchLatency;
+	}
+
+	@Override
+	public double getMatchLatencyP50Micros() {
+		return matchLatency.getValueAtPercentile(50) / 1e3;
+	}
+
+	@Override
+	public double getMatchLatencyP99Micros() {
+		return matchLatency.getValueAtPercentile(99) / 1e3;
+	}
+
+	@Override
+	public double getMatchLatencyP999Micros() {
+		return matchLatency.getValueAtPercentile(99.9) / 1e3;
+	}
+
+	@Override
+	public double getMatchLatencyMaxMicros() {
+		return matchLatency.getMax() / 1e3;
+	}
+
+	private static long bestPrice(BookSide side) {
+		return side.isEmpty() ? NO_PRICE : side.getLevelPriceTicks(0);
+	}
+
+	private double toPrice(long ticks) {
+		TickSize currentTickSize = tickSize;
+
+		if (ticks == NO_PRICE || currentTickSize == null)
+			return Double.NaN;
+
+		return currentTickSize.toPrice(ticks);
+	}
+}
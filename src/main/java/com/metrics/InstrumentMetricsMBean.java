@@ -0,0 +1,48 @@
+package com.metrics;
+
+/**
+ * The JMX view of the statistics of one instrument's order book.
+ *
+ * @author Zane Ali
+ *
+ */
+public interface InstrumentMetricsMBean {
+
+	String getBbgCode();
+
+	long getNewCount();
+
+	long getAmendCount();
+
+	long getCancelCount();
+
+	long getFillCount();
+
+	long getFilledVolume();
+
+	int getBidLevels();
+
+	int getAskLevels();
+
+	int getBidOrders();
+
+	int getAskOrders();
+
+	/**
+	 * @return The best bid price, or NaN if there are no bids.
+	 */
+	double getBestBid();
+
+	/**
+	 * @return The best ask price, or NaN if there are no asks.
+	 */
+	double getBestAsk();
+
+	double getMatchLatencyP50Micros();
+
+	double getMatchLatencyP99Micros();
+
+	double getMatchLatencyP999Micros();
+
+	double getMatchLatencyMaxMicros();
+}
@@ -0,0 +1,114 @@
+package com.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds which can be recorded on one thread
+ * and read from another, e.g. by a JMX client.
+ *
+ * Values fall into log-linear buckets, 32 per power of two, so percentiles
+ * are reported within about 3% of their true value. Values above about 36
+ * minutes are counted in the last bucket. Recording is a bucket computation
+ * and an atomic increment, which never contends while each recorder is only
+ * written by the one thread which owns its instrument.
+ *
+ * @author Zane Ali
+ *
+ */
+public class LatencyRecorder {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_MAGNITUDE = 40;
+	private static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1)
+			                                * SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	/**
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		counts.getAndIncrement(bucketOf(nanos));
+	}
+
+	/**
+	 * @return The number of values recorded.
+	 */
+	public long getCount() {
+		long count = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			count += counts.get(i);
+
+		return count;
+	}
+
+	/**
+	 * @param percentile Between 0 and 100.
+	 * @return The highest value of the bucket holding the percentile, or 0 if
+	 * nothing has been recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[BUCKET_COUNT];
+		long count = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+
+		if (count == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+
+			if (seen >= rank)
+				return highestValueOf(i);
+		}
+
+		return highestValueOf(BUCKET_COUNT - 1);
+	}
+
+	/**
+	 * @return The highest value of the highest bucket recorded into.
+	 */
+	public long getMax() {
+		for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+			if (counts.get(i) > 0)
+				return highestValueOf(i);
+		}
+
+		return 0;
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			counts.set(i, 0);
+	}
+
+	private static int bucketOf(long value) {
+		if (value <= 0)
+			return 0;
+
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		if (magnitude > MAX_MAGNITUDE)
+			return BUCKET_COUNT - 1;
+
+		int shift = Math.max(0, magnitude - SUB_BUCKET_BITS);
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	private static long highestValueOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKET_COUNT)
+			return bucket;
+
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long mantissa = bucket - ((long) shift << SUB_BUCKET_BITS);
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
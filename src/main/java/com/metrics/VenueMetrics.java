@@ -0,0 +1,167 @@
+package com.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The metrics of a venue, with one InstrumentMetrics per BBGCode, each exposed
+ * as a JMX MBean under the "com.tradingVenue" domain:
+ *
+ *  com.tradingVenue:type=Venue,name=<venue>
+ *  com.tradingVenue:type=Instrument,venue=<venue>,name=<BBGCode>
+ *
+ * Recording can be switched off and on at run time through the venue MBean,
+ * in which case the order books skip timing their messages altogether.
+ *
+ * @author Zane Ali
+ *
+ */
+public class VenueMetrics implements VenueMetricsMBean, AutoCloseable {
+
+	public static final String DOMAIN = "com.tradingVenue";
+
+	private final String name;
+	private final MBeanServer server;
+
+	private final ConcurrentMap<String, InstrumentMetrics> instruments =
+			new ConcurrentHashMap<String, InstrumentMetrics>();
+
+	private volatile boolean enabled = true;
+
+	/**
+	 * Creates the metrics of a venue and registers them with the platform
+	 * MBean server.
+	 *
+	 * @param name The name of the venue, which must be unique in the JVM.
+	 */
+	public VenueMetrics(String name) {
+		this(name, ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * @param name The name of the venue, which must be unique in the server.
+	 * @param server The MBean server to register with, or null to not register
+	 * the metrics with JMX.
+	 */
+	public VenueMetrics(String name, MBeanServer server) {
+		this.name = name;
+		this.server = server;
+
+		register(venueName(), this);
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The metrics of an instrument, which are created and registered on
+	 * first use.
+	 */
+	public InstrumentMetrics forInstrument(String bbgCode) {
+		return instruments.computeIfAbsent(bbgCode, code -> {
+			InstrumentMetrics metrics = new InstrumentMetrics(code, this);
+			register(instrumentName(code), metrics);
+			return metrics;
+		});
+	}
+
+	public Collection<InstrumentMetrics> getInstruments() {
+		return Collections.unmodifiableCollection(instruments.values());
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public int getInstrumentCount() {
+		return instruments.size();
+	}
+
+	@Override
+	public long getMessageCount() {
+		long count = 0;
+
+		for (InstrumentMetrics metrics : instruments.values())
+			count += metrics.getNewCount() + metrics.getAmendCount()
+			         + metrics.getCancelCount();
+
+		return count;
+	}
+
+	@Override
+	public long getFillCount() {
+		long count = 0;
+
+		for (InstrumentMetrics metrics : instruments.values())
+			count += metrics.getFillCount();
+
+		return count;
+	}
+
+	/**
+	 * Unregisters the venue's MBeans.
+	 */
+	@Override
+	public void close() {
+		if (server == null)
+			return;
+
+		try {
+			for (String bbgCode : instruments.keySet()) {
+				ObjectName objectName = instrumentName(bbgCode);
+				if (server.isRegistered(objectName))
+					server.unregisterMBean(objectName);
+			}
+
+			if (server.isRegistered(venueName()))
+				server.unregisterMBean(venueName());
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to unregister the metrics of "
+					                        + name, e);
+		}
+	}
+
+	private void register(ObjectName objectName, Object mbean) {
+		if (server == null)
+			return;
+
+		try {
+			server.registerMBean(mbean, objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to register " + objectName, e);
+		}
+	}
+
+	private ObjectName venueName() {
+		return objectName("type=Venue,name=" + ObjectName.quote(name));
+	}
+
+	private ObjectName instrumentName(String bbgCode) {
+		return objectName("type=Instrument,venue=" + ObjectName.quote(name)
+		                  + ",name=" + ObjectName.quote(bbgCode));
+	}
+
+	private static ObjectName objectName(String properties) {
+		try {
+			return new ObjectName(DOMAIN + ":" + properties);
+		} catch (JMException e) {
+			throw new IllegalArgumentException("Invalid MBean name " + properties, e);
+		}
+	}
+}
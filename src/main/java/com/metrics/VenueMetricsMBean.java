@@ -0,0 +1,20 @@
+package com.metrics;
+
+/**
+ * The JMX view of a venue's metrics as a whole.
+ *
+ * @author Zane Ali
+ *
+ */
+public interface VenueMetricsMBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	int getInstrumentCount();
+
+	long getMessageCount();
+
+	long getFillCount();
+}
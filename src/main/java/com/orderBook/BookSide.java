@@ -0,0 +1,277 @@
+package com.orderBook;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.constant.Types.SideEnum;
+import com.tradingVenue.MasterBook;
+
+/**
+ * One side (bids or asks) of an order book, stored as a ladder of price levels.
+ *
+ * The levels are held in arrays sorted so that the best price is always the
+ * last element. This gives O(1) access to the best level, and since most new
+ * prices arrive near the top of the book, inserting or removing a level
+ * usually only shifts a handful of elements. Levels are located with a binary
+ * search on a sort key which is the price for bids and the negated price for
+ * asks, so the side is only looked at once per order rather than on every
+ * comparison.
+ *
+ * This class keeps the ladder of sort keys, and its subclasses keep the
+ * levels' queues of orders alongside it: HeapBookSide as linked Order objects
+ * and OffHeapBookSide as linked records outside the heap. The order book only
+ * works through the operations declared here, so it matches the same way over
+ * either.
+ *
+ * @author Zane Ali
+ *
+ */
+public abstract class BookSide implements Iterable<Order> {
+
+	static final int INITIAL_LEVELS = 64;
+
+	private final SideEnum side;
+	private final long direction;
+
+	private long[] keys = new long[INITIAL_LEVELS];
+	int levelCount;
+	int orderCount;
+
+	// Where orders which leave the side are released to, if anywhere.
+	OrderPool orderPool;
+
+	BookSide(SideEnum side) {
+		this.side = side;
+		this.direction = side == SideEnum.B ? 1 : -1;
+	}
+
+	public SideEnum getSide() {
+		return side;
+	}
+
+	public boolean isEmpty() {
+		return levelCount == 0;
+	}
+
+	public int getLevelCount() {
+		return levelCount;
+	}
+
+	public int getOrderCount() {
+		return orderCount;
+	}
+
+	/**
+	 * @param depth The distance from the top of the book, where 0 is the best
+	 * level.
+	 * @return The price in ticks of the level at the given depth.
+	 */
+	public long getLevelPriceTicks(int depth) {
+		return keys[levelIndex(depth)] * direction;
+	}
+
+	/**
+	 * @param depth The distance from the top of the book, where 0 is the best
+	 * level.
+	 * @return The aggregated volume of the level at the given depth.
+	 */
+	public abstract long getLevelVolume(int depth);
+
+	/**
+	 * @param depth The distance from the top of the book, where 0 is the best
+	 * level.
+	 * @return The number of orders at the level at the given depth.
+	 */
+	public abstract int getLevelOrderCount(int depth);
+
+	/**
+	 * Passes the orders of the level at the given depth to a consumer in time
+	 * priority. The orders must not be modified, and may be views which are
+	 * only valid during the call (see OffHeapBookSide).
+	 *
+	 * @param depth The distance from the top of the book, where 0 is the best
+	 * level.
+	 * @param consumer
+	 */
+	public abstract void forEachOrder(int depth, Consumer<Order> consumer);
+
+	/**
+	 * Checks whether an incoming order from the opposite side at the given
+	 * price would trade against the best level of this side.
+	 *
+	 * @param priceTicks The limit price of the incoming order in ticks.
+	 * @return True if the best level of this side crosses the price.
+	 */
+	public boolean crosses(long priceTicks) {
+		if (levelCount == 0)
+			return false;
+
+		return sortKey(priceTicks) <= keys[levelCount - 1];
+	}
+
+	/**
+	 * Adds an order to the back of the queue at its price, creating the level
+	 * if necessary. A side which copies the order keeps no reference to it,
+	 * so the order is not resting afterwards.
+	 *
+	 * @param order
+	 */
+	abstract void add(Order order);
+
+	/**
+	 * Adds an order to the back of the best level if it has the same price, or
+	 * otherwise to a new level above the best, without searching the ladder.
+	 * This rebuilds a side in bulk from its orders in reverse price priority
+	 * and time priority within each price, e.g. from a snapshot.
+	 *
+	 * @param order
+	 * @throws IllegalArgumentException if the order's price is worse than the
+	 * best level.
+	 */
+	abstract void restore(Order order);
+
+	/**
+	 * Executes an incoming order against the queue of the best level in time
+	 * priority, until either the order or the level is exhausted. Each fill is
+	 * reported to the order book, and resting orders which are filled in full
+	 * are removed.
+	 *
+	 * @param aggressor The incoming order, whose volume is reduced.
+	 * @param book The order book to report fills to.
+	 * @param masterBook
+	 * @return The total volume traded at the level.
+	 */
+	abstract int matchBest(Order aggressor, OrderBook book, MasterBook masterBook);
+
+	/**
+	 * Removes the resting order with the same TradeID as another order.
+	 *
+	 * @param key
+	 * @return The removed order with its volume as it rested, or null if
+	 * there is none. It must be passed to recycle once it has been used.
+	 */
+	abstract Order remove(Order key);
+
+	/**
+	 * Disposes of an order returned by remove.
+	 *
+	 * @param removed
+	 */
+	abstract void recycle(Order removed);
+
+	/**
+	 * @param tradeId
+	 * @return The resting order with the TradeID, or null if there is none.
+	 */
+	abstract Order getOrder(String tradeId);
+
+	/**
+	 * @param key
+	 * @return True if an order with the same TradeID as another order is
+	 * resting.
+	 */
+	abstract boolean contains(Order key);
+
+	/**
+	 * Grows the subclass's per-level arrays.
+	 *
+	 * @param capacity
+	 */
+	abstract void growLevels(int capacity);
+
+	/**
+	 * Moves a run of the subclass's per-level entries, as System.arraycopy.
+	 *
+	 * @param from
+	 * @param to
+	 * @param count
+	 */
+	abstract void moveLevels(int from, int to, int count);
+
+	final long sortKey(long priceTicks) {
+		return priceTicks * direction;
+	}
+
+	final long getKey(int index) {
+		return keys[index];
+	}
+
+	/**
+	 * @param depth
+	 * @return The index in the ladder of the level at the given depth.
+	 */
+	final int levelIndex(int depth) {
+		if (depth < 0 || depth >= levelCount)
+			throw new IndexOutOfBoundsException("Depth " + depth
+					+ " is outside a book of " + levelCount + " levels");
+
+		return levelCount - 1 - depth;
+	}
+
+	final int search(long key) {
+		// The best level is last and most activity is near it, so check there
+		// before falling back to a binary search.
+		if (levelCount > 0 && keys[levelCount - 1] == key)
+			return levelCount - 1;
+
+		return Arrays.binarySearch(keys, 0, levelCount, key);
+	}
+
+	/**
+	 * Checks where a restored order's level belongs.
+	 *
+	 * @param key
+	 * @return True if the order joins the best level, or false if it starts a
+	 * new level above it.
+	 * @throws IllegalArgumentException if the key is worse than the best level.
+	 */
+	final boolean restoresIntoBest(long key) {
+		if (levelCount > 0 && keys[levelCount - 1] == key)
+			return true;
+
+		if (levelCount == 0 || keys[levelCount - 1] < key)
+			return false;
+
+		throw new IllegalArgumentException("Orders must be restored from the "
+				                           + "worst price to the best");
+	}
+
+	/**
+	 * Opens a gap in the ladder for a new level. The subclass fills in its
+	 * own entry at the index.
+	 *
+	 * @param index
+	 * @param key
+	 */
+	final void insertLevel(int index, long key) {
+		if (levelCount == keys.length) {
+			keys = Arrays.copyOf(keys, levelCount * 2);
+			growLevels(levelCount * 2);
+		}
+
+		int moved = levelCount - index;
+		if (moved > 0) {
+			System.arraycopy(keys, index, keys, index + 1, moved);
+			moveLevels(index, index + 1, moved);
+		}
+
+		keys[index] = key;
+		levelCount++;
+	}
+
+	/**
+	 * Closes the gap left by a level. The subclass's entry at the old last
+	 * index is left for it to clear.
+	 *
+	 * @param index
+	 */
+	final void removeLevel(int index) {
+		int moved = levelCount - index - 1;
+		if (moved > 0) {
+			System.arraycopy(keys, index + 1, keys, index, moved);
+			moveLevels(index + 1, index, moved);
+		}
+
+		levelCount--;
+	}
+}
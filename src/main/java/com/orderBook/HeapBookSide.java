@@ -0,0 +1,237 @@
+package com.orderBook;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import com.constant.Types.SideEnum;
+import com.tradingVenue.MasterBook;
+
+/**
+ * A book side which keeps its resting orders on the heap, as Order objects
+ * linked into the FIFO queue of a PriceLevel per price.
+ *
+ * Resting orders are indexed by TradeID so that cancels and amends can unlink
+ * an order from its level without searching. Levels which empty are kept in a
+ * small pool and reused for new prices, so that prices appearing and
+ * disappearing near the top of the book do not allocate.
+ *
+ * @author Zane Ali
+ *
+ */
+public class HeapBookSide extends BookSide {
+
+	private static final int MAX_SPARE_LEVELS = 64;
+
+	private PriceLevel[] levels = new PriceLevel[INITIAL_LEVELS];
+
+	private final PriceLevel[] spareLevels = new PriceLevel[MAX_SPARE_LEVELS];
+	private int spareLevelCount;
+
+	private final TradeIdIndex restingOrders = new TradeIdIndex();
+
+	public HeapBookSide(SideEnum side) {
+		super(side);
+	}
+
+	/**
+	 * @return The level with the best price on this side, or null if the side
+	 * is empty.
+	 */
+	public PriceLevel getBestLevel() {
+		return levelCount == 0 ? null : levels[levelCount - 1];
+	}
+
+	/**
+	 * @param depth The distance from the top of the book, where 0 is the best
+	 * level.
+	 * @return The level at the given depth.
+	 */
+	public PriceLevel getLevel(int depth) {
+		return levels[levelIndex(depth)];
+	}
+
+	@Override
+	public long getLevelVolume(int depth) {
+		return getLevel(depth).getVolume();
+	}
+
+	@Override
+	public int getLevelOrderCount(int depth) {
+		return getLevel(depth).getOrderCount();
+	}
+
+	@Override
+	public void forEachOrder(int depth, Consumer<Order> consumer) {
+		for (Order order = getLevel(depth).getFirst(); order != null; order = order.next)
+			consumer.accept(order);
+	}
+
+	@Override
+	void add(Order order) {
+		long priceTicks = order.getPriceTicks();
+		long key = sortKey(priceTicks);
+		int index = search(key);
+
+		PriceLevel level;
+		if (index >= 0) {
+			level = levels[index];
+		} else {
+			index = -index - 1;
+			level = newLevel(priceTicks);
+			insertLevel(index, key);
+			levels[index] = level;
+		}
+
+		level.append(order);
+		restingOrders.put(order);
+		orderCount++;
+	}
+
+	@Override
+	void restore(Order order) {
+		long priceTicks = order.getPriceTicks();
+
+		PriceLevel level;
+		if (restoresIntoBest(sortKey(priceTicks))) {
+			level = levels[levelCount - 1];
+		} else {
+			level = newLevel(priceTicks);
+			insertLevel(levelCount, sortKey(priceTicks));
+			levels[levelCount - 1] = level;
+		}
+
+		level.append(order);
+		restingOrders.put(order);
+		orderCount++;
+	}
+
+	@Override
+	int matchBest(Order aggressor, OrderBook book, MasterBook masterBook) {
+		PriceLevel level = levels[levelCount - 1];
+
+		int levelVolume = 0;
+		Order passive = level.getFirst();
+
+		while (aggressor.getVolume() > 0 && passive != null) {
+
+			int tradeVolume = Math.min(aggressor.getVolume(), passive.getVolume());
+
+			aggressor.setVolume(aggressor.getVolume() - tradeVolume);
+			level.reduce(passive, tradeVolume);
+			levelVolume += tradeVolume;
+
+			book.fill(aggressor, passive, tradeVolume, masterBook);
+
+			Order next = passive.next;
+			if (passive.getVolume() <= 0) {
+				unlink(passive);
+				recycle(passive);
+			}
+			passive = next;
+		}
+
+		return levelVolume;
+	}
+
+	@Override
+	Order remove(Order key) {
+		Order order = restingOrders.get(key);
+
+		if (order != null)
+			unlink(order);
+
+		return order;
+	}
+
+	@Override
+	void recycle(Order removed) {
+		if (orderPool != null)
+			orderPool.release(removed);
+	}
+
+	@Override
+	Order getOrder(String tradeId) {
+		return restingOrders.get(tradeId);
+	}
+
+	@Override
+	boolean contains(Order key) {
+		return restingOrders.get(key) != null;
+	}
+
+	@Override
+	void growLevels(int capacity) {
+		levels = Arrays.copyOf(levels, capacity);
+	}
+
+	@Override
+	void moveLevels(int from, int to, int count) {
+		System.arraycopy(levels, from, levels, to, count);
+	}
+
+	/**
+	 * Removes a resting order from its level and the index, dropping the level
+	 * if it becomes empty.
+	 *
+	 * @param order
+	 */
+	private void unlink(Order order) {
+		PriceLevel level = order.level;
+		level.unlink(order);
+		restingOrders.remove(order);
+		orderCount--;
+
+		if (level.isEmpty()) {
+			removeLevel(search(sortKey(level.getPriceTicks())));
+			levels[levelCount] = null;
+
+			if (spareLevelCount < MAX_SPARE_LEVELS)
+				spareLevels[spareLevelCount++] = level;
+		}
+	}
+
+	private PriceLevel newLevel(long priceTicks) {
+		if (spareLevelCount == 0)
+			return new PriceLevel(priceTicks);
+
+		PriceLevel level = spareLevels[--spareLevelCount];
+		spareLevels[spareLevelCount] = null;
+		level.reset(priceTicks);
+		return level;
+	}
+
+	/**
+	 * Iterates over the resting orders in priority order, i.e. best price
+	 * first and then by time within each price.
+	 */
+	@Override
+	public Iterator<Order> iterator() {
+		return new Iterator<Order>() {
+
+			private int depth = 0;
+			private Order next = levelCount == 0 ? null
+					                             : levels[levelCount - 1].getFirst();
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public Order next() {
+				if (next == null)
+					throw new NoSuchElementException();
+
+				Order current = next;
+				next = current.next;
+
+				if (next == null && ++depth < levelCount)
+					next = levels[levelCount - 1 - depth].getFirst();
+
+				return current;
+			}
+		};
+	}
+}
@@ -0,0 +1,397 @@
+package com.orderBook;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import com.constant.Types.SideEnum;
+import com.tradingVenue.MasterBook;
+
+/**
+ * A book side which keeps its resting orders as records of an
+ * OffHeapOrderStore, so that a book with millions of resting orders costs the
+ * heap a few bytes per order rather than an object graph.
+ *
+ * The levels are held as parallel arrays of primitives alongside the ladder
+ * of sort keys: the volume, the order count and the handles of the first and
+ * last records of each level's queue. The queues are linked through the
+ * records themselves, and the TradeID index is an open-addressing table of
+ * handles.
+ *
+ * Orders are copied in when they rest, so the incoming Order is never resting
+ * in this side and goes back to its pool as soon as the message is processed.
+ * Whenever the order book needs a resting order as an Order, e.g. to report a
+ * fill, the record is loaded into a view which is reused for the next record,
+ * so consumers must copy anything they keep.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OffHeapBookSide extends BookSide {
+
+	private static final int NONE = OffHeapOrderStore.NONE;
+	private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+	private final OffHeapOrderStore store;
+
+	// The instrument and tick size of the orders, which are not stored in the
+	// records, taken from the first order.
+	private String bbgCode;
+	private TickSize tickSize;
+
+	private long[] levelVolumes = new long[INITIAL_LEVELS];
+	private int[] levelOrderCounts = new int[INITIAL_LEVELS];
+	private int[] levelFirst = new int[INITIAL_LEVELS];
+	private int[] levelLast = new int[INITIAL_LEVELS];
+
+	// Open-addressing table of handles by TradeID hash, where NONE marks an
+	// empty slot.
+	private int[] slots;
+	private int mask;
+
+	private final Order view = new Order();
+
+	/**
+	 * @param side
+	 * @param store The store which holds the records, which may be shared by
+	 * the other books of the same venue.
+	 */
+	public OffHeapBookSide(SideEnum side, OffHeapOrderStore store) {
+		super(side);
+		this.store = store;
+		allocateSlots(INITIAL_INDEX_CAPACITY);
+	}
+
+	@Override
+	public long getLevelVolume(int depth) {
+		return levelVolumes[levelIndex(depth)];
+	}
+
+	@Override
+	public int getLevelOrderCount(int depth) {
+		return levelOrderCounts[levelIndex(depth)];
+	}
+
+	/**
+	 * Passes the orders of a level to a consumer in time priority. Each order
+	 * is a view which is overwritten by the next.
+	 */
+	@Override
+	public void forEachOrder(int depth, Consumer<Order> consumer) {
+		for (int handle = levelFirst[levelIndex(depth)]; handle != NONE;
+			 handle = store.getNext(handle)) {
+			consumer.accept(load(handle, view));
+		}
+	}
+
+	@Override
+	void add(Order order) {
+		remember(order);
+
+		long key = sortKey(order.getPriceTicks());
+		int index = search(key);
+
+		if (index < 0) {
+			index = -index - 1;
+			insertLevel(index, key);
+			clearLevel(index);
+		}
+
+		append(index, store.allocate(order), order);
+	}
+
+	@Override
+	void restore(Order order) {
+		remember(order);
+
+		long key = sortKey(order.getPriceTicks());
+
+		if (!restoresIntoBest(key)) {
+			insertLevel(levelCount, key);
+			clearLevel(levelCount - 1);
+		}
+
+		append(levelCount - 1, store.allocate(order), order);
+	}
+
+	@Override
+	int matchBest(Order aggressor, OrderBook book, MasterBook masterBook) {
+		int index = levelCount - 1;
+
+		int levelVolume = 0;
+		int passive = levelFirst[index];
+
+		while (aggressor.getVolume() > 0 && passive != NONE) {
+
+			int passiveVolume = store.getVolume(passive);
+			int tradeVolume = Math.min(aggressor.getVolume(), passiveVolume);
+
+			aggressor.setVolume(aggressor.getVolume() - tradeVolume);
+			store.setVolume(passive, passiveVolume - tradeVolume);
+			levelVolumes[index] -= tradeVolume;
+			levelVolume += tradeVolume;
+
+			book.fill(aggressor, load(passive, view), tradeVolume, masterBook);
+
+			int next = store.getNext(passive);
+			if (passiveVolume - tradeVolume <= 0)
+				unlink(passive, index);
+			passive = next;
+		}
+
+		return levelVolume;
+	}
+
+	/**
+	 * Removes the resting order with the same TradeID as another order.
+	 *
+	 * @return A view of the removed order, or null if there is none.
+	 */
+	@Override
+	Order remove(Order key) {
+		int slot = find(key.getTradeIdHash(), key.getTradeIdBytes(),
+				        key.getTradeIdLength());
+		if (slot < 0)
+			return null;
+
+		int handle = slots[slot];
+		load(handle, view);
+		unlink(handle, search(sortKey(store.getPriceTicks(handle))));
+		return view;
+	}
+
+	@Override
+	void recycle(Order removed) {
+		// The view belongs to this side and the record is already free.
+	}
+
+	/**
+	 * @return A copy of the resting order with the TradeID, or null if there
+	 * is none.
+	 */
+	@Override
+	Order getOrder(String tradeId) {
+		byte[] bytes = tradeId.getBytes(StandardCharsets.UTF_8);
+		int slot = find(Order.hash(bytes, bytes.length), bytes, bytes.length);
+
+		return slot < 0 ? null : load(slots[slot], new Order());
+	}
+
+	@Override
+	boolean contains(Order key) {
+		return find(key.getTradeIdHash(), key.getTradeIdBytes(),
+				    key.getTradeIdLength()) >= 0;
+	}
+
+	@Override
+	void growLevels(int capacity) {
+		levelVolumes = Arrays.copyOf(levelVolumes, capacity);
+		levelOrderCounts = Arrays.copyOf(levelOrderCounts, capacity);
+		levelFirst = Arrays.copyOf(levelFirst, capacity);
+		levelLast = Arrays.copyOf(levelLast, capacity);
+	}
+
+	@Override
+	void moveLevels(int from, int to, int count) {
+		System.arraycopy(levelVolumes, from, levelVolumes, to, count);
+		System.arraycopy(levelOrderCounts, from, levelOrderCounts, to, count);
+		System.arraycopy(levelFirst, from, levelFirst, to, count);
+		System.arraycopy(levelLast, from, levelLast, to, count);
+	}
+
+	/**
+	 * Iterates over copies of the resting orders in priority order, i.e. best
+	 * price first and then by time within each price.
+	 */
+	@Override
+	public Iterator<Order> iterator() {
+		return new Iterator<Order>() {
+
+			private int depth = 0;
+			private int next = levelCount == 0 ? NONE : levelFirst[levelCount - 1];
+
+			@Override
+			public boolean hasNext() {
+				return next != NONE;
+			}
+
+			@Override
+			public Order next() {
+				if (next == NONE)
+					throw new NoSuchElementException();
+
+				Order current = load(next, new Order());
+				next = store.getNext(next);
+
+				if (next == NONE && ++depth < levelCount)
+					next = levelFirst[levelCount - 1 - depth];
+
+				return current;
+			}
+		};
+	}
+
+	private void remember(Order order) {
+		if (bbgCode == null) {
+			bbgCode = order.getBbgCode();
+			tickSize = order.getTickSize();
+		}
+	}
+
+	private Order load(int handle, Order target) {
+		store.load(handle, target, bbgCode, getSide(), tickSize);
+		return target;
+	}
+
+	private void clearLevel(int index) {
+		levelVolumes[index] = 0;
+		levelOrderCounts[index] = 0;
+		levelFirst[index] = NONE;
+		levelLast[index] = NONE;
+	}
+
+	/**
+	 * Links the record of an order onto the back of a level's queue and
+	 * indexes it.
+	 */
+	private void append(int index, int handle, Order order) {
+		int last = levelLast[index];
+
+		store.setPrevious(handle, last);
+		if (last == NONE)
+			levelFirst[index] = handle;
+		else
+			store.setNext(last, handle);
+
+		levelLast[index] = handle;
+		levelVolumes[index] += store.getVolume(handle);
+		levelOrderCounts[index]++;
+		orderCount++;
+
+		index(handle, order);
+	}
+
+	/**
+	 * Unlinks a record from the queue of the level at an index, along with
+	 * whatever volume it still has, and frees it. The level is dropped if it
+	 * becomes empty.
+	 */
+	private void unlink(int handle, int index) {
+		int previous = store.getPrevious(handle);
+		int next = store.getNext(handle);
+
+		if (previous == NONE)
+			levelFirst[index] = next;
+		else
+			store.setNext(previous, next);
+
+		if (next == NONE)
+			levelLast[index] = previous;
+		else
+			store.setPrevious(next, previous);
+
+		levelVolumes[index] -= store.getVolume(handle);
+		levelOrderCounts[index]--;
+		orderCount--;
+
+		unindex(handle);
+		store.free(handle);
+
+		if (levelFirst[index] == NONE)
+			removeLevel(index);
+	}
+
+	/**
+	 * @return The slot of the handle with the TradeID, or -1 if there is none.
+	 */
+	private int find(int hash, byte[] tradeId, int length) {
+		int slot = hash & mask;
+		int handle;
+
+		while ((handle = slots[slot]) != NONE) {
+			if (store.getTradeIdHash(handle) == hash
+				&& store.hasTradeId(handle, tradeId, length))
+				return slot;
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Indexes a record by its TradeID.
+	 *
+	 * @throws IllegalStateException if a record with the TradeID is already
+	 * indexed, as the order book rejects a new order with the TradeID of a
+	 * resting one before it reaches the side.
+	 */
+	private void index(int handle, Order order) {
+		if (find(order.getTradeIdHash(), order.getTradeIdBytes(),
+				 order.getTradeIdLength()) >= 0)
+			throw new IllegalStateException("The TradeID " + order.getTradeID()
+					                        + " is already resting");
+
+		int slot = order.getTradeIdHash() & mask;
+		while (slots[slot] != NONE)
+			slot = (slot + 1) & mask;
+
+		slots[slot] = handle;
+
+		if (orderCount * 2 > slots.length)
+			rehash();
+	}
+
+	private void unindex(int handle) {
+		int slot = store.getTradeIdHash(handle) & mask;
+
+		while (slots[slot] != handle) {
+			if (slots[slot] == NONE)
+				return;
+
+			slot = (slot + 1) & mask;
+		}
+
+		int gap = slot;
+		int next = (gap + 1) & mask;
+
+		while (slots[next] != NONE) {
+			int home = store.getTradeIdHash(slots[next]) & mask;
+
+			// Move the entry into the gap unless its home slot lies cyclically
+			// between the gap and its current position.
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				slots[gap] = slots[next];
+				gap = next;
+			}
+
+			next = (next + 1) & mask;
+		}
+
+		slots[gap] = NONE;
+	}
+
+	private void rehash() {
+		int[] oldSlots = slots;
+		allocateSlots(oldSlots.length * 2);
+
+		for (int handle : oldSlots) {
+			if (handle == NONE)
+				continue;
+
+			int slot = store.getTradeIdHash(handle) & mask;
+			while (slots[slot] != NONE)
+				slot = (slot + 1) & mask;
+
+			slots[slot] = handle;
+		}
+	}
+
+	private void allocateSlots(int capacity) {
+		slots = new int[capacity];
+		Arrays.fill(slots, NONE);
+		mask = capacity - 1;
+	}
+}
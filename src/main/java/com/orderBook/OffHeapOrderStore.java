@@ -0,0 +1,343 @@
+package com.orderBook;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+
+/**
+ * Fixed-width records of resting orders, kept outside the heap in direct or
+ * memory-mapped buffers and addressed by int handles, for books too deep to
+ * hold as Order objects.
+ *
+ * Each record is RECORD_SIZE bytes: the price in ticks, the TradeTimeUTC, the
+ * volume, the handles of the previous and next orders in the queue of its
+ * price level, the hash of its TradeID, the symbol ids of its Currency,
+ * Portfolio, Account, Strategy and User, and the UTF-8 bytes of its TradeID.
+ * TradeIDs too long for a record are kept on the heap instead. The BBGCode
+ * and side are the same for every order of a book side, so they are not
+ * stored.
+ *
+ * Records are allocated in chunks, and the records of removed orders are
+ * reused before the store grows. One store can hold the orders of every book
+ * of a venue, and like the venue it belongs to a single thread.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OffHeapOrderStore implements AutoCloseable {
+
+	public static final int RECORD_SIZE = 80;
+
+	/**
+	 * The handle which marks the absence of an order, e.g. the end of a queue.
+	 */
+	public static final int NONE = -1;
+
+	private static final int PRICE = 0;
+	private static final int TIME = 8;
+	private static final int VOLUME = 16;
+	private static final int PREVIOUS = 20;
+	private static final int NEXT = 24;
+	private static final int HASH = 28;
+	private static final int CURRENCY = 32;
+	private static final int PORTFOLIO = 36;
+	private static final int ACCOUNT = 40;
+	private static final int STRATEGY = 44;
+	private static final int USER = 48;
+	private static final int TRADE_ID_LENGTH = 52;
+	private static final int TRADE_ID = 53;
+
+	static final int MAX_INLINE_TRADE_ID = RECORD_SIZE - TRADE_ID;
+
+	// Marks a TradeID which is kept on the heap rather than in its record.
+	private static final int LONG_TRADE_ID = 0xFF;
+
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+	private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_SIZE;
+
+	private final FileChannel channel;
+
+	private ByteBuffer[] chunks = new ByteBuffer[16];
+	private int chunkCount;
+
+	private int nextHandle;
+	private int[] freeHandles = new int[1024];
+	private int freeCount;
+	private int size;
+
+	private final Map<String, Integer> symbolIds = new HashMap<String, Integer>();
+	private final List<String> symbols = new ArrayList<String>();
+	private final Map<Integer, byte[]> longTradeIds = new HashMap<Integer, byte[]>();
+
+	private byte[] tradeIdBuffer = new byte[MAX_INLINE_TRADE_ID];
+
+	/**
+	 * Creates a store whose records are held in direct buffers.
+	 */
+	public OffHeapOrderStore() {
+		channel = null;
+	}
+
+	/**
+	 * Creates a store whose records are held in a memory-mapped file, so that
+	 * the operating system can page out the parts of very deep books which are
+	 * rarely touched. The file is overwritten, and is only scratch space: it
+	 * is not a way to persist the books (see the journal and snapshots).
+	 *
+	 * @param file
+	 * @throws IOException if the file cannot be created.
+	 */
+	public OffHeapOrderStore(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				                   StandardOpenOption.READ, StandardOpenOption.WRITE,
+				                   StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * @return The number of orders held.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The number of bytes of records allocated outside the heap.
+	 */
+	public long getAllocatedBytes() {
+		return chunkCount * CHUNK_BYTES;
+	}
+
+	/**
+	 * Releases the file of a memory-mapped store. Direct buffers are freed by
+	 * the garbage collector once the store is unreachable.
+	 *
+	 * @throws IOException if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel != null)
+			channel.close();
+	}
+
+	/**
+	 * Copies an order into a new record, which is not linked into any queue.
+	 *
+	 * @param order
+	 * @return The handle of the record.
+	 */
+	int allocate(Order order) {
+		int handle = freeCount > 0 ? freeHandles[--freeCount] : newHandle();
+		ByteBuffer chunk = chunks[handle >>> CHUNK_SHIFT];
+		int offset = (handle & CHUNK_MASK) * RECORD_SIZE;
+
+		chunk.putLong(offset + PRICE, order.getPriceTicks());
+		chunk.putLong(offset + TIME, order.getTradeTimeNanos());
+		chunk.putInt(offset + VOLUME, order.getVolume());
+		chunk.putInt(offset + PREVIOUS, NONE);
+		chunk.putInt(offset + NEXT, NONE);
+		chunk.putInt(offset + HASH, order.getTradeIdHash());
+		chunk.putInt(offset + CURRENCY, symbolId(order.getCurrency()));
+		chunk.putInt(offset + PORTFOLIO, symbolId(order.getPortfolio()));
+		chunk.putInt(offset + ACCOUNT, symbolId(order.getAccount()));
+		chunk.putInt(offset + STRATEGY, symbolId(order.getStrategy()));
+		chunk.putInt(offset + USER, symbolId(order.getUser()));
+
+		int length = order.getTradeIdLength();
+		if (length <= MAX_INLINE_TRADE_ID) {
+			chunk.put(offset + TRADE_ID_LENGTH, (byte) length);
+			chunk.put(offset + TRADE_ID, order.getTradeIdBytes(), 0, length);
+		} else {
+			chunk.put(offset + TRADE_ID_LENGTH, (byte) LONG_TRADE_ID);
+			longTradeIds.put(handle, Arrays.copyOf(order.getTradeIdBytes(), length));
+		}
+
+		size++;
+		return handle;
+	}
+
+	/**
+	 * Frees a record for reuse.
+	 *
+	 * @param handle
+	 */
+	void free(int handle) {
+		if (tradeIdLength(handle) == LONG_TRADE_ID)
+			longTradeIds.remove(handle);
+
+		if (freeCount == freeHandles.length)
+			freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+
+		freeHandles[freeCount++] = handle;
+		size--;
+	}
+
+	long getPriceTicks(int handle) {
+		return chunk(handle).getLong(offset(handle) + PRICE);
+	}
+
+	int getVolume(int handle) {
+		return chunk(handle).getInt(offset(handle) + VOLUME);
+	}
+
+	void setVolume(int handle, int volume) {
+		chunk(handle).putInt(offset(handle) + VOLUME, volume);
+	}
+
+	int getPrevious(int handle) {
+		return chunk(handle).getInt(offset(handle) + PREVIOUS);
+	}
+
+	void setPrevious(int handle, int previous) {
+		chunk(handle).putInt(offset(handle) + PREVIOUS, previous);
+	}
+
+	int getNext(int handle) {
+		return chunk(handle).getInt(offset(handle) + NEXT);
+	}
+
+	void setNext(int handle, int next) {
+		chunk(handle).putInt(offset(handle) + NEXT, next);
+	}
+
+	int getTradeIdHash(int handle) {
+		return chunk(handle).getInt(offset(handle) + HASH);
+	}
+
+	/**
+	 * @param handle
+	 * @param bytes
+	 * @param length
+	 * @return True if the record's TradeID is the given bytes.
+	 */
+	boolean hasTradeId(int handle, byte[] bytes, int length) {
+		int storedLength = tradeIdLength(handle);
+
+		if (storedLength == LONG_TRADE_ID) {
+			byte[] stored = longTradeIds.get(handle);
+			return Arrays.equals(stored, 0, stored.length, bytes, 0, length);
+		}
+
+		if (storedLength != length)
+			return false;
+
+		ByteBuffer chunk = chunk(handle);
+		int offset = offset(handle) + TRADE_ID;
+
+		for (int i = 0; i < length; i++) {
+			if (chunk.get(offset + i) != bytes[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies a record into an order, e.g. a view which is reused for every
+	 * record read.
+	 *
+	 * @param handle
+	 * @param target
+	 * @param bbgCode
+	 * @param side
+	 * @param tickSize
+	 */
+	void load(int handle, Order target, String bbgCode, SideEnum side,
+			  TickSize tickSize) {
+		ByteBuffer chunk = chunk(handle);
+		int offset = offset(handle);
+
+		byte[] tradeId;
+		int length = tradeIdLength(handle);
+
+		if (length == LONG_TRADE_ID) {
+			tradeId = longTradeIds.get(handle);
+			length = tradeId.length;
+		} else {
+			tradeId = tradeIdBuffer;
+			chunk.get(offset + TRADE_ID, tradeId, 0, length);
+		}
+
+		target.set(tradeId, 0, length, bbgCode,
+				   symbol(chunk.getInt(offset + CURRENCY)), side,
+				   chunk.getLong(offset + PRICE), tickSize,
+				   chunk.getInt(offset + VOLUME),
+				   symbol(chunk.getInt(offset + PORTFOLIO)), ActionEnum.NEW,
+				   symbol(chunk.getInt(offset + ACCOUNT)),
+				   symbol(chunk.getInt(offset + STRATEGY)),
+				   symbol(chunk.getInt(offset + USER)),
+				   chunk.getLong(offset + TIME));
+	}
+
+	private int tradeIdLength(int handle) {
+		return chunk(handle).get(offset(handle) + TRADE_ID_LENGTH) & 0xFF;
+	}
+
+	private ByteBuffer chunk(int handle) {
+		return chunks[handle >>> CHUNK_SHIFT];
+	}
+
+	private static int offset(int handle) {
+		return (handle & CHUNK_MASK) * RECORD_SIZE;
+	}
+
+	private int newHandle() {
+		if (nextHandle == Integer.MAX_VALUE)
+			throw new IllegalStateException("The store is full");
+
+		if ((nextHandle >>> CHUNK_SHIFT) == chunkCount)
+			addChunk();
+
+		return nextHandle++;
+	}
+
+	private void addChunk() {
+		ByteBuffer chunk;
+
+		if (channel == null) {
+			chunk = ByteBuffer.allocateDirect((int) CHUNK_BYTES);
+		} else {
+			try {
+				chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+						            chunkCount * CHUNK_BYTES, CHUNK_BYTES);
+			} catch (IOException e) {
+				throw new IllegalStateException("The store's file cannot be extended", e);
+			}
+		}
+
+		if (chunkCount == chunks.length)
+			chunks = Arrays.copyOf(chunks, chunkCount * 2);
+
+		chunks[chunkCount++] = chunk.order(ByteOrder.nativeOrder());
+	}
+
+	private int symbolId(String symbol) {
+		if (symbol == null)
+			return NONE;
+
+		Integer id = symbolIds.get(symbol);
+		if (id != null)
+			return id;
+
+		int newId = symbols.size();
+		symbols.add(symbol);
+		symbolIds.put(symbol, newId);
+		return newId;
+	}
+
+	private String symbol(int id) {
+		return id == NONE ? null : symbols.get(id);
+	}
+}
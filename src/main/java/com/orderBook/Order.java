@@ -1,54 +1,165 @@
 package com.orderBook;
 
+import java.nio.charset.StandardCharsets;
 import java.time.*;
+import java.util.Arrays;
 
 import com.constant.Types.*;
 
 /**
 * A domain class to represent orders, which are created from order messages to 
 * the trading venue.
+* 
+* Orders are mutable so that they can be recycled through an OrderPool. The 
+* TradeID is held as its UTF-8 bytes, which are what the order books index 
+* by, and a String is only created for it when one is asked for. 
 *  
 * @author Zane Ali
 * 
 */
-public class Order implements Comparable<Order> {
-		
+public class Order {
+	
+	private byte[] tradeIdBytes = new byte[16];
+	private int tradeIdLength;
+	private int tradeIdHash;
 	private String tradeId;
 	private String bbgCode;
 	private String currency;
 	private SideEnum side;
-	private Double price;
+	private long priceTicks;
+	private TickSize tickSize;
 	private int volume;
 	private String portfolio;
 	private ActionEnum action;
 	private String account;
 	private String strategy;
 	private String user;
-	private LocalDateTime tradeTimeUTC;
+	private long tradeTimeNanos;
+	
+	// The position of the order while it rests in a book, maintained by
+	// PriceLevel.
+	PriceLevel level;
+	Order previous;
+	Order next;
+	
+	// Whether the order is sitting in an OrderPool, maintained by the pool.
+	boolean pooled;
 	
 	public Order (String tradeId, String bbgCode, String currency, 
-			SideEnum side, Double price, int volume, String portfolio, 
-			ActionEnum action, String account, String strategy, String user,
-			LocalDateTime tradeTimeUTC)
+			SideEnum side, long priceTicks, TickSize tickSize, int volume, 
+			String portfolio, ActionEnum action, String account, 
+			String strategy, String user, long tradeTimeNanos)
 	{
+		byte[] bytes = tradeId.getBytes(StandardCharsets.UTF_8);
+		
+		set(bytes, 0, bytes.length, bbgCode, currency, side, priceTicks, 
+			tickSize, volume, portfolio, action, account, strategy, user, 
+			tradeTimeNanos);
 		this.tradeId = tradeId;
+	}
+	
+	/**
+	 * Creates an empty order for an OrderPool.
+	 */
+	Order() {
+	}
+	
+	/**
+	 * Overwrites every field of the order. This must only be called by the
+	 * order's owner, e.g. just after taking it from an OrderPool, and never
+	 * while it rests in a book.
+	 * 
+	 * @param tradeIdBytes A buffer holding the UTF-8 bytes of the TradeID,
+	 * which are copied.
+	 * @param tradeIdOffset
+	 * @param tradeIdLength
+	 * @param bbgCode
+	 * @param currency
+	 * @param side
+	 * @param priceTicks
+	 * @param tickSize
+	 * @param volume
+	 * @param portfolio
+	 * @param action
+	 * @param account
+	 * @param strategy
+	 * @param user
+	 * @param tradeTimeNanos
+	 */
+	public void set(byte[] tradeIdBytes, int tradeIdOffset, int tradeIdLength,
+			        String bbgCode, String currency, SideEnum side, 
+			        long priceTicks, TickSize tickSize, int volume, 
+			        String portfolio, ActionEnum action, String account, 
+			        String strategy, String user, long tradeTimeNanos) {
+		if (level != null)
+			throw new IllegalStateException("A resting order cannot be overwritten");
+		
+		if (tradeIdLength > this.tradeIdBytes.length)
+			this.tradeIdBytes = Arrays.copyOf(this.tradeIdBytes, 
+					                          Math.max(tradeIdLength, 
+					                        		   this.tradeIdBytes.length * 2));
+		
+		System.arraycopy(tradeIdBytes, tradeIdOffset, this.tradeIdBytes, 0, 
+				         tradeIdLength);
+		this.tradeIdLength = tradeIdLength;
+		this.tradeIdHash = hash(this.tradeIdBytes, tradeIdLength);
+		this.tradeId = null;
+		
 		this.bbgCode = bbgCode;
 		this.currency = currency;
 		this.side = side;
-		this.price = price;
+		this.priceTicks = priceTicks;
+		this.tickSize = tickSize;
 		this.volume = volume;
 		this.portfolio = portfolio;
 		this.action = action;
 		this.account = account;
 		this.strategy = strategy;
 		this.user = user;
-		this.tradeTimeUTC = tradeTimeUTC;
+		this.tradeTimeNanos = tradeTimeNanos;
 	}
 	
+	/**
+	 * @return The TradeID. The String is created on the first call after the
+	 * order is set.
+	 */
     public String getTradeID() {
+    	if (tradeId == null)
+    		tradeId = new String(tradeIdBytes, 0, tradeIdLength, 
+    				             StandardCharsets.UTF_8);
+    	
 		return tradeId;
 	}
     
+    /**
+     * @return The buffer holding the UTF-8 bytes of the TradeID, which is only
+     * valid until the order is next set.
+     */
+    public byte[] getTradeIdBytes() {
+    	return tradeIdBytes;
+    }
+    
+    /**
+     * @return The number of bytes of the TradeID in its buffer.
+     */
+    public int getTradeIdLength() {
+    	return tradeIdLength;
+    }
+    
+    int getTradeIdHash() {
+    	return tradeIdHash;
+    }
+    
+    /**
+     * @param other
+     * @return True if the other order has the same TradeID.
+     */
+    public boolean hasSameTradeId(Order other) {
+    	return tradeIdHash == other.tradeIdHash 
+    		   && Arrays.equals(tradeIdBytes, 0, tradeIdLength, 
+    				            other.tradeIdBytes, 0, other.tradeIdLength);
+    }
+    
     public String getBbgCode() {
 		return bbgCode;
 	}
@@ -61,8 +172,20 @@ public class Order implements Comparable<Order> {
 		return side;
     }
     
-    public Double getPrice() {
-    	return price;
+    /**
+     * @return The limit price as a whole number of ticks of the instrument's
+     * tick size.
+     */
+    public long getPriceTicks() {
+    	return priceTicks;
+    }
+    
+    public TickSize getTickSize() {
+    	return tickSize;
+    }
+    
+    public double getPrice() {
+    	return tickSize.toPrice(priceTicks);
     }
 
     public int getVolume() {
@@ -89,36 +212,47 @@ public class Order implements Comparable<Order> {
 		return user;
 	}
     
+    /**
+     * @return The TradeTimeUTC as nanoseconds since the epoch.
+     */
+    public long getTradeTimeNanos() {
+    	return tradeTimeNanos;
+    }
+    
     public LocalDateTime getTradeTimeUTC() {
-		return tradeTimeUTC;
+		return LocalDateTime.ofEpochSecond(
+				Math.floorDiv(tradeTimeNanos, 1_000_000_000L),
+				(int) Math.floorMod(tradeTimeNanos, 1_000_000_000L), 
+				ZoneOffset.UTC);
 	}
     
+    /**
+     * @return The order behind this one in the queue of its price level, or
+     * null if this is the last order or it is not resting.
+     */
+    public Order getNext() {
+    	return next;
+    }
+    
     public void setVolume(int volume) {
     	this.volume = volume;
     }
-
-	@Override
-	public int compareTo(Order o) {
- 	   if (this.side == SideEnum.B && this.price > o.price)  
- 	      return -1;  
- 	   else if (this.side == SideEnum.B && this.price < o.price)  
- 	      return 1;  
- 	   else if (this.side == SideEnum.S && this.price > o.price)  
- 	      return 1;  
- 	   else if (this.side == SideEnum.S && this.price < o.price)  
- 	      return -1;  	   
- 	   else {
- 		   if (this.tradeTimeUTC.isBefore(o.tradeTimeUTC))
- 			   return -1;
- 		   else if (this.tradeTimeUTC.isAfter(o.tradeTimeUTC))
- 			   return 1;
- 		   else
- 			   return o.getTradeID().compareTo(this.getTradeID());
-			    		   
- 	   }
- 	        
-	}
     
+    /**
+     * @return True if this object is resting in a book, which is never the
+     * case for books which copy their orders off the heap.
+     */
+    public boolean isResting() {
+    	return level != null;
+    }
     
+    static int hash(byte[] bytes, int length) {
+    	int h = 0;
+    	
+    	for (int i = 0; i < length; i++)
+    		h = 31 * h + bytes[i];
+    	
+    	return h ^ (h >>> 16);
+    }
     
 }
@@ -1,8 +1,12 @@
 package com.orderBook;
-import java.util.*;
 
 import com.constant.Types.*;
+import com.execution.ExecutionRing;
+import com.marketData.DepthBook;
+import com.marketData.TradeStats;
+import com.metrics.InstrumentMetrics;
 import com.tradingVenue.MasterBook;
+import com.util.LongLongHashMap;
 
 /**
  * A class which represents both the bid and ask order book for an exchange
@@ -12,38 +16,234 @@ import com.tradingVenue.MasterBook;
  * Each order book is linked to a new instrument since orders can only execute
  * against (opposite) orders with the same instrument code.
  * 
+ * Each side of the book is a ladder of price levels (see BookSide), where each
+ * level holds a FIFO queue of its orders. Orders are matched level by level in 
+ * price-time priority. The resting orders are held on the heap by default, or
+ * as records outside the heap in an OffHeapOrderStore for very deep books.
+ * 
+ * Prices are held as a whole number of ticks of the instrument's tick size, 
+ * so price levels and the aggregations keyed by them are exact.
+ * 
  * Since order books are unique to instruments, the volume aggregation by BBGCode
  * (and price) is performed iteratively in this class, with each new order on 
  * the book. This significantly improves the performance of aggregation compared
  * to other methods demonstrated in this program (in the MasterBook class). 
  * 
+ * If an execution ring is set, every fill is also published to it as an
+ * execution event, and if metrics are set, every message is timed and 
+ * recorded along with the book's depth and best prices. If a depth book is
+ * set, the top levels of both sides are published to it after every message.
+ * 
+ * If an order pool is set, the book releases every order it has finished 
+ * with back to the pool (see OrderPool for the ownership rules), so that a 
+ * venue in a steady state matches without allocating.
+ * 
  * @author Zane Ali
  *
  */
 public class OrderBook {
 	
-	private Set<Order> bids = new TreeSet<Order>();
-	private Set<Order> asks = new TreeSet<Order>();
+	private final TickSize tickSize;
+	
+	private final BookSide bids;
+	private final BookSide asks;
+	
+	// Aggregated volume per price in ticks.
+	private LongLongHashMap bidsAggregation = new LongLongHashMap();
+	private LongLongHashMap asksAggregation = new LongLongHashMap();
+	
+	private OrderPool orderPool;
+	private ExecutionRing executions;
+	private InstrumentMetrics metrics;
+	private DepthBook depthBook;
+	private TradeStats tradeStats;
 	
-	private Map<Double, Integer> bidsAggregation = new HashMap<Double, Integer>();
-	private Map<Double, Integer> asksAggregation = new HashMap<Double, Integer>();
+	private long fillCount;
+	private long filledVolume;
 	
-	public Set<Order> getBids() {
+	/**
+	 * Creates a book which holds its resting orders on the heap.
+	 * 
+	 * @param tickSize
+	 */
+	public OrderBook(TickSize tickSize) {
+		this.tickSize = tickSize;
+		
+		bids = new HeapBookSide(SideEnum.B);
+		asks = new HeapBookSide(SideEnum.S);
+	}
+	
+	/**
+	 * Creates a book which holds its resting orders in an off-heap store.
+	 * 
+	 * @param tickSize
+	 * @param store The store, which may be shared by the other books of the
+	 * same venue.
+	 */
+	public OrderBook(TickSize tickSize, OffHeapOrderStore store) {
+		this.tickSize = tickSize;
+		
+		bids = new OffHeapBookSide(SideEnum.B, store);
+		asks = new OffHeapBookSide(SideEnum.S, store);
+	}
+	
+	public TickSize getTickSize() {
+		return tickSize;
+	}
+	
+	public BookSide getBids() {
 		return bids;
 	}
 	
-	public Set<Order> getAsks() {
+	public BookSide getAsks() {
 		return asks;
 	}
 	
-	public Map<Double, Integer> getBidsAggregation() {
+	public LongLongHashMap getBidsAggregation() {
 		return bidsAggregation;
 	}
 	
-	public Map<Double, Integer> getAsksAggregation() {
+	public LongLongHashMap getAsksAggregation() {
 		return asksAggregation;
 	}
 	
+	/**
+	 * Sets the pool which orders are released to once they have been fully
+	 * filled, cancelled or amended, or null to leave them to the garbage
+	 * collector. The pool must belong to the thread which processes the
+	 * book's orders.
+	 * 
+	 * @param orderPool
+	 */
+	public void setOrderPool(OrderPool orderPool) {
+		this.orderPool = orderPool;
+		
+		bids.orderPool = orderPool;
+		asks.orderPool = orderPool;
+	}
+	
+	/**
+	 * Sets the ring which every fill is published to, or null to stop
+	 * publishing fills.
+	 * 
+	 * @param executions
+	 */
+	public void setExecutionRing(ExecutionRing executions) {
+		this.executions = executions;
+	}
+	
+	/**
+	 * Sets the metrics which every message is recorded into, or null to stop
+	 * recording.
+	 * 
+	 * @param metrics
+	 */
+	public void setMetrics(InstrumentMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Sets the depth book which the top levels of the book are published to,
+	 * or null to stop publishing them. The current levels are published 
+	 * straight away, so this must be called on the book's matching thread.
+	 * 
+	 * @param depthBook
+	 */
+	public void setDepthBook(DepthBook depthBook) {
+		this.depthBook = depthBook;
+		
+		if (depthBook != null)
+			depthBook.update(this);
+	}
+	
+	/**
+	 * Sets the trade stats which every fill is recorded in, at the resting
+	 * order's price and the incoming order's time, or null to stop recording
+	 * them. This must be called on the book's matching thread.
+	 * 
+	 * @param tradeStats
+	 */
+	public void setTradeStats(TradeStats tradeStats) {
+		this.tradeStats = tradeStats;
+	}
+	
+	/**
+	 * @return The number of fills against resting orders so far.
+	 */
+	public long getFillCount() {
+		return fillCount;
+	}
+	
+	/**
+	 * @return The total volume filled so far.
+	 */
+	public long getFilledVolume() {
+		return filledVolume;
+	}
+	
+	/**
+	 * @return The number of orders resting on both sides of the book.
+	 */
+	public int getOrderCount() {
+		return bids.getOrderCount() + asks.getOrderCount();
+	}
+	
+	/**
+	 * @param tradeId
+	 * @return The order resting on either side of the book with the TradeID,
+	 * or null if there is none. If the book has an order pool, the order may
+	 * be reused once it leaves the book, and if the book is off the heap, the
+	 * order is a copy.
+	 */
+	public Order getRestingOrder(String tradeId) {
+		Order order = bids.getOrder(tradeId);
+		return order != null ? order : asks.getOrder(tradeId);
+	}
+	
+	/**
+	 * @param key An order with the TradeID to look for.
+	 * @return True if an order with the same TradeID is resting on either
+	 * side of the book.
+	 */
+	public boolean hasRestingOrder(Order key) {
+		return bids.contains(key) || asks.contains(key);
+	}
+	
+	
+	/**
+	 * Puts a resting order back on the book without matching it, e.g. when
+	 * the book is rebuilt from a snapshot. The orders of each side must be
+	 * restored from the worst price to the best, and in time priority within
+	 * each price. The master book is not updated, since its totals are
+	 * restored separately, and neither is the depth book, which is published
+	 * once with publishDepth when the whole book has been restored.
+	 * 
+	 * If the book has an order pool and copies the order (see OffHeapBookSide),
+	 * the order is released to the pool, as processOrder does.
+	 * 
+	 * @param order
+	 */
+	public void restoreOrder(Order order) {
+		if (order.getSide() == SideEnum.B) {
+			bidsAggregation.addTo(order.getPriceTicks(), order.getVolume());
+			bids.restore(order);
+		} else {
+			asksAggregation.addTo(order.getPriceTicks(), order.getVolume());
+			asks.restore(order);
+		}
+		
+		if (!order.isResting())
+			release(order);
+	}
+	
+	/**
+	 * Publishes the top levels of the book to its depth book, if it has one,
+	 * e.g. once the book has been restored.
+	 */
+	public void publishDepth() {
+		if (depthBook != null)
+			depthBook.update(this);
+	}
 	
 	/**
 	 * Directs order to helper classes to perform necessary storage and
@@ -52,14 +252,22 @@ public class OrderBook {
 	 * @param order The order to be processed.
 	 * @param masterBook A master order book which contains orders for every
 	 * order regardless of instrument.
+	 * @return The volume of the order left resting on the book, which is 0 for
+	 * a cancel.
+	 * @throws IllegalArgumentException if the order is new and an order with
+	 * its TradeID is already resting, in which case the book is unchanged.
 	 */
-	public void processOrder(Order order, MasterBook masterBook) {	
+	public int processOrder(Order order, MasterBook masterBook) {	
 		
-		Set<Order> orderBook;
-		Set<Order> oppositeBook;
+		if (order.getAction() == ActionEnum.NEW && hasRestingOrder(order))
+			throw new IllegalArgumentException("The TradeID " + order.getTradeID() 
+					                           + " is already resting");
 		
-		Map<Double, Integer> orderAggregation;
-		Map<Double, Integer> oppositeAggregation;
+		BookSide orderBook;
+		BookSide oppositeBook;
+		
+		LongLongHashMap orderAggregation;
+		LongLongHashMap oppositeAggregation;
 				
 		if (order.getSide() == SideEnum.B) {	
 	        orderBook = bids;
@@ -72,11 +280,15 @@ public class OrderBook {
 		    oppositeBook = bids;	
 		    
 			orderAggregation = asksAggregation;
-			oppositeAggregation = asksAggregation;
+			oppositeAggregation = bidsAggregation;
 		}
 		
 		ActionEnum action = order.getAction();
 		
+		InstrumentMetrics currentMetrics = metrics;
+		boolean timed = currentMetrics != null && currentMetrics.isEnabled();
+		long start = timed ? System.nanoTime() : 0;
+		
 		switch (action) {
 		    case NEW:
 		    	newOrder(order, orderBook, oppositeBook, 
@@ -90,7 +302,20 @@ public class OrderBook {
 		    			   orderAggregation, oppositeAggregation, masterBook);
 		    	break;
 
-		}								
+		}
+		
+		int restingVolume = action == ActionEnum.CANCEL ? 0 : order.getVolume();
+		
+		if (!order.isResting())
+			release(order);
+		
+		if (depthBook != null)
+			depthBook.update(this);
+		
+		if (timed)
+			currentMetrics.recordMessage(action, System.nanoTime() - start, this);
+		
+		return restingVolume;
 	}
 	
 	/**
@@ -98,6 +323,9 @@ public class OrderBook {
 	 * order executions if necessary, reducing or eliminating volume from orders 
 	 * in both the bid and ask order books.
 	 * 
+	 * The order is matched level by level against the opposite book, starting
+	 * at its best price, for as long as the best opposite level crosses the 
+	 * order's limit price. Any remaining volume rests at the order's price.
 	 * 
 	 * @param order The current order.
 	 * @param orderBook The current order book.
@@ -111,45 +339,58 @@ public class OrderBook {
 	 * @param masterBook A master order book which contains orders for every
 	 * order regardless of instrument.
 	 */
-	private void newOrder(Order order, Set<Order> orderBook,
-			              Set<Order> oppositeBook,
-			              Map<Double, Integer> orderAggregation,
-			              Map<Double, Integer> oppositeAggregation,
+	private void newOrder(Order order, BookSide orderBook,
+			              BookSide oppositeBook,
+			              LongLongHashMap orderAggregation,
+			              LongLongHashMap oppositeAggregation,
 			              MasterBook masterBook) {
 				
-		Iterator<Order> iterator =  oppositeBook.iterator();
-		Order oppositeOrder;
-
-        while (order.getVolume() > 0 && iterator.hasNext() &&
-               (oppositeOrder = iterator.next()).getPrice() <= order.getPrice())
-        {
-            
-            int tradeVolume = Math.min(order.getVolume(), 
-                                       oppositeOrder.getVolume());
-
-            order.setVolume(order.getVolume() - tradeVolume);
-            oppositeOrder.setVolume(oppositeOrder.getVolume() - tradeVolume);
-            
-            orderAggregation.merge(order.getPrice(), tradeVolume, 
-                                                     (a,b) -> Math.abs((a-b)));
-            oppositeAggregation.merge(order.getPrice(), tradeVolume, 
-                                                     (a,b) -> Math.abs((a-b)));
-            
-            if(oppositeOrder.getVolume() <= 0) iterator.remove();
-        }
+		while (order.getVolume() > 0 && 
+			   oppositeBook.crosses(order.getPriceTicks())) 
+		{
+			long priceTicks = oppositeBook.getLevelPriceTicks(0);
+			int levelVolume = oppositeBook.matchBest(order, this, masterBook);
+			
+			oppositeAggregation.addTo(priceTicks, -levelVolume);
+		}
         
         if (order.getVolume() > 0) {
         	orderBook.add(order);
-        	orderAggregation.merge(order.getPrice(), order.getVolume(), 
-        			                                          (a,b) -> (a+b));
+        	orderAggregation.addTo(order.getPriceTicks(), order.getVolume());
         	masterBook.addOrder(order);
         }
 	}
 	
+	/**
+	 * Records a fill of a resting order. The book side has already taken the
+	 * volume off both orders and the level, and removes the resting order
+	 * afterwards if it has been filled in full.
+	 * 
+	 * @param aggressor The incoming order, with its volume after the fill.
+	 * @param passive The resting order, with its volume after the fill.
+	 * @param tradeVolume
+	 * @param masterBook
+	 */
+	void fill(Order aggressor, Order passive, int tradeVolume, MasterBook masterBook) {
+		masterBook.removeVolume(passive, tradeVolume);
+		fillCount++;
+		filledVolume += tradeVolume;
+		
+		if (tradeStats != null)
+			tradeStats.onFill(passive.getPriceTicks(), tradeVolume, 
+					          aggressor.getTradeTimeNanos());
+		if (executions != null)
+			executions.publish(aggressor, passive, tradeVolume);
+	}
+	
 	/**
 	 * Cancels an order in the order book and reduces corresponding volume from
 	 * bid and ask aggregation maps.
 	 * 
+	 * The resting order is found through the TradeID index of its side and 
+	 * unlinked from its price level in constant time. Cancels for orders which
+	 * are no longer resting (e.g. already fully filled) have no effect.
+	 * 
 	 * 
 	 * @param order The current order.
 	 * @param orderBook The current order book.
@@ -158,19 +399,19 @@ public class OrderBook {
 	 * @param masterBook A master order book which contains orders for every
 	 * order regardless of instrument.
 	 */
-	private void cancelOrder(Order order, Set<Order> orderBook, 
-			                 Map<Double, Integer> orderAggregation,
-			                 MasterBook masterbook) {
+	private void cancelOrder(Order order, BookSide orderBook, 
+			                 LongLongHashMap orderAggregation,
+			                 MasterBook masterBook) {
 		
-	    Iterator<Order> itr = orderBook.iterator();
-	    
-	    while(itr.hasNext()) {
-	    	itr.next().getTradeID();
-	    }
-
-		orderBook.removeIf(o -> o.getTradeID().equals(order.getTradeID()));
-		orderAggregation.merge(order.getPrice(), order.getVolume(), 
-                                               (a,b) -> Math.abs((a-b)));
+		Order restingOrder = orderBook.remove(order);
+		
+		if (restingOrder == null) 
+			return;
+		
+		orderAggregation.addTo(restingOrder.getPriceTicks(), 
+				               -restingOrder.getVolume());
+		masterBook.removeVolume(restingOrder, restingOrder.getVolume());
+		orderBook.recycle(restingOrder);
 	}
 	
 	/**
@@ -190,10 +431,10 @@ public class OrderBook {
 	 * @param masterBook A master order book which contains orders for every
 	 * order regardless of instrument.
 	 */
-	private void amendOrder(Order order, Set<Order> orderBook,
-                            Set<Order> oppositeBook,
-                            Map<Double, Integer> orderAggregation,
-                            Map<Double, Integer> oppositeAggregation,
+	private void amendOrder(Order order, BookSide orderBook,
+                            BookSide oppositeBook,
+                            LongLongHashMap orderAggregation,
+                            LongLongHashMap oppositeAggregation,
                             MasterBook masterBook) {
 		
 		cancelOrder(order, orderBook, orderAggregation, masterBook);
@@ -202,4 +443,9 @@ public class OrderBook {
    			 orderAggregation, oppositeAggregation, masterBook);
 	}
 	
+	private void release(Order order) {
+		if (orderPool != null)
+			orderPool.release(order);
+	}
+	
 }
@@ -0,0 +1,111 @@
+package com.orderBook;
+
+import java.util.Arrays;
+
+/**
+ * A pool of reusable orders, so that a venue in a steady state does not
+ * allocate an order per message.
+ *
+ * The pool is not thread-safe and belongs to the thread which submits to its
+ * venue. Orders follow a single ownership rule: an order belongs to whoever
+ * took it from the pool until it is released, and once released it must not
+ * be touched again. In practice the venue takes an order for every message
+ * and hands it to the message's order book, which releases it when it no
+ * longer needs it: straight away for cancels and for orders which fill in
+ * full on arrival, or when it leaves the book for orders which rest. Anything
+ * which needs an order's details after that, e.g. an execution listener, must
+ * copy them before the order book moves on to the next message.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderPool {
+
+	public static final int DEFAULT_MAX_SIZE = 1 << 20;
+
+	private final int maxSize;
+
+	private Order[] free;
+	private int size;
+
+	private long created;
+
+	public OrderPool() {
+		this(1024, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param initialSize The number of orders to create up front.
+	 * @param maxSize The most orders the pool keeps. Orders released while
+	 * the pool is full are left to the garbage collector.
+	 */
+	public OrderPool(int initialSize, int maxSize) {
+		if (initialSize < 0 || maxSize < initialSize)
+			throw new IllegalArgumentException("The initial size must be between "
+					                           + "0 and the maximum size");
+
+		this.maxSize = maxSize;
+
+		free = new Order[Math.max(initialSize, 16)];
+		for (int i = 0; i < initialSize; i++)
+			free[size++] = newOrder();
+	}
+
+	/**
+	 * @return An order whose fields are left over from its last use, and must
+	 * be set before it is used.
+	 */
+	public Order acquire() {
+		if (size == 0)
+			return newOrder();
+
+		Order order = free[--size];
+		free[size] = null;
+		order.pooled = false;
+		return order;
+	}
+
+	/**
+	 * Returns an order to the pool.
+	 *
+	 * @param order
+	 * @throws IllegalStateException if the order is still resting in a book or
+	 * has already been released.
+	 */
+	public void release(Order order) {
+		if (order.pooled)
+			throw new IllegalStateException("The order has already been released");
+
+		if (order.isResting())
+			throw new IllegalStateException("A resting order cannot be released");
+
+		if (size == maxSize)
+			return;
+
+		if (size == free.length)
+			free = Arrays.copyOf(free, Math.min(size * 2, maxSize));
+
+		order.pooled = true;
+		free[size++] = order;
+	}
+
+	/**
+	 * @return The number of orders waiting in the pool.
+	 */
+	public int getAvailable() {
+		return size;
+	}
+
+	/**
+	 * @return The number of orders the pool has had to create, which stops
+	 * growing once the pool has warmed up.
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	private Order newOrder() {
+		created++;
+		return new Order();
+	}
+}
@@ -0,0 +1,116 @@
+package com.orderBook;
+
+/**
+ * A single limit price on one side of an order book.
+ *
+ * The orders resting at the price are kept in a doubly-linked FIFO queue so
+ * that the earliest order is always matched first, and so that any order can
+ * be unlinked without walking the queue. The level also keeps the aggregated
+ * volume and the number of orders in its queue.
+ *
+ * @author Zane Ali
+ *
+ */
+public class PriceLevel {
+
+	private long priceTicks;
+
+	private Order first;
+	private Order last;
+
+	private long volume;
+	private int orderCount;
+
+	PriceLevel(long priceTicks) {
+		this.priceTicks = priceTicks;
+	}
+
+	/**
+	 * Reuses an empty level for another price.
+	 *
+	 * @param priceTicks
+	 */
+	void reset(long priceTicks) {
+		this.priceTicks = priceTicks;
+	}
+
+	public long getPriceTicks() {
+		return priceTicks;
+	}
+
+	public long getVolume() {
+		return volume;
+	}
+
+	public int getOrderCount() {
+		return orderCount;
+	}
+
+	/**
+	 * @return The order with time priority at this price, or null if the level
+	 * is empty.
+	 */
+	public Order getFirst() {
+		return first;
+	}
+
+	boolean isEmpty() {
+		return first == null;
+	}
+
+	/**
+	 * Adds an order to the back of the queue.
+	 *
+	 * @param order
+	 */
+	void append(Order order) {
+		order.level = this;
+		order.previous = last;
+		order.next = null;
+
+		if (last == null)
+			first = order;
+		else
+			last.next = order;
+
+		last = order;
+		volume += order.getVolume();
+		orderCount++;
+	}
+
+	/**
+	 * Removes an order from anywhere in the queue, along with whatever volume
+	 * it still has.
+	 *
+	 * @param order
+	 */
+	void unlink(Order order) {
+		if (order.previous == null)
+			first = order.next;
+		else
+			order.previous.next = order.next;
+
+		if (order.next == null)
+			last = order.previous;
+		else
+			order.next.previous = order.previous;
+
+		volume -= order.getVolume();
+		orderCount--;
+
+		order.level = null;
+		order.previous = null;
+		order.next = null;
+	}
+
+	/**
+	 * Reduces the volume of an order in the queue after part of it has traded.
+	 *
+	 * @param order
+	 * @param tradeVolume
+	 */
+	void reduce(Order order, int tradeVolume) {
+		order.setVolume(order.getVolume() - tradeVolume);
+		volume -= tradeVolume;
+	}
+}
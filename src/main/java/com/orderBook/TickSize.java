@@ -0,0 +1,239 @@
+package com.orderBook;
+
+import java.math.BigDecimal;
+
+/**
+ * The minimum price increment of an instrument. Prices are held as a whole
+ * number of ticks so that every price level has an exact integer key.
+ *
+ * The tick size is stored as a decimal, i.e. as a number of units of 10^-scale
+ * (0.0025 is 25 units with a scale of 4), so that converting ticks back into
+ * a price for display never picks up binary floating point noise.
+ *
+ * @author Zane Ali
+ *
+ */
+public final class TickSize {
+
+	/**
+	 * The scale of canonical prices, which are in units of 10^-9 regardless of
+	 * the instrument, so that prices from instruments with different tick sizes
+	 * can be compared and aggregated together.
+	 */
+	public static final int CANONICAL_SCALE = 9;
+
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	private final long units;
+	private final int scale;
+
+	private TickSize(long units, int scale) {
+		this.units = units;
+		this.scale = scale;
+	}
+
+	/**
+	 * @param tickSize The tick size as a decimal string, e.g. "0.01".
+	 * @return The corresponding tick size.
+	 */
+	public static TickSize of(String tickSize) {
+		BigDecimal decimal = new BigDecimal(tickSize).stripTrailingZeros();
+
+		if (decimal.signum() <= 0)
+			throw new IllegalArgumentException("Tick size must be positive: "
+		                                       + tickSize);
+
+		if (decimal.scale() < 0)
+			decimal = decimal.setScale(0);
+
+		if (decimal.scale() > CANONICAL_SCALE)
+			throw new IllegalArgumentException("Tick size has too many decimal "
+					                           + "places: " + tickSize);
+
+		return new TickSize(decimal.unscaledValue().longValueExact(),
+				            decimal.scale());
+	}
+
+	/**
+	 * @return The tick size in units of 10^-scale.
+	 */
+	public long getUnits() {
+		return units;
+	}
+
+	/**
+	 * @return The number of decimal places needed to print a price.
+	 */
+	public int getScale() {
+		return scale;
+	}
+
+	/**
+	 * Converts a price into the nearest whole number of ticks.
+	 *
+	 * @param price
+	 * @return The price in ticks.
+	 */
+	public long toTicks(double price) {
+		return Math.round(price * POWERS_OF_TEN[scale] / units);
+	}
+
+	/**
+	 * Converts a decimal price, given as its digits without the decimal point
+	 * and the number of digits after the point, into the nearest whole number
+	 * of ticks. Unlike toTicks(double) this is exact for a price on a tick,
+	 * and rounds a price off a tick half away from zero (see isOnTick).
+	 *
+	 * @param unscaledPrice The price digits, e.g. 57356 for 57.356.
+	 * @param decimals The number of digits after the decimal point, e.g. 3.
+	 * @return The price in ticks.
+	 * @throws ArithmeticException if the price is too large to scale.
+	 */
+	public long toTicks(long unscaledPrice, int decimals) {
+		long priceUnits;
+
+		if (decimals <= scale) {
+			priceUnits = Math.multiplyExact(unscaledPrice, POWERS_OF_TEN[scale - decimals]);
+		} else {
+			long divisor = POWERS_OF_TEN[decimals - scale];
+			priceUnits = roundedDivide(unscaledPrice, divisor);
+		}
+
+		return roundedDivide(priceUnits, units);
+	}
+
+	/**
+	 * @param unscaledPrice The price digits, e.g. 57356 for 57.356.
+	 * @param decimals The number of digits after the decimal point, e.g. 3.
+	 * @return Whether the price is a whole number of ticks.
+	 * @throws ArithmeticException if the price is too large to scale.
+	 */
+	public boolean isOnTick(long unscaledPrice, int decimals) {
+		long priceUnits;
+
+		if (decimals <= scale) {
+			priceUnits = Math.multiplyExact(unscaledPrice, POWERS_OF_TEN[scale - decimals]);
+		} else {
+			long divisor = POWERS_OF_TEN[decimals - scale];
+			if (unscaledPrice % divisor != 0)
+				return false;
+			priceUnits = unscaledPrice / divisor;
+		}
+
+		return priceUnits % units == 0;
+	}
+
+	/**
+	 * @param ticks
+	 * @return The price for a number of ticks.
+	 */
+	public double toPrice(long ticks) {
+		return (double) (ticks * units) / POWERS_OF_TEN[scale];
+	}
+
+	/**
+	 * @param ticks
+	 * @return The price for a number of ticks in units of 10^-CANONICAL_SCALE.
+	 * @throws ArithmeticException if the price is too large to scale, which
+	 * cannot happen for a price the OrderMessageParser accepts.
+	 */
+	public long toCanonical(long ticks) {
+		return Math.multiplyExact(Math.multiplyExact(ticks, units),
+				                  POWERS_OF_TEN[CANONICAL_SCALE - scale]);
+	}
+
+	/**
+	 * Appends a canonical price as a decimal without trailing zeros, without
+	 * allocating.
+	 *
+	 * @param builder
+	 * @param canonicalPrice A price in units of 10^-CANONICAL_SCALE.
+	 * @return The builder.
+	 */
+	public static StringBuilder appendCanonical(StringBuilder builder,
+			                                    long canonicalPrice) {
+		long value = canonicalPrice;
+		int decimals = CANONICAL_SCALE;
+
+		while (decimals > 0 && value % 10 == 0) {
+			value /= 10;
+			decimals--;
+		}
+
+		return appendDecimal(builder, value, decimals);
+	}
+
+	/**
+	 * Appends a price in ticks as an exact decimal, without allocating.
+	 *
+	 * @param builder
+	 * @param ticks
+	 * @return The builder.
+	 */
+	public StringBuilder appendPrice(StringBuilder builder, long ticks) {
+		return appendDecimal(builder, ticks * units, scale);
+	}
+
+	/**
+	 * @param ticks
+	 * @return The price for a number of ticks as an exact decimal string.
+	 */
+	public String format(long ticks) {
+		return appendPrice(new StringBuilder(24), ticks).toString();
+	}
+
+	private static StringBuilder appendDecimal(StringBuilder builder,
+			                                   long unscaled, int decimals) {
+		if (unscaled < 0) {
+			builder.append('-');
+			unscaled = -unscaled;
+		}
+
+		builder.append(unscaled / POWERS_OF_TEN[decimals]);
+
+		if (decimals > 0) {
+			builder.append('.');
+			long fraction = unscaled % POWERS_OF_TEN[decimals];
+
+			for (int i = decimals - 1; i >= 0; i--)
+				builder.append((char) ('0' + (fraction / POWERS_OF_TEN[i]) % 10));
+		}
+
+		return builder;
+	}
+
+	private static long roundedDivide(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+
+		if (Math.abs(remainder) * 2 >= divisor)
+			quotient += Long.signum(dividend);
+
+		return quotient;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof TickSize))
+			return false;
+
+		TickSize other = (TickSize) o;
+		return units == other.units && scale == other.scale;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(units) * 31 + scale;
+	}
+
+	@Override
+	public String toString() {
+		return format(1);
+	}
+}
@@ -0,0 +1,146 @@
+package com.orderBook;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An open-addressing index of the resting orders of one order book by their
+ * TradeID.
+ *
+ * The orders themselves are the entries, matched on the UTF-8 bytes and hash
+ * of their TradeIDs, so adding, finding and removing an order neither creates
+ * a String nor allocates an entry. Removal shifts back the rest of the probe
+ * sequence, as in LongLongHashMap, so the table never fills with tombstones.
+ *
+ * @author Zane Ali
+ *
+ */
+class TradeIdIndex {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private Order[] slots = new Order[INITIAL_CAPACITY];
+	private int mask = INITIAL_CAPACITY - 1;
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param key An order with the TradeID to look for.
+	 * @return The order with the same TradeID, or null if there is none.
+	 */
+	Order get(Order key) {
+		int index = key.getTradeIdHash() & mask;
+		Order order;
+
+		while ((order = slots[index]) != null) {
+			if (order.hasSameTradeId(key))
+				return order;
+
+			index = (index + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param tradeId
+	 * @return The order with the TradeID, or null if there is none.
+	 */
+	Order get(String tradeId) {
+		byte[] bytes = tradeId.getBytes(StandardCharsets.UTF_8);
+		int index = Order.hash(bytes, bytes.length) & mask;
+		Order order;
+
+		while ((order = slots[index]) != null) {
+			if (Arrays.equals(order.getTradeIdBytes(), 0, order.getTradeIdLength(),
+					          bytes, 0, bytes.length))
+				return order;
+
+			index = (index + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Adds an order.
+	 *
+	 * @param order
+	 * @throws IllegalStateException if an order with the same TradeID is
+	 * already in the index, as the order book rejects a new order with the
+	 * TradeID of a resting one before it reaches the side.
+	 */
+	void put(Order order) {
+		int index = order.getTradeIdHash() & mask;
+		Order existing;
+
+		while ((existing = slots[index]) != null) {
+			if (existing.hasSameTradeId(order))
+				throw new IllegalStateException("The TradeID " + order.getTradeID()
+						                        + " is already resting");
+
+			index = (index + 1) & mask;
+		}
+
+		slots[index] = order;
+
+		if (++size * 2 > slots.length)
+			rehash();
+	}
+
+	/**
+	 * Removes an order which is in the index.
+	 *
+	 * @param order
+	 */
+	void remove(Order order) {
+		int index = order.getTradeIdHash() & mask;
+
+		while (slots[index] != order) {
+			if (slots[index] == null)
+				return;
+
+			index = (index + 1) & mask;
+		}
+
+		size--;
+		int gap = index;
+		int next = (gap + 1) & mask;
+
+		while (slots[next] != null) {
+			int home = slots[next].getTradeIdHash() & mask;
+
+			// Move the entry into the gap unless its home slot lies cyclically
+			// between the gap and its current position.
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				slots[gap] = slots[next];
+				gap = next;
+			}
+
+			next = (next + 1) & mask;
+		}
+
+		slots[gap] = null;
+	}
+
+	private void rehash() {
+		Order[] oldSlots = slots;
+
+		slots = new Order[oldSlots.length * 2];
+		mask = slots.length - 1;
+
+		for (Order order : oldSlots) {
+			if (order == null)
+				continue;
+
+			int index = order.getTradeIdHash() & mask;
+			while (slots[index] != null)
+				index = (index + 1) & mask;
+
+			slots[index] = order;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.position;
+
+import com.constant.Types.FieldEnum;
+import com.orderBook.TickSize;
+
+/**
+ * The position of one account, portfolio or strategy in one instrument,
+ * copied out of a PositionEngine: its net volume, the cost of the open
+ * volume and the profit and loss realized by closing volume, with costs in
+ * ticks times volume. A reader which polls should keep one and reuse it, so
+ * that reading allocates nothing.
+ *
+ * @author Zane Ali
+ *
+ */
+public class Position {
+
+	private FieldEnum level;
+	private String owner;
+	private String bbgCode;
+	private TickSize tickSize;
+
+	private long netVolume;
+	private long costTicks;
+	private long realizedTicks;
+	private long boughtVolume;
+	private long soldVolume;
+
+	void set(FieldEnum level, String owner, String bbgCode, TickSize tickSize,
+			 long netVolume, long costTicks, long realizedTicks, long boughtVolume,
+			 long soldVolume) {
+		this.level = level;
+		this.owner = owner;
+		this.bbgCode = bbgCode;
+		this.tickSize = tickSize;
+		this.netVolume = netVolume;
+		this.costTicks = costTicks;
+		this.realizedTicks = realizedTicks;
+		this.boughtVolume = boughtVolume;
+		this.soldVolume = soldVolume;
+	}
+
+	/**
+	 * @return ACCOUNT, PORTFOLIO or STRATEGY.
+	 */
+	public FieldEnum getLevel() {
+		return level;
+	}
+
+	/**
+	 * @return The account, portfolio or strategy which holds the position.
+	 */
+	public String getOwner() {
+		return owner;
+	}
+
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	public TickSize getTickSize() {
+		return tickSize;
+	}
+
+	/**
+	 * @return The volume bought less the volume sold, i.e. negative for a
+	 * short position.
+	 */
+	public long getNetVolume() {
+		return netVolume;
+	}
+
+	/**
+	 * @return The cost of the open volume in ticks times volume, negative for
+	 * a short position.
+	 */
+	public long getCostTicks() {
+		return costTicks;
+	}
+
+	/**
+	 * @return The average price of the open volume in ticks, or NaN if the
+	 * position is flat.
+	 */
+	public double getAverageCostTicks() {
+		return netVolume == 0 ? Double.NaN : (double) costTicks / netVolume;
+	}
+
+	/**
+	 * @return The average price of the open volume, or NaN if the position is
+	 * flat.
+	 */
+	public double getAverageCost() {
+		return tickSize.toPrice(1) * getAverageCostTicks();
+	}
+
+	/**
+	 * @return The realized profit and loss in ticks times volume.
+	 */
+	public long getRealizedTicks() {
+		return realizedTicks;
+	}
+
+	/**
+	 * @return The realized profit and loss in the instrument's currency.
+	 */
+	public double getRealizedPnl() {
+		return tickSize.toPrice(realizedTicks);
+	}
+
+	public long getBoughtVolume() {
+		return boughtVolume;
+	}
+
+	public long getSoldVolume() {
+		return soldVolume;
+	}
+
+	@Override
+	public String toString() {
+		return level + " " + owner + " " + bbgCode + " net=" + netVolume
+			   + " averageCost=" + getAverageCost() + " realizedPnl=" + getRealizedPnl()
+			   + " bought=" + boughtVolume + " sold=" + soldVolume;
+	}
+}
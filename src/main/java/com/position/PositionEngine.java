@@ -0,0 +1,265 @@
+package com.position;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.constant.Types.FieldEnum;
+import com.constant.Types.SideEnum;
+import com.execution.ExecutionEvent;
+import com.execution.ExecutionListener;
+import com.util.SymbolTable;
+
+/**
+ * Keeps the live positions of a venue from its fills: the net volume, average
+ * cost and realized profit and loss of every account, portfolio and strategy
+ * in every instrument it has traded.
+ *
+ * The engine is a listener of the venue's ExecutionRing (or of a sharded
+ * venue's, which all the shards publish to), so it runs on the ring's thread
+ * and never holds up matching. Each fill is applied to both sides, at the
+ * level of the account and, as roll-ups, of the portfolio and the strategy,
+ * in O(1) through maps keyed by symbol ids. Each level is its own book at
+ * average cost, so a portfolio realizes profit and loss when one of its
+ * accounts trades against another.
+ *
+ * Positions can be read from any thread at any time. Fills are applied
+ * through a sequence lock as in DepthBook, so a reader copies a position and
+ * retries if a fill was applied in between, and never blocks the engine.
+ *
+ * Positions start flat when the engine is created, and are only complete if
+ * the ring has dropped no executions (see getDroppedCount).
+ *
+ * @author Zane Ali
+ *
+ */
+public class PositionEngine implements ExecutionListener {
+
+	private static final FieldEnum[] LEVELS =
+		{ FieldEnum.ACCOUNT, FieldEnum.PORTFOLIO, FieldEnum.STRATEGY };
+
+	private final PositionTable[] tables = new PositionTable[LEVELS.length];
+
+	// Only used on the engine's thread.
+	private final SymbolTable symbols = new SymbolTable();
+	private final PositionTable.Row[] aggressorRows = new PositionTable.Row[LEVELS.length];
+	private final PositionTable.Row[] passiveRows = new PositionTable.Row[LEVELS.length];
+
+	// Odd while a fill is being applied.
+	private volatile long version;
+	private volatile long fillCount;
+	private volatile long droppedCount;
+
+	public PositionEngine() {
+		for (int i = 0; i < tables.length; i++)
+			tables[i] = new PositionTable();
+	}
+
+	@Override
+	public void onExecution(ExecutionEvent event, boolean endOfBatch) {
+		String bbgCode = event.getBbgCode();
+		int bbgCodeId = symbols.intern(bbgCode);
+
+		for (int i = 0; i < LEVELS.length; i++) {
+			String aggressor = owner(event, i, true);
+			String passive = owner(event, i, false);
+
+			aggressorRows[i] = tables[i].row(symbols.intern(aggressor), bbgCodeId,
+					                         aggressor, bbgCode, event.getTickSize());
+			passiveRows[i] = tables[i].row(symbols.intern(passive), bbgCodeId,
+					                       passive, bbgCode, event.getTickSize());
+		}
+
+		long bought = event.getAggressorSide() == SideEnum.B
+				      ? event.getQuantity() : -event.getQuantity();
+		long priceTicks = event.getPriceTicks();
+
+		long current = version;
+		version = current + 1;
+		// Keep the row writes below from being seen before the odd version.
+		VarHandle.storeStoreFence();
+
+		for (int i = 0; i < LEVELS.length; i++) {
+			aggressorRows[i].apply(bought, priceTicks);
+			passiveRows[i].apply(-bought, priceTicks);
+		}
+
+		version = current + 2;
+		fillCount++;
+	}
+
+	/**
+	 * Counts the fills which the ring dropped, and so are missing from the
+	 * positions.
+	 */
+	@Override
+	public void onDropped(long count) {
+		droppedCount += count;
+	}
+
+	/**
+	 * @return The number of fills applied.
+	 */
+	public long getFillCount() {
+		return fillCount;
+	}
+
+	/**
+	 * @return The number of fills dropped by the ring before they could be
+	 * applied. The positions are incomplete unless this is 0.
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Copies the position of an owner in an instrument.
+	 *
+	 * @param level ACCOUNT, PORTFOLIO or STRATEGY.
+	 * @param owner The account, portfolio or strategy.
+	 * @param bbgCode
+	 * @param position The position to copy into, which may be reused.
+	 * @return The position, or null if the owner has never traded the
+	 * instrument.
+	 */
+	public Position getPosition(FieldEnum level, String owner, String bbgCode,
+			                    Position position) {
+		PositionTable.Row row = table(level).find(owner, bbgCode);
+		if (row == null)
+			return null;
+
+		read(level, row, position);
+		return position;
+	}
+
+	/**
+	 * @param level ACCOUNT, PORTFOLIO or STRATEGY.
+	 * @param owner The account, portfolio or strategy.
+	 * @param bbgCode
+	 * @return A new copy of the position of an owner in an instrument, or
+	 * null if the owner has never traded the instrument.
+	 */
+	public Position getPosition(FieldEnum level, String owner, String bbgCode) {
+		return getPosition(level, owner, bbgCode, new Position());
+	}
+
+	/**
+	 * @param level ACCOUNT, PORTFOLIO or STRATEGY.
+	 * @param owner The account, portfolio or strategy.
+	 * @return The realized profit and loss of an owner summed over every
+	 * instrument it has traded, without converting between currencies.
+	 */
+	public double getRealizedPnl(FieldEnum level, String owner) {
+		Map<String, PositionTable.Row> rows = table(level).findAll(owner);
+		if (rows == null)
+			return 0;
+
+		Position position = new Position();
+		double total = 0;
+
+		for (PositionTable.Row row : rows.values()) {
+			read(level, row, position);
+			total += position.getRealizedPnl();
+		}
+
+		return total;
+	}
+
+	/**
+	 * Copies every position of a level. Each position is consistent in
+	 * itself, while fills may be applied between one and the next.
+	 *
+	 * @param level ACCOUNT, PORTFOLIO or STRATEGY.
+	 * @return The positions, sorted by owner and then by BBGCode.
+	 */
+	public List<Position> getPositions(FieldEnum level) {
+		List<Position> positions = new ArrayList<Position>();
+
+		table(level).getRowsByOwner().forEach((owner, rows) ->
+			rows.forEach((bbgCode, row) -> {
+				Position position = new Position();
+				read(level, row, position);
+				positions.add(position);
+			}));
+
+		positions.sort(Comparator.comparing(Position::getOwner)
+				                 .thenComparing(Position::getBbgCode));
+		return positions;
+	}
+
+	/**
+	 * @param level ACCOUNT, PORTFOLIO or STRATEGY.
+	 * @return The positions of a level in a String CSV format, sorted by
+	 * owner and then by BBGCode, in the order
+	 * "Owner,BBGCode,NetVolume,AverageCost,RealizedPnL,Bought,Sold".
+	 */
+	public String toCsv(FieldEnum level) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("Owner,BBGCode,NetVolume,AverageCost,RealizedPnL,Bought,Sold\n");
+
+		for (Position position : getPositions(level)) {
+			builder.append(position.getOwner()).append(',')
+			       .append(position.getBbgCode()).append(',')
+			       .append(position.getNetVolume()).append(',')
+			       .append(position.getNetVolume() == 0 ? ""
+			    		   : String.valueOf(position.getAverageCost())).append(',');
+			position.getTickSize().appendPrice(builder, position.getRealizedTicks())
+			        .append(',')
+			        .append(position.getBoughtVolume()).append(',')
+			        .append(position.getSoldVolume()).append('\n');
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Copies a row, retrying for as long as a fill is being applied.
+	 */
+	private void read(FieldEnum level, PositionTable.Row row, Position position) {
+		while (true) {
+			long before = version;
+
+			if ((before & 1) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+
+			long netVolume = row.netVolume;
+			long costTicks = row.costTicks;
+			long realizedTicks = row.realizedTicks;
+			long boughtVolume = row.boughtVolume;
+			long soldVolume = row.soldVolume;
+
+			// Keep the copies above from being read after the version below.
+			VarHandle.loadLoadFence();
+
+			if (version == before) {
+				position.set(level, row.owner, row.bbgCode, row.tickSize, netVolume,
+						     costTicks, realizedTicks, boughtVolume, soldVolume);
+				return;
+			}
+		}
+	}
+
+	private PositionTable table(FieldEnum level) {
+		for (int i = 0; i < LEVELS.length; i++) {
+			if (LEVELS[i] == level)
+				return tables[i];
+		}
+
+		throw new IllegalArgumentException("There are no positions by " + level);
+	}
+
+	private static String owner(ExecutionEvent event, int level, boolean aggressor) {
+		switch (level) {
+		    case 0:
+		    	return aggressor ? event.getAggressorAccount() : event.getPassiveAccount();
+		    case 1:
+		    	return aggressor ? event.getAggressorPortfolio() : event.getPassivePortfolio();
+		    default:
+		    	return aggressor ? event.getAggressorStrategy() : event.getPassiveStrategy();
+		}
+	}
+}
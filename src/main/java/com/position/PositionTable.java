@@ -0,0 +1,149 @@
+package com.position;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.orderBook.TickSize;
+import com.util.LongLongHashMap;
+
+/**
+ * The positions of one level (accounts, portfolios or strategies) of a
+ * PositionEngine, one row per owner and instrument.
+ *
+ * The engine's thread finds rows by a long key of the owner's and the
+ * BBGCode's symbol ids in a primitive map, so applying a fill neither hashes
+ * Strings nor allocates once the row exists. Readers on other threads find
+ * rows by owner and BBGCode in concurrent maps, which a row is added to once,
+ * when it is created.
+ *
+ * @author Zane Ali
+ *
+ */
+final class PositionTable {
+
+	/**
+	 * The position of one owner in one instrument, only written by the
+	 * engine's thread while its version is odd.
+	 */
+	static final class Row {
+		final String owner;
+		final String bbgCode;
+		final TickSize tickSize;
+
+		long netVolume;
+		// The cost of the open volume in ticks times volume, with the sign of
+		// the net volume.
+		long costTicks;
+		long realizedTicks;
+		long boughtVolume;
+		long soldVolume;
+
+		Row(String owner, String bbgCode, TickSize tickSize) {
+			this.owner = owner;
+			this.bbgCode = bbgCode;
+			this.tickSize = tickSize;
+		}
+
+		/**
+		 * Applies a fill at average cost: volume on the side of the position
+		 * adds to its cost, and volume on the other side closes it, realizing
+		 * the difference between the price and the average cost, and opens a
+		 * position the other way with whatever is left over.
+		 *
+		 * @param volume The volume bought, or negative for volume sold.
+		 * @param priceTicks
+		 */
+		void apply(long volume, long priceTicks) {
+			if (volume > 0)
+				boughtVolume += volume;
+			else
+				soldVolume -= volume;
+
+			if (netVolume == 0 || (netVolume > 0) == (volume > 0)) {
+				netVolume += volume;
+				costTicks += priceTicks * volume;
+				return;
+			}
+
+			long open = Math.abs(netVolume);
+			long closing = Math.min(Math.abs(volume), open);
+			// The closed volume's share of the cost, exactly if it is all of it
+			// and rounded towards zero otherwise.
+			long closedCost = closing == open
+					          ? costTicks
+					          : costTicks / open * closing + costTicks % open * closing / open;
+			long sign = netVolume > 0 ? 1 : -1;
+
+			realizedTicks += sign * priceTicks * closing - closedCost;
+			costTicks -= closedCost;
+			netVolume -= sign * closing;
+
+			long remaining = Math.abs(volume) - closing;
+			if (remaining > 0) {
+				netVolume = -sign * remaining;
+				costTicks = -sign * priceTicks * remaining;
+			}
+		}
+	}
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// Row indices plus one (as zero means absent) by owner id << 32 |
+	// BBGCode id, for the engine's thread.
+	private final LongLongHashMap rowIndices = new LongLongHashMap();
+	private Row[] rows = new Row[INITIAL_CAPACITY];
+	private int size;
+
+	// Rows by owner and BBGCode, for readers.
+	private final ConcurrentMap<String, ConcurrentMap<String, Row>> rowsByOwner =
+			new ConcurrentHashMap<String, ConcurrentMap<String, Row>>();
+
+	/**
+	 * @return The row of an owner and instrument, which is created on first
+	 * use. Only called on the engine's thread.
+	 */
+	Row row(int ownerId, int bbgCodeId, String owner, String bbgCode, TickSize tickSize) {
+		long key = (long) ownerId << 32 | bbgCodeId;
+		long index = rowIndices.get(key);
+
+		if (index > 0)
+			return rows[(int) index - 1];
+
+		if (size == rows.length)
+			rows = Arrays.copyOf(rows, size * 2);
+
+		Row row = new Row(owner, bbgCode, tickSize);
+		rows[size] = row;
+		rowIndices.put(key, ++size);
+
+		rowsByOwner.computeIfAbsent(owner, o -> new ConcurrentHashMap<String, Row>())
+		           .put(bbgCode, row);
+		return row;
+	}
+
+	/**
+	 * @return The row of an owner and instrument, or null if it has no
+	 * position. Safe to call from any thread.
+	 */
+	Row find(String owner, String bbgCode) {
+		Map<String, Row> byBbgCode = rowsByOwner.get(owner);
+		return byBbgCode == null ? null : byBbgCode.get(bbgCode);
+	}
+
+	/**
+	 * @return The rows of an owner keyed by BBGCode, or null if it has no
+	 * positions. Safe to call from any thread.
+	 */
+	Map<String, Row> findAll(String owner) {
+		return rowsByOwner.get(owner);
+	}
+
+	/**
+	 * @return Every owner's rows. Safe to call from any thread.
+	 */
+	Map<String, ConcurrentMap<String, Row>> getRowsByOwner() {
+		return rowsByOwner;
+	}
+}
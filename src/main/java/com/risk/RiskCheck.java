@@ -0,0 +1,348 @@
+package com.risk;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.FieldEnum;
+import com.orderBook.Order;
+import com.orderBook.OrderBook;
+import com.orderBook.TickSize;
+import com.tradingVenue.OrderMessage;
+
+/**
+ * The pre-trade risk stage of a venue, which checks every message against the
+ * limits of its Account, User and Strategy before it reaches the order book.
+ *
+ * Each field has optional default limits and optional limits per value, e.g.
+ * per account. A message is rejected if, for any of its three values:
+ *
+ *  - it is a new or amended order larger than the order volume limit,
+ *  - it would take the notional open on the books over the limit, or
+ *  - the value has already sent its limit of messages this second.
+ *
+ * Open notional is the notional of resting orders. A new or amended order
+ * reserves its whole notional before it is matched, and the reservation is
+ * released once it has been, by which time the part left resting has been
+ * added by the master book (see MasterBook.setRiskCheck). An amend is checked
+ * as if its new size were added to the order it replaces, so an order at the
+ * limit is reduced by cancelling it. Cancels only count towards the message
+ * rate. Messages are counted in one-second windows of System.nanoTime.
+ *
+ * An order at a negative price counts by the size of its notional, as its
+ * exposure is no smaller. A notional too large for a long counts as
+ * Long.MAX_VALUE, so it breaks every open notional limit short of that.
+ *
+ * Only messages which pass are counted: a message rejected for any of its
+ * values is taken back off the message rates of the others, so a value which
+ * keeps breaking a limit does not use up the rate of the values it shares
+ * with others.
+ *
+ * The counters are atomics per value, and reserving or counting is a
+ * compare-and-set which is only retried if another thread changed the same
+ * counter in between. One risk check can therefore be shared by the shards
+ * of a ShardedTradingVenue, and checking a message costs a few hash lookups
+ * and atomic updates. Rejects allocate nothing.
+ *
+ * Open notional is only tracked for values which have limits, from the first
+ * order checked against them, so limits should be set before the orders
+ * they cover arrive.
+ *
+ * @author Zane Ali
+ *
+ */
+public class RiskCheck {
+
+	public static final String ORDER_VOLUME = "Order volume over the risk limit";
+	public static final String OPEN_NOTIONAL = "Open notional over the risk limit";
+	public static final String MESSAGE_RATE = "Message rate over the risk limit";
+
+	/**
+	 * The scale of the notional which is counted, i.e. in units of 10^-4 of
+	 * the currency, with prices rounded up.
+	 */
+	public static final int NOTIONAL_SCALE = 4;
+
+	static final long NOTIONAL_UNITS = 10_000;
+
+	// The canonical price units per notional unit.
+	private static final long CANONICAL_PER_UNIT = 100_000;
+
+	private static final FieldEnum[] FIELDS =
+		{ FieldEnum.ACCOUNT, FieldEnum.USER, FieldEnum.STRATEGY };
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private final Scope[] scopes = new Scope[FIELDS.length];
+
+	private final LongAdder orderVolumeRejects = new LongAdder();
+	private final LongAdder openNotionalRejects = new LongAdder();
+	private final LongAdder messageRateRejects = new LongAdder();
+
+	/**
+	 * The limits and counters of one field.
+	 */
+	private static final class Scope {
+		final ConcurrentMap<String, RiskCounter> counters =
+				new ConcurrentHashMap<String, RiskCounter>();
+		volatile RiskLimits defaultLimits;
+	}
+
+	public RiskCheck() {
+		for (int i = 0; i < scopes.length; i++)
+			scopes[i] = new Scope();
+	}
+
+	/**
+	 * Sets the limits of every value of a field which has none of its own.
+	 *
+	 * @param field ACCOUNT, USER or STRATEGY.
+	 * @param limits The limits, or null for none.
+	 */
+	public void setDefaultLimits(FieldEnum field, RiskLimits limits) {
+		scope(field).defaultLimits = limits;
+	}
+
+	/**
+	 * Sets the limits of one value of a field, e.g. of one account.
+	 *
+	 * @param field ACCOUNT, USER or STRATEGY.
+	 * @param value
+	 * @param limits The limits, or null to use the field's default limits.
+	 */
+	public void setLimits(FieldEnum field, String value, RiskLimits limits) {
+		scope(field).counters.computeIfAbsent(value, v -> new RiskCounter(null))
+		                     .limits = limits;
+	}
+
+	/**
+	 * @param field ACCOUNT, USER or STRATEGY.
+	 * @param value
+	 * @return The limits which apply to a value, or null if there are none.
+	 */
+	public RiskLimits getLimits(FieldEnum field, String value) {
+		Scope scope = scope(field);
+		RiskCounter counter = scope.counters.get(value);
+		RiskLimits limits = counter == null ? null : counter.limits;
+
+		return limits == null ? scope.defaultLimits : limits;
+	}
+
+	/**
+	 * @param field ACCOUNT, USER or STRATEGY.
+	 * @param value
+	 * @return The notional open on the books, in whole units of currency.
+	 */
+	public double getOpenNotional(FieldEnum field, String value) {
+		RiskCounter counter = scope(field).counters.get(value);
+		return counter == null ? 0 : (double) counter.getOpenNotional() / NOTIONAL_UNITS;
+	}
+
+	public long getOrderVolumeRejects() {
+		return orderVolumeRejects.sum();
+	}
+
+	public long getOpenNotionalRejects() {
+		return openNotionalRejects.sum();
+	}
+
+	public long getMessageRateRejects() {
+		return messageRateRejects.sum();
+	}
+
+	/**
+	 * Checks a message against the limits of its Account, User and Strategy.
+	 * If it passes, it is counted towards the message rates and a new or
+	 * amended order reserves its notional, which must be released with
+	 * release once the message has been processed.
+	 *
+	 * @param message
+	 * @param tickSize The tick size of the message's instrument.
+	 * @return Why the message was rejected, or null if it passed.
+	 */
+	public String check(OrderMessage message, TickSize tickSize) {
+		boolean order = message.getAction() != ActionEnum.CANCEL;
+		long notional = order ? notional(message, tickSize) : 0;
+		long second = System.nanoTime() / NANOS_PER_SECOND;
+		// The fields whose message rate has counted the message, by bit.
+		int counted = 0;
+
+		for (int i = 0; i < scopes.length; i++) {
+			Scope scope = scopes[i];
+			RiskCounter counter = counter(scope, value(message, i));
+			if (counter == null)
+				continue;
+
+			RiskLimits limits = counter.limits;
+			if (limits == null)
+				limits = scope.defaultLimits;
+			if (limits == null) {
+				// Still tracked, in case limits are set for the value again.
+				if (order)
+					counter.addOpenNotional(notional);
+				continue;
+			}
+
+			String reason = null;
+
+			if (order && message.getVolume() > limits.getMaxOrderVolume()) {
+				orderVolumeRejects.increment();
+				reason = ORDER_VOLUME;
+			} else if (!counter.tryCountMessage(second, limits.getMaxMessagesPerSecond())) {
+				messageRateRejects.increment();
+				reason = MESSAGE_RATE;
+			} else {
+				counted |= 1 << i;
+
+				if (order && !counter.tryReserve(notional, limits.getMaxOpenNotionalUnits())) {
+					openNotionalRejects.increment();
+					reason = OPEN_NOTIONAL;
+				}
+			}
+
+			if (reason != null) {
+				if (order)
+					unreserve(message, i, notional);
+				uncount(message, counted, second);
+				return reason;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Releases the notional reserved for a message which passed check, once
+	 * the order book has processed it.
+	 *
+	 * @param message
+	 * @param tickSize The tick size of the message's instrument.
+	 */
+	public void release(OrderMessage message, TickSize tickSize) {
+		if (message.getAction() != ActionEnum.CANCEL)
+			unreserve(message, scopes.length, notional(message, tickSize));
+	}
+
+	/**
+	 * Adds volume of a resting order to the open notional of its values.
+	 * Called by the master book for an order which has come to rest and, with
+	 * a negative volume, for volume which has left the book.
+	 *
+	 * @param order
+	 * @param volume
+	 */
+	public void addOpenVolume(Order order, long volume) {
+		long notional = notional(order.getTickSize(), order.getPriceTicks(), volume);
+
+		for (int i = 0; i < scopes.length; i++) {
+			RiskCounter counter = counter(scopes[i], value(order, i));
+			if (counter != null)
+				counter.addOpenNotional(notional);
+		}
+	}
+
+	/**
+	 * Adds the orders resting on some books to the open notional, e.g. once
+	 * the books have been restored from a snapshot.
+	 *
+	 * @param orderBooks
+	 */
+	public void addRestingOrders(Collection<OrderBook> orderBooks) {
+		for (OrderBook orderBook : orderBooks) {
+			for (Order order : orderBook.getBids())
+				addOpenVolume(order, order.getVolume());
+			for (Order order : orderBook.getAsks())
+				addOpenVolume(order, order.getVolume());
+		}
+	}
+
+	/**
+	 * Takes a reservation off the values of the first count fields.
+	 */
+	private void unreserve(OrderMessage message, int count, long notional) {
+		for (int i = 0; i < count; i++) {
+			RiskCounter counter = scopes[i].counters.get(value(message, i));
+			if (counter != null)
+				counter.addOpenNotional(-notional);
+		}
+	}
+
+	/**
+	 * Takes a rejected message back off the message rates which counted it.
+	 */
+	private void uncount(OrderMessage message, int counted, long second) {
+		for (int i = 0; counted != 0; i++, counted >>>= 1) {
+			if ((counted & 1) != 0)
+				scopes[i].counters.get(value(message, i)).uncountMessage(second);
+		}
+	}
+
+	/**
+	 * @return The counter of a value, created if the value has default limits,
+	 * or null if no limits apply to it.
+	 */
+	private static RiskCounter counter(Scope scope, String value) {
+		if (value == null)
+			return null;
+
+		RiskCounter counter = scope.counters.get(value);
+		if (counter == null && scope.defaultLimits != null)
+			counter = scope.counters.computeIfAbsent(value, v -> new RiskCounter(null));
+
+		return counter;
+	}
+
+	private Scope scope(FieldEnum field) {
+		for (int i = 0; i < FIELDS.length; i++) {
+			if (FIELDS[i] == field)
+				return scopes[i];
+		}
+
+		throw new IllegalArgumentException("There are no risk limits by " + field);
+	}
+
+	private static String value(OrderMessage message, int field) {
+		switch (field) {
+		    case 0:
+		    	return message.getAccount();
+		    case 1:
+		    	return message.getUser();
+		    default:
+		    	return message.getStrategy();
+		}
+	}
+
+	private static String value(Order order, int field) {
+		switch (field) {
+		    case 0:
+		    	return order.getAccount();
+		    case 1:
+		    	return order.getUser();
+		    default:
+		    	return order.getStrategy();
+		}
+	}
+
+	private static long notional(OrderMessage message, TickSize tickSize) {
+		return notional(tickSize,
+				        tickSize.toTicks(message.getUnscaledPrice(), message.getPriceDecimals()),
+				        message.getVolume());
+	}
+
+	/**
+	 * @return The notional in units of 10^-NOTIONAL_SCALE, with the size of
+	 * the price rounded up to a whole unit, and the sign of the volume. A
+	 * notional too large for a long is Long.MAX_VALUE in size.
+	 */
+	private static long notional(TickSize tickSize, long priceTicks, long volume) {
+		long canonical = Math.abs(tickSize.toCanonical(priceTicks));
+		long units = -Math.floorDiv(-canonical, CANONICAL_PER_UNIT);
+		long size = Math.abs(volume);
+
+		if (size != 0 && units > Long.MAX_VALUE / size)
+			return volume < 0 ? -Long.MAX_VALUE : Long.MAX_VALUE;
+		return units * volume;
+	}
+}
@@ -0,0 +1,95 @@
+package com.risk;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The open notional and message rate of one account, user or strategy, which
+ * any number of threads update at once without locks.
+ *
+ * @author Zane Ali
+ *
+ */
+final class RiskCounter {
+
+	// Set for this value alone, or null to use the default of its field.
+	volatile RiskLimits limits;
+
+	// In units of 10^-NOTIONAL_SCALE, including the notional reserved by
+	// messages which are being matched.
+	private final AtomicLong openNotional = new AtomicLong();
+
+	// The second of the current rate window in the high 32 bits and the
+	// number of messages counted in it in the low 32 bits.
+	private final AtomicLong rateWindow = new AtomicLong();
+
+	RiskCounter(RiskLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * Counts a message in the window of the current second, unless the window
+	 * is already full.
+	 *
+	 * @return Whether the message was counted.
+	 */
+	boolean tryCountMessage(long second, int maxMessages) {
+		while (true) {
+			long window = rateWindow.get();
+			long next;
+
+			if (window >>> 32 != second)
+				next = second << 32 | 1;
+			else if ((window & 0xFFFFFFFFL) >= maxMessages)
+				return false;
+			else
+				next = window + 1;
+
+			if (rateWindow.compareAndSet(window, next))
+				return true;
+		}
+	}
+
+	/**
+	 * Takes back a message counted by tryCountMessage, unless its window has
+	 * already passed.
+	 */
+	void uncountMessage(long second) {
+		while (true) {
+			long window = rateWindow.get();
+
+			if (window >>> 32 != second || (window & 0xFFFFFFFFL) == 0)
+				return;
+			if (rateWindow.compareAndSet(window, window - 1))
+				return;
+		}
+	}
+
+	/**
+	 * Adds notional unless it would take the open notional over a limit.
+	 *
+	 * @param notional At least 0.
+	 * @param maxNotional At least 0.
+	 * @return Whether the notional was added.
+	 */
+	boolean tryReserve(long notional, long maxNotional) {
+		if (notional > maxNotional)
+			return false;
+
+		while (true) {
+			long open = openNotional.get();
+
+			if (open > maxNotional - notional)
+				return false;
+			if (openNotional.compareAndSet(open, open + notional))
+				return true;
+		}
+	}
+
+	void addOpenNotional(long notional) {
+		openNotional.addAndGet(notional);
+	}
+
+	long getOpenNotional() {
+		return openNotional.get();
+	}
+}
@@ -0,0 +1,67 @@
+package com.risk;
+
+/**
+ * The pre-trade limits of one account, user or strategy: the largest volume
+ * of a single order, the most notional it can have open on the books and the
+ * most messages it can send per second.
+ *
+ * Notional is the price times the volume in the order's own currency, in
+ * whole units, with no conversion between currencies.
+ *
+ * @author Zane Ali
+ *
+ */
+public final class RiskLimits {
+
+	/**
+	 * Limits which never reject, e.g. to exempt one account from a default.
+	 */
+	public static final RiskLimits NONE =
+			new RiskLimits(Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+	private final int maxOrderVolume;
+	private final long maxOpenNotional;
+	private final int maxMessagesPerSecond;
+
+	/**
+	 * @param maxOrderVolume The largest volume of a new or amended order.
+	 * @param maxOpenNotional The most notional of resting orders, in whole
+	 * units of currency.
+	 * @param maxMessagesPerSecond The most messages of any action per second.
+	 */
+	public RiskLimits(int maxOrderVolume, long maxOpenNotional, int maxMessagesPerSecond) {
+		if (maxOrderVolume < 1 || maxOpenNotional < 1 || maxMessagesPerSecond < 1)
+			throw new IllegalArgumentException("Risk limits must be at least 1");
+
+		this.maxOrderVolume = maxOrderVolume;
+		this.maxOpenNotional = maxOpenNotional;
+		this.maxMessagesPerSecond = maxMessagesPerSecond;
+	}
+
+	public int getMaxOrderVolume() {
+		return maxOrderVolume;
+	}
+
+	public long getMaxOpenNotional() {
+		return maxOpenNotional;
+	}
+
+	public int getMaxMessagesPerSecond() {
+		return maxMessagesPerSecond;
+	}
+
+	/**
+	 * @return The open notional limit in the units RiskCheck counts in.
+	 */
+	long getMaxOpenNotionalUnits() {
+		return maxOpenNotional > Long.MAX_VALUE / RiskCheck.NOTIONAL_UNITS
+			   ? Long.MAX_VALUE
+			   : maxOpenNotional * RiskCheck.NOTIONAL_UNITS;
+	}
+
+	@Override
+	public String toString() {
+		return "RiskLimits [maxOrderVolume=" + maxOrderVolume + ", maxOpenNotional="
+			   + maxOpenNotional + ", maxMessagesPerSecond=" + maxMessagesPerSecond + "]";
+	}
+}
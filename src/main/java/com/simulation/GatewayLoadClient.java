@@ -0,0 +1,225 @@
+package com.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import com.gateway.GatewayClient;
+import com.gateway.OrderGateway;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Drives an OrderGateway over loopback with many concurrent clients and
+ * measures the throughput of the whole gateway and the round trip of each
+ * client's windows of messages.
+ *
+ * The messages are split between the clients by BBGCode, so each instrument's
+ * messages still arrive in order. Each client sends a window of messages,
+ * then reads their acknowledgements, so that the gateway always has up to a
+ * window of messages from every client to batch.
+ *
+ * @author Zane Ali
+ *
+ */
+public class GatewayLoadClient {
+
+	static final String HEADER = "clients,window,messages,achieved/s,accepted,"
+			                     + "rejected,batch size,window p50 us,"
+			                     + "window p99 us";
+
+	private final InetSocketAddress address;
+
+	/**
+	 * @param address The gateway's address.
+	 */
+	public GatewayLoadClient(InetSocketAddress address) {
+		this.address = address;
+	}
+
+	/**
+	 * Sends the messages through a number of concurrent clients, each on its
+	 * own thread, and waits for every acknowledgement.
+	 *
+	 * @param messages
+	 * @param clients The number of connections.
+	 * @param window The number of messages each client sends before reading
+	 * their acknowledgements.
+	 * @return The measurements.
+	 */
+	public Result run(List<String> messages, int clients, int window) {
+		List<List<String>> streams = new ArrayList<List<String>>();
+		for (int i = 0; i < clients; i++)
+			streams.add(new ArrayList<String>());
+
+		for (String message : messages)
+			streams.get(Math.floorMod(bbgCode(message).hashCode(), clients)).add(message);
+
+		List<CompletableFuture<Result>> results = new ArrayList<CompletableFuture<Result>>();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < clients; i++) {
+			List<String> stream = streams.get(i);
+			CompletableFuture<Result> result = new CompletableFuture<Result>();
+
+			Thread thread = new Thread(() -> {
+				try {
+					result.complete(send(stream, window));
+				} catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			}, "gateway-client-" + i);
+
+			thread.setDaemon(true);
+			thread.start();
+			results.add(result);
+		}
+
+		Result total = new Result(clients, window);
+		for (CompletableFuture<Result> result : results)
+			total.add(result.join());
+
+		total.elapsedNanos = System.nanoTime() - start;
+		return total;
+	}
+
+	private Result send(List<String> stream, int window) {
+		Result result = new Result(1, window);
+
+		try (GatewayClient client = new GatewayClient(address)) {
+			for (int from = 0; from < stream.size(); from += window) {
+				int to = Math.min(stream.size(), from + window);
+				long sent = System.nanoTime();
+
+				for (int i = from; i < to; i++)
+					client.send(stream.get(i));
+				client.flush();
+
+				for (int i = from; i < to; i++) {
+					client.readAck();
+
+					if (client.isAccepted())
+						result.accepted++;
+					else
+						result.rejected++;
+				}
+
+				result.windowLatency.record(System.nanoTime() - sent);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return result;
+	}
+
+	private static String bbgCode(String message) {
+		int start = message.indexOf(',') + 1;
+		int end = message.indexOf(',', start);
+		return message.substring(start, end < 0 ? message.length() : end);
+	}
+
+	/**
+	 * Starts a gateway on a loopback port in front of a fresh TradingVenue,
+	 * generates a flow and sends it through the gateway with each of the given
+	 * numbers of clients, printing one line of results per run.
+	 *
+	 * Usage: GatewayLoadClient [messages] [seed] [window] [clients...]
+	 *
+	 * @param args
+	 * @throws IOException if the gateway cannot be started.
+	 */
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+		int window = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+		int[] clientCounts = { 1, 4, 16, 64 };
+		if (args.length > 3) {
+			clientCounts = new int[args.length - 3];
+			for (int i = 3; i < args.length; i++)
+				clientCounts[i - 3] = Integer.parseInt(args[i]);
+		}
+
+		List<String> messages = new OrderFlowGenerator(seed).next(count);
+
+		System.out.println(HEADER);
+
+		for (int clients : clientCounts) {
+			InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+			try (OrderGateway gateway = new OrderGateway(new TradingVenue(), loopback)) {
+				gateway.start();
+
+				Result result = new GatewayLoadClient(
+						new InetSocketAddress(InetAddress.getLoopbackAddress(),
+								              gateway.getPort()))
+						.run(messages, clients, window);
+
+				System.out.println(result.toString(gateway));
+			}
+		}
+	}
+
+	/**
+	 * The throughput and outcomes of one run.
+	 */
+	public static class Result {
+
+		private final int clients;
+		private final int window;
+		private final LatencyHistogram windowLatency = new LatencyHistogram();
+
+		private long accepted;
+		private long rejected;
+		private long elapsedNanos;
+
+		Result(int clients, int window) {
+			this.clients = clients;
+			this.window = window;
+		}
+
+		void add(Result other) {
+			accepted += other.accepted;
+			rejected += other.rejected;
+			windowLatency.add(other.windowLatency);
+		}
+
+		public long getAccepted() {
+			return accepted;
+		}
+
+		public long getRejected() {
+			return rejected;
+		}
+
+		/**
+		 * @return The acknowledged messages per second.
+		 */
+		public double getThroughput() {
+			return (accepted + rejected) * 1e9 / elapsedNanos;
+		}
+
+		/**
+		 * @return The round trips of each window of messages.
+		 */
+		public LatencyHistogram getWindowLatency() {
+			return windowLatency;
+		}
+
+		String toString(OrderGateway gateway) {
+			double batchSize = gateway.getBatchCount() == 0 ? 0
+					           : (double) gateway.getMessageCount() / gateway.getBatchCount();
+
+			return String.format(Locale.ROOT, "%d,%d,%d,%.0f,%d,%d,%.1f,%.1f,%.1f",
+					             clients, window, accepted + rejected,
+					             getThroughput(), accepted, rejected, batchSize,
+					             windowLatency.getValueAtPercentile(50) / 1e3,
+					             windowLatency.getValueAtPercentile(99) / 1e3);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.simulation;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies in nanoseconds with a fixed memory footprint.
+ *
+ * Values below 256 are counted exactly. Larger values fall into log-linear
+ * buckets, 128 per power of two, so every recorded value is reported within
+ * 1% of its true value however large it is. Recording is a few shifts and an
+ * array increment, so it can sit on a measured path.
+ *
+ * @author Zane Ali
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT
+			                                + SUB_BUCKET_COUNT;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long count;
+	private long total;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * @param value A latency in nanoseconds, where negative values count as 0.
+	 */
+	public void record(long value) {
+		if (value < 0)
+			value = 0;
+
+		counts[bucketOf(value)]++;
+		count++;
+		total += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds the values recorded in another histogram to this one.
+	 *
+	 * @param other
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			counts[i] += other.counts[i];
+
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * @param percentile Between 0 and 100.
+	 * @return The highest value which could have been recorded in the bucket
+	 * holding the given percentile, capped at the maximum recorded value.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (count == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+
+			if (seen >= rank)
+				return Math.min(highestValueOf(i), max);
+		}
+
+		return max;
+	}
+
+	private static int bucketOf(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	private static long highestValueOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKET_COUNT)
+			return bucket;
+
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long mantissa = bucket - ((long) shift << SUB_BUCKET_BITS);
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
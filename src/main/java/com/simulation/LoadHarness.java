@@ -0,0 +1,197 @@
+package com.simulation;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Drives a venue with order messages at a fixed target rate and measures the
+ * latency of every message.
+ *
+ * Each message has an intended start time on a fixed schedule, and its latency
+ * is measured from that time rather than from when it was actually sent. When
+ * the venue stalls, the messages which should have been sent during the stall
+ * are therefore charged with the time they spent waiting, rather than the
+ * stall being hidden by sending them late (coordinated omission). The service
+ * time, from the actual send, is recorded separately.
+ *
+ * Comparing runs at increasing rates shows where the venue saturates: the
+ * achieved throughput stops following the target and the corrected latency
+ * percentiles climb without bound.
+ *
+ * @author Zane Ali
+ *
+ */
+public class LoadHarness {
+
+	// How long before a message's start time the harness stops parking and
+	// spins, to send on time.
+	private static final long SPIN_NANOS = 50_000;
+
+	private final Consumer<String> target;
+
+	/**
+	 * @param target The receiver of the messages, e.g. a venue's
+	 * submitToOrderBook. It is called on the harness thread.
+	 */
+	public LoadHarness(Consumer<String> target) {
+		this.target = target;
+	}
+
+	/**
+	 * Sends messages at a fixed rate and measures them. The messages should be
+	 * generated beforehand, so that generating them is not measured.
+	 *
+	 * @param messages
+	 * @param ratePerSecond The target number of messages per second.
+	 * @param warmupCount The number of messages sent first and not measured.
+	 * @return The measurements.
+	 */
+	public LoadResult run(List<String> messages, double ratePerSecond, int warmupCount) {
+		if (ratePerSecond <= 0)
+			throw new IllegalArgumentException("The rate must be positive");
+
+		double intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+
+		LatencyHistogram latency = new LatencyHistogram();
+		LatencyHistogram serviceTime = new LatencyHistogram();
+
+		long start = System.nanoTime();
+		long measuredFrom = start;
+
+		for (int i = 0; i < messages.size(); i++) {
+			long intended = start + (long) (i * intervalNanos);
+			waitUntil(intended);
+
+			if (i == warmupCount) {
+				latency.reset();
+				serviceTime.reset();
+				measuredFrom = intended;
+			}
+
+			long sent = System.nanoTime();
+			target.accept(messages.get(i));
+			long done = System.nanoTime();
+
+			latency.record(done - intended);
+			serviceTime.record(done - sent);
+		}
+
+		long elapsed = System.nanoTime() - measuredFrom;
+
+		return new LoadResult(ratePerSecond, latency.getCount(), elapsed, latency,
+				              serviceTime);
+	}
+
+	private static void waitUntil(long deadline) {
+		while (true) {
+			long remaining = deadline - System.nanoTime();
+
+			if (remaining <= 0)
+				return;
+
+			if (remaining > SPIN_NANOS)
+				LockSupport.parkNanos(remaining - SPIN_NANOS);
+			else
+				Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Generates a flow and runs it through a fresh TradingVenue at each of the
+	 * given rates, printing one line of results per rate.
+	 *
+	 * Usage: LoadHarness [messages] [seed] [instruments] [rate...]
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+		int instruments = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+		double[] rates = { 100_000, 250_000, 500_000, 1_000_000 };
+		if (args.length > 3) {
+			rates = new double[args.length - 3];
+			for (int i = 3; i < args.length; i++)
+				rates[i - 3] = Double.parseDouble(args[i]);
+		}
+
+		OrderFlowGenerator generator = new OrderFlowGenerator(seed);
+		generator.setInstrumentCount(instruments);
+		List<String> messages = generator.next(count);
+
+		System.out.println(LoadResult.HEADER);
+
+		for (double rate : rates) {
+			TradingVenue venue = new TradingVenue();
+			LoadResult result = new LoadHarness(venue::submitToOrderBook)
+					                .run(messages, rate, count / 10);
+			System.out.println(result);
+		}
+	}
+
+	/**
+	 * The throughput and latency distribution of one run.
+	 */
+	public static class LoadResult {
+
+		static final String HEADER = "target/s,achieved/s,p50 us,p99 us,p99.9 us,"
+				                     + "max us,service p99 us";
+
+		private final double targetRate;
+		private final long messages;
+		private final long elapsedNanos;
+		private final LatencyHistogram latency;
+		private final LatencyHistogram serviceTime;
+
+		LoadResult(double targetRate, long messages, long elapsedNanos,
+				   LatencyHistogram latency, LatencyHistogram serviceTime) {
+			this.targetRate = targetRate;
+			this.messages = messages;
+			this.elapsedNanos = elapsedNanos;
+			this.latency = latency;
+			this.serviceTime = serviceTime;
+		}
+
+		public double getTargetRate() {
+			return targetRate;
+		}
+
+		/**
+		 * @return The measured messages per second.
+		 */
+		public double getThroughput() {
+			return messages * 1e9 / elapsedNanos;
+		}
+
+		/**
+		 * @return The latencies measured from each message's intended start.
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return The latencies measured from when each message was sent.
+		 */
+		public LatencyHistogram getServiceTime() {
+			return serviceTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%.0f,%.0f,%.1f,%.1f,%.1f,%.1f,%.1f",
+					             targetRate, getThroughput(),
+					             latency.getValueAtPercentile(50) / 1e3,
+					             latency.getValueAtPercentile(99) / 1e3,
+					             latency.getValueAtPercentile(99.9) / 1e3,
+					             latency.getMax() / 1e3,
+					             serviceTime.getValueAtPercentile(99) / 1e3);
+		}
+	}
+}
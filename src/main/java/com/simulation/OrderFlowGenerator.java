@@ -0,0 +1,338 @@
+package com.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A deterministic generator of synthetic order messages in the CSV layout
+ * accepted by the trading venue:
+ *
+ *  TradeID,BBGCode,Currency,Side,Price,Volume,Portfolio,Action,Account,
+ *  Strategy,User,TradeTimeUTC,ValueDate
+ *
+ * Instruments are picked with a Zipfian distribution, so a few instruments
+ * carry most of the flow as they do on a real venue. Each instrument's mid
+ * price follows a random walk, and new orders are placed around the mid, some
+ * of them far enough through it to trade. Cancels and amends refer to orders
+ * the generator created earlier and has not cancelled since, at the
+ * configured share of the flow.
+ *
+ * The same seed and settings always produce the same stream.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderFlowGenerator {
+
+	public static final String HEADER = "TradeID,BBGCode,Currency,Side,Price,Volume,"
+			                            + "Portfolio,Action,Account,Strategy,User,"
+			                            + "TradeTimeUTC,ValueDate";
+
+	private static final int PRICE_DECIMALS = 4;
+	private static final long PRICE_SCALE = 10_000;
+
+	private final SplittableRandom random;
+
+	private int instrumentCount = 100;
+	private double zipfExponent = 1.0;
+	private double cancelRatio = 0.2;
+	private double amendRatio = 0.1;
+	private int volatilityTicks = 5;
+	private int spreadTicks = 20;
+	private int maxVolume = 1_000;
+	private final String[] portfolios = names("Port", 4);
+	private final String[] accounts = names("Acc", 3);
+	private final String[] strategies = names("Strat", 5);
+	private final String[] users = names("User", 6);
+
+	// Set up on the first message, once the settings are final.
+	private double[] cumulativeWeights;
+	private long[] midPrices;
+
+	private final List<LiveOrder> liveOrders = new ArrayList<LiveOrder>();
+	private long nextTradeId;
+	private long timeMicros = 1_672_650_000_000_000L; // 2023-01-02T09:00:00Z
+
+	private final StringBuilder builder = new StringBuilder(160);
+
+	public OrderFlowGenerator(long seed) {
+		random = new SplittableRandom(seed);
+	}
+
+	public void setInstrumentCount(int instrumentCount) {
+		checkNotStarted();
+		this.instrumentCount = instrumentCount;
+	}
+
+	/**
+	 * @param zipfExponent The skew of instrument popularity, where 0 makes
+	 * every instrument equally likely and larger values concentrate the flow
+	 * on fewer instruments.
+	 */
+	public void setZipfExponent(double zipfExponent) {
+		checkNotStarted();
+		this.zipfExponent = zipfExponent;
+	}
+
+	/**
+	 * @param cancelRatio The share of messages which cancel a live order.
+	 * @param amendRatio The share of messages which amend a live order.
+	 */
+	public void setActionRatios(double cancelRatio, double amendRatio) {
+		if (cancelRatio < 0 || amendRatio < 0 || cancelRatio + amendRatio >= 1)
+			throw new IllegalArgumentException("The cancel and amend ratios must "
+					                           + "leave room for new orders");
+
+		this.cancelRatio = cancelRatio;
+		this.amendRatio = amendRatio;
+	}
+
+	/**
+	 * @param volatilityTicks The largest move in ticks of an instrument's mid
+	 * price between two of its orders.
+	 */
+	public void setVolatilityTicks(int volatilityTicks) {
+		this.volatilityTicks = volatilityTicks;
+	}
+
+	/**
+	 * @param spreadTicks How far in ticks from the mid price orders are
+	 * placed, on either side of it.
+	 */
+	public void setSpreadTicks(int spreadTicks) {
+		this.spreadTicks = spreadTicks;
+	}
+
+	public void setMaxVolume(int maxVolume) {
+		this.maxVolume = maxVolume;
+	}
+
+	/**
+	 * @param instrument
+	 * @return The BBGCode of an instrument, where instrument 0 is the most
+	 * popular.
+	 */
+	public static String bbgCode(int instrument) {
+		return "SIM" + instrument + " US EQUITY";
+	}
+
+	/**
+	 * @return The next order message, without a line ending.
+	 */
+	public String next() {
+		if (cumulativeWeights == null)
+			start();
+
+		timeMicros += 1 + random.nextInt(200);
+
+		double draw = random.nextDouble();
+
+		if (!liveOrders.isEmpty() && draw < cancelRatio)
+			return cancel();
+
+		if (!liveOrders.isEmpty() && draw < cancelRatio + amendRatio)
+			return amend();
+
+		return newOrder();
+	}
+
+	/**
+	 * @param count
+	 * @return The next messages.
+	 */
+	public List<String> next(int count) {
+		List<String> messages = new ArrayList<String>(count);
+
+		for (int i = 0; i < count; i++)
+			messages.add(next());
+
+		return messages;
+	}
+
+	/**
+	 * Writes the next messages to a CSV file with a header line.
+	 *
+	 * @param path
+	 * @param count
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeTo(Path path, int count) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+
+			for (int i = 0; i < count; i++) {
+				writer.write(next());
+				writer.newLine();
+			}
+		}
+	}
+
+	private String newOrder() {
+		int instrument = pickInstrument();
+		boolean buy = random.nextBoolean();
+
+		// Walk the mid, keeping it well clear of zero.
+		long mid = midPrices[instrument] + random.nextInt(2 * volatilityTicks + 1)
+		           - volatilityTicks;
+		mid = Math.max(mid, PRICE_SCALE);
+		midPrices[instrument] = mid;
+
+		// Most orders rest behind the mid; the rest cross it and trade.
+		long offset = random.nextInt(spreadTicks + 1) - spreadTicks / 4;
+		long price = buy ? mid - offset : mid + offset;
+
+		LiveOrder order = new LiveOrder("SIM" + nextTradeId++, instrument, buy,
+				                        Math.max(price, 1));
+		liveOrders.add(order);
+
+		return format(order, randomVolume(), "NEW");
+	}
+
+	private String cancel() {
+		int index = random.nextInt(liveOrders.size());
+		LiveOrder order = liveOrders.get(index);
+
+		// Swap with the last order to remove in constant time.
+		LiveOrder last = liveOrders.remove(liveOrders.size() - 1);
+		if (index < liveOrders.size())
+			liveOrders.set(index, last);
+
+		return format(order, randomVolume(), "CANCEL");
+	}
+
+	private String amend() {
+		LiveOrder order = liveOrders.get(random.nextInt(liveOrders.size()));
+
+		long move = random.nextInt(2 * volatilityTicks + 1) - volatilityTicks;
+		order.price = Math.max(order.price + move, 1);
+
+		return format(order, randomVolume(), "AMEND");
+	}
+
+	private String format(LiveOrder order, int volume, String action) {
+		builder.setLength(0);
+
+		builder.append(order.tradeId).append(',')
+		       .append(bbgCode(order.instrument)).append(",USD,")
+		       .append(order.buy ? 'B' : 'S').append(',')
+		       .append(order.price / PRICE_SCALE).append('.');
+		appendPadded(order.price % PRICE_SCALE, PRICE_DECIMALS);
+
+		builder.append(',').append(volume).append(',')
+		       .append(pick(portfolios)).append(',')
+		       .append(action).append(',')
+		       .append(pick(accounts)).append(',')
+		       .append(pick(strategies)).append(',')
+		       .append(pick(users)).append(',');
+		appendTime();
+		builder.append(",20230104");
+
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the current time as yyyy-MM-ddTHH:mm:ss.SSSSSS. The flow stays
+	 * within January 2023 for any realistic message count.
+	 */
+	private void appendTime() {
+		long micros = timeMicros % 86_400_000_000L;
+		long days = timeMicros / 86_400_000_000L - 19_358; // days since 2023-01-01
+
+		builder.append("2023-01-");
+		appendPadded(1 + days, 2);
+		builder.append('T');
+		appendPadded(micros / 3_600_000_000L, 2);
+		builder.append(':');
+		appendPadded(micros / 60_000_000L % 60, 2);
+		builder.append(':');
+		appendPadded(micros / 1_000_000L % 60, 2);
+		builder.append('.');
+		appendPadded(micros % 1_000_000L, 6);
+	}
+
+	private void appendPadded(long value, int width) {
+		long limit = 10;
+		for (int i = 1; i < width; i++, limit *= 10) {
+			if (value < limit)
+				builder.append('0');
+		}
+
+		builder.append(value);
+	}
+
+	private int randomVolume() {
+		return 1 + random.nextInt(maxVolume);
+	}
+
+	private String pick(String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private int pickInstrument() {
+		double draw = random.nextDouble() * cumulativeWeights[instrumentCount - 1];
+
+		int low = 0;
+		int high = instrumentCount - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (cumulativeWeights[middle] < draw)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low;
+	}
+
+	private void start() {
+		cumulativeWeights = new double[instrumentCount];
+		midPrices = new long[instrumentCount];
+
+		double total = 0;
+		for (int i = 0; i < instrumentCount; i++) {
+			total += 1 / Math.pow(i + 1, zipfExponent);
+			cumulativeWeights[i] = total;
+			// Spread the starting prices between 10 and 500.
+			midPrices[i] = (10 + random.nextInt(490)) * PRICE_SCALE;
+		}
+	}
+
+	private void checkNotStarted() {
+		if (cumulativeWeights != null)
+			throw new IllegalStateException("The generator has already started");
+	}
+
+	private static String[] names(String prefix, int count) {
+		String[] names = new String[count];
+
+		for (int i = 0; i < count; i++)
+			names[i] = prefix + (i + 1);
+
+		return names;
+	}
+
+	/**
+	 * An order which the generator may still cancel or amend.
+	 */
+	private static class LiveOrder {
+
+		private final String tradeId;
+		private final int instrument;
+		private final boolean buy;
+		private long price;
+
+		LiveOrder(String tradeId, int instrument, boolean buy, long price) {
+			this.tradeId = tradeId;
+			this.instrument = instrument;
+			this.buy = buy;
+			this.price = price;
+		}
+	}
+}
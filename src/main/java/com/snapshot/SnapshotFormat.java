@@ -0,0 +1,39 @@
+package com.snapshot;
+
+/**
+ * The layout of the binary snapshot of a TradingVenue, all big-endian:
+ *
+ *  header:     int magic, int version, long journal sequence (-1 if the venue
+ *              had no journal)
+ *  tick sizes: int count, then per instrument a symbol for the BBGCode and
+ *              one for the tick size
+ *  books:      int count, then per book a symbol for the BBGCode and one for
+ *              the tick size, followed by the bid side and then the ask side
+ *  side:       int level count, then per level from the worst price to the
+ *              best: long price in ticks, long volume, int order count, and
+ *              the orders in time priority
+ *  order:      short length and UTF-8 bytes of the TradeID, symbols for the
+ *              Currency, Portfolio, Account, Strategy and User, int volume,
+ *              long tradeTimeNanos
+ *  master:     int count, then per total: byte side, byte dimension, a symbol
+ *              for the property, long canonical price, long volume
+ *
+ * A symbol is an int id, which is -1 for a missing value. The first use of an
+ * id is followed by its definition as a short length and UTF-8 bytes, so ids
+ * are defined in increasing order as the snapshot is read.
+ *
+ * @author Zane Ali
+ *
+ */
+final class SnapshotFormat {
+
+	static final int MAGIC = 0x5442534E;
+	static final int VERSION = 1;
+
+	static final int NO_SYMBOL = -1;
+
+	static final long NO_JOURNAL = -1;
+
+	private SnapshotFormat() {
+	}
+}
@@ -0,0 +1,199 @@
+package com.snapshot;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.DimensionEnum;
+import com.constant.Types.SideEnum;
+import com.orderBook.Order;
+import com.orderBook.OrderBook;
+import com.orderBook.OrderPool;
+import com.orderBook.TickSize;
+import com.tradingVenue.MasterBook;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Restores a TradingVenue from a snapshot written by VenueSnapshot.
+ *
+ * The file is memory-mapped and decoded in a single pass. The orders of each
+ * book side are stored from the worst price to the best, so every order is
+ * simply appended to the top level of its side (see OrderBook.restoreOrder),
+ * with no matching and no searching of the ladder, and the master book's
+ * totals are loaded directly rather than rebuilt from the orders.
+ *
+ * Orders are taken from the venue's OrderPool and their TradeIDs copied
+ * straight from the file, and each book's depth is published once it has
+ * been restored rather than after every order.
+ *
+ * @author Zane Ali
+ *
+ */
+public class SnapshotReader {
+
+	private static final SideEnum[] SIDES = SideEnum.values();
+	private static final DimensionEnum[] DIMENSIONS = DimensionEnum.values();
+
+	private final Path path;
+
+	private final List<String> symbols = new ArrayList<String>();
+	private MappedByteBuffer buffer;
+
+	// Holds the bytes of each TradeID while its order is set.
+	private byte[] tradeIdBytes = new byte[64];
+
+	public SnapshotReader(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Restores the order books and master book of a snapshot into a venue
+	 * which has no order books yet.
+	 *
+	 * @param venue
+	 * @return The sequence number of the first journal message which is not
+	 * part of the snapshot, or -1 if the venue which took it had no journal.
+	 * @throws IOException if the snapshot cannot be read or is corrupt.
+	 */
+	public long restore(TradingVenue venue) throws IOException {
+		if (!venue.getOrderBooks().isEmpty())
+			throw new IllegalStateException("Snapshots can only be restored into "
+					                        + "an empty venue");
+
+		symbols.clear();
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		try {
+			if (buffer.getInt() != SnapshotFormat.MAGIC)
+				throw new IOException(path + " is not a snapshot");
+
+			int version = buffer.getInt();
+			if (version != SnapshotFormat.VERSION)
+				throw new IOException(path + " has unsupported snapshot version "
+			                          + version);
+
+			long journalSequence = buffer.getLong();
+
+			int tickSizeCount = buffer.getInt();
+			for (int i = 0; i < tickSizeCount; i++)
+				venue.setTickSize(getSymbol(), TickSize.of(getSymbol()));
+
+			int bookCount = buffer.getInt();
+			for (int i = 0; i < bookCount; i++)
+				restoreBook(venue);
+
+			restoreTotals(venue.getMasterBook());
+			if (venue.hasAggregationCube())
+				venue.getAggregationCube().rebuild();
+			if (venue.getRiskCheck() != null)
+				venue.getRiskCheck().addRestingOrders(venue.getOrderBooks().values());
+
+			return journalSequence;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException
+				 | IllegalArgumentException e) {
+			throw new IOException(path + " is corrupt", e);
+		} finally {
+			buffer = null;
+		}
+	}
+
+	private void restoreBook(TradingVenue venue) throws IOException {
+		String bbgCode = getSymbol();
+		TickSize tickSize = TickSize.of(getSymbol());
+
+		if (!tickSize.equals(venue.getTickSize(bbgCode)))
+			venue.setTickSize(bbgCode, tickSize);
+
+		OrderBook orderBook = venue.createOrderBook(bbgCode);
+
+		for (SideEnum side : SIDES) {
+			int levelCount = buffer.getInt();
+
+			for (int i = 0; i < levelCount; i++) {
+				long priceTicks = buffer.getLong();
+				long levelVolume = buffer.getLong();
+				int orderCount = buffer.getInt();
+
+				long volume = 0;
+				for (int j = 0; j < orderCount; j++) {
+					Order order = getOrder(venue.getOrderPool(), bbgCode, side,
+							               priceTicks, tickSize);
+					// The order may go back to the pool once it is restored.
+					volume += order.getVolume();
+					orderBook.restoreOrder(order);
+				}
+
+				if (volume != levelVolume)
+					throw new IOException(path + " is corrupt: the level at "
+							              + tickSize.format(priceTicks) + " of "
+							              + bbgCode + " does not add up");
+			}
+		}
+
+		orderBook.publishDepth();
+	}
+
+	private Order getOrder(OrderPool orderPool, String bbgCode, SideEnum side,
+			               long priceTicks, TickSize tickSize) {
+		int tradeIdLength = buffer.getShort() & 0xFFFF;
+		if (tradeIdLength > tradeIdBytes.length)
+			tradeIdBytes = new byte[Math.max(tradeIdLength, tradeIdBytes.length * 2)];
+		buffer.get(tradeIdBytes, 0, tradeIdLength);
+
+		String currency = getSymbol();
+		String portfolio = getSymbol();
+		String account = getSymbol();
+		String strategy = getSymbol();
+		String user = getSymbol();
+		int volume = buffer.getInt();
+		long tradeTimeNanos = buffer.getLong();
+
+		Order order = orderPool.acquire();
+		order.set(tradeIdBytes, 0, tradeIdLength, bbgCode, currency, side,
+				  priceTicks, tickSize, volume, portfolio, ActionEnum.NEW, account,
+				  strategy, user, tradeTimeNanos);
+		return order;
+	}
+
+	private void restoreTotals(MasterBook masterBook) {
+		int totalCount = buffer.getInt();
+
+		for (int i = 0; i < totalCount; i++) {
+			SideEnum side = SIDES[buffer.get()];
+			DimensionEnum dimension = DIMENSIONS[buffer.get()];
+			String property = getSymbol();
+			long price = buffer.getLong();
+			long volume = buffer.getLong();
+
+			masterBook.addTotal(side, dimension, property, price, volume);
+		}
+	}
+
+	private String getSymbol() {
+		int id = buffer.getInt();
+
+		if (id == SnapshotFormat.NO_SYMBOL)
+			return null;
+
+		if (id == symbols.size())
+			symbols.add(getString());
+
+		return symbols.get(id);
+	}
+
+	private String getString() {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
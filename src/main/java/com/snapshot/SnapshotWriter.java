@@ -0,0 +1,76 @@
+package com.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Writes venue snapshots to disk on a background thread, so that a venue is
+ * only held up while its snapshot is captured into memory.
+ *
+ * @author Zane Ali
+ *
+ */
+public class SnapshotWriter implements AutoCloseable {
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "snapshot-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Captures a venue's state and writes it to a file in the background. The
+	 * capture happens on the calling thread, which must be the thread which
+	 * submits to the venue.
+	 *
+	 * @param venue
+	 * @param path
+	 * @return A future which completes once the snapshot is on disk.
+	 */
+	public CompletableFuture<VenueSnapshot> takeSnapshot(TradingVenue venue, Path path) {
+		return write(VenueSnapshot.capture(venue), path);
+	}
+
+	/**
+	 * Writes a captured snapshot to a file in the background.
+	 *
+	 * @param snapshot
+	 * @param path
+	 * @return A future which completes once the snapshot is on disk.
+	 */
+	public CompletableFuture<VenueSnapshot> write(VenueSnapshot snapshot, Path path) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				snapshot.writeTo(path);
+				return snapshot;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Waits for the snapshots already queued to be written and stops the
+	 * background thread.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package com.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.orderBook.BookSide;
+import com.orderBook.OrderBook;
+import com.orderBook.TickSize;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * A point-in-time image of a TradingVenue's order books and master book,
+ * encoded in the binary layout described by SnapshotFormat.
+ *
+ * Capturing only walks the venue's books and encodes them into memory, so it
+ * must run on the venue's thread but holds up matching for no longer than
+ * the encoding takes. Writing the image to disk can then happen on another
+ * thread (see SnapshotWriter) while the venue carries on.
+ *
+ * @author Zane Ali
+ *
+ */
+public class VenueSnapshot {
+
+	private final ByteBuffer image;
+	private final long journalSequence;
+
+	private VenueSnapshot(ByteBuffer image, long journalSequence) {
+		this.image = image;
+		this.journalSequence = journalSequence;
+	}
+
+	/**
+	 * Captures the current state of a venue. This must be called on the thread
+	 * which submits to the venue.
+	 *
+	 * @param venue
+	 * @return The snapshot.
+	 */
+	public static VenueSnapshot capture(TradingVenue venue) {
+		long journalSequence = venue.getJournal() == null
+				               ? SnapshotFormat.NO_JOURNAL
+				               : venue.getJournal().getNextSequence();
+
+		Encoder encoder = new Encoder();
+
+		encoder.putInt(SnapshotFormat.MAGIC);
+		encoder.putInt(SnapshotFormat.VERSION);
+		encoder.putLong(journalSequence);
+
+		Map<String, TickSize> tickSizes = venue.getTickSizes();
+		encoder.putInt(tickSizes.size());
+		tickSizes.forEach((bbgCode, tickSize) -> {
+			encoder.putSymbol(bbgCode);
+			encoder.putSymbol(tickSize.toString());
+		});
+
+		Map<String, OrderBook> orderBooks = venue.getOrderBooks();
+		encoder.putInt(orderBooks.size());
+		orderBooks.forEach((bbgCode, orderBook) -> {
+			encoder.putSymbol(bbgCode);
+			encoder.putSymbol(orderBook.getTickSize().toString());
+			putSide(encoder, orderBook.getBids());
+			putSide(encoder, orderBook.getAsks());
+		});
+
+		int countPosition = encoder.position();
+		encoder.putInt(0);
+
+		int[] totalCount = new int[1];
+		venue.getMasterBook().forEachTotal((side, dimension, property, price, volume) -> {
+			encoder.putByte(side.ordinal());
+			encoder.putByte(dimension.ordinal());
+			encoder.putSymbol(property);
+			encoder.putLong(price);
+			encoder.putLong(volume);
+			totalCount[0]++;
+		});
+		encoder.putInt(countPosition, totalCount[0]);
+
+		ByteBuffer image = encoder.buffer;
+		image.flip();
+		return new VenueSnapshot(image.asReadOnlyBuffer(), journalSequence);
+	}
+
+	/**
+	 * @return The sequence number of the first journal message which is not
+	 * part of the snapshot, or -1 if the venue had no journal.
+	 */
+	public long getJournalSequence() {
+		return journalSequence;
+	}
+
+	/**
+	 * @return The size of the encoded snapshot in bytes.
+	 */
+	public int getSize() {
+		return image.limit();
+	}
+
+	/**
+	 * Writes the snapshot to a file. The file is written under a temporary
+	 * name and then moved into place, so a crash during the write leaves any
+	 * earlier snapshot at the path intact.
+	 *
+	 * @param path
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeTo(Path path) throws IOException {
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		ByteBuffer bytes = image.duplicate();
+
+		try (FileChannel channel = FileChannel.open(temporary,
+				                                    StandardOpenOption.CREATE,
+				                                    StandardOpenOption.WRITE,
+				                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+
+			channel.force(false);
+		}
+
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+				   StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void putSide(Encoder encoder, BookSide side) {
+		encoder.putInt(side.getLevelCount());
+
+		for (int depth = side.getLevelCount() - 1; depth >= 0; depth--) {
+			encoder.putLong(side.getLevelPriceTicks(depth));
+			encoder.putLong(side.getLevelVolume(depth));
+			encoder.putInt(side.getLevelOrderCount(depth));
+
+			side.forEachOrder(depth, order -> {
+				encoder.putString(order.getTradeID());
+				encoder.putSymbol(order.getCurrency());
+				encoder.putSymbol(order.getPortfolio());
+				encoder.putSymbol(order.getAccount());
+				encoder.putSymbol(order.getStrategy());
+				encoder.putSymbol(order.getUser());
+				encoder.putInt(order.getVolume());
+				encoder.putLong(order.getTradeTimeNanos());
+			});
+		}
+	}
+
+	/**
+	 * A growable big-endian buffer with the symbol dictionary of one snapshot.
+	 */
+	private static class Encoder {
+
+		private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		private final Map<String, Integer> symbolIds = new HashMap<String, Integer>();
+
+		int position() {
+			return buffer.position();
+		}
+
+		void putByte(int value) {
+			ensure(1).put((byte) value);
+		}
+
+		void putInt(int value) {
+			ensure(4).putInt(value);
+		}
+
+		void putInt(int position, int value) {
+			buffer.putInt(position, value);
+		}
+
+		void putLong(long value) {
+			ensure(8).putLong(value);
+		}
+
+		void putString(String value) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > 0xFFFF)
+				throw new IllegalArgumentException("The value " + value
+						                           + " is too long for a snapshot");
+
+			ensure(2 + bytes.length).putShort((short) bytes.length).put(bytes);
+		}
+
+		void putSymbol(String symbol) {
+			if (symbol == null) {
+				putInt(SnapshotFormat.NO_SYMBOL);
+				return;
+			}
+
+			Integer id = symbolIds.get(symbol);
+			if (id != null) {
+				putInt(id);
+				return;
+			}
+
+			int newId = symbolIds.size();
+			symbolIds.put(symbol, newId);
+			putInt(newId);
+			putString(symbol);
+		}
+
+		private ByteBuffer ensure(int length) {
+			if (buffer.remaining() < length) {
+				int capacity = Math.max(buffer.capacity() * 2,
+						                buffer.position() + length);
+				ByteBuffer larger = ByteBuffer.allocate(capacity);
+
+				buffer.flip();
+				larger.put(buffer);
+				buffer = larger;
+			}
+
+			return buffer;
+		}
+	}
+}
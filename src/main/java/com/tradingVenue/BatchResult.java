@@ -0,0 +1,138 @@
+package com.tradingVenue;
+
+/**
+ * The outcome of every message of a batch submitted to a venue, by the
+ * message's position in the batch: whether it was accepted, and if so how
+ * many fills it caused, the volume filled and the volume left resting on the
+ * book.
+ *
+ * A result can be reused from one batch to the next, in which case it holds
+ * the outcomes of the latest batch, in its first size() positions.
+ *
+ * A message is rejected if it cannot be parsed, or if it cancels an order
+ * which is not resting on the book (e.g. one which has already been filled).
+ *
+ * @author Zane Ali
+ *
+ */
+public class BatchResult {
+
+	public static final String NO_RESTING_ORDER = "No resting order with the TradeID";
+	public static final String DUPLICATE_TRADE_ID = "An order with the TradeID is already resting";
+	public static final String OFF_TICK_PRICE = "The price is not a whole number of ticks";
+
+	private final String[] rejectReasons;
+	private final int[] fillCounts;
+	private final long[] filledVolumes;
+	private final int[] restingVolumes;
+	private int size;
+
+	/**
+	 * @param size The number of messages in the batch, or the largest batch
+	 * the result will be reused for.
+	 */
+	public BatchResult(int size) {
+		rejectReasons = new String[size];
+		fillCounts = new int[size];
+		filledVolumes = new long[size];
+		restingVolumes = new int[size];
+		this.size = size;
+	}
+
+	/**
+	 * @return The number of messages in the latest batch.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The largest batch the result can hold.
+	 */
+	public int getCapacity() {
+		return rejectReasons.length;
+	}
+
+	/**
+	 * @param index The position of the message in the batch.
+	 * @return Whether the message was accepted.
+	 */
+	public boolean isAccepted(int index) {
+		return rejectReasons[index] == null;
+	}
+
+	/**
+	 * @param index The position of the message in the batch.
+	 * @return Why the message was rejected, or null if it was accepted.
+	 */
+	public String getRejectReason(int index) {
+		return rejectReasons[index];
+	}
+
+	/**
+	 * @param index The position of the message in the batch.
+	 * @return The number of resting orders the message traded against.
+	 */
+	public int getFillCount(int index) {
+		return fillCounts[index];
+	}
+
+	/**
+	 * @param index The position of the message in the batch.
+	 * @return The volume the message traded.
+	 */
+	public long getFilledVolume(int index) {
+		return filledVolumes[index];
+	}
+
+	/**
+	 * @param index The position of the message in the batch.
+	 * @return The volume of the message's order left resting on the book,
+	 * which is 0 for a cancel.
+	 */
+	public int getRestingVolume(int index) {
+		return restingVolumes[index];
+	}
+
+	/**
+	 * @return The number of messages of the latest batch which were accepted.
+	 */
+	public int getAcceptedCount() {
+		int count = 0;
+
+		for (int i = 0; i < size; i++) {
+			if (rejectReasons[i] == null)
+				count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Starts a batch, which is held in the first count positions.
+	 *
+	 * @param count The number of messages in the batch.
+	 * @throws IllegalArgumentException if the batch is larger than the result.
+	 */
+	void begin(int count) {
+		if (count > rejectReasons.length)
+			throw new IllegalArgumentException("A batch of " + count + " messages "
+					                           + "does not fit a result of "
+					                           + rejectReasons.length);
+		size = count;
+	}
+
+	void accept(int index, int fillCount, long filledVolume, int restingVolume) {
+		rejectReasons[index] = null;
+		fillCounts[index] = fillCount;
+		filledVolumes[index] = filledVolume;
+		restingVolumes[index] = restingVolume;
+	}
+
+	void reject(int index, String reason) {
+		rejectReasons[index] = reason;
+		fillCounts[index] = 0;
+		filledVolumes[index] = 0;
+		restingVolumes[index] = 0;
+	}
+}
@@ -0,0 +1,40 @@
+package com.tradingVenue;
+
+/**
+ * Thrown when an order message cannot be parsed. The exception names the first
+ * malformed field and the position in the message where parsing stopped.
+ *
+ * @author Zane Ali
+ *
+ */
+public class MalformedOrderMessageException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String field;
+	private final int position;
+
+	public MalformedOrderMessageException(OrderMessage message) {
+		super(describe(message));
+
+		this.field = message.getErrorField();
+		this.position = message.getErrorPosition();
+	}
+
+	/**
+	 * @param message A message which failed to parse.
+	 * @return A description of why, naming the field and position.
+	 */
+	static String describe(OrderMessage message) {
+		return "Malformed " + message.getErrorField() + " at position "
+			   + message.getErrorPosition() + ": " + message.getErrorReason();
+	}
+
+	public String getField() {
+		return field;
+	}
+
+	public int getPosition() {
+		return position;
+	}
+}
@@ -1,120 +1,284 @@
 package com.tradingVenue;
 
-import static java.util.stream.Collectors.groupingBy;
-
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.TreeMap;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
+import com.aggregation.AggregationCube;
+import com.constant.Types.DimensionEnum;
 import com.constant.Types.SideEnum;
 import com.orderBook.Order;
+import com.orderBook.TickSize;
+import com.risk.RiskCheck;
+import com.util.LongLongHashMap;
 
 /**
- * A master order book which stores orders for every order message regardless of 
- * instrument. The purpose of this master book is to support the venue in 
- * performing brute-force aggregations per Strategy, Portfolio and User. 
- * 
- * An iterative approach with better performance is used for the BBGCode in
- * the TradingVenue class.
- * 
+ * A master book which keeps the resting volume of every order regardless of
+ * instrument, aggregated per Strategy, Portfolio and User and per price.
+ *
+ * The totals are maintained incrementally: the order books report every order
+ * which rests and every fill, cancel and amend which takes volume off the
+ * book, and each report updates one running total per dimension in O(1).
+ * Exporting an aggregation then only reads the current totals, so its cost
+ * depends on the number of distinct (property, price) keys rather than on the
+ * number of orders seen during the day.
+ *
+ * Prices are held as canonical prices (see TickSize), so that instruments with
+ * different tick sizes aggregate together.
+ *
+ * The aggregation by BBGCode is kept by the order books themselves (see the
+ * TradingVenue class), and aggregations by other combinations of fields by
+ * an AggregationCube, which the master book passes every change on to. It
+ * passes them on to a RiskCheck as well, which keeps the open notional per
+ * Account, User and Strategy.
+ *
  * @author Zane Ali
  *
  */
 public class MasterBook {
 
-	private HashSet<Order> masterBidBook = new HashSet<Order>();
-	private HashSet<Order> masterAskBook = new HashSet<Order>();
+	private static final DimensionEnum[] DIMENSIONS = DimensionEnum.values();
+
+	/**
+	 * Receives the running totals of a master book, e.g. to write them to a
+	 * snapshot.
+	 */
+	public interface TotalConsumer {
+		void accept(SideEnum side, DimensionEnum dimension, String property,
+				    long price, long volume);
+	}
+
+	// Resting volume per side, per dimension, per property value and per
+	// canonical price.
+	private Map<DimensionEnum, Map<String, LongLongHashMap>> bidTotals = newTotals();
+	private Map<DimensionEnum, Map<String, LongLongHashMap>> askTotals = newTotals();
+
+	private AggregationCube aggregationCube;
+	private RiskCheck riskCheck;
+
+	/**
+	 * Sets the cube which every change of resting volume is passed on to, or
+	 * null to stop passing them on.
+	 *
+	 * @param aggregationCube
+	 */
+	public void setAggregationCube(AggregationCube aggregationCube) {
+		this.aggregationCube = aggregationCube;
+	}
+
+	/**
+	 * Sets the risk check which every change of resting volume is passed on
+	 * to, or null to stop passing them on.
+	 *
+	 * @param riskCheck
+	 */
+	public void setRiskCheck(RiskCheck riskCheck) {
+		this.riskCheck = riskCheck;
+	}
 
 	/**
-	 * Submit a new order to the masterbook.
+	 * Adds the volume of an order which has come to rest on its book.
+	 *
 	 * @param order
 	 */
 	public void addOrder(Order order) {
-		if(order.getSide() == SideEnum.B)
-		    masterBidBook.add(order);
-		else
-			masterAskBook.add(order);
+		addVolume(order, order.getVolume());
+	}
+
+	/**
+	 * Removes volume of a resting order which has been filled, cancelled or
+	 * amended.
+	 *
+	 * @param order
+	 * @param volume The volume which has left the book.
+	 */
+	public void removeVolume(Order order, int volume) {
+		addVolume(order, -volume);
+	}
+
+	/**
+	 * Adds the totals of another master book to this one, e.g. to combine the
+	 * master books of several shards for an export.
+	 *
+	 * @param other
+	 */
+	public void addTotalsFrom(MasterBook other) {
+		addTotals(other.bidTotals, bidTotals);
+		addTotals(other.askTotals, askTotals);
 	}
-	
+
+	/**
+	 * Adds volume to a single running total, e.g. when the totals are
+	 * restored from a snapshot.
+	 *
+	 * @param side
+	 * @param dimension
+	 * @param property The value of the order property.
+	 * @param price The canonical price.
+	 * @param volume
+	 */
+	public void addTotal(SideEnum side, DimensionEnum dimension, String property,
+			             long price, long volume) {
+		Map<String, LongLongHashMap> byProperty =
+				(side == SideEnum.B ? bidTotals : askTotals).get(dimension);
+
+		LongLongHashMap prices =
+				byProperty.computeIfAbsent(property, p -> new LongLongHashMap());
+		prices.addTo(price, volume);
+
+		if (prices.isEmpty())
+			byProperty.remove(property);
+	}
+
+	/**
+	 * Copies the running totals of one side and dimension, e.g. to export
+	 * them on another thread while this book carries on changing.
+	 *
+	 * @param side
+	 * @param dimension
+	 * @return The volume per canonical price, keyed by property value.
+	 */
+	public Map<String, LongLongHashMap> copyTotals(SideEnum side,
+			                                       DimensionEnum dimension) {
+		Map<String, LongLongHashMap> totals =
+				(side == SideEnum.B ? bidTotals : askTotals).get(dimension);
+		Map<String, LongLongHashMap> copy =
+				new HashMap<String, LongLongHashMap>(totals.size() * 2);
+
+		totals.forEach((property, prices) -> {
+			if (!prices.isEmpty())
+				copy.put(property, new LongLongHashMap(prices));
+		});
+
+		return copy;
+	}
+
+	/**
+	 * Passes every running total to a consumer, in no particular order.
+	 *
+	 * @param consumer
+	 */
+	public void forEachTotal(TotalConsumer consumer) {
+		for (SideEnum side : SideEnum.values()) {
+			Map<DimensionEnum, Map<String, LongLongHashMap>> totals =
+					side == SideEnum.B ? bidTotals : askTotals;
+
+			for (DimensionEnum dimension : DIMENSIONS) {
+				totals.get(dimension).forEach((property, prices) ->
+						prices.forEach((price, volume) ->
+								consumer.accept(side, dimension, property, price, volume)));
+			}
+		}
+	}
+
     /**
-     * Perform an aggregation by the Strategy, Portfolio or User by grouping by
-     * both the property (Strategy, Portfolio or User) and Price, and then
-     * summing the corresponding list of volumes for each group.
-     * 
-     * @param input The order property to be aggregated against (Strategy, 
+     * Exports the aggregation by the Strategy, Portfolio or User, i.e. the
+     * resting volume per property value and Price, sorted by property value
+     * and then by price.
+     *
+     * @param input The order property to be aggregated against (Strategy,
      * Portfolio or User).
      * @param side
-     * @return Returns the volume aggregation of orders in a String CSV format 
+     * @return Returns the volume aggregation of orders in a String CSV format
      * in the order "property,Price,AggregatedVolume".
      */
 	public String aggregateOrders(String input, SideEnum side) {
-		
+
+		DimensionEnum dimension = DimensionEnum.valueOf(input.toUpperCase(Locale.ROOT));
+		Map<String, LongLongHashMap> totals =
+				(side == SideEnum.B ? bidTotals : askTotals).get(dimension);
+
 		StringBuilder builder = new StringBuilder();
-		
-		builder.append(input + ",Price,AggregatedVolume\n");
-		
-		if(side == SideEnum.B) {
-			masterBidBook.stream().collect(groupingBy(Function.identity(),
-					  ()->new TreeMap<>(						  
-					    // Grouping by [property, price]
-					    Comparator.<Order,String>
-					    comparing(order->getProperty(order, input)).
-					    thenComparing(order->order.getPrice())
-					  ), 				  
-					  // then aggregating the volume
-					  Collectors.summingInt(order->order.getVolume())))
-					.forEach((group,volumeSum) -> {
-					    // take the property and price from the group (the map Key)
-						// and the volume from the aggregation (the map Value).
-						if(volumeSum != 0)
-					        builder.append(getProperty(group, input) + "," +
-						             group.getPrice() + "," + volumeSum + "\n");
-					});
-		} else {
-			masterAskBook.stream().collect(groupingBy(Function.identity(),
-					  ()->new TreeMap<>(						  
-					    // Grouping by [property, price]
-					    Comparator.<Order,String>
-					    comparing(order->getProperty(order, input)).
-					    thenComparing(order->order.getPrice())
-					  ), 				  
-					  // then aggregating the volume
-					  Collectors.summingInt(order->order.getVolume())))
-					.forEach((group,volumeSum) -> {
-					    // take the property and price from the group (the map Key)
-						// and the volume from the aggregation (the map Value).
-						if(volumeSum != 0)
-					        builder.append(getProperty(group, input) + "," +
-						             group.getPrice() + "," + volumeSum + "\n");
-					});
+
+		builder.append(input).append(",Price,AggregatedVolume\n");
+
+		String[] properties = totals.keySet().toArray(new String[0]);
+		Arrays.sort(properties);
+
+		for (String property : properties) {
+			LongLongHashMap prices = totals.get(property);
+
+			for (long price : prices.sortedKeys()) {
+				builder.append(property).append(',');
+				TickSize.appendCanonical(builder, price).append(',');
+				builder.append(prices.get(price)).append('\n');
+			}
 		}
-	    				
 
 		return builder.toString();
 	}
-	
+
+	private void addVolume(Order order, long volume) {
+		Map<DimensionEnum, Map<String, LongLongHashMap>> totals =
+				order.getSide() == SideEnum.B ? bidTotals : askTotals;
+		long price = order.getTickSize().toCanonical(order.getPriceTicks());
+
+		for (DimensionEnum dimension : DIMENSIONS) {
+			Map<String, LongLongHashMap> byProperty = totals.get(dimension);
+			String property = getProperty(order, dimension);
+
+			LongLongHashMap prices = byProperty.get(property);
+			if (prices == null) {
+				prices = new LongLongHashMap();
+				byProperty.put(property, prices);
+			}
+
+			// The map is kept when it empties, since the property is likely to
+			// have orders on the book again and would otherwise be reallocated.
+			prices.addTo(price, volume);
+		}
+
+		if (aggregationCube != null)
+			aggregationCube.addVolume(order, volume);
+		if (riskCheck != null)
+			riskCheck.addOpenVolume(order, volume);
+	}
+
+	private static void addTotals(Map<DimensionEnum, Map<String, LongLongHashMap>> from,
+			                      Map<DimensionEnum, Map<String, LongLongHashMap>> to) {
+		for (DimensionEnum dimension : DIMENSIONS) {
+			Map<String, LongLongHashMap> target = to.get(dimension);
+
+			from.get(dimension).forEach((property, prices) -> {
+				LongLongHashMap targetPrices =
+						target.computeIfAbsent(property, p -> new LongLongHashMap());
+				prices.forEach(targetPrices::addTo);
+
+				if (targetPrices.isEmpty())
+					target.remove(property);
+			});
+		}
+	}
+
+	private static Map<DimensionEnum, Map<String, LongLongHashMap>> newTotals() {
+		Map<DimensionEnum, Map<String, LongLongHashMap>> totals =
+				new EnumMap<DimensionEnum, Map<String, LongLongHashMap>>(DimensionEnum.class);
+
+		for (DimensionEnum dimension : DIMENSIONS)
+			totals.put(dimension, new HashMap<String, LongLongHashMap>());
+
+		return totals;
+	}
+
 	/**
 	 * A helper method to retrieve the order value for a certain property (or
-	 * input).
-	 * 
+	 * dimension).
+	 *
 	 * @param order
-	 * @param input
-	 * @return The order value corresponding to the input order property.
+	 * @param dimension
+	 * @return The order value corresponding to the order property.
 	 */
-	private String getProperty(Order order, String input) {
-		String property = "";
-		switch(input) {
-		    case "Strategy":
-		    	property = order.getStrategy();
-		    case "Portfolio":
-		        property = order.getPortfolio();
-		    case "User":
-		    	property = order.getUser();		    
+	private static String getProperty(Order order, DimensionEnum dimension) {
+		switch (dimension) {
+		    case STRATEGY:
+		    	return order.getStrategy();
+		    case PORTFOLIO:
+		        return order.getPortfolio();
+		    default:
+		    	return order.getUser();
 		}
-		
-		return property;
 	}
-	
+
 }
@@ -0,0 +1,199 @@
+package com.tradingVenue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parsed messages of a batch, grouped by BBGCode so that a venue can look
+ * up each order book once per batch and process its messages back to back.
+ * Within a group the messages keep the order in which they were submitted.
+ *
+ * The holders and arrays are reused from one batch to the next, so a batch
+ * only allocates when it is larger than any before it.
+ *
+ * @author Zane Ali
+ *
+ */
+final class OrderBatch {
+
+	private OrderMessage[] messages = new OrderMessage[0];
+	// The position in the submitted batch of each parsed message.
+	private int[] indices = new int[0];
+	private int[] groups = new int[0];
+	// The parsed messages sorted by group.
+	private int[] sorted = new int[0];
+
+	private String[] groupCodes = new String[16];
+	private int[] groupStarts = new int[17];
+	private int groupCount;
+
+	// The state of the batch being parsed.
+	private int size;
+	private String lastCode;
+	private int lastGroup;
+
+	private final Map<String, Integer> groupIndex = new HashMap<String, Integer>();
+
+	/**
+	 * Parses some of the messages of a batch, rejecting the malformed ones in
+	 * the result, and groups the others by BBGCode.
+	 *
+	 * @param orderMessages The whole batch.
+	 * @param positions The positions in the batch of the messages to parse, or
+	 * null to parse the first count messages.
+	 * @param count
+	 * @param parser
+	 * @param result
+	 */
+	void parse(List<String> orderMessages, int[] positions, int count,
+			   OrderMessageParser parser, BatchResult result) {
+		begin(count);
+
+		for (int i = 0; i < count; i++) {
+			int index = positions == null ? i : positions[i];
+			add(index, parser.parse(orderMessages.get(index), messages[size]), result);
+		}
+
+		end();
+	}
+
+	/**
+	 * Parses a batch of messages held as UTF-8 bytes, rejecting the malformed
+	 * ones in the result, and groups the others by BBGCode.
+	 *
+	 * @param buffer
+	 * @param offsets The index of the first byte of each message.
+	 * @param lengths The number of bytes in each message.
+	 * @param count
+	 * @param parser
+	 * @param result
+	 */
+	void parse(byte[] buffer, int[] offsets, int[] lengths, int count,
+			   OrderMessageParser parser, BatchResult result) {
+		begin(count);
+
+		for (int i = 0; i < count; i++)
+			add(i, parser.parse(buffer, offsets[i], lengths[i], messages[size]), result);
+
+		end();
+	}
+
+	int getGroupCount() {
+		return groupCount;
+	}
+
+	String getBbgCode(int group) {
+		return groupCodes[group];
+	}
+
+	/**
+	 * @param group
+	 * @return The sorted position of the group's first message.
+	 */
+	int getGroupStart(int group) {
+		return groupStarts[group];
+	}
+
+	/**
+	 * @param group
+	 * @return The sorted position after the group's last message.
+	 */
+	int getGroupEnd(int group) {
+		return groupStarts[group + 1];
+	}
+
+	/**
+	 * @param position A sorted position.
+	 * @return The parsed message at the position.
+	 */
+	OrderMessage getMessage(int position) {
+		return messages[sorted[position]];
+	}
+
+	/**
+	 * @param position A sorted position.
+	 * @return The position in the submitted batch of the message.
+	 */
+	int getIndex(int position) {
+		return indices[sorted[position]];
+	}
+
+	private void begin(int count) {
+		ensureCapacity(count);
+		groupIndex.clear();
+		groupCount = 0;
+		size = 0;
+		lastCode = null;
+		lastGroup = -1;
+	}
+
+	/**
+	 * Adds the message which has just been parsed into the next holder.
+	 */
+	private void add(int index, boolean parsed, BatchResult result) {
+		OrderMessage message = messages[size];
+
+		if (!parsed) {
+			result.reject(index, MalformedOrderMessageException.describe(message));
+			return;
+		}
+
+		// Symbols are interned, so a run of messages for one instrument only
+		// needs a reference comparison.
+		String code = message.getBbgCode();
+		if (code != lastCode) {
+			lastCode = code;
+			lastGroup = group(code);
+		}
+
+		indices[size] = index;
+		groups[size] = lastGroup;
+		groupStarts[lastGroup + 1]++;
+		size++;
+	}
+
+	private void end() {
+		for (int group = 0; group < groupCount; group++)
+			groupStarts[group + 1] += groupStarts[group];
+
+		int[] next = Arrays.copyOf(groupStarts, groupCount);
+		for (int i = 0; i < size; i++)
+			sorted[next[groups[i]]++] = i;
+	}
+
+	private int group(String bbgCode) {
+		Integer group = groupIndex.get(bbgCode);
+		if (group != null)
+			return group;
+
+		if (groupCount == groupCodes.length) {
+			groupCodes = Arrays.copyOf(groupCodes, groupCount * 2);
+			groupStarts = Arrays.copyOf(groupStarts, groupCount * 2 + 1);
+		}
+
+		groupCodes[groupCount] = bbgCode;
+		groupStarts[groupCount + 1] = 0;
+		groupIndex.put(bbgCode, groupCount);
+		return groupCount++;
+	}
+
+	private void ensureCapacity(int count) {
+		groupStarts[0] = 0;
+
+		if (count <= messages.length)
+			return;
+
+		int capacity = Math.max(count, messages.length * 2);
+		int previous = messages.length;
+
+		messages = Arrays.copyOf(messages, capacity);
+		for (int i = previous; i < capacity; i++)
+			messages[i] = new OrderMessage();
+
+		indices = new int[capacity];
+		groups = new int[capacity];
+		sorted = new int[capacity];
+	}
+}
@@ -0,0 +1,255 @@
+package com.tradingVenue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+
+/**
+ * A reusable holder for the fields of one parsed order message.
+ *
+ * An OrderMessageParser overwrites the same instance for every message it
+ * parses, so the values are only valid until the next parse. Symbols are the
+ * interned instances from the parser's symbol table, and the price is kept as
+ * the exact decimal digits from the message so that it can be converted into
+ * ticks once the instrument's tick size is known.
+ *
+ * When a message is malformed, the error fields describe the first field which
+ * could not be parsed and where in the message it was found.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderMessage {
+
+	static final String[] FIELD_NAMES = {
+			"TradeID", "BBGCode", "Currency", "Side", "Price", "Volume",
+			"Portfolio", "Action", "Account", "Strategy", "User",
+			"TradeTimeUTC", "ValueDate" };
+
+	byte[] tradeIdBytes = new byte[32];
+	int tradeIdLength;
+	private String tradeId;
+
+	String bbgCode;
+	String currency;
+	SideEnum side;
+	long unscaledPrice;
+	int priceDecimals;
+	int volume;
+	String portfolio;
+	ActionEnum action;
+	String account;
+	String strategy;
+	String user;
+	long tradeTimeNanos;
+	String valueDate;
+
+	int errorField = -1;
+	int errorPosition;
+	String errorReason;
+
+	/**
+	 * @return The TradeID. The String is created on the first call after each
+	 * parse.
+	 */
+	public String getTradeID() {
+		if (tradeId == null)
+			tradeId = new String(tradeIdBytes, 0, tradeIdLength,
+					             StandardCharsets.UTF_8);
+
+		return tradeId;
+	}
+
+	/**
+	 * @return The buffer holding the UTF-8 bytes of the TradeID, which is only
+	 * valid until the holder is next overwritten.
+	 */
+	public byte[] getTradeIdBytes() {
+		return tradeIdBytes;
+	}
+
+	/**
+	 * @return The number of bytes of the TradeID in its buffer.
+	 */
+	public int getTradeIdLength() {
+		return tradeIdLength;
+	}
+
+	public String getBbgCode() {
+		return bbgCode;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	public SideEnum getSide() {
+		return side;
+	}
+
+	/**
+	 * @return The digits of the price without its decimal point.
+	 */
+	public long getUnscaledPrice() {
+		return unscaledPrice;
+	}
+
+	/**
+	 * @return The number of digits of the price after its decimal point.
+	 */
+	public int getPriceDecimals() {
+		return priceDecimals;
+	}
+
+	public int getVolume() {
+		return volume;
+	}
+
+	public String getPortfolio() {
+		return portfolio;
+	}
+
+	public ActionEnum getAction() {
+		return action;
+	}
+
+	public String getAccount() {
+		return account;
+	}
+
+	public String getStrategy() {
+		return strategy;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	/**
+	 * @return The TradeTimeUTC as nanoseconds since the epoch.
+	 */
+	public long getTradeTimeNanos() {
+		return tradeTimeNanos;
+	}
+
+	public String getValueDate() {
+		return valueDate;
+	}
+
+	public boolean isMalformed() {
+		return errorField >= 0;
+	}
+
+	/**
+	 * @return The name of the first malformed field, or null if the message was
+	 * parsed successfully.
+	 */
+	public String getErrorField() {
+		return errorField < 0 ? null : FIELD_NAMES[errorField];
+	}
+
+	/**
+	 * @return The offset within the message of the malformed character.
+	 */
+	public int getErrorPosition() {
+		return errorPosition;
+	}
+
+	public String getErrorReason() {
+		return errorReason;
+	}
+
+	/**
+	 * Overwrites this holder with the fields of another, e.g. to hand a parsed
+	 * message to another thread.
+	 * 
+	 * @param other
+	 */
+	public void copyFrom(OrderMessage other) {
+		setTradeId(other.tradeIdBytes, 0, other.tradeIdLength);
+		tradeId = other.tradeId;
+		bbgCode = other.bbgCode;
+		currency = other.currency;
+		side = other.side;
+		unscaledPrice = other.unscaledPrice;
+		priceDecimals = other.priceDecimals;
+		volume = other.volume;
+		portfolio = other.portfolio;
+		action = other.action;
+		account = other.account;
+		strategy = other.strategy;
+		user = other.user;
+		tradeTimeNanos = other.tradeTimeNanos;
+		valueDate = other.valueDate;
+		errorField = other.errorField;
+		errorPosition = other.errorPosition;
+		errorReason = other.errorReason;
+	}
+
+	/**
+	 * Overwrites this holder with the fields of a message decoded from another
+	 * format, e.g. a journal. The TradeID is set separately.
+	 */
+	public void set(String bbgCode, String currency, SideEnum side,
+			        long unscaledPrice, int priceDecimals, int volume,
+			        String portfolio, ActionEnum action, String account,
+			        String strategy, String user, long tradeTimeNanos,
+			        String valueDate) {
+		this.bbgCode = bbgCode;
+		this.currency = currency;
+		this.side = side;
+		this.unscaledPrice = unscaledPrice;
+		this.priceDecimals = priceDecimals;
+		this.volume = volume;
+		this.portfolio = portfolio;
+		this.action = action;
+		this.account = account;
+		this.strategy = strategy;
+		this.user = user;
+		this.tradeTimeNanos = tradeTimeNanos;
+		this.valueDate = valueDate;
+		this.errorField = -1;
+		this.errorPosition = 0;
+		this.errorReason = null;
+	}
+
+	/**
+	 * Sets the TradeID from its UTF-8 bytes, which are copied.
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @param length
+	 */
+	public void setTradeId(byte[] buffer, int offset, int length) {
+		if (length > tradeIdBytes.length)
+			tradeIdBytes = Arrays.copyOf(tradeIdBytes, Math.max(length,
+					                                   tradeIdBytes.length * 2));
+
+		System.arraycopy(buffer, offset, tradeIdBytes, 0, length);
+		tradeIdLength = length;
+		tradeId = null;
+	}
+
+	void reset() {
+		tradeIdLength = 0;
+		tradeId = null;
+		bbgCode = null;
+		currency = null;
+		side = null;
+		unscaledPrice = 0;
+		priceDecimals = 0;
+		volume = 0;
+		portfolio = null;
+		action = null;
+		account = null;
+		strategy = null;
+		user = null;
+		tradeTimeNanos = 0;
+		valueDate = null;
+		errorField = -1;
+		errorPosition = 0;
+		errorReason = null;
+	}
+}
@@ -0,0 +1,467 @@
+package com.tradingVenue;
+
+import java.util.Arrays;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+import com.orderBook.TickSize;
+import com.util.SymbolTable;
+
+/**
+ * Parses comma-separated order messages in the format:
+ *
+ *  TradeID,BBGCode,Currency,Side,Price,Volume,Portfolio,Action,Account,
+ *  Strategy,User,TradeTimeUTC,ValueDate
+ *
+ * straight from a byte buffer into a reusable OrderMessage, without splitting
+ * the message into substrings. Numbers and the TradeTimeUTC (in the format
+ * yyyy-MM-ddTHH:mm:ss.SSSSSS) are decoded by hand, the timestamp into
+ * nanoseconds since the epoch, and symbols are interned through a symbol table
+ * so that a symbol which has been seen before does not allocate. The ValueDate
+ * may be omitted.
+ *
+ * A malformed message is reported through the error fields of the
+ * OrderMessage rather than by throwing, naming the first malformed field and
+ * its position in the message.
+ *
+ * A parser is not thread-safe; each parsing thread should own one.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderMessageParser {
+
+	private static final int TRADE_ID = 0;
+	private static final int BBG_CODE = 1;
+	private static final int CURRENCY = 2;
+	private static final int SIDE = 3;
+	private static final int PRICE = 4;
+	private static final int VOLUME = 5;
+	private static final int PORTFOLIO = 6;
+	private static final int ACTION = 7;
+	private static final int ACCOUNT = 8;
+	private static final int STRATEGY = 9;
+	private static final int USER = 10;
+	private static final int TRADE_TIME = 11;
+	private static final int VALUE_DATE = 12;
+
+	private static final byte[] NEW = { 'N', 'E', 'W' };
+	private static final byte[] AMEND = { 'A', 'M', 'E', 'N', 'D' };
+	private static final byte[] CANCEL = { 'C', 'A', 'N', 'C', 'E', 'L' };
+
+	// The longest price which cannot overflow a long.
+	private static final int MAX_PRICE_DIGITS = 18;
+	// The most digits before the decimal point of a price which still fits a
+	// long once it is scaled to canonical units (see TickSize).
+	private static final int MAX_PRICE_INTEGER_DIGITS = 18 - TickSize.CANONICAL_SCALE;
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+	private static final long SECONDS_PER_DAY = 86_400L;
+	private static final int[] DAYS_IN_MONTH = {
+			31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	private final SymbolTable symbols;
+
+	// Holds the UTF-8 bytes of messages which arrive as character sequences.
+	private byte[] scratch = new byte[256];
+
+	public OrderMessageParser() {
+		this(new SymbolTable());
+	}
+
+	public OrderMessageParser(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+	public SymbolTable getSymbolTable() {
+		return symbols;
+	}
+
+	/**
+	 * Parses a message held as characters, e.g. a String.
+	 *
+	 * @param message
+	 * @param into The holder to overwrite with the parsed fields.
+	 * @return True if the message was parsed, or false if it was malformed, in
+	 * which case the error fields of the holder describe why.
+	 */
+	public boolean parse(CharSequence message, OrderMessage into) {
+		int length = encode(message);
+		return parse(scratch, 0, length, into);
+	}
+
+	/**
+	 * Parses a message held as UTF-8 bytes. A trailing carriage return is
+	 * ignored. Error positions are relative to the offset.
+	 *
+	 * @param buffer
+	 * @param offset The index of the first byte of the message.
+	 * @param length The number of bytes in the message.
+	 * @param into The holder to overwrite with the parsed fields.
+	 * @return True if the message was parsed, or false if it was malformed, in
+	 * which case the error fields of the holder describe why.
+	 */
+	public boolean parse(byte[] buffer, int offset, int length,
+			             OrderMessage into) {
+		into.reset();
+
+		int end = offset + length;
+		if (end > offset && buffer[end - 1] == '\r')
+			end--;
+
+		int start = offset;
+
+		for (int field = TRADE_ID; field <= VALUE_DATE; field++) {
+			int fieldEnd = start;
+			while (fieldEnd < end && buffer[fieldEnd] != ',')
+				fieldEnd++;
+
+			if (!parseField(field, buffer, start, fieldEnd, offset, into))
+				return false;
+
+			if (fieldEnd == end) {
+				if (field < TRADE_TIME)
+					return fail(into, field + 1, fieldEnd - offset,
+							    "the field is missing");
+
+				return true;
+			}
+
+			start = fieldEnd + 1;
+		}
+
+		return fail(into, VALUE_DATE, start - 1 - offset,
+				    "unexpected field after the ValueDate");
+	}
+
+	private boolean parseField(int field, byte[] buffer, int start, int end,
+			                   int offset, OrderMessage into) {
+		switch (field) {
+		    case TRADE_ID:
+		    	if (start == end)
+		    		return fail(into, field, start - offset, "the field is empty");
+
+		    	into.setTradeId(buffer, start, end - start);
+		    	return true;
+		    case BBG_CODE:
+		    	if (start == end)
+		    		return fail(into, field, start - offset, "the field is empty");
+
+		    	into.bbgCode = symbol(buffer, start, end);
+		    	return true;
+		    case CURRENCY:
+		    	into.currency = symbol(buffer, start, end);
+		    	return true;
+		    case SIDE:
+		    	return parseSide(buffer, start, end, offset, into);
+		    case PRICE:
+		    	return parsePrice(buffer, start, end, offset, into);
+		    case VOLUME:
+		    	return parseVolume(buffer, start, end, offset, into);
+		    case PORTFOLIO:
+		    	into.portfolio = symbol(buffer, start, end);
+		    	return true;
+		    case ACTION:
+		    	return parseAction(buffer, start, end, offset, into);
+		    case ACCOUNT:
+		    	into.account = symbol(buffer, start, end);
+		    	return true;
+		    case STRATEGY:
+		    	into.strategy = symbol(buffer, start, end);
+		    	return true;
+		    case USER:
+		    	into.user = symbol(buffer, start, end);
+		    	return true;
+		    case TRADE_TIME:
+		    	return parseTimestamp(buffer, start, end, offset, into);
+		    default:
+		    	into.valueDate = symbol(buffer, start, end);
+		    	return true;
+		}
+	}
+
+	private String symbol(byte[] buffer, int start, int end) {
+		return symbols.symbol(symbols.intern(buffer, start, end - start));
+	}
+
+	private boolean parseSide(byte[] buffer, int start, int end, int offset,
+			                  OrderMessage into) {
+		if (end - start == 1 && buffer[start] == 'B') {
+			into.side = SideEnum.B;
+			return true;
+		}
+
+		if (end - start == 1 && buffer[start] == 'S') {
+			into.side = SideEnum.S;
+			return true;
+		}
+
+		return fail(into, SIDE, start - offset, "expected B or S");
+	}
+
+	private boolean parseAction(byte[] buffer, int start, int end, int offset,
+			                    OrderMessage into) {
+		if (matches(NEW, buffer, start, end))
+			into.action = ActionEnum.NEW;
+		else if (matches(AMEND, buffer, start, end))
+			into.action = ActionEnum.AMEND;
+		else if (matches(CANCEL, buffer, start, end))
+			into.action = ActionEnum.CANCEL;
+		else
+			return fail(into, ACTION, start - offset,
+					    "expected NEW, AMEND or CANCEL");
+
+		return true;
+	}
+
+	private boolean parsePrice(byte[] buffer, int start, int end, int offset,
+			                   OrderMessage into) {
+		int position = start;
+		boolean negative = false;
+
+		if (position < end && (buffer[position] == '-' || buffer[position] == '+')) {
+			negative = buffer[position] == '-';
+			position++;
+		}
+
+		long unscaled = 0;
+		int digits = 0;
+		int significantDigits = 0;
+		int decimals = -1;
+
+		for (; position < end; position++) {
+			byte b = buffer[position];
+
+			if (b == '.' && decimals < 0) {
+				decimals = 0;
+				continue;
+			}
+
+			if (b < '0' || b > '9')
+				return fail(into, PRICE, position - offset, "expected a digit");
+
+			// Leading zeros do not count towards the precision of the price.
+			if (unscaled != 0 || b != '0')
+				significantDigits++;
+
+			if (significantDigits > MAX_PRICE_DIGITS || decimals >= MAX_PRICE_DIGITS)
+				return fail(into, PRICE, position - offset, "too many digits");
+
+			if (decimals < 0 && significantDigits > MAX_PRICE_INTEGER_DIGITS)
+				return fail(into, PRICE, start - offset, "the price is too large");
+
+			unscaled = unscaled * 10 + (b - '0');
+			digits++;
+
+			if (decimals >= 0)
+				decimals++;
+		}
+
+		if (digits == 0)
+			return fail(into, PRICE, start - offset, "expected a number");
+
+		into.unscaledPrice = negative ? -unscaled : unscaled;
+		into.priceDecimals = Math.max(decimals, 0);
+		return true;
+	}
+
+	private boolean parseVolume(byte[] buffer, int start, int end, int offset,
+			                    OrderMessage into) {
+		if (start == end)
+			return fail(into, VOLUME, start - offset, "expected a number");
+
+		long volume = 0;
+
+		for (int position = start; position < end; position++) {
+			byte b = buffer[position];
+
+			if (b < '0' || b > '9')
+				return fail(into, VOLUME, position - offset, "expected a digit");
+
+			volume = volume * 10 + (b - '0');
+
+			if (volume > Integer.MAX_VALUE)
+				return fail(into, VOLUME, start - offset, "the volume is too large");
+		}
+
+		into.volume = (int) volume;
+		return true;
+	}
+
+	/**
+	 * Decodes a timestamp in the format yyyy-MM-ddTHH:mm:ss.SSSSSS, which may
+	 * have between one and nine fractional digits, into nanoseconds since the
+	 * epoch.
+	 */
+	private boolean parseTimestamp(byte[] buffer, int start, int end,
+			                       int offset, OrderMessage into) {
+		// The shortest form is yyyy-MM-ddTHH:mm:ss.S
+		if (end - start < 21 || end - start > 29)
+			return fail(into, TRADE_TIME, start - offset,
+					    "expected yyyy-MM-ddTHH:mm:ss.SSSSSS");
+
+		int year = digits(buffer, start, 4);
+		int month = digits(buffer, start + 5, 2);
+		int day = digits(buffer, start + 8, 2);
+		int hour = digits(buffer, start + 11, 2);
+		int minute = digits(buffer, start + 14, 2);
+		int second = digits(buffer, start + 17, 2);
+
+		if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0
+				|| second < 0 || buffer[start + 4] != '-'
+				|| buffer[start + 7] != '-' || buffer[start + 10] != 'T'
+				|| buffer[start + 13] != ':' || buffer[start + 16] != ':'
+				|| buffer[start + 19] != '.')
+			return fail(into, TRADE_TIME, firstMismatch(buffer, start, end) - offset,
+					    "expected yyyy-MM-ddTHH:mm:ss.SSSSSS");
+
+		int fractionDigits = end - start - 20;
+		long nanos = digits(buffer, start + 20, fractionDigits);
+
+		if (nanos < 0)
+			return fail(into, TRADE_TIME, firstMismatch(buffer, start, end) - offset,
+					    "expected a digit");
+
+		for (int i = fractionDigits; i < 9; i++)
+			nanos *= 10;
+
+		if (month < 1 || month > 12)
+			return fail(into, TRADE_TIME, start + 5 - offset, "invalid month");
+
+		if (day < 1 || day > DAYS_IN_MONTH[month - 1]
+				|| (month == 2 && day == 29 && !isLeapYear(year)))
+			return fail(into, TRADE_TIME, start + 8 - offset, "invalid day");
+
+		if (hour > 23)
+			return fail(into, TRADE_TIME, start + 11 - offset, "invalid hour");
+
+		if (minute > 59)
+			return fail(into, TRADE_TIME, start + 14 - offset, "invalid minute");
+
+		if (second > 59)
+			return fail(into, TRADE_TIME, start + 17 - offset, "invalid second");
+
+		long seconds = daysSinceEpoch(year, month, day) * SECONDS_PER_DAY
+				       + hour * 3600 + minute * 60 + second;
+
+		into.tradeTimeNanos = seconds * NANOS_PER_SECOND + nanos;
+		return true;
+	}
+
+	/**
+	 * @return The position of the first character which does not fit the
+	 * timestamp format, used only to report errors.
+	 */
+	private static int firstMismatch(byte[] buffer, int start, int end) {
+		String layout = "dddd-dd-ddTdd:dd:dd.";
+
+		for (int i = start; i < end; i++) {
+			int index = i - start;
+			char expected = index < layout.length() ? layout.charAt(index) : 'd';
+			byte b = buffer[i];
+
+			if (expected == 'd' ? (b < '0' || b > '9') : b != expected)
+				return i;
+		}
+
+		return start;
+	}
+
+	/**
+	 * @return The value of a run of decimal digits, or -1 if any of them is not
+	 * a digit.
+	 */
+	private static int digits(byte[] buffer, int start, int count) {
+		int value = 0;
+
+		for (int i = start; i < start + count; i++) {
+			int digit = buffer[i] - '0';
+
+			if (digit < 0 || digit > 9)
+				return -1;
+
+			value = value * 10 + digit;
+		}
+
+		return value;
+	}
+
+	private static boolean isLeapYear(int year) {
+		return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+	}
+
+	/**
+	 * Converts a date in the proleptic Gregorian calendar into a count of days
+	 * since 1970-01-01.
+	 */
+	private static long daysSinceEpoch(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5
+				         + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				        + dayOfYear;
+
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	private static boolean matches(byte[] expected, byte[] buffer, int start,
+			                       int end) {
+		if (end - start != expected.length)
+			return false;
+
+		for (int i = 0; i < expected.length; i++) {
+			if (buffer[start + i] != expected[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	private static boolean fail(OrderMessage into, int field, int position,
+			                    String reason) {
+		into.errorField = field;
+		into.errorPosition = position;
+		into.errorReason = reason;
+		return false;
+	}
+
+	/**
+	 * Encodes a character sequence as UTF-8 into the scratch buffer.
+	 *
+	 * @return The number of bytes written.
+	 */
+	private int encode(CharSequence message) {
+		int length = message.length();
+
+		if (scratch.length < length * 3)
+			scratch = Arrays.copyOf(scratch, length * 3);
+
+		int n = 0;
+
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+
+			if (c < 0x80) {
+				scratch[n++] = (byte) c;
+			} else if (c < 0x800) {
+				scratch[n++] = (byte) (0xC0 | (c >> 6));
+				scratch[n++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					   && Character.isLowSurrogate(message.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, message.charAt(++i));
+				scratch[n++] = (byte) (0xF0 | (codePoint >> 18));
+				scratch[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				scratch[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				scratch[n++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else {
+				scratch[n++] = (byte) (0xE0 | (c >> 12));
+				scratch[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				scratch[n++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+
+		return n;
+	}
+}
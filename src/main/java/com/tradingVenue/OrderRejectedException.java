@@ -0,0 +1,24 @@
+package com.tradingVenue;
+
+/**
+ * Thrown when a message which parses is rejected by the venue before it
+ * reaches the order book, either by its risk check (see
+ * TradingVenue.setRiskCheck) or because it is a new order with the TradeID of
+ * a resting order. Rejects are expected in normal running, so the exception
+ * has no stack trace.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public OrderRejectedException(String reason) {
+		super(reason, null, false, false);
+	}
+
+	public String getReason() {
+		return getMessage();
+	}
+}
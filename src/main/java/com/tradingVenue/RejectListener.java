@@ -0,0 +1,22 @@
+package com.tradingVenue;
+
+/**
+ * Receives the messages submitted on their own to a ShardedTradingVenue which
+ * the venue rejected, since they are processed after submitToOrderBook has
+ * returned (see ShardedTradingVenue.setRejectListener).
+ *
+ * @author Zane Ali
+ *
+ */
+public interface RejectListener {
+
+	/**
+	 * Receives one rejected message. It is called on the thread of the shard
+	 * which owns the message's instrument, so it must not block, and the
+	 * message is only valid until it returns.
+	 *
+	 * @param message
+	 * @param reason Why the message was rejected.
+	 */
+	void onReject(OrderMessage message, String reason);
+}
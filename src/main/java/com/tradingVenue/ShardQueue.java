@@ -0,0 +1,127 @@
+package com.tradingVenue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded single-producer, single-consumer ring of preallocated slots which
+ * carries order messages (and occasional tasks) from the router of a
+ * ShardedTradingVenue to one shard's worker thread.
+ *
+ * Messages are copied into the slots, so publishing does not allocate. The
+ * consumer spins briefly when the ring is empty and then parks until the
+ * producer wakes it. The producer yields while the ring is full, which applies
+ * back-pressure to the router.
+ *
+ * @author Zane Ali
+ *
+ */
+final class ShardQueue {
+
+	private static final int SPINS_BEFORE_PARKING = 1_000;
+	private static final long MAX_PARK_NANOS = 1_000_000L;
+
+	/**
+	 * One entry of the ring, holding either a message or a task.
+	 */
+	static final class Slot {
+		final OrderMessage message = new OrderMessage();
+		Runnable task;
+	}
+
+	private final Slot[] slots;
+	private final int mask;
+
+	// The next slot to consume, written only by the consumer.
+	private volatile long head;
+	// The next slot to publish, written only by the producer.
+	private volatile long tail;
+
+	private volatile Thread consumer;
+	private volatile boolean consumerWaiting;
+
+	ShardQueue(int capacity) {
+		if (Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("The capacity must be a power of two");
+
+		slots = new Slot[capacity];
+		for (int i = 0; i < capacity; i++)
+			slots[i] = new Slot();
+
+		mask = capacity - 1;
+	}
+
+	void setConsumer(Thread consumer) {
+		this.consumer = consumer;
+	}
+
+	/**
+	 * Copies a message into the next slot, waiting for space if the ring is
+	 * full.
+	 *
+	 * @param message
+	 */
+	void publish(OrderMessage message) {
+		Slot slot = claim();
+		slot.message.copyFrom(message);
+		slot.task = null;
+		commit();
+	}
+
+	/**
+	 * Publishes a task to be run on the consumer thread once every message
+	 * published before it has been processed.
+	 *
+	 * @param task
+	 */
+	void publish(Runnable task) {
+		Slot slot = claim();
+		slot.task = task;
+		commit();
+	}
+
+	/**
+	 * Waits for the next slot to be published.
+	 *
+	 * @return The next slot, which stays valid until it is released.
+	 */
+	Slot take() {
+		long next = head;
+		int spins = 0;
+
+		while (tail == next) {
+			if (spins++ < SPINS_BEFORE_PARKING) {
+				Thread.onSpinWait();
+				continue;
+			}
+
+			consumerWaiting = true;
+			if (tail == next)
+				LockSupport.parkNanos(this, MAX_PARK_NANOS);
+			consumerWaiting = false;
+		}
+
+		return slots[(int) next & mask];
+	}
+
+	/**
+	 * Hands the slot returned by the last take back to the producer.
+	 */
+	void release() {
+		slots[(int) head & mask].task = null;
+		head = head + 1;
+	}
+
+	private Slot claim() {
+		while (tail - head == slots.length)
+			Thread.yield();
+
+		return slots[(int) tail & mask];
+	}
+
+	private void commit() {
+		tail = tail + 1;
+
+		if (consumerWaiting)
+			LockSupport.unpark(consumer);
+	}
+}
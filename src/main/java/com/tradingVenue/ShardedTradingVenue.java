@@ -0,0 +1,785 @@
+package com.tradingVenue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import com.aggregation.CubeResult;
+import com.aggregation.GroupBy;
+import com.archive.OrderArchive;
+import com.constant.Types.SideEnum;
+import com.execution.ExecutionRing;
+import com.journal.JournalWriter;
+import com.marketData.MarketData;
+import com.metrics.VenueMetrics;
+import com.orderBook.OffHeapOrderStore;
+import com.orderBook.TickSize;
+import com.risk.RiskCheck;
+import com.snapshot.SnapshotReader;
+import com.snapshot.SnapshotWriter;
+import com.snapshot.VenueSnapshot;
+
+/**
+ * A trading venue which spreads its instruments over several worker threads.
+ *
+ * Each shard is an ordinary TradingVenue owned by exactly one worker thread,
+ * and each BBGCode is owned by exactly one shard, chosen by hashing the
+ * BBGCode. Since only the owning thread ever touches a shard's order books,
+ * the books need no locks. Messages are parsed on the submitting thread and
+ * copied into a bounded queue for their shard, which processes them in the
+ * order they were submitted, so per-instrument ordering is preserved.
+ *
+ * Anything which reads a shard's state, such as an aggregation export, runs as
+ * a task on the shard's own thread after the messages queued before it.
+ *
+ * Each shard can keep its own journal and snapshots, so journaling, snapshots
+ * and recovery all proceed in parallel across the shards.
+ *
+ * A shard which fails to process a message, other than by rejecting it, has
+ * been left in an unknown state, e.g. by a journal which can no longer be
+ * written. It stops processing messages from then on and records the failure
+ * (see getFailure), which fails every later submission to the shard and every
+ * task queued for it, including flush.
+ *
+ * @author Zane Ali
+ *
+ */
+public class ShardedTradingVenue implements AutoCloseable {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+
+	// Queued behind the last message of each shard to stop its thread.
+	private static final Runnable STOP = () -> {};
+
+	private final TradingVenue[] shards;
+	private final ShardQueue[] queues;
+	private final Thread[] workers;
+	private final JournalWriter[] journals;
+	private final OrderArchive[] archives;
+
+	// The first failure of each shard, set only by the shard's own thread.
+	private final AtomicReferenceArray<Throwable> failures;
+
+	private final OrderMessageParser parser = new OrderMessageParser();
+	private final OrderMessage message = new OrderMessage();
+
+	private volatile boolean running = true;
+	private volatile RejectListener rejectListener;
+
+	public ShardedTradingVenue() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public ShardedTradingVenue(int shardCount) {
+		this(shardCount, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * @param shardCount The number of shards, and so worker threads.
+	 * @param queueCapacity The number of messages which can be queued for each
+	 * shard, which must be a power of two.
+	 */
+	public ShardedTradingVenue(int shardCount, int queueCapacity) {
+		if (shardCount < 1)
+			throw new IllegalArgumentException("There must be at least one shard");
+
+		shards = new TradingVenue[shardCount];
+		queues = new ShardQueue[shardCount];
+		workers = new Thread[shardCount];
+		journals = new JournalWriter[shardCount];
+		archives = new OrderArchive[shardCount];
+		failures = new AtomicReferenceArray<Throwable>(shardCount);
+
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new TradingVenue();
+			queues[i] = new ShardQueue(queueCapacity);
+
+			int shard = i;
+			workers[i] = new Thread(() -> runShard(shard),
+					                "venue-shard-" + i);
+			workers[i].setDaemon(true);
+			queues[i].setConsumer(workers[i]);
+			workers[i].start();
+		}
+	}
+
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * @param shard The index of the shard.
+	 * @return The failure which stopped the shard, or null if it is running.
+	 */
+	public Throwable getFailure(int shard) {
+		return failures.get(shard);
+	}
+
+	/**
+	 * @param bbgCode
+	 * @return The index of the shard which owns the instrument.
+	 */
+	public int shardFor(String bbgCode) {
+		return Math.floorMod(bbgCode.hashCode(), shards.length);
+	}
+
+	/**
+	 * Sets the tick size of an instrument on its shard. This must be done
+	 * before the first order for the instrument is submitted.
+	 *
+	 * @param bbgCode
+	 * @param tickSize
+	 */
+	public void setTickSize(String bbgCode, TickSize tickSize) {
+		join(callOnShard(shardFor(bbgCode), venue -> {
+			venue.setTickSize(bbgCode, tickSize);
+			return null;
+		}));
+	}
+
+	/**
+	 * Publishes the fills of every shard to an execution ring, or stops
+	 * publishing them if the ring is null. The ring takes events from all the
+	 * shards' threads at once.
+	 *
+	 * @param executions
+	 */
+	public void setExecutionRing(ExecutionRing executions) {
+		callOnAllShards(venue -> {
+			venue.setExecutionRing(executions);
+			return null;
+		});
+	}
+
+	/**
+	 * Records the messages of every shard into one set of venue metrics, or
+	 * stops recording if the metrics are null. Each instrument's metrics are
+	 * only written by the thread of the shard which owns it.
+	 *
+	 * @param metrics
+	 */
+	public void setMetrics(VenueMetrics metrics) {
+		callOnAllShards(venue -> {
+			venue.setMetrics(metrics);
+			return null;
+		});
+	}
+
+	/**
+	 * Publishes the top levels of every shard's order books to one set of
+	 * market data, or stops publishing them if the market data is null. Each
+	 * instrument's depth book is only written by the thread of the shard
+	 * which owns it, and can be read from any thread.
+	 *
+	 * @param marketData
+	 */
+	public void setMarketData(MarketData marketData) {
+		callOnAllShards(venue -> {
+			venue.setMarketData(marketData);
+			return null;
+		});
+	}
+
+	/**
+	 * Checks the messages of every shard against one risk check, or stops
+	 * checking them if the risk check is null. Its counters are shared by all
+	 * the shards' threads, so the limits of an account hold across every
+	 * instrument it trades. A batch reports the reject of each message, while
+	 * a message submitted on its own is rejected after submitToOrderBook has
+	 * returned, so it is counted by the risk check and passed to the reject
+	 * listener, if there is one (see setRejectListener).
+	 *
+	 * @param riskCheck
+	 */
+	public void setRiskCheck(RiskCheck riskCheck) {
+		callOnAllShards(venue -> {
+			venue.setRiskCheck(riskCheck);
+			return null;
+		});
+	}
+
+	/**
+	 * Sets the listener of the messages submitted on their own with
+	 * submitToOrderBook which are rejected, e.g. by the risk check. It is
+	 * called on the shards' threads, and a listener which throws fails the
+	 * shard. Without one, such rejects are dropped.
+	 *
+	 * @param rejectListener The listener, or null for none.
+	 */
+	public void setRejectListener(RejectListener rejectListener) {
+		this.rejectListener = rejectListener;
+	}
+
+	/**
+	 * Gives every shard its own off-heap order store, so that the order books
+	 * created from now on keep their resting orders outside the heap (see
+	 * TradingVenue.setOrderStore).
+	 */
+	public void useOffHeapOrderStores() {
+		callOnAllShards(venue -> {
+			venue.setOrderStore(new OffHeapOrderStore());
+			return null;
+		});
+	}
+
+	/**
+	 * Opens a journal per shard in a directory, named after the shard, and
+	 * journals every message processed from now on. A journal which already
+	 * exists is appended to.
+	 *
+	 * @param directory
+	 * @throws IOException if a journal cannot be opened.
+	 */
+	public void openJournals(Path directory) throws IOException {
+		for (int i = 0; i < shards.length; i++) {
+			if (journals[i] != null)
+				throw new IllegalStateException("The journals are already open");
+		}
+
+		for (int i = 0; i < shards.length; i++) {
+			JournalWriter journal = new JournalWriter(journalPath(directory, i));
+			journals[i] = journal;
+
+			join(callOnShard(i, venue -> {
+				venue.setJournal(journal);
+				return null;
+			}));
+		}
+	}
+
+	/**
+	 * Opens an order archive per shard in a directory, in a subdirectory named
+	 * after the shard, and archives every order processed from now on. An
+	 * archive which already exists is appended to.
+	 *
+	 * @param directory
+	 * @throws IOException if an archive cannot be opened.
+	 */
+	public void openOrderArchives(Path directory) throws IOException {
+		for (int i = 0; i < shards.length; i++) {
+			if (archives[i] != null)
+				throw new IllegalStateException("The order archives are already open");
+		}
+
+		for (int i = 0; i < shards.length; i++) {
+			OrderArchive archive = new OrderArchive(archivePath(directory, i));
+			archives[i] = archive;
+
+			join(callOnShard(i, venue -> {
+				venue.setOrderArchive(archive);
+				return null;
+			}));
+		}
+	}
+
+	/**
+	 * Rebuilds every shard from its journal in a directory, with the shards
+	 * replaying in parallel. The journals must have been written by a venue
+	 * with the same number of shards.
+	 *
+	 * @param directory
+	 * @return The number of messages replayed.
+	 * @throws IOException if a journal cannot be read.
+	 */
+	public long replayJournals(Path directory) throws IOException {
+		return recoverShards(directory, false);
+	}
+
+	/**
+	 * Captures a snapshot of every shard, each on its own thread, and writes
+	 * them to a directory in the background. Each shard only pauses while its
+	 * snapshot is captured into memory.
+	 *
+	 * @param directory
+	 * @param writer
+	 * @return A future which completes once every snapshot is on disk.
+	 */
+	public CompletableFuture<Void> takeSnapshots(Path directory, SnapshotWriter writer) {
+		List<CompletableFuture<VenueSnapshot>> written =
+				new ArrayList<CompletableFuture<VenueSnapshot>>();
+
+		for (int i = 0; i < shards.length; i++) {
+			Path path = snapshotPath(directory, i);
+
+			written.add(callOnShard(i, VenueSnapshot::capture)
+					    .thenCompose(snapshot -> writer.write(snapshot, path)));
+		}
+
+		return CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0]));
+	}
+
+	/**
+	 * Rebuilds every shard from a directory of snapshots and journals, with
+	 * the shards recovering in parallel. Each shard restores its snapshot, if
+	 * it has one, and then replays the messages of its journal which arrived
+	 * after the snapshot was taken. The files must have been written by a
+	 * venue with the same number of shards.
+	 *
+	 * @param directory
+	 * @return The number of journal messages replayed.
+	 * @throws IOException if a snapshot or journal cannot be read.
+	 */
+	public long recover(Path directory) throws IOException {
+		return recoverShards(directory, true);
+	}
+
+	/**
+	 * Parses a comma-separated order message and queues it for the shard which
+	 * owns its instrument. The message is processed after this returns, so a
+	 * reject is passed to the reject listener rather than thrown.
+	 *
+	 * @param orderMessage
+	 * @throws MalformedOrderMessageException if the message cannot be parsed.
+	 * @throws IllegalStateException if the venue has been closed or the shard
+	 * has failed.
+	 */
+	public synchronized void submitToOrderBook(String orderMessage) {
+		checkRunning();
+
+		if (!parser.parse(orderMessage, message))
+			throw new MalformedOrderMessageException(message);
+
+		int shard = shardFor(message.getBbgCode());
+		checkShard(shard);
+		queues[shard].publish(message);
+	}
+
+	/**
+	 * Queues an order message which has already been parsed for the shard
+	 * which owns its instrument. The message is copied, so the caller may reuse
+	 * it once this returns. The message is processed after this returns, so a
+	 * reject is passed to the reject listener rather than thrown.
+	 *
+	 * @param orderMessage
+	 * @throws IllegalStateException if the venue has been closed or the shard
+	 * has failed.
+	 */
+	public synchronized void submitToOrderBook(OrderMessage orderMessage) {
+		checkRunning();
+
+		int shard = shardFor(orderMessage.getBbgCode());
+		checkShard(shard);
+		queues[shard].publish(orderMessage);
+	}
+
+	/**
+	 * Submits a batch of comma-separated order messages without waiting for
+	 * them to be processed, so that a caller can keep several batches in
+	 * flight. Each shard parses and processes its part of the batch on its own
+	 * thread (see TradingVenue.submitBatch), after the messages submitted
+	 * before it. The list must not be modified until the future completes.
+	 *
+	 * @param orderMessages
+	 * @return A future of the outcome of each message, by its position in the
+	 * batch.
+	 */
+	public CompletableFuture<BatchResult> submitBatch(List<String> orderMessages) {
+		int size = orderMessages.size();
+		BatchResult result = new BatchResult(size);
+
+		int[] shardOf = new int[size];
+		int[] counts = new int[shards.length];
+
+		for (int i = 0; i < size; i++) {
+			shardOf[i] = shardForMessage(orderMessages.get(i));
+			counts[shardOf[i]]++;
+		}
+
+		int[][] positions = new int[shards.length][];
+		for (int shard = 0; shard < shards.length; shard++)
+			positions[shard] = new int[counts[shard]];
+
+		int[] filled = new int[shards.length];
+		for (int i = 0; i < size; i++)
+			positions[shardOf[i]][filled[shardOf[i]]++] = i;
+
+		List<CompletableFuture<Void>> parts = new ArrayList<CompletableFuture<Void>>();
+
+		synchronized (this) {
+			for (int shard = 0; shard < shards.length; shard++) {
+				if (counts[shard] == 0)
+					continue;
+
+				int[] shardPositions = positions[shard];
+				int failingShard = shard;
+
+				parts.add(callOnShard(shard, venue -> {
+					try {
+						venue.submitBatch(orderMessages, shardPositions,
+								          shardPositions.length, result);
+					} catch (RuntimeException | Error e) {
+						fail(failingShard, e);
+						throw e;
+					}
+					return null;
+				}));
+			}
+		}
+
+		return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+				                .thenApply(done -> result);
+	}
+
+	/**
+	 * Runs a function against a shard's venue on the shard's own thread, once
+	 * every message submitted before it has been processed.
+	 *
+	 * @param shard The index of the shard.
+	 * @param function
+	 * @return A future of the function's result, which fails with an
+	 * IllegalStateException if the shard has failed by the time it runs.
+	 */
+	public <T> CompletableFuture<T> callOnShard(int shard,
+			                                    Function<TradingVenue, T> function) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		TradingVenue venue = shards[shard];
+
+		synchronized (this) {
+			checkRunning();
+
+			queues[shard].publish(() -> {
+				Throwable failure = failures.get(shard);
+				if (failure != null) {
+					result.completeExceptionally(shardFailed(shard, failure));
+					return;
+				}
+
+				try {
+					result.complete(function.apply(venue));
+				} catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			});
+		}
+
+		return result;
+	}
+
+	/**
+	 * Runs a function against every shard's venue, each on its own thread.
+	 * The function is queued for every shard at the same point in the stream
+	 * of submitted messages, so the results together reflect one consistent
+	 * state of the venue.
+	 *
+	 * @param function
+	 * @return The results in shard order.
+	 */
+	public <T> List<T> callOnAllShards(Function<TradingVenue, T> function) {
+		List<CompletableFuture<T>> futures = new ArrayList<CompletableFuture<T>>();
+
+		synchronized (this) {
+			for (int i = 0; i < shards.length; i++)
+				futures.add(callOnShard(i, function));
+		}
+
+		List<T> results = new ArrayList<T>();
+		for (CompletableFuture<T> future : futures)
+			results.add(join(future));
+
+		return results;
+	}
+
+	/**
+	 * Finds the shard of a message's instrument without parsing it, by
+	 * hashing the characters of its BBGCode field the way String.hashCode
+	 * does, so that it agrees with shardFor.
+	 */
+	private int shardForMessage(String orderMessage) {
+		int start = orderMessage.indexOf(',') + 1;
+		int end = orderMessage.indexOf(',', start);
+		if (end < 0)
+			end = orderMessage.length();
+
+		int hash = 0;
+		for (int i = start; i < end; i++)
+			hash = 31 * hash + orderMessage.charAt(i);
+
+		return Math.floorMod(hash, shards.length);
+	}
+
+	/**
+	 * Waits until every message submitted so far has been processed.
+	 *
+	 * @throws IllegalStateException if a shard has failed.
+	 */
+	public void flush() {
+		callOnAllShards(venue -> null);
+	}
+
+	/**
+	 * Aggregates the volume per BBGCode and price across all shards. Each
+	 * shard's part of the aggregation is taken on the shard's thread.
+	 *
+	 * @param side
+	 * @return Returns the volume aggregation of orders in a String CSV format
+	 * in the order "BBGCode,Price,AggregatedVolume".
+	 */
+	public String aggregateByBbgCode(SideEnum side) {
+		List<String> parts = callOnAllShards(venue -> venue.aggregateByBbgCode(side));
+
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < parts.size(); i++) {
+			String part = parts.get(i);
+			// Every shard's aggregation starts with the same header line.
+			builder.append(i == 0 ? part : part.substring(part.indexOf('\n') + 1));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Aggregates the volume per Strategy, Portfolio or User and price across
+	 * all shards, by combining the totals of each shard's master book on the
+	 * shard's thread, one shard after another.
+	 *
+	 * @param input The order property to be aggregated against (Strategy,
+	 * Portfolio or User).
+	 * @param side
+	 * @return Returns the volume aggregation of orders in a String CSV format
+	 * in the order "property,Price,AggregatedVolume".
+	 */
+	public String aggregateOrders(String input, SideEnum side) {
+		MasterBook combined = new MasterBook();
+
+		for (int i = 0; i < shards.length; i++) {
+			join(callOnShard(i, venue -> {
+				combined.addTotalsFrom(venue.getMasterBook());
+				return null;
+			}));
+		}
+
+		return combined.aggregateOrders(input, side);
+	}
+
+	/**
+	 * Registers a rollup with every shard's aggregation cube, so that queries
+	 * for the combination, or any it covers, no longer scan the books.
+	 *
+	 * @param groupBy
+	 */
+	public void registerAggregation(GroupBy groupBy) {
+		callOnAllShards(venue -> {
+			venue.getAggregationCube().register(groupBy);
+			return null;
+		});
+	}
+
+	/**
+	 * Aggregates the resting volume across all shards by a combination of
+	 * fields. Each shard answers from its own cube on its own thread, so the
+	 * shards work in parallel, and the parts are then combined.
+	 *
+	 * @param groupBy
+	 * @return The volume per group.
+	 */
+	public CubeResult query(GroupBy groupBy) {
+		// The shards already run in parallel, so each scans on its own thread.
+		List<CubeResult> parts = callOnAllShards(venue ->
+				venue.getAggregationCube().query(groupBy, Runnable::run));
+
+		return CubeResult.combine(groupBy, parts);
+	}
+
+	/**
+	 * Stops the shards once the messages already submitted have been
+	 * processed, and closes their journals and order archives.
+	 *
+	 * @throws IOException if a journal or archive fails to close, once all of
+	 * them have been closed. Any further failures are suppressed by the first.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (!running)
+				return;
+
+			for (ShardQueue queue : queues)
+				queue.publish(STOP);
+
+			running = false;
+		}
+
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		IOException failure = null;
+
+		for (JournalWriter journal : journals) {
+			if (journal == null)
+				continue;
+
+			try {
+				journal.close();
+			} catch (IOException e) {
+				failure = addFailure(failure, new IOException("Failed to close "
+						                                      + journal.getPath(), e));
+			}
+		}
+
+		for (OrderArchive archive : archives) {
+			if (archive == null)
+				continue;
+
+			try {
+				archive.close();
+			} catch (IOException e) {
+				failure = addFailure(failure, new IOException("Failed to close "
+						                                      + archive.getPath(), e));
+			}
+		}
+
+		if (failure != null)
+			throw failure;
+	}
+
+	private static IOException addFailure(IOException first, IOException next) {
+		if (first == null)
+			return next;
+
+		first.addSuppressed(next);
+		return first;
+	}
+
+	/**
+	 * Processes a shard's queue until it is stopped. Messages are skipped
+	 * once the shard has failed, but the queue is still drained, so that
+	 * submitters never wait on a shard which has stopped, and tasks still run
+	 * to fail their futures.
+	 */
+	private void runShard(int shard) {
+		TradingVenue venue = shards[shard];
+		ShardQueue queue = queues[shard];
+
+		while (true) {
+			ShardQueue.Slot slot = queue.take();
+
+			if (slot.task == STOP) {
+				queue.release();
+				return;
+			}
+
+			if (slot.task != null) {
+				// Tasks complete their own futures, even if they fail.
+				slot.task.run();
+			} else if (failures.get(shard) == null) {
+				try {
+					process(venue, slot.message);
+				} catch (RuntimeException | Error e) {
+					fail(shard, e);
+				}
+			}
+
+			queue.release();
+		}
+	}
+
+	/**
+	 * Submits a message to a shard's venue, passing a reject to the reject
+	 * listener.
+	 */
+	private void process(TradingVenue venue, OrderMessage orderMessage) {
+		try {
+			venue.submitToOrderBook(orderMessage);
+		} catch (OrderRejectedException e) {
+			RejectListener listener = rejectListener;
+			if (listener != null)
+				listener.onReject(orderMessage, e.getReason());
+		}
+	}
+
+	private long recoverShards(Path directory, boolean fromSnapshots)
+			throws IOException {
+		List<CompletableFuture<Long>> futures = new ArrayList<CompletableFuture<Long>>();
+
+		for (int i = 0; i < shards.length; i++) {
+			Path snapshot = snapshotPath(directory, i);
+			Path journal = journalPath(directory, i);
+
+			futures.add(callOnShard(i, venue -> {
+				try {
+					long fromSequence = 0;
+					if (fromSnapshots && Files.exists(snapshot))
+						fromSequence = new SnapshotReader(snapshot).restore(venue);
+
+					if (fromSequence < 0 || !Files.exists(journal))
+						return 0L;
+
+					return venue.replayJournal(journal, fromSequence);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		}
+
+		long replayed = 0;
+
+		try {
+			for (CompletableFuture<Long> future : futures)
+				replayed += join(future);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		return replayed;
+	}
+
+	private static Path snapshotPath(Path directory, int shard) {
+		return directory.resolve("snapshot-" + shard + ".bin");
+	}
+
+	private static Path journalPath(Path directory, int shard) {
+		return directory.resolve("journal-" + shard + ".bin");
+	}
+
+	private static Path archivePath(Path directory, int shard) {
+		return directory.resolve("archive-" + shard);
+	}
+
+	private void checkRunning() {
+		if (!running)
+			throw new IllegalStateException("The venue has been closed");
+	}
+
+	/**
+	 * Records the failure which stops a shard, keeping the first.
+	 */
+	private void fail(int shard, Throwable failure) {
+		failures.compareAndSet(shard, null, failure);
+	}
+
+	private void checkShard(int shard) {
+		Throwable failure = failures.get(shard);
+		if (failure != null)
+			throw shardFailed(shard, failure);
+	}
+
+	private static IllegalStateException shardFailed(int shard, Throwable failure) {
+		return new IllegalStateException("Shard " + shard + " has failed", failure);
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+
+			throw e;
+		}
+	}
+
+}
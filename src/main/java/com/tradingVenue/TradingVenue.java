@@ -1,14 +1,27 @@
 package com.tradingVenue;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import com.aggregation.AggregationCube;
+import com.archive.OrderArchive;
 import com.constant.Types.ActionEnum;
 import com.constant.Types.SideEnum;
+import com.execution.ExecutionRing;
+import com.journal.JournalReader;
+import com.journal.JournalWriter;
+import com.marketData.MarketData;
+import com.metrics.VenueMetrics;
 import com.orderBook.Order;
+import com.orderBook.OffHeapOrderStore;
 import com.orderBook.OrderBook;
+import com.orderBook.OrderPool;
+import com.orderBook.TickSize;
+import com.risk.RiskCheck;
+import com.util.LongLongHashMap;
 
 /**
  * The trading venue which receives order messages as strings and allocates them 
@@ -18,23 +31,296 @@ import com.orderBook.OrderBook;
  * By submitting the order to its order book, the order is also automatically
  * executed if necessary.
  * 
+ * Messages can also be submitted in batches (see submitBatch), which report
+ * the outcome of each message.
+ * 
+ * Prices are converted into ticks when a message is parsed, using the tick 
+ * size configured for the order's instrument, or DEFAULT_TICK_SIZE if none 
+ * has been configured. A new order or amend whose price is not a whole number
+ * of ticks is rejected rather than rounded. The price of a cancel is not 
+ * used, so it is not checked.
+ * 
+ * If a journal is set, every message accepted by the venue is appended to it
+ * before it is processed, and the venue's state can later be rebuilt by
+ * replaying the journal into a new venue. If an order archive is set, every
+ * accepted order is also appended to it, for analysis after the fact.
+ * 
+ * If a risk check is set, every message is checked against the limits of its
+ * Account, User and Strategy before anything else, and a message which breaks
+ * a limit is rejected without being journaled or reaching its order book.
+ * 
+ * Orders are taken from the venue's OrderPool and released back to it by the
+ * order books once they are filled, cancelled or amended, so the venue must
+ * only be used from one thread at a time.
+ * 
  * @author Zane Ali
  *
  */
 public class TradingVenue {
 	
+	public static final TickSize DEFAULT_TICK_SIZE = TickSize.of("0.0001");
+	
 	private Map<String, OrderBook> orderBooks = 
                                   new HashMap<String, OrderBook>();		
+	private Map<String, TickSize> tickSizes = new HashMap<String, TickSize>();
 	private MasterBook masterBook = new MasterBook();
+	private AggregationCube aggregationCube;
+	
+	private OrderMessageParser parser = new OrderMessageParser();
+	private OrderMessage message = new OrderMessage();
+	private OrderBatch batch = new OrderBatch();
+	private OrderPool orderPool = new OrderPool();
+	private OffHeapOrderStore orderStore;
+	
+	private JournalWriter journal;
+	private OrderArchive orderArchive;
+	private ExecutionRing executions;
+	private VenueMetrics metrics;
+	private MarketData marketData;
+	private RiskCheck riskCheck;
 	
 	public Map<String, OrderBook> getOrderBooks(){
 		return orderBooks;
 	}
 	
+	/**
+	 * Sets the tick size of an instrument. This must be done before the first
+	 * order for the instrument reaches the venue.
+	 * 
+	 * @param bbgCode
+	 * @param tickSize
+	 */
+	public void setTickSize(String bbgCode, TickSize tickSize) {
+		if (orderBooks.containsKey(bbgCode))
+			throw new IllegalStateException("The order book for " + bbgCode
+					                        + " already exists");
+		
+		tickSizes.put(bbgCode, tickSize);
+	}
+	
+	public TickSize getTickSize(String bbgCode) {
+		return tickSizes.getOrDefault(bbgCode, DEFAULT_TICK_SIZE);
+	}
+	
+	/**
+	 * @return The tick sizes which have been configured, keyed by BBGCode.
+	 */
+	public Map<String, TickSize> getTickSizes() {
+		return Collections.unmodifiableMap(tickSizes);
+	}
+	
+	/**
+	 * Creates the empty order book of an instrument with its tick size. Books
+	 * are created when their first order arrives, or when they are restored
+	 * from a snapshot.
+	 * 
+	 * @param bbgCode
+	 * @return The new order book.
+	 */
+	public OrderBook createOrderBook(String bbgCode) {
+		if (orderBooks.containsKey(bbgCode))
+			throw new IllegalStateException("The order book for " + bbgCode
+					                        + " already exists");
+		
+		OrderBook orderBook = orderStore == null 
+				              ? new OrderBook(getTickSize(bbgCode))
+				              : new OrderBook(getTickSize(bbgCode), orderStore);
+		orderBook.setOrderPool(orderPool);
+		orderBook.setExecutionRing(executions);
+		if (metrics != null)
+			orderBook.setMetrics(metrics.forInstrument(bbgCode));
+		if (marketData != null) {
+			orderBook.setDepthBook(marketData.forInstrument(bbgCode));
+			orderBook.setTradeStats(marketData.tradeStatsFor(bbgCode));
+		}
+		orderBooks.put(bbgCode, orderBook);
+		return orderBook;
+	}
+	
 	public MasterBook getMasterBook() {
 		return masterBook;		
 	}
 	
+	/**
+	 * The cube is created, and the master book starts passing changes to it,
+	 * the first time it is asked for, so a venue without one pays nothing.
+	 * 
+	 * @return The cube which aggregates this venue's resting volume by any
+	 * combination of fields.
+	 */
+	public AggregationCube getAggregationCube() {
+		if (aggregationCube == null) {
+			aggregationCube = new AggregationCube(orderBooks);
+			masterBook.setAggregationCube(aggregationCube);
+		}
+		
+		return aggregationCube;
+	}
+	
+	/**
+	 * @return Whether the aggregation cube has been created, i.e. whether
+	 * getAggregationCube has been called.
+	 */
+	public boolean hasAggregationCube() {
+		return aggregationCube != null;
+	}
+	
+	public OrderPool getOrderPool() {
+		return orderPool;
+	}
+	
+	/**
+	 * Sets the store which the order books created from now on keep their
+	 * resting orders in, rather than on the heap, or null to go back to the
+	 * heap. This is meant for venues with very deep books and is usually set
+	 * before the first order. The venue does not close the store.
+	 * 
+	 * @param orderStore
+	 */
+	public void setOrderStore(OffHeapOrderStore orderStore) {
+		this.orderStore = orderStore;
+	}
+	
+	public OffHeapOrderStore getOrderStore() {
+		return orderStore;
+	}
+	
+	/**
+	 * Sets the journal which every accepted message is appended to, or null
+	 * to stop journaling. The venue does not close the journal.
+	 * 
+	 * @param journal
+	 */
+	public void setJournal(JournalWriter journal) {
+		this.journal = journal;
+	}
+	
+	public JournalWriter getJournal() {
+		return journal;
+	}
+	
+	/**
+	 * Sets the columnar archive which every accepted order is appended to, or
+	 * null to stop archiving. The venue does not close the archive.
+	 * 
+	 * @param orderArchive
+	 */
+	public void setOrderArchive(OrderArchive orderArchive) {
+		this.orderArchive = orderArchive;
+	}
+	
+	public OrderArchive getOrderArchive() {
+		return orderArchive;
+	}
+	
+	/**
+	 * Sets the ring which the fills of every order book are published to, or
+	 * null to stop publishing fills.
+	 * 
+	 * @param executions
+	 */
+	public void setExecutionRing(ExecutionRing executions) {
+		this.executions = executions;
+		
+		for (OrderBook orderBook : orderBooks.values())
+			orderBook.setExecutionRing(executions);
+	}
+	
+	/**
+	 * Sets the metrics which every order book records its messages into, or
+	 * null to stop recording.
+	 * 
+	 * @param metrics
+	 */
+	public void setMetrics(VenueMetrics metrics) {
+		this.metrics = metrics;
+		
+		for (Map.Entry<String, OrderBook> entry : orderBooks.entrySet())
+			entry.getValue().setMetrics(metrics == null ? null 
+					                    : metrics.forInstrument(entry.getKey()));
+	}
+	
+	/**
+	 * Sets the market data which every order book publishes its top levels
+	 * and fills to, or null to stop publishing them.
+	 * 
+	 * @param marketData
+	 */
+	public void setMarketData(MarketData marketData) {
+		this.marketData = marketData;
+		
+		for (Map.Entry<String, OrderBook> entry : orderBooks.entrySet()) {
+			entry.getValue().setDepthBook(marketData == null ? null 
+					                      : marketData.forInstrument(entry.getKey()));
+			entry.getValue().setTradeStats(marketData == null ? null 
+					                       : marketData.tradeStatsFor(entry.getKey()));
+		}
+	}
+	
+	public MarketData getMarketData() {
+		return marketData;
+	}
+	
+	/**
+	 * Sets the risk check which every message must pass before it is
+	 * processed, or null to stop checking. The orders already resting are
+	 * added to its open notional.
+	 * 
+	 * @param riskCheck
+	 */
+	public void setRiskCheck(RiskCheck riskCheck) {
+		this.riskCheck = riskCheck;
+		masterBook.setRiskCheck(riskCheck);
+		
+		if (riskCheck != null)
+			riskCheck.addRestingOrders(orderBooks.values());
+	}
+	
+	public RiskCheck getRiskCheck() {
+		return riskCheck;
+	}
+	
+	/**
+	 * Rebuilds the order books and the master book by submitting every
+	 * message of a journal, in sequence. The replayed messages are not
+	 * appended to this venue's own journal or order archive, nor risk
+	 * checked again.
+	 * 
+	 * @param path The journal file.
+	 * @return The number of messages replayed.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	public long replayJournal(Path path) throws IOException {
+		return replayJournal(path, 0);
+	}
+	
+	/**
+	 * Submits the messages of a journal from a sequence number onwards, e.g.
+	 * those which arrived after the snapshot this venue was restored from.
+	 * 
+	 * @param path The journal file.
+	 * @param fromSequence The sequence number of the first message to replay.
+	 * @return The number of messages replayed.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	public long replayJournal(Path path, long fromSequence) throws IOException {
+		JournalWriter current = journal;
+		OrderArchive currentArchive = orderArchive;
+		RiskCheck currentRiskCheck = riskCheck;
+		journal = null;
+		orderArchive = null;
+		riskCheck = null;
+		
+		try {
+			return new JournalReader(path).replay(fromSequence, 
+					                              this::submitToOrderBook);
+		} finally {
+			journal = current;
+			orderArchive = currentArchive;
+			riskCheck = currentRiskCheck;
+		}
+	}
+	
 	/**
 	 * Submits a list of comma-separated order message strings to the order
 	 * book. Useful for loading large sets of data.
@@ -48,29 +334,121 @@ public class TradingVenue {
 		}				
 	}
 	
+	/**
+	 * Submits a batch of comma-separated order message strings and reports
+	 * the outcome of each one, rather than stopping at the first malformed
+	 * message.
+	 * 
+	 * The messages are parsed first and grouped by BBGCode, so each order book
+	 * is looked up once per batch and its messages are processed back to 
+	 * back. The messages of one instrument are processed in the order they
+	 * appear in the batch, but instruments may be processed in any order.
+	 * 
+	 * @param orderMessages
+	 * @return The outcome of each message, by its position in the batch.
+	 */
+	public BatchResult submitBatch(List<String> orderMessages) {
+		BatchResult result = new BatchResult(orderMessages.size());
+		submitBatch(orderMessages, null, orderMessages.size(), result);
+		return result;
+	}
+	
+	/**
+	 * Submits some of the messages of a batch, e.g. those for one shard.
+	 * 
+	 * @param orderMessages The whole batch.
+	 * @param positions The positions in the batch of the messages to submit,
+	 * or null to submit the first count messages.
+	 * @param count
+	 * @param result The result of the whole batch, which is only written at
+	 * the positions submitted.
+	 */
+	void submitBatch(List<String> orderMessages, int[] positions, int count,
+			         BatchResult result) {
+		
+		batch.parse(orderMessages, positions, count, parser, result);
+		processBatch(result);
+	}
+	
+	/**
+	 * Submits a batch of order messages held as UTF-8 bytes, e.g. straight
+	 * from a network buffer, without decoding them into Strings (see
+	 * submitBatch(List)).
+	 * 
+	 * @param buffer
+	 * @param offsets The index of the first byte of each message.
+	 * @param lengths The number of bytes in each message.
+	 * @param count The number of messages.
+	 * @param result The result to write the outcome of each message into, by
+	 * its position in the batch, which may be reused from batch to batch.
+	 * @throws IllegalArgumentException if the batch is larger than the result.
+	 */
+	public void submitBatch(byte[] buffer, int[] offsets, int[] lengths, int count,
+			                BatchResult result) {
+		
+		result.begin(count);
+		batch.parse(buffer, offsets, lengths, count, parser, result);
+		processBatch(result);
+	}
+	
+	/**
+	 * Processes the parsed batch one BBGCode at a time.
+	 */
+	private void processBatch(BatchResult result) {
+		
+		for (int group = 0; group < batch.getGroupCount(); group++) {
+			String bbgCode = batch.getBbgCode(group);
+			
+			OrderBook orderBook = orderBooks.get(bbgCode);
+			if (orderBook == null)
+				orderBook = createOrderBook(bbgCode);
+			
+			TickSize tickSize = orderBook.getTickSize();
+			
+			for (int i = batch.getGroupStart(group); i < batch.getGroupEnd(group); i++) {
+				OrderMessage orderMessage = batch.getMessage(i);
+				int index = batch.getIndex(i);
+				
+				RiskCheck risk = riskCheck;
+				if (risk != null) {
+					String reason = risk.check(orderMessage, tickSize);
+					if (reason != null) {
+						result.reject(index, reason);
+						continue;
+					}
+				}
+				
+				long fillCount = orderBook.getFillCount();
+				long filledVolume = orderBook.getFilledVolume();
+				int orderCount = orderBook.getOrderCount();
+				
+				int restingVolume;
+				try {
+					Order order = createJournaledOrder(orderMessage, tickSize, orderBook);
+					restingVolume = orderBook.processOrder(order, masterBook);
+				} catch (OrderRejectedException e) {
+					result.reject(index, e.getReason());
+					continue;
+				} finally {
+					if (risk != null)
+						risk.release(orderMessage, tickSize);
+				}
+				
+				if (orderMessage.getAction() == ActionEnum.CANCEL
+					&& orderBook.getOrderCount() == orderCount)
+					result.reject(index, BatchResult.NO_RESTING_ORDER);
+				else
+					result.accept(index, 
+							      (int) (orderBook.getFillCount() - fillCount),
+							      orderBook.getFilledVolume() - filledVolume,
+							      restingVolume);
+			}
+		}
+	}
+	
     /**
      * Submits a singular comma-separated order message string to the order
      * book.
-     * 
-     * @param orderMessage
-     */
-    public void submitToOrderBook (String orderMessage) {
-    	
-    	Order order = parseOrderMessage(orderMessage);
-
-        if (!orderBooks.containsKey(order.getBbgCode())) {
-            orderBooks.put(order.getBbgCode(), new OrderBook());		
-        }
-
-        OrderBook currentBook = orderBooks.get(order.getBbgCode());		
-        currentBook.processOrder(order, masterBook);
-    }
-    
-    
-    /**
-     * 
-     * A helper method to parse an order message and create its corresponding
-     *  order object.
      *  
      *  The order message must be in the format:
      *   
@@ -83,29 +461,123 @@ public class TradingVenue {
      * the TradeTimeUTC is in the format: yyyy-MM-ddTHH:mm:ss.SSSSSS.
      * 
      * @param orderMessage
-     * @return The order object corresponding to the input order message string.
+     * @throws MalformedOrderMessageException if the message cannot be parsed.
+     * @throws OrderRejectedException if the message breaks a risk limit, has
+     * a price off its tick, or is a new order with the TradeID of a resting
+     * order.
      */
-	private Order parseOrderMessage(String orderMessage) {
-		
-    	String[] orderData = orderMessage.split(",");
+    public void submitToOrderBook (String orderMessage) {
     	
-    	DateTimeFormatter formatter = 
-    			DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
-    	LocalDateTime timestamp = LocalDateTime.parse(orderData[11], formatter);
-
+    	if (!parser.parse(orderMessage, message))
+    		throw new MalformedOrderMessageException(message);
     	
-    	Order order = new Order(orderData[0],
-    			                orderData[1], 
-    			                orderData[2],
-    			                SideEnum.valueOf(orderData[3]),
-    			                Double.valueOf(orderData[4]),
-    			                Integer.valueOf(orderData[5]),
-    			                orderData[6],
-    			                ActionEnum.valueOf(orderData[7]),
-    			                orderData[8],
-    			                orderData[9],
-    			                orderData[10],
-    			                timestamp);
+    	submitToOrderBook(message);
+    }
+    
+    /**
+     * Submits an order message which has already been parsed to the order
+     * book.
+     * 
+     * @param orderMessage
+     * @throws OrderRejectedException if the message breaks a risk limit, has
+     * a price off its tick, or is a new order with the TradeID of a resting
+     * order.
+     */
+    public void submitToOrderBook (OrderMessage orderMessage) {
+    	
+    	RiskCheck risk = riskCheck;
+    	TickSize tickSize = getTickSize(orderMessage.getBbgCode());
+    	
+    	if (risk != null) {
+    		String reason = risk.check(orderMessage, tickSize);
+    		if (reason != null)
+    			throw new OrderRejectedException(reason);
+    	}
+    	
+    	try {
+    		OrderBook currentBook = orderBooks.get(orderMessage.getBbgCode());
+    		if (currentBook == null)
+    			currentBook = createOrderBook(orderMessage.getBbgCode());
+    		
+    		Order order = createJournaledOrder(orderMessage, tickSize, currentBook);
+    		currentBook.processOrder(order, masterBook);
+    	} finally {
+    		if (risk != null)
+    			risk.release(orderMessage, tickSize);
+    	}
+    }
+    
+    
+    /**
+     * Fills an order from the venue's pool and appends the message to the
+     * journal and the order to the order archive. A new order or amend whose
+     * price is off its tick, or a new order with the TradeID of an order
+     * resting on its book, is rejected before it is journaled. If it is rejected or the journal append fails, the order goes
+     * back to the pool before the failure is rethrown, as it will never reach
+     * its book. The archive append comes last and never throws, as the
+     * message has been journaled by then (see OrderArchive).
+     * 
+     * @param orderMessage
+     * @param tickSize The tick size of the order's instrument.
+     * @param orderBook The order book of the order's instrument.
+     * @return The order object corresponding to the order message.
+     * @throws OrderRejectedException if the price is off its tick, or the
+     * order is new and its TradeID is already resting.
+     */
+	private Order createJournaledOrder(OrderMessage orderMessage, TickSize tickSize,
+			                           OrderBook orderBook) {
+		if (orderMessage.getAction() != ActionEnum.CANCEL
+			&& !tickSize.isOnTick(orderMessage.getUnscaledPrice(),
+					              orderMessage.getPriceDecimals()))
+			throw new OrderRejectedException(BatchResult.OFF_TICK_PRICE);
+		
+		Order order = createOrder(orderMessage, tickSize);
+		
+		try {
+			if (order.getAction() == ActionEnum.NEW && orderBook.hasRestingOrder(order))
+				throw new OrderRejectedException(BatchResult.DUPLICATE_TRADE_ID);
+			if (journal != null)
+				journal.append(orderMessage);
+		} catch (RuntimeException | Error e) {
+			orderPool.release(order);
+			throw e;
+		}
+		
+		if (orderArchive != null)
+			orderArchive.append(order);
+		
+		return order;
+	}
+	
+    /**
+     * 
+     * A helper method to fill an order from the venue's pool with a parsed
+     * order message, converting its price into ticks of the instrument's
+     * tick size.
+     * 
+     * @param orderMessage
+     * @param tickSize The tick size of the order's instrument.
+     * @return The order object corresponding to the order message.
+     */
+	private Order createOrder(OrderMessage orderMessage, TickSize tickSize) {
+    	
+    	Order order = orderPool.acquire();
+    	order.set(orderMessage.getTradeIdBytes(),
+    			  0,
+    			  orderMessage.getTradeIdLength(),
+    			  orderMessage.getBbgCode(), 
+    			  orderMessage.getCurrency(),
+    			  orderMessage.getSide(),
+    			  tickSize.toTicks(orderMessage.getUnscaledPrice(),
+    					           orderMessage.getPriceDecimals()),
+    			  tickSize,
+    			  orderMessage.getVolume(),
+    			  orderMessage.getPortfolio(),
+    			  orderMessage.getAction(),
+    			  orderMessage.getAccount(),
+    			  orderMessage.getStrategy(),
+    			  orderMessage.getUser(),
+    			  orderMessage.getTradeTimeNanos());
     	
         return order;
 	}
@@ -125,25 +597,19 @@ public class TradingVenue {
 			
 		for(Map.Entry<String, OrderBook> orderBookEntry : orderBooks.entrySet()) 
 		{
+			String bbgCode = orderBookEntry.getKey();
+			OrderBook orderBook = orderBookEntry.getValue();
+			TickSize tickSize = orderBook.getTickSize();
 			
-			if(side == SideEnum.B) {
-				for(Map.Entry<Double, Integer> aggregationEntry : 
-					orderBookEntry.getValue().getBidsAggregation().entrySet()) {
-					
-					builder.append(orderBookEntry.getKey() + "," +
-							       aggregationEntry.getKey() + "," +
-							       aggregationEntry.getValue() + "\n");
-				}
-			} else {
-				for(Map.Entry<Double, Integer> aggregationEntry : 
-					orderBookEntry.getValue().getBidsAggregation().entrySet()) {
-					
-					builder.append(orderBookEntry.getKey() + "," +
-							       aggregationEntry.getKey() + "," +
-							       aggregationEntry.getValue() + "\n");
-				}
-			}								
-
+			LongLongHashMap aggregation = side == SideEnum.B 
+					                          ? orderBook.getBidsAggregation() 
+					                          : orderBook.getAsksAggregation();
+			
+			aggregation.forEach((priceTicks, volume) -> {
+				builder.append(bbgCode).append(',');
+				tickSize.appendPrice(builder, priceTicks).append(',');
+				builder.append(volume).append('\n');
+			});
 		}
 		
 		return builder.toString();
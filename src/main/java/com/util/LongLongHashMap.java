@@ -0,0 +1,260 @@
+package com.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive long keys to primitive long
+ * values, used for aggregations keyed by price in ticks.
+ *
+ * Unlike a HashMap&lt;Long, Long&gt; it does not box keys or values and does not
+ * allocate an entry per key, so updating an existing key never allocates.
+ * Keys with a value of zero are treated as absent: adding to a key until it
+ * reaches zero removes it.
+ *
+ * Long.MIN_VALUE is reserved to mark empty slots and cannot be used as a key.
+ *
+ * @author Zane Ali
+ *
+ */
+public class LongLongHashMap {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * Receives the entries of a map during iteration.
+	 */
+	public interface EntryConsumer {
+		void accept(long key, long value);
+	}
+
+	private long[] keys;
+	private long[] values;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+
+	public LongLongHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongLongHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 4)) * 2;
+		allocate(capacity);
+	}
+
+	/**
+	 * Creates a copy of another map, by copying its arrays as they are.
+	 *
+	 * @param other
+	 */
+	public LongLongHashMap(LongLongHashMap other) {
+		keys = other.keys.clone();
+		values = other.values.clone();
+		mask = other.mask;
+		size = other.size;
+		resizeThreshold = other.resizeThreshold;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param key
+	 * @return The value for the key, or zero if the key is absent.
+	 */
+	public long get(long key) {
+		int index = indexOf(key);
+		return index < 0 ? 0 : values[index];
+	}
+
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * Sets the value for a key. Setting a value of zero removes the key.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void put(long key, long value) {
+		if (value == 0) {
+			remove(key);
+			return;
+		}
+
+		int index = slot(key);
+
+		if (keys[index] == EMPTY) {
+			insert(index, key, value);
+		} else {
+			values[index] = value;
+		}
+	}
+
+	/**
+	 * Adds a delta to the value for a key, treating an absent key as zero. The
+	 * key is removed if its value becomes zero.
+	 *
+	 * @param key
+	 * @param delta
+	 * @return The new value for the key.
+	 */
+	public long addTo(long key, long delta) {
+		int index = slot(key);
+
+		if (keys[index] == EMPTY) {
+			if (delta != 0)
+				insert(index, key, delta);
+			return delta;
+		}
+
+		long value = values[index] + delta;
+
+		if (value == 0)
+			removeAt(index);
+		else
+			values[index] = value;
+
+		return value;
+	}
+
+	/**
+	 * @param key
+	 * @return The value which was removed, or zero if the key was absent.
+	 */
+	public long remove(long key) {
+		int index = indexOf(key);
+
+		if (index < 0)
+			return 0;
+
+		long value = values[index];
+		removeAt(index);
+		return value;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	/**
+	 * Passes every entry to the consumer, in no particular order. The map must
+	 * not be modified during iteration.
+	 *
+	 * @param consumer
+	 */
+	public void forEach(EntryConsumer consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY)
+				consumer.accept(keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * @return The keys of the map in ascending order.
+	 */
+	public long[] sortedKeys() {
+		long[] sorted = new long[size];
+		int n = 0;
+
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY)
+				sorted[n++] = keys[i];
+		}
+
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	private int indexOf(long key) {
+		int index = slot(key);
+		return keys[index] == EMPTY ? -1 : index;
+	}
+
+	/**
+	 * @return The slot holding the key, or the empty slot where it belongs.
+	 */
+	private int slot(long key) {
+		if (key == EMPTY)
+			throw new IllegalArgumentException("Long.MIN_VALUE cannot be a key");
+
+		int index = hash(key) & mask;
+
+		while (keys[index] != EMPTY && keys[index] != key)
+			index = (index + 1) & mask;
+
+		return index;
+	}
+
+	private void insert(int index, long key, long value) {
+		keys[index] = key;
+		values[index] = value;
+
+		if (++size > resizeThreshold)
+			rehash(keys.length * 2);
+	}
+
+	/**
+	 * Removes the entry at an index by shifting back any entries further along
+	 * the probe sequence, so that lookups never need tombstones.
+	 */
+	private void removeAt(int index) {
+		size--;
+		int gap = index;
+		int next = (gap + 1) & mask;
+
+		while (keys[next] != EMPTY) {
+			int home = hash(keys[next]) & mask;
+
+			// Move the entry into the gap unless its home slot lies cyclically
+			// between the gap and its current position.
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+
+			next = (next + 1) & mask;
+		}
+
+		keys[gap] = EMPTY;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+
+		allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int index = slot(oldKeys[i]);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+				size++;
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity - 1;
+		size = 0;
+		resizeThreshold = capacity / 2;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,240 @@
+package com.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.tradingVenue.OrderMessage;
+import com.tradingVenue.OrderMessageParser;
+
+/**
+ * A utility class used to bulk load CSV files of order messages.
+ *
+ * The file is memory-mapped and split into chunks on line boundaries, and the
+ * chunks are parsed in parallel by a pool of worker threads, each with its own
+ * parser. Parsed messages are then handed to a consumer on the calling thread
+ * in their original order. Only a bounded number of chunks are in flight at
+ * once, and their buffers and message holders are reused, so memory use does
+ * not grow with the size of the file.
+ *
+ * Malformed lines are reported with their line number and skipped, and blank
+ * lines are ignored.
+ *
+ * @author Zane Ali
+ *
+ */
+public class OrderFileLoader {
+
+	public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	// How far past the end of its chunk a worker will look for the end of the
+	// chunk's last line.
+	private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+	private final Path path;
+	private final int threads;
+	private final int chunkSize;
+
+	public OrderFileLoader(Path path) {
+		this(path, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public OrderFileLoader(Path path, int threads, int chunkSize) {
+		if (threads < 1 || chunkSize < 1)
+			throw new IllegalArgumentException("The thread count and chunk size "
+					                           + "must be positive");
+
+		this.path = path;
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Parses every order message in the file and passes them, in file order,
+	 * to the consumer on the calling thread. The OrderMessage passed to the
+	 * consumer is reused once the consumer returns.
+	 *
+	 * @param headerExists Whether the first line of the file is a header.
+	 * @param consumer The receiver of the parsed messages, e.g. a venue's
+	 * submitToOrderBook.
+	 * @return The number of messages passed to the consumer.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public long load(boolean headerExists, Consumer<OrderMessage> consumer)
+			throws IOException {
+
+		ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "order-file-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		int inFlight = threads * 2;
+		BlockingQueue<Chunk> freeChunks = new ArrayBlockingQueue<Chunk>(inFlight);
+		for (int i = 0; i < inFlight; i++)
+			freeChunks.add(new Chunk());
+
+		ArrayDeque<Future<Chunk>> pending = new ArrayDeque<Future<Chunk>>();
+		ThreadLocal<OrderMessageParser> parsers =
+				ThreadLocal.withInitial(OrderMessageParser::new);
+
+		long delivered = 0;
+		long lineNumber = 0;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			long nextStart = 0;
+
+			while (nextStart < size || !pending.isEmpty()) {
+
+				while (nextStart < size && pending.size() < inFlight) {
+					Chunk chunk = freeChunks.take();
+					long start = nextStart;
+					boolean first = start == 0;
+
+					pending.add(workers.submit(() -> {
+						chunk.parse(channel, size, start, chunkSize, first && headerExists,
+								    parsers.get());
+						return chunk;
+					}));
+
+					nextStart += chunkSize;
+				}
+
+				Chunk chunk = pending.poll().get();
+
+				for (int i = 0; i < chunk.count; i++) {
+					OrderMessage message = chunk.messages[i];
+
+					if (message.isMalformed()) {
+						System.err.println("Skipping line " + (lineNumber + chunk.lines[i])
+								           + ": malformed " + message.getErrorField()
+								           + " at position " + message.getErrorPosition()
+								           + ", " + message.getErrorReason());
+					} else {
+						consumer.accept(message);
+						delivered++;
+					}
+				}
+
+				lineNumber += chunk.lineCount;
+				freeChunks.add(chunk);
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading " + path, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw new IOException("Failed to parse " + path, e.getCause());
+		} finally {
+			workers.shutdownNow();
+		}
+
+		return delivered;
+	}
+
+	/**
+	 * The lines of one chunk of the file and their parsed messages. A chunk
+	 * owns every line which starts within its range of the file.
+	 */
+	private static class Chunk {
+
+		private byte[] bytes = new byte[0];
+
+		private OrderMessage[] messages = new OrderMessage[0];
+		// The line number of each message, relative to the start of the chunk.
+		private int[] lines = new int[0];
+		private int count;
+		private int lineCount;
+
+		void parse(FileChannel channel, long size, long start, int chunkSize,
+				   boolean skipHeader, OrderMessageParser parser) throws IOException {
+
+			count = 0;
+			lineCount = 0;
+
+			// Include the byte before the chunk to tell whether the chunk begins
+			// at the start of a line.
+			long mapStart = Math.max(start - 1, 0);
+			long mapEnd = Math.min(size, start + chunkSize + MAX_LINE_LENGTH);
+			int length = (int) (mapEnd - mapStart);
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+					                              mapStart, length);
+			if (bytes.length < length)
+				bytes = new byte[length];
+			buffer.get(bytes, 0, length);
+
+			int chunkEnd = (int) (Math.min(size, start + chunkSize) - mapStart);
+			int position = (int) (start - mapStart);
+
+			// Skip the tail of a line which started in the previous chunk.
+			if (start > 0) {
+				while (bytes[position - 1] != '\n' && position < chunkEnd)
+					position++;
+			}
+
+			boolean header = skipHeader;
+
+			while (position < chunkEnd) {
+				int lineEnd = position;
+				while (lineEnd < length && bytes[lineEnd] != '\n')
+					lineEnd++;
+
+				if (lineEnd == length && mapEnd < size)
+					throw new IOException("A line at byte " + (mapStart + position)
+							              + " is longer than " + MAX_LINE_LENGTH
+							              + " bytes");
+
+				lineCount++;
+
+				if (header) {
+					header = false;
+				} else if (!isBlank(bytes, position, lineEnd)) {
+					OrderMessage message = nextMessage();
+					parser.parse(bytes, position, lineEnd - position, message);
+					lines[count - 1] = lineCount;
+				}
+
+				position = lineEnd + 1;
+			}
+		}
+
+		private OrderMessage nextMessage() {
+			if (count == messages.length) {
+				int capacity = Math.max(1024, count * 2);
+				messages = Arrays.copyOf(messages, capacity);
+				lines = Arrays.copyOf(lines, capacity);
+
+				for (int i = count; i < capacity; i++)
+					messages[i] = new OrderMessage();
+			}
+
+			return messages[count++];
+		}
+
+		private static boolean isBlank(byte[] bytes, int start, int end) {
+			for (int i = start; i < end; i++) {
+				if (bytes[i] != '\r' && bytes[i] != ' ')
+					return false;
+			}
+
+			return true;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns symbols (instrument codes, currencies, portfolios, accounts, etc.)
+ * read from raw UTF-8 bytes, giving each distinct symbol a dense int id and a
+ * single String instance.
+ *
+ * Looking up a symbol which has already been seen hashes and compares the
+ * bytes in place, so it does not allocate. Only the first sighting of a
+ * symbol creates its String.
+ *
+ * A symbol table is not thread-safe; each parsing thread should own one.
+ *
+ * @author Zane Ali
+ *
+ */
+public class SymbolTable {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	// Open-addressing table of symbol ids, where -1 marks an empty slot.
+	private int[] slots;
+	private int mask;
+
+	private byte[][] bytes = new byte[INITIAL_CAPACITY][];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private String[] symbols = new String[INITIAL_CAPACITY];
+	private int size;
+
+	public SymbolTable() {
+		allocateSlots(INITIAL_CAPACITY * 2);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param buffer
+	 * @param offset
+	 * @param length
+	 * @return The id of the symbol held in the given bytes, interning it if it
+	 * has not been seen before.
+	 */
+	public int intern(byte[] buffer, int offset, int length) {
+		int hash = hash(buffer, offset, length);
+		int index = hash & mask;
+
+		int id;
+		while ((id = slots[index]) != -1) {
+			if (hashes[id] == hash && matches(bytes[id], buffer, offset, length))
+				return id;
+
+			index = (index + 1) & mask;
+		}
+
+		return add(index, hash, Arrays.copyOfRange(buffer, offset, offset + length));
+	}
+
+	/**
+	 * @param symbol
+	 * @return The id of the symbol, interning it if it has not been seen before.
+	 */
+	public int intern(String symbol) {
+		int length = symbol.length();
+		int h = 0;
+
+		// An ASCII symbol hashes and compares the same as its UTF-8 bytes, so
+		// one which has been seen before is found without encoding it.
+		for (int i = 0; i < length; i++) {
+			char c = symbol.charAt(i);
+
+			if (c >= 0x80) {
+				byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+				return intern(symbolBytes, 0, symbolBytes.length);
+			}
+
+			h = 31 * h + c;
+		}
+
+		int hash = h ^ (h >>> 16);
+		int index = hash & mask;
+		int id;
+
+		while ((id = slots[index]) != -1) {
+			if (hashes[id] == hash && matches(bytes[id], symbol))
+				return id;
+
+			index = (index + 1) & mask;
+		}
+
+		return add(index, hash, symbol.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param id
+	 * @return The symbol with the given id.
+	 */
+	public String symbol(int id) {
+		if (id < 0 || id >= size)
+			throw new IllegalArgumentException("Unknown symbol id: " + id);
+
+		return symbols[id];
+	}
+
+	private int add(int index, int hash, byte[] symbolBytes) {
+		int id = size++;
+
+		if (id == symbols.length) {
+			bytes = Arrays.copyOf(bytes, id * 2);
+			hashes = Arrays.copyOf(hashes, id * 2);
+			symbols = Arrays.copyOf(symbols, id * 2);
+		}
+
+		bytes[id] = symbolBytes;
+		hashes[id] = hash;
+		symbols[id] = new String(symbolBytes, StandardCharsets.UTF_8);
+		slots[index] = id;
+
+		if (size * 2 > slots.length)
+			rehash();
+
+		return id;
+	}
+
+	private void rehash() {
+		allocateSlots(slots.length * 2);
+
+		for (int id = 0; id < size; id++) {
+			int index = hashes[id] & mask;
+
+			while (slots[index] != -1)
+				index = (index + 1) & mask;
+
+			slots[index] = id;
+		}
+	}
+
+	private void allocateSlots(int capacity) {
+		slots = new int[capacity];
+		Arrays.fill(slots, -1);
+		mask = capacity - 1;
+	}
+
+	private static boolean matches(byte[] symbol, byte[] buffer, int offset,
+			                       int length) {
+		if (symbol.length != length)
+			return false;
+
+		for (int i = 0; i < length; i++) {
+			if (symbol[i] != buffer[offset + i])
+				return false;
+		}
+
+		return true;
+	}
+
+	private static boolean matches(byte[] symbol, String ascii) {
+		if (symbol.length != ascii.length())
+			return false;
+
+		for (int i = 0; i < symbol.length; i++) {
+			if (symbol[i] != ascii.charAt(i))
+				return false;
+		}
+
+		return true;
+	}
+
+	private static int hash(byte[] buffer, int offset, int length) {
+		int h = 0;
+
+		for (int i = offset; i < offset + length; i++)
+			h = 31 * h + buffer[i];
+
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,72 @@
+package com.archive;
+
+import static com.tradingVenue.OrderFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tradingVenue.OrderFixtures;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Archiving the orders of a venue, and what happens once an archive can no
+ * longer be written.
+ *
+ * @author Zane Ali
+ *
+ */
+class OrderArchiveTest {
+
+	@TempDir
+	Path directory;
+
+	private final TradingVenue venue = new TradingVenue();
+
+	@Test
+	void flushedOrdersAreRolledUp() throws IOException {
+		try (OrderArchive archive = new OrderArchive(directory)) {
+			venue.setOrderArchive(archive);
+			venue.submitBatch(List.of(message("B1", "B", "1.50", 100),
+					                  message("B2", "B", "1.49", 200),
+					                  message("S1", "S", "1.50", 50)));
+			archive.flush();
+
+			assertNull(archive.getFailure());
+			assertEquals(3, archive.getWrittenCount());
+		}
+
+		try (ArchiveReader reader = ArchiveReader.openOrders(directory)) {
+			ArchiveRollup rollup = reader.rollup();
+
+			assertEquals(3, rollup.getRows(OrderFixtures.BBG_CODE));
+			assertEquals(350, rollup.getVolume(OrderFixtures.BBG_CODE));
+			assertEquals(14_900, rollup.getLowTicks(OrderFixtures.BBG_CODE));
+			assertEquals(15_000, rollup.getHighTicks(OrderFixtures.BBG_CODE));
+		}
+	}
+
+	@Test
+	void aFailedArchiveDropsOrdersWithoutRejectingThem() throws IOException {
+		OrderArchive archive = new OrderArchive(directory);
+		venue.setOrderArchive(archive);
+		archive.close();
+
+		// The first block to fill up cannot be written to a closed archive.
+		List<String> orders = new ArrayList<String>();
+		for (int i = 0; i < ArchiveFormat.BLOCK_ROWS + 10; i++)
+			orders.add(message("B" + i, "B", "1.50", 100));
+
+		assertEquals(orders.size(), venue.submitBatch(orders).getAcceptedCount());
+		assertInstanceOf(IllegalStateException.class, archive.getFailure());
+		assertEquals(orders.size(), archive.getDroppedCount());
+		assertEquals(0, archive.getWrittenCount());
+	}
+}
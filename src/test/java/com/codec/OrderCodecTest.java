@@ -0,0 +1,111 @@
+package com.codec;
+
+import static com.tradingVenue.OrderFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.simulation.OrderFlowGenerator;
+import com.tradingVenue.MalformedOrderMessageException;
+import com.tradingVenue.OrderMessage;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Encoding order messages into binary blocks and files and back, and how a
+ * block or file which cannot be decoded is reported.
+ *
+ * @author Zane Ali
+ *
+ */
+class OrderCodecTest {
+
+	@TempDir
+	Path directory;
+
+	private final CsvOrderConverter converter = new CsvOrderConverter();
+	private final ByteBuffer buffer = ByteBuffer.allocate(2 * BinaryOrderFormat.BLOCK_LENGTH);
+
+	@Test
+	void aMessageRoundTripsWithItsPriceInTicks() {
+		converter.toBinary(message("T1", "S", "57.356", 250, "AMEND"), buffer,
+				           BinaryOrderFormat.BLOCK_LENGTH);
+
+		assertEquals(message("T1", "S", "57.3560", 250, "AMEND"),
+				     converter.toCsv(buffer, BinaryOrderFormat.BLOCK_LENGTH,
+				    		         new StringBuilder()).toString());
+	}
+
+	@Test
+	void aMissingValueDateRoundTripsAsMissing() {
+		String line = message("T1", "B", "1.5000", 100);
+		line = line.substring(0, line.lastIndexOf(','));
+
+		converter.toBinary(line, buffer, 0);
+
+		OrderMessage decoded = new OrderMessage();
+		converter.getCodec().decode(buffer, 0, decoded);
+
+		assertNull(decoded.getValueDate());
+		assertEquals("T1", decoded.getTradeID());
+		assertEquals(15_000, decoded.getUnscaledPrice());
+		assertEquals(TradingVenue.DEFAULT_TICK_SIZE.getScale(), decoded.getPriceDecimals());
+		assertEquals(line, converter.toCsv(buffer, 0, new StringBuilder()).toString());
+	}
+
+	@Test
+	void badInputIsRejected() {
+		String longTradeId = "T".repeat(BinaryOrderFormat.MAX_TRADE_ID_LENGTH + 1);
+
+		assertThrows(MalformedOrderMessageException.class,
+				() -> converter.toBinary(message("T1", "X", "1.50", 100), buffer, 0));
+		assertThrows(IllegalArgumentException.class,
+				() -> converter.toBinary(message(longTradeId, "B", "1.50", 100), buffer, 0));
+		assertThrows(IndexOutOfBoundsException.class,
+				() -> converter.toBinary(message("T1", "B", "1.50", 100), buffer,
+						                 BinaryOrderFormat.BLOCK_LENGTH + 1));
+
+		converter.toBinary(message("T1", "B", "1.50", 100), buffer, 0);
+		buffer.put(BinaryOrderFormat.SIDE, (byte) 7);
+		assertThrows(IllegalArgumentException.class,
+				() -> converter.getCodec().decode(buffer, 0, new OrderMessage()));
+
+		converter.toBinary(message("T1", "B", "1.50", 100), buffer, 0);
+		buffer.putInt(BinaryOrderFormat.USER, 1_000);
+		assertThrows(IllegalArgumentException.class,
+				() -> converter.getCodec().decode(buffer, 0, new OrderMessage()));
+	}
+
+	@Test
+	void aFileRoundTripsAndSkipsMalformedLines() throws IOException {
+		Path csv = directory.resolve("orders.csv");
+		Path binary = directory.resolve("orders.bin");
+		Path back = directory.resolve("back.csv");
+
+		List<String> lines = List.of(message("T1", "B", "1.5000", 100),
+				                     message("T2", "S", "1.5100", 50, "AMEND"),
+				                     message("T3", "B", "1.4900", 75, "CANCEL"));
+		Files.write(csv, List.of(OrderFlowGenerator.HEADER, lines.get(0), "not a message",
+				                 lines.get(1), lines.get(2)));
+
+		assertEquals(3, converter.convertToBinary(csv, binary));
+		assertEquals(3, CsvOrderConverter.convertToCsv(binary, back,
+				                                       bbgCode -> TradingVenue.DEFAULT_TICK_SIZE));
+
+		List<String> decoded = Files.readAllLines(back);
+		assertEquals(OrderFlowGenerator.HEADER, decoded.get(0));
+		assertEquals(lines, decoded.subList(1, decoded.size()));
+
+		assertThrows(IOException.class,
+				() -> CsvOrderConverter.convertToCsv(csv, back,
+						                             bbgCode -> TradingVenue.DEFAULT_TICK_SIZE));
+	}
+}
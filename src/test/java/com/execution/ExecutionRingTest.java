@@ -0,0 +1,52 @@
+package com.execution;
+
+import static com.tradingVenue.OrderFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Carrying a venue's fills to listeners, including one which throws.
+ *
+ * @author Zane Ali
+ *
+ */
+class ExecutionRingTest {
+
+	@Test
+	void aListenerWhichThrowsIsStoppedAndTheOthersCarryOn() {
+		RuntimeException thrown = new IllegalStateException("Listener failed");
+		List<Integer> failing = new ArrayList<Integer>();
+		List<Integer> healthy = new ArrayList<Integer>();
+
+		ExecutionListener failingListener = (event, endOfBatch) -> {
+			failing.add(event.getQuantity());
+			if (failing.size() == 2)
+				throw thrown;
+		};
+
+		ExecutionListener healthyListener = (event, endOfBatch) -> healthy.add(event.getQuantity());
+		ExecutionRing ring = new ExecutionRing(16, failingListener, healthyListener);
+
+		TradingVenue venue = new TradingVenue();
+		venue.setExecutionRing(ring);
+		venue.submitBatch(List.of(message("S1", "S", "1.50", 1000),
+				                  message("B1", "B", "1.50", 10),
+				                  message("B2", "B", "1.50", 20),
+				                  message("B3", "B", "1.50", 30),
+				                  message("B4", "B", "1.50", 40)));
+		ring.close();
+
+		assertEquals(List.of(10, 20), failing);
+		assertEquals(List.of(10, 20, 30, 40), healthy);
+		assertSame(thrown, ring.getFailure(0));
+		assertNull(ring.getFailure(1));
+	}
+}
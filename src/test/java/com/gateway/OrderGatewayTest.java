@@ -0,0 +1,81 @@
+package com.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.journal.JournalWriter;
+import com.tradingVenue.OrderFixtures;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * How a gateway handles a client which breaks the framing, and a venue which
+ * fails.
+ *
+ * @author Zane Ali
+ *
+ */
+class OrderGatewayTest {
+
+	private static final String MESSAGE = OrderFixtures.message("B1", "B", "1.50", 100);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void aClientWhichBreaksTheFramingIsDisconnectedAlone() throws Exception {
+		try (OrderGateway gateway = new OrderGateway(new TradingVenue(),
+				                                     new InetSocketAddress("localhost", 0))) {
+			gateway.start();
+			InetSocketAddress address = new InetSocketAddress("localhost", gateway.getPort());
+
+			try (GatewayClient client = new GatewayClient(address);
+				 SocketChannel broken = SocketChannel.open(address)) {
+
+				broken.write(ByteBuffer.allocate(4).putInt(-1).flip());
+				assertEquals(-1, broken.read(ByteBuffer.allocate(1)));
+
+				client.send(MESSAGE);
+				client.flush();
+				client.readAck();
+
+				assertTrue(client.isAccepted());
+				assertNull(gateway.getFailure());
+			}
+		}
+	}
+
+	@Test
+	void aFailureOfTheVenueStopsTheGateway() throws Exception {
+		TradingVenue venue = new TradingVenue();
+		JournalWriter journal = new JournalWriter(directory.resolve("journal.bin"));
+		venue.setJournal(journal);
+		journal.close();
+
+		OrderGateway gateway = new OrderGateway(venue, new InetSocketAddress("localhost", 0));
+		gateway.start();
+
+		try (GatewayClient client = new GatewayClient(
+				new InetSocketAddress("localhost", gateway.getPort()))) {
+			client.send(MESSAGE);
+			client.flush();
+
+			assertThrows(IOException.class, client::readAck);
+		}
+
+		IOException e = assertThrows(IOException.class, gateway::close);
+		assertSame(gateway.getFailure(), e.getCause());
+		assertTrue(e.getCause() instanceof IllegalStateException);
+	}
+}
@@ -0,0 +1,114 @@
+package com.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tradingVenue.OrderFixtures;
+import com.tradingVenue.OrderMessage;
+import com.tradingVenue.OrderMessageParser;
+
+/**
+ * Writing, replaying and recovering a journal, including one whose end was
+ * torn by a crash.
+ *
+ * @author Zane Ali
+ *
+ */
+class JournalTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void replayReturnsEveryMessageInSequence() throws IOException {
+		Path path = directory.resolve("journal.bin");
+		write(path, "T1", "T2", "T3");
+
+		JournalReader reader = new JournalReader(path);
+
+		assertEquals(List.of("T1", "T2", "T3"), replay(reader));
+		assertEquals(2, reader.getLastSequence());
+		assertEquals(Files.size(path), reader.getValidLength());
+	}
+
+	@Test
+	void aRecordWhichFailsItsChecksumIsTheTornEnd() throws IOException {
+		Path path = directory.resolve("journal.bin");
+		write(path, "T1", "T2", "T3");
+
+		// Flip a byte of the last record's TradeID, which leaves its length
+		// and type intact.
+		corrupt(path, Files.size(path) - 1);
+
+		JournalReader reader = new JournalReader(path);
+
+		assertEquals(List.of("T1", "T2"), replay(reader));
+		assertEquals(1, reader.getLastSequence());
+	}
+
+	@Test
+	void aPartlyWrittenRecordIsTheTornEnd() throws IOException {
+		Path path = directory.resolve("journal.bin");
+		write(path, "T1", "T2");
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.truncate(Files.size(path) - 3);
+		}
+
+		assertEquals(List.of("T1"), replay(new JournalReader(path)));
+	}
+
+	@Test
+	void reopeningTruncatesTheTornEndBeforeAppending() throws IOException {
+		Path path = directory.resolve("journal.bin");
+		write(path, "T1", "T2", "T3");
+		corrupt(path, Files.size(path) - 1);
+
+		write(path, "T4");
+
+		JournalReader reader = new JournalReader(path);
+
+		assertEquals(List.of("T1", "T2", "T4"), replay(reader));
+		assertEquals(2, reader.getLastSequence());
+		assertEquals(Files.size(path), reader.getValidLength());
+	}
+
+	private static void write(Path path, String... tradeIds) throws IOException {
+		OrderMessageParser parser = new OrderMessageParser();
+		OrderMessage message = new OrderMessage();
+
+		try (JournalWriter journal = new JournalWriter(path)) {
+			for (String tradeId : tradeIds) {
+				parser.parse(OrderFixtures.message(tradeId, "B", "1.5", 100), message);
+				journal.append(message);
+			}
+		}
+	}
+
+	private static List<String> replay(JournalReader reader) throws IOException {
+		List<String> tradeIds = new ArrayList<String>();
+		reader.replay(message -> tradeIds.add(message.getTradeID()));
+		return tradeIds;
+	}
+
+	private static void corrupt(Path path, long position) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+				                                    StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1);
+			channel.read(buffer, position);
+			buffer.put(0, (byte) (buffer.get(0) ^ 0x01)).rewind();
+			channel.write(buffer, position);
+		}
+	}
+}
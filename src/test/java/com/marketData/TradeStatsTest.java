@@ -0,0 +1,62 @@
+package com.marketData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reading windows of an instrument's fills, including fills which arrive
+ * out of time order.
+ *
+ * @author Zane Ali
+ *
+ */
+class TradeStatsTest {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	private final TradeStats stats = new TradeStats("VOD LN EQUITY", SECOND, 60);
+	private final WindowStats window = new WindowStats();
+
+	@Test
+	void aWindowSumsTheFillsOfItsBuckets() {
+		stats.onFill(100, 10, 0);
+		stats.onFill(102, 30, SECOND / 2);
+		stats.onFill(104, 20, 5 * SECOND);
+
+		stats.read(0, SECOND, window);
+		assertEquals(40, window.getVolume());
+		assertEquals(2, window.getTradeCount());
+		assertEquals(101.5, window.getVwapTicks());
+		assertEquals(102, window.getHighTicks());
+		assertEquals(100, window.getLowTicks());
+
+		stats.readRolling(10 * SECOND, window);
+		assertEquals(60, window.getVolume());
+		assertEquals(3, window.getTradeCount());
+		assertEquals(104, window.getHighTicks());
+	}
+
+	@Test
+	void aLateFillIsAddedToItsOwnBucketWhileItIsInTheRing() {
+		stats.onFill(100, 10, 30 * SECOND);
+		stats.onFill(90, 5, 2 * SECOND);
+
+		stats.read(2 * SECOND, 3 * SECOND, window);
+		assertEquals(5, window.getVolume());
+		assertEquals(90, window.getHighTicks());
+
+		stats.read(0, 31 * SECOND, window);
+		assertEquals(15, window.getVolume());
+		assertEquals(2, window.getTradeCount());
+		assertEquals(90, window.getLowTicks());
+
+		stats.onFill(110, 10, 70 * SECOND);
+		stats.onFill(80, 5, 5 * SECOND);
+
+		assertEquals(1, stats.getDroppedCount());
+		stats.readRolling(60 * SECOND, window);
+		assertEquals(20, window.getVolume());
+		assertEquals(100, window.getLowTicks());
+	}
+}
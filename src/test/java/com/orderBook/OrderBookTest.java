@@ -0,0 +1,267 @@
+package com.orderBook;
+
+import static com.tradingVenue.OrderFixtures.BBG_CODE;
+import static com.tradingVenue.OrderFixtures.message;
+import static com.tradingVenue.OrderFixtures.queue;
+import static com.tradingVenue.OrderFixtures.venue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.tradingVenue.BatchResult;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * The matching, cancel and amend rules of an order book, run against books
+ * which keep their resting orders on the heap and off it.
+ *
+ * @author Zane Ali
+ *
+ */
+class OrderBookTest {
+
+	private TradingVenue venue;
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void ordersWhichDoNotCrossRestAtTheirPrices(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("B1", "B", "1.50", 100, "NEW");
+		submit("B2", "B", "1.52", 200, "NEW");
+		submit("B3", "B", "1.51", 300, "NEW");
+		submit("S1", "S", "1.55", 400, "NEW");
+		submit("S2", "S", "1.53", 500, "NEW");
+
+		OrderBook book = book();
+
+		assertEquals(3, book.getBids().getLevelCount());
+		assertEquals(ticks("1.52"), book.getBids().getLevelPriceTicks(0));
+		assertEquals(ticks("1.51"), book.getBids().getLevelPriceTicks(1));
+		assertEquals(ticks("1.50"), book.getBids().getLevelPriceTicks(2));
+
+		assertEquals(2, book.getAsks().getLevelCount());
+		assertEquals(ticks("1.53"), book.getAsks().getLevelPriceTicks(0));
+		assertEquals(ticks("1.55"), book.getAsks().getLevelPriceTicks(1));
+
+		assertEquals(0, book.getFillCount());
+		assertEquals(5, book.getOrderCount());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void anAggressorMatchesTheBestPriceFirst(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("S1", "S", "1.55", 100, "NEW");
+		submit("S2", "S", "1.53", 100, "NEW");
+
+		BatchResult result = submit("B1", "B", "1.55", 150, "NEW");
+
+		assertEquals(2, result.getFillCount(0));
+		assertEquals(150, result.getFilledVolume(0));
+		assertEquals(0, result.getRestingVolume(0));
+
+		OrderBook book = book();
+		assertNull(book.getRestingOrder("S2"));
+		assertEquals(50, book.getRestingOrder("S1").getVolume());
+		assertEquals(1, book.getAsks().getLevelCount());
+		assertEquals(50, book.getAsks().getLevelVolume(0));
+		assertTrue(book.getBids().isEmpty());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void ordersAtOnePriceMatchInTimePriority(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("S1", "S", "1.53", 100, "NEW");
+		submit("S2", "S", "1.53", 100, "NEW");
+		submit("S3", "S", "1.53", 100, "NEW");
+
+		BatchResult result = submit("B1", "B", "1.53", 150, "NEW");
+
+		assertEquals(2, result.getFillCount(0));
+		assertEquals(List.of("S2", "S3"), queue(book().getAsks(), 0));
+		assertEquals(50, book().getRestingOrder("S2").getVolume());
+		assertEquals(150, book().getAsks().getLevelVolume(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void theRemainderOfAnAggressorRestsAtItsLimit(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("S1", "S", "1.53", 100, "NEW");
+
+		BatchResult result = submit("B1", "B", "1.54", 150, "NEW");
+
+		assertEquals(100, result.getFilledVolume(0));
+		assertEquals(50, result.getRestingVolume(0));
+
+		OrderBook book = book();
+		assertTrue(book.getAsks().isEmpty());
+		assertEquals(ticks("1.54"), book.getBids().getLevelPriceTicks(0));
+		assertEquals(50, book.getBidsAggregation().get(ticks("1.54")));
+		assertEquals(0, book.getAsksAggregation().get(ticks("1.53")));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void aCancelUnlinksTheOrderFromItsLevel(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("B1", "B", "1.50", 100, "NEW");
+		submit("B2", "B", "1.50", 200, "NEW");
+		submit("B3", "B", "1.50", 300, "NEW");
+
+		BatchResult result = submit("B2", "B", "1.50", 200, "CANCEL");
+
+		assertTrue(result.isAccepted(0));
+
+		OrderBook book = book();
+		assertNull(book.getRestingOrder("B2"));
+		assertEquals(List.of("B1", "B3"), queue(book.getBids(), 0));
+		assertEquals(400, book.getBids().getLevelVolume(0));
+		assertEquals(400, book.getBidsAggregation().get(ticks("1.50")));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void cancellingTheLastOrderOfALevelRemovesTheLevel(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("B1", "B", "1.50", 100, "NEW");
+		submit("B2", "B", "1.51", 100, "NEW");
+		submit("B2", "B", "1.51", 100, "CANCEL");
+
+		assertEquals(1, book().getBids().getLevelCount());
+		assertEquals(ticks("1.50"), book().getBids().getLevelPriceTicks(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void aCancelWithNoRestingOrderIsRejected(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("S1", "S", "1.53", 100, "NEW");
+		submit("B1", "B", "1.53", 100, "NEW");
+
+		BatchResult filled = submit("S1", "S", "1.53", 100, "CANCEL");
+		BatchResult unknown = submit("S9", "S", "1.53", 100, "CANCEL");
+
+		assertFalse(filled.isAccepted(0));
+		assertEquals(BatchResult.NO_RESTING_ORDER, filled.getRejectReason(0));
+		assertEquals(BatchResult.NO_RESTING_ORDER, unknown.getRejectReason(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void anAmendLosesTimePriority(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("B1", "B", "1.50", 100, "NEW");
+		submit("B2", "B", "1.50", 100, "NEW");
+
+		BatchResult result = submit("B1", "B", "1.50", 50, "AMEND");
+
+		assertEquals(50, result.getRestingVolume(0));
+		assertEquals(List.of("B2", "B1"), queue(book().getBids(), 0));
+		assertEquals(150, book().getBids().getLevelVolume(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void anAmendToACrossingPriceMatches(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("B1", "B", "1.50", 100, "NEW");
+		submit("S1", "S", "1.55", 60, "NEW");
+
+		BatchResult result = submit("B1", "B", "1.55", 100, "AMEND");
+
+		assertEquals(1, result.getFillCount(0));
+		assertEquals(60, result.getFilledVolume(0));
+		assertEquals(40, result.getRestingVolume(0));
+
+		OrderBook book = book();
+		assertTrue(book.getAsks().isEmpty());
+		assertEquals(1, book.getBids().getLevelCount());
+		assertEquals(ticks("1.55"), book.getBids().getLevelPriceTicks(0));
+		assertEquals(0, book.getBidsAggregation().get(ticks("1.50")));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void aNewOrderWithTheTradeIdOfARestingOrderIsRejected(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("B1", "B", "1.50", 100, "NEW");
+
+		BatchResult sameSide = submit("B1", "B", "1.51", 200, "NEW");
+		BatchResult otherSide = submit("B1", "S", "1.49", 200, "NEW");
+
+		assertEquals(BatchResult.DUPLICATE_TRADE_ID, sameSide.getRejectReason(0));
+		assertEquals(BatchResult.DUPLICATE_TRADE_ID, otherSide.getRejectReason(0));
+
+		OrderBook book = book();
+		assertEquals(1, book.getOrderCount());
+		assertEquals(0, book.getFillCount());
+		assertEquals(100, book.getRestingOrder("B1").getVolume());
+
+		assertTrue(submit("B1", "B", "1.50", 100, "CANCEL").isAccepted(0));
+		assertEquals(0, book.getOrderCount());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void theTradeIdOfAFilledOrderCanBeUsedAgain(boolean offHeap) {
+		venue = venue(offHeap);
+
+		submit("S1", "S", "1.53", 100, "NEW");
+		submit("B1", "B", "1.53", 100, "NEW");
+
+		assertTrue(submit("S1", "S", "1.54", 100, "NEW").isAccepted(0));
+		assertEquals(ticks("1.54"), book().getRestingOrder("S1").getPriceTicks());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void everyOrderGoesBackToThePool(boolean offHeap) {
+		venue = venue(offHeap);
+
+		OrderPool pool = venue.getOrderPool();
+		int available = pool.getAvailable();
+		long created = pool.getCreated();
+
+		submit("B1", "B", "1.50", 100, "NEW");
+		submit("B2", "B", "1.50", 100, "NEW");
+		submit("B1", "B", "1.51", 100, "AMEND");
+		submit("B2", "B", "1.50", 100, "CANCEL");
+		submit("S1", "S", "1.51", 150, "NEW");
+		submit("B3", "B", "1.51", 50, "NEW");
+
+		assertEquals(0, book().getOrderCount());
+		assertEquals(available, pool.getAvailable());
+		assertEquals(created, pool.getCreated());
+	}
+
+	private BatchResult submit(String tradeId, String side, String price, int volume,
+			                   String action) {
+		return venue.submitBatch(List.of(message(tradeId, side, price, volume, action)));
+	}
+
+	private OrderBook book() {
+		return venue.getOrderBooks().get(BBG_CODE);
+	}
+
+	private long ticks(String price) {
+		return venue.getTickSize(BBG_CODE).toTicks(Double.parseDouble(price));
+	}
+}
@@ -0,0 +1,92 @@
+package com.position;
+
+import static com.tradingVenue.OrderFixtures.BBG_CODE;
+import static com.tradingVenue.OrderFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.constant.Types.FieldEnum;
+import com.execution.ExecutionRing;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Positions and realized profit and loss kept from a venue's fills, at
+ * average cost.
+ *
+ * @author Zane Ali
+ *
+ */
+class PositionEngineTest {
+
+	private final PositionEngine engine = new PositionEngine();
+	private final TradingVenue venue = new TradingVenue();
+
+	@BeforeEach
+	void trade() {
+		ExecutionRing ring = new ExecutionRing(16, engine);
+		venue.setExecutionRing(ring);
+
+		// Acc1 buys 200 from Acc2 at an average of 1.60 and sells 150 to
+		// Acc3 at 1.80. Acc3 then sells 200 to Acc4 at 1.90.
+		submit("S1", "S", "1.50", 100, "Acc2");
+		submit("S2", "S", "1.70", 100, "Acc2");
+		submit("B1", "B", "1.70", 200, "Acc1");
+		submit("B2", "B", "1.80", 150, "Acc3");
+		submit("S3", "S", "1.80", 150, "Acc1");
+		submit("B3", "B", "1.90", 200, "Acc4");
+		submit("S4", "S", "1.90", 200, "Acc3");
+
+		ring.close();
+	}
+
+	@Test
+	void closingPartOfAPositionRealizesItAgainstTheAverageCost() {
+		Position position = engine.getPosition(FieldEnum.ACCOUNT, "Acc1", BBG_CODE);
+
+		assertEquals(50, position.getNetVolume());
+		assertEquals(16_000, position.getAverageCostTicks());
+		assertEquals(150 * 2_000, position.getRealizedTicks());
+		assertEquals(30.0, position.getRealizedPnl());
+		assertEquals(200, position.getBoughtVolume());
+		assertEquals(150, position.getSoldVolume());
+		assertEquals(30.0, engine.getRealizedPnl(FieldEnum.ACCOUNT, "Acc1"));
+	}
+
+	@Test
+	void goingThroughFlatRealizesTheOldPositionAndOpensANewOne() {
+		Position position = engine.getPosition(FieldEnum.ACCOUNT, "Acc3", BBG_CODE);
+
+		assertEquals(-50, position.getNetVolume());
+		assertEquals(19_000, position.getAverageCostTicks());
+		assertEquals(15.0, position.getRealizedPnl());
+	}
+
+	@Test
+	void anOpenPositionHasNothingRealized() {
+		Position position = engine.getPosition(FieldEnum.ACCOUNT, "Acc2", BBG_CODE);
+
+		assertEquals(-200, position.getNetVolume());
+		assertEquals(16_000, position.getAverageCostTicks());
+		assertEquals(0, position.getRealizedTicks());
+		assertNull(engine.getPosition(FieldEnum.ACCOUNT, "Acc5", BBG_CODE));
+	}
+
+	@Test
+	void aPortfolioTradingWithItselfRealizesNothing() {
+		Position position = engine.getPosition(FieldEnum.PORTFOLIO, "Port1", BBG_CODE);
+
+		assertEquals(0, position.getNetVolume());
+		assertEquals(0.0, engine.getRealizedPnl(FieldEnum.PORTFOLIO, "Port1"));
+		assertEquals(4, engine.getFillCount());
+		assertEquals(0, engine.getDroppedCount());
+	}
+
+	private void submit(String tradeId, String side, String price, int volume, String account) {
+		venue.submitBatch(List.of(message(tradeId, side, price, volume, "NEW", account)));
+	}
+}
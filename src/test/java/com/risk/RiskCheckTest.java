@@ -0,0 +1,129 @@
+package com.risk;
+
+import static com.tradingVenue.OrderFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.constant.Types.FieldEnum;
+import com.tradingVenue.BatchResult;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * The limits a risk check applies to the messages of a venue.
+ *
+ * @author Zane Ali
+ *
+ */
+class RiskCheckTest {
+
+	private final TradingVenue venue = new TradingVenue();
+	private final RiskCheck riskCheck = new RiskCheck();
+
+	@BeforeEach
+	void setRiskCheck() {
+		venue.setRiskCheck(riskCheck);
+	}
+
+	@Test
+	void anOrderOverTheVolumeLimitIsRejectedUnlessItIsACancel() {
+		riskCheck.setDefaultLimits(FieldEnum.ACCOUNT,
+				                   new RiskLimits(100, Long.MAX_VALUE, Integer.MAX_VALUE));
+
+		assertEquals(RiskCheck.ORDER_VOLUME, submit("B1", "B", "1.50", 101).getRejectReason(0));
+		assertTrue(submit("B1", "B", "1.50", 100).isAccepted(0));
+		assertTrue(venue.submitBatch(List.of(message("B1", "B", "1.50", 1000, "CANCEL")))
+				        .isAccepted(0));
+		assertEquals(1, riskCheck.getOrderVolumeRejects());
+	}
+
+	@Test
+	void aValueWithItsOwnLimitsIgnoresTheDefault() {
+		riskCheck.setDefaultLimits(FieldEnum.ACCOUNT,
+				                   new RiskLimits(100, Long.MAX_VALUE, Integer.MAX_VALUE));
+		riskCheck.setLimits(FieldEnum.ACCOUNT, "Acc1",
+				            new RiskLimits(1000, Long.MAX_VALUE, Integer.MAX_VALUE));
+
+		assertTrue(submit("B1", "B", "1.50", 500).isAccepted(0));
+		assertEquals(RiskCheck.ORDER_VOLUME, submit("B2", "B", "1.50", 1001).getRejectReason(0));
+	}
+
+	@Test
+	void messagesOverTheRateAreRejectedWithinOneSecond() {
+		// The rate is counted per second of System.nanoTime, so retry if the
+		// messages happen to straddle two seconds.
+		for (int attempt = 0; attempt < 5; attempt++) {
+			RiskCheck check = new RiskCheck();
+			check.setDefaultLimits(FieldEnum.USER, new RiskLimits(Integer.MAX_VALUE,
+					                                              Long.MAX_VALUE, 3));
+			venue.setRiskCheck(check);
+
+			List<String> messages = new ArrayList<String>();
+			for (int i = 0; i < 5; i++)
+				messages.add(message("R" + attempt + "-" + i, "B", "1.50", 10));
+
+			long second = System.nanoTime() / 1_000_000_000L;
+			BatchResult result = venue.submitBatch(messages);
+			if (System.nanoTime() / 1_000_000_000L != second)
+				continue;
+
+			assertEquals(3, result.getAcceptedCount());
+			assertEquals(RiskCheck.MESSAGE_RATE, result.getRejectReason(3));
+			assertEquals(RiskCheck.MESSAGE_RATE, result.getRejectReason(4));
+			assertEquals(2, check.getMessageRateRejects());
+			return;
+		}
+
+		fail("Every attempt straddled two seconds");
+	}
+
+	@Test
+	void anOrderWhoseNotionalOverflowsBreaksTheLimit() {
+		limitOpenNotional(1_000_000);
+
+		// 900,000,000 x 1,000,000,000 in units of 10^-4 wraps to a negative long.
+		assertEquals(RiskCheck.OPEN_NOTIONAL,
+				     submit("B1", "B", "900000000", 1_000_000_000).getRejectReason(0));
+		assertEquals(0, openNotional());
+
+		assertTrue(submit("B2", "B", "1.50", 100).isAccepted(0));
+		assertEquals(150, openNotional());
+	}
+
+	@Test
+	void anOrderAtANegativePriceCountsByItsSize() {
+		limitOpenNotional(1_000);
+
+		assertEquals(RiskCheck.OPEN_NOTIONAL,
+				     submit("B1", "B", "-100", 100).getRejectReason(0));
+		assertEquals(0, openNotional());
+
+		assertTrue(submit("B2", "B", "-5", 100).isAccepted(0));
+		assertEquals(500, openNotional());
+
+		assertTrue(submit("B3", "B", "5", 100).isAccepted(0));
+		assertEquals(RiskCheck.OPEN_NOTIONAL,
+				     submit("B4", "B", "1", 1).getRejectReason(0));
+		assertEquals(1_000, openNotional());
+	}
+
+	private void limitOpenNotional(long maxOpenNotional) {
+		riskCheck.setDefaultLimits(FieldEnum.ACCOUNT,
+				                   new RiskLimits(Integer.MAX_VALUE, maxOpenNotional,
+				                		          Integer.MAX_VALUE));
+	}
+
+	private double openNotional() {
+		return riskCheck.getOpenNotional(FieldEnum.ACCOUNT, "Acc1");
+	}
+
+	private BatchResult submit(String tradeId, String side, String price, int volume) {
+		return venue.submitBatch(List.of(message(tradeId, side, price, volume)));
+	}
+}
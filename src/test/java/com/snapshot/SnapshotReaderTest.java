@@ -0,0 +1,124 @@
+package com.snapshot;
+
+import static com.tradingVenue.OrderFixtures.BBG_CODE;
+import static com.tradingVenue.OrderFixtures.message;
+import static com.tradingVenue.OrderFixtures.queue;
+import static com.tradingVenue.OrderFixtures.venue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.aggregation.CubeResult;
+import com.aggregation.GroupBy;
+import com.constant.Types.FieldEnum;
+import com.constant.Types.SideEnum;
+import com.marketData.DepthBook;
+import com.marketData.DepthSnapshot;
+import com.marketData.MarketData;
+import com.orderBook.OrderBook;
+import com.orderBook.OrderPool;
+import com.tradingVenue.TradingVenue;
+
+/**
+ * Restoring a venue from a snapshot, into books which keep their resting
+ * orders on the heap and off it.
+ *
+ * @author Zane Ali
+ *
+ */
+class SnapshotReaderTest {
+
+	@TempDir
+	Path directory;
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void theRestoredBookMatchesTheSnapshot(boolean offHeap) throws IOException {
+		Path path = snapshot();
+		TradingVenue venue = venue(offHeap);
+
+		new SnapshotReader(path).restore(venue);
+
+		OrderBook book = venue.getOrderBooks().get(BBG_CODE);
+		assertEquals(List.of("B1", "B3"), queue(book.getBids(), 0));
+		assertEquals(List.of("B2"), queue(book.getBids(), 1));
+		assertEquals(List.of("S1"), queue(book.getAsks(), 0));
+		assertEquals(250, book.getBids().getLevelVolume(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void theDepthIsPublishedOnceTheBookIsRestored(boolean offHeap) throws IOException {
+		Path path = snapshot();
+		TradingVenue venue = venue(offHeap);
+		MarketData marketData = new MarketData();
+		venue.setMarketData(marketData);
+
+		new SnapshotReader(path).restore(venue);
+
+		DepthBook depthBook = marketData.getDepthBook(BBG_CODE);
+		DepthSnapshot depth = depthBook.read(depthBook.newSnapshot());
+
+		assertEquals(2, depth.getLevelCount(SideEnum.B));
+		assertEquals("1.5000", depth.formatPrice(SideEnum.B, 0));
+		assertEquals(250, depth.getVolume(SideEnum.B, 0));
+		assertEquals(2, depth.getOrderCount(SideEnum.B, 0));
+		assertEquals(1, depth.getLevelCount(SideEnum.S));
+		assertEquals(70, depth.getVolume(SideEnum.S, 0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void restoringTakesEveryOrderFromThePool(boolean offHeap) throws IOException {
+		Path path = snapshot();
+		TradingVenue venue = venue(offHeap);
+
+		OrderPool pool = venue.getOrderPool();
+		int available = pool.getAvailable();
+		long created = pool.getCreated();
+
+		new SnapshotReader(path).restore(venue);
+
+		assertEquals(created, pool.getCreated());
+		// Books kept off the heap copy the orders, which go back to the pool.
+		assertEquals(offHeap ? available : available - 4, pool.getAvailable());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void onlyAnExistingCubeIsRebuilt(boolean withCube) throws IOException {
+		Path path = snapshot();
+		TradingVenue venue = new TradingVenue();
+		GroupBy groupBy = GroupBy.of(FieldEnum.BBGCODE, FieldEnum.SIDE);
+
+		if (withCube)
+			venue.getAggregationCube().register(groupBy);
+
+		new SnapshotReader(path).restore(venue);
+
+		assertEquals(withCube, venue.hasAggregationCube());
+		if (withCube) {
+			CubeResult result = venue.getAggregationCube().query(groupBy);
+			assertEquals(330, result.getVolume(BBG_CODE, "B"));
+			assertEquals(70, result.getVolume(BBG_CODE, "S"));
+		}
+	}
+
+	private Path snapshot() throws IOException {
+		TradingVenue venue = new TradingVenue();
+		venue.submitToOrderBook(message("B2", "B", "1.49", 80));
+		venue.submitToOrderBook(message("B1", "B", "1.50", 100));
+		venue.submitToOrderBook(message("B3", "B", "1.50", 150));
+		venue.submitToOrderBook(message("S1", "S", "1.55", 70));
+
+		Path path = directory.resolve("snapshot.bin");
+		VenueSnapshot.capture(venue).writeTo(path);
+		return path;
+	}
+}
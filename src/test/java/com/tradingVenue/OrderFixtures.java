@@ -0,0 +1,72 @@
+package com.tradingVenue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.orderBook.BookSide;
+import com.orderBook.OffHeapOrderStore;
+
+/**
+ * The order messages and venues which the tests share. Every message is for
+ * one instrument, BBG_CODE, and has the same Currency, Portfolio, Strategy,
+ * User, TradeTimeUTC and ValueDate, and Account unless it is given, so a test
+ * only states the fields it is about.
+ *
+ * @author Zane Ali
+ *
+ */
+public final class OrderFixtures {
+
+	public static final String BBG_CODE = "VOD LN EQUITY";
+
+	private OrderFixtures() {
+	}
+
+	/**
+	 * @return A comma-separated new order message for BBG_CODE.
+	 */
+	public static String message(String tradeId, String side, String price, int volume) {
+		return message(tradeId, side, price, volume, "NEW");
+	}
+
+	/**
+	 * @return A comma-separated order message for BBG_CODE.
+	 */
+	public static String message(String tradeId, String side, String price, int volume,
+			                     String action) {
+		return message(tradeId, side, price, volume, action, "Acc1");
+	}
+
+	/**
+	 * @return A comma-separated order message for BBG_CODE from an Account.
+	 */
+	public static String message(String tradeId, String side, String price, int volume,
+			                     String action, String account) {
+		return tradeId + "," + BBG_CODE + ",GBP," + side + "," + price + "," + volume
+			   + ",Port1," + action + "," + account + ",Strat1,User1,"
+			   + "2024-01-02T09:00:00.000000,20240104";
+	}
+
+	/**
+	 * @param offHeap Whether the venue's books keep their resting orders off
+	 * the heap, in an in-memory OffHeapOrderStore, which needs no closing.
+	 * @return A new venue.
+	 */
+	public static TradingVenue venue(boolean offHeap) {
+		TradingVenue venue = new TradingVenue();
+
+		if (offHeap)
+			venue.setOrderStore(new OffHeapOrderStore());
+		return venue;
+	}
+
+	/**
+	 * @return The TradeIDs of the orders at a depth of a book side, in time
+	 * priority.
+	 */
+	public static List<String> queue(BookSide side, int depth) {
+		List<String> tradeIds = new ArrayList<String>();
+		side.forEachOrder(depth, order -> tradeIds.add(order.getTradeID()));
+		return tradeIds;
+	}
+}
@@ -0,0 +1,131 @@
+package com.tradingVenue;
+
+import static com.tradingVenue.OrderFixtures.BBG_CODE;
+import static com.tradingVenue.OrderFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.constant.Types.ActionEnum;
+import com.constant.Types.SideEnum;
+
+/**
+ * Parsing order messages into a reused holder, and how a malformed message is
+ * reported.
+ *
+ * @author Zane Ali
+ *
+ */
+class OrderMessageParserTest {
+
+	private final OrderMessageParser parser = new OrderMessageParser();
+	private final OrderMessage message = new OrderMessage();
+
+	@Test
+	void everyFieldIsParsed() {
+		assertTrue(parser.parse(message("T1", "S", "57.356", 250, "AMEND"), message));
+
+		assertFalse(message.isMalformed());
+		assertNull(message.getErrorField());
+		assertEquals("T1", message.getTradeID());
+		assertEquals(BBG_CODE, message.getBbgCode());
+		assertEquals("GBP", message.getCurrency());
+		assertEquals(SideEnum.S, message.getSide());
+		assertEquals(57356, message.getUnscaledPrice());
+		assertEquals(3, message.getPriceDecimals());
+		assertEquals(250, message.getVolume());
+		assertEquals("Port1", message.getPortfolio());
+		assertEquals(ActionEnum.AMEND, message.getAction());
+		assertEquals("Acc1", message.getAccount());
+		assertEquals("Strat1", message.getStrategy());
+		assertEquals("User1", message.getUser());
+		assertEquals(nanos("2024-01-02T09:00:00Z"), message.getTradeTimeNanos());
+		assertEquals("20240104", message.getValueDate());
+	}
+
+	@Test
+	void bytesParseLikeCharactersAndSymbolsAreInterned() {
+		String line = message("T1", "B", "1.50", 100);
+		byte[] bytes = ("xx" + line + "\r").getBytes(StandardCharsets.UTF_8);
+		OrderMessage fromBytes = new OrderMessage();
+
+		assertTrue(parser.parse(line, message));
+		assertTrue(parser.parse(bytes, 2, bytes.length - 2, fromBytes));
+
+		assertEquals(message.getTradeID(), fromBytes.getTradeID());
+		assertEquals(message.getUnscaledPrice(), fromBytes.getUnscaledPrice());
+		assertEquals(message.getTradeTimeNanos(), fromBytes.getTradeTimeNanos());
+		assertSame(message.getBbgCode(), fromBytes.getBbgCode());
+		assertSame(message.getUser(), fromBytes.getUser());
+	}
+
+	@Test
+	void theValueDateMayBeOmitted() {
+		String line = message("T1", "B", "1.50", 100);
+
+		assertTrue(parser.parse(line.substring(0, line.lastIndexOf(',')), message));
+		assertNull(message.getValueDate());
+		assertEquals(nanos("2024-01-02T09:00:00Z"), message.getTradeTimeNanos());
+	}
+
+	@Test
+	void theFirstMalformedFieldIsReported() {
+		assertMalformed(message("T1", "X", "1.50", 100), "Side", 21, "expected B or S");
+		assertMalformed(message("T1", "B", "1.5a", 100), "Price", 26, "expected a digit");
+		assertMalformed(message("T1", "B", "1000000000", 100), "Price", 23,
+				        "the price is too large");
+		assertMalformed(message("T1", "B", "1.50", -1), "Volume", 28, "expected a digit");
+		assertMalformed(message("T1", "B", "1.50", 100, "REPLACE"), "Action", 38, null);
+		assertMalformed(message("", "B", "1.50", 100), "TradeID", 0, "the field is empty");
+		assertMalformed("T1," + BBG_CODE + ",GBP,B,1.50", "Volume", 27,
+				        "the field is missing");
+		assertMalformed(message("T1", "B", "1.50", 100) + ",extra", "ValueDate", 95,
+				        "unexpected field after the ValueDate");
+	}
+
+	@Test
+	void anInvalidTradeTimeIsMalformed() {
+		String line = message("T1", "B", "1.50", 100);
+
+		assertMalformed(line.replace("2024-01-02", "2024-13-02"), "TradeTimeUTC", 65,
+				        "invalid month");
+		assertMalformed(line.replace("2024-01-02", "2023-02-29"), "TradeTimeUTC", 68,
+				        "invalid day");
+		assertMalformed(line.replace("09:00:00", "24:00:00"), "TradeTimeUTC", 71,
+				        "invalid hour");
+		assertMalformed(line.replace("T09", " 09"), "TradeTimeUTC", 70, null);
+	}
+
+	@Test
+	void aHolderIsResetByTheNextParse() {
+		assertFalse(parser.parse(message("T1", "X", "1.50", 100), message));
+		assertTrue(parser.parse(message("T2", "B", "1.50", 100), message));
+
+		assertFalse(message.isMalformed());
+		assertEquals("T2", message.getTradeID());
+	}
+
+	/**
+	 * @param reason The expected reason, or null to skip checking it.
+	 */
+	private void assertMalformed(String line, String field, int position, String reason) {
+		assertFalse(parser.parse(line, message), line);
+		assertTrue(message.isMalformed());
+		assertEquals(field, message.getErrorField(), line);
+		assertEquals(position, message.getErrorPosition(), line);
+		if (reason != null)
+			assertEquals(reason, message.getErrorReason(), line);
+	}
+
+	private static long nanos(String instant) {
+		Instant time = Instant.parse(instant);
+		return time.getEpochSecond() * 1_000_000_000L + time.getNano();
+	}
+}
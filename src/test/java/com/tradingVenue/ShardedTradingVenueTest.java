@@ -0,0 +1,78 @@
+package com.tradingVenue;
+
+import static com.tradingVenue.OrderFixtures.BBG_CODE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * How a sharded venue reports the messages it rejects and the shards which
+ * fail, since both happen after the message has been submitted.
+ *
+ * @author Zane Ali
+ *
+ */
+class ShardedTradingVenueTest {
+
+	@TempDir
+	Path directory;
+
+	private final ShardedTradingVenue venue = new ShardedTradingVenue(2);
+
+	@AfterEach
+	void close() throws IOException {
+		venue.close();
+	}
+
+	@Test
+	void aRejectedMessageIsPassedToTheRejectListener() {
+		List<String> rejects = new ArrayList<String>();
+		venue.setRejectListener((message, reason) ->
+			rejects.add(message.getTradeID() + ": " + reason));
+
+		venue.submitToOrderBook(message("B1"));
+		venue.submitToOrderBook(message("B1"));
+		venue.flush();
+
+		assertEquals(List.of("B1: " + BatchResult.DUPLICATE_TRADE_ID), rejects);
+	}
+
+	@Test
+	void aShardWhichFailsStopsAndFailsEverythingQueuedForIt() throws IOException {
+		int shard = venue.shardFor(BBG_CODE);
+
+		venue.openJournals(directory);
+		venue.callOnShard(shard, shardVenue -> {
+			try {
+				shardVenue.getJournal().close();
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+			return null;
+		}).join();
+
+		venue.submitToOrderBook(message("B1"));
+
+		IllegalStateException e = assertThrows(IllegalStateException.class, venue::flush);
+		assertSame(venue.getFailure(shard), e.getCause());
+
+		assertThrows(IllegalStateException.class,
+				     () -> venue.submitToOrderBook(message("B2")));
+		assertNull(venue.getFailure(1 - shard));
+		assertEquals("running", venue.callOnShard(1 - shard, shardVenue -> "running").join());
+	}
+
+	private static String message(String tradeId) {
+		return OrderFixtures.message(tradeId, "B", "1.50", 100);
+	}
+}
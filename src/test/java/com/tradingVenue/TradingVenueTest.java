@@ -0,0 +1,118 @@
+package com.tradingVenue;
+
+import static com.tradingVenue.OrderFixtures.BBG_CODE;
+import static com.tradingVenue.OrderFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.constant.Types.SideEnum;
+import com.orderBook.OrderBook;
+import com.orderBook.TickSize;
+
+/**
+ * Submitting messages to a venue: what is accepted, and how a message which
+ * is malformed or rejected is reported.
+ *
+ * @author Zane Ali
+ *
+ */
+class TradingVenueTest {
+
+	private final TradingVenue venue = new TradingVenue();
+
+	@Test
+	void restingVolumeIsAggregatedByBbgCodeAndPrice() {
+		venue.submitToOrderBook(message("B1", "B", "1.50", 100, "NEW"));
+		venue.submitToOrderBook(message("B2", "B", "1.50", 50, "NEW"));
+		venue.submitToOrderBook(message("S1", "S", "1.55", 70, "NEW"));
+
+		assertEquals("BBGCode, Price, AggregatedVolume\n" + BBG_CODE + ",1.5000,150\n",
+				     venue.aggregateByBbgCode(SideEnum.B));
+		assertEquals("BBGCode, Price, AggregatedVolume\n" + BBG_CODE + ",1.5500,70\n",
+				     venue.aggregateByBbgCode(SideEnum.S));
+	}
+
+	@Test
+	void aNewOrderWithTheTradeIdOfARestingOrderThrows() {
+		venue.submitToOrderBook(message("B1", "B", "1.50", 100, "NEW"));
+
+		OrderRejectedException e = assertThrows(OrderRejectedException.class,
+				() -> venue.submitToOrderBook(message("B1", "B", "1.51", 100, "NEW")));
+
+		assertEquals(BatchResult.DUPLICATE_TRADE_ID, e.getReason());
+
+		OrderBook book = venue.getOrderBooks().get(BBG_CODE);
+		assertEquals(1, book.getOrderCount());
+		assertEquals(100, book.getRestingOrder("B1").getVolume());
+	}
+
+	@Test
+	void aPriceOffItsTickIsRejectedUnlessItIsACancel() {
+		venue.setTickSize(BBG_CODE, TickSize.of("0.01"));
+
+		OrderRejectedException e = assertThrows(OrderRejectedException.class,
+				() -> venue.submitToOrderBook(message("B1", "B", "1.505", 100, "NEW")));
+		assertEquals(BatchResult.OFF_TICK_PRICE, e.getReason());
+
+		venue.submitToOrderBook(message("B1", "B", "1.5000", 100, "NEW"));
+
+		e = assertThrows(OrderRejectedException.class,
+				() -> venue.submitToOrderBook(message("B1", "B", "1.499", 50, "AMEND")));
+		assertEquals(BatchResult.OFF_TICK_PRICE, e.getReason());
+
+		OrderBook book = venue.getOrderBooks().get(BBG_CODE);
+		assertEquals(100, book.getRestingOrder("B1").getVolume());
+		assertEquals(150, book.getRestingOrder("B1").getPriceTicks());
+
+		venue.submitToOrderBook(message("B1", "B", "1.505", 100, "CANCEL"));
+		assertEquals(0, book.getOrderCount());
+	}
+
+	@Test
+	void aPriceTooLargeToScaleIsMalformed() {
+		assertThrows(MalformedOrderMessageException.class,
+				() -> venue.submitToOrderBook(message("B1", "B", "999999999999999999", 10, "NEW")));
+		assertThrows(MalformedOrderMessageException.class,
+				() -> venue.submitToOrderBook(message("B1", "B", "1000000000", 10, "NEW")));
+
+		venue.submitToOrderBook(message("B1", "B", "999999999.5", 10, "NEW"));
+
+		assertEquals("BBGCode, Price, AggregatedVolume\n" + BBG_CODE + ",999999999.5000,10\n",
+				     venue.aggregateByBbgCode(SideEnum.B));
+	}
+
+	@Test
+	void aReusedResultCountsOnlyTheLatestBatch() {
+		BatchResult result = new BatchResult(8);
+
+		submitBytes(result, message("B1", "B", "1.50", 100), "not a message",
+				    message("B2", "B", "1.50", 100));
+		assertEquals(3, result.size());
+		assertEquals(2, result.getAcceptedCount());
+
+		submitBytes(result, message("S1", "S", "1.50", 150));
+		assertEquals(1, result.size());
+		assertEquals(1, result.getAcceptedCount());
+		assertEquals(2, result.getFillCount(0));
+		assertEquals(8, result.getCapacity());
+	}
+
+	private void submitBytes(BatchResult result, String... messages) {
+		StringBuilder buffer = new StringBuilder();
+		int[] offsets = new int[messages.length];
+		int[] lengths = new int[messages.length];
+
+		for (int i = 0; i < messages.length; i++) {
+			offsets[i] = buffer.length();
+			lengths[i] = messages[i].length();
+			buffer.append(messages[i]);
+		}
+
+		venue.submitBatch(buffer.toString().getBytes(StandardCharsets.UTF_8), offsets, lengths,
+				          messages.length, result);
+	}
+}